@@ -1,7 +1,12 @@
 package io.axway.iron;
 
 import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
 import javax.annotation.*;
+import io.axway.iron.description.Id;
+import io.axway.iron.description.Indexed;
+import io.axway.iron.description.Unique;
 import io.axway.iron.error.ObjectNotFoundException;
 import io.axway.iron.functional.Accessor;
 
@@ -21,10 +26,25 @@ public interface ReadonlyTransaction {
         /**
          * Load all the instances of an entity.
          *
-         * @return a collection that contains all the instances of the selected entity
+         * @return a copy of all the instances of the selected entity
          */
         Collection<E> all();
 
+        /**
+         * Stream all the instances of an entity without copying them, unlike {@link #all()}.<br>
+         * In a {@link Store#query} the stream reads the instances in place, so it must be consumed before the query returns.
+         *
+         * @return a stream of all the instances of the selected entity
+         */
+        Stream<E> stream();
+
+        /**
+         * Apply an action on all the instances of an entity, without copying them in a {@link Store#query}.
+         *
+         * @param action the action to be applied on each instance
+         */
+        void forEach(Consumer<? super E> action);
+
         /**
          * Permit to lookup some specific instance based on a unique constraint.
          *
@@ -33,6 +53,16 @@ public interface ReadonlyTransaction {
          * @return a fluent interface to continue the call
          */
         <V> On<E, V> where(Accessor<E, V> accessor);
+
+        /**
+         * Load the instances of an entity ordered by a member. The member must be annotated with {@link Indexed} {@code (sorted = true)}.<br>
+         * Instances that have a {@code null} value for the member are not returned.
+         *
+         * @param accessor the accessor that correspond to the sorted index member
+         * @param <V> the type of the sorted index member
+         * @return a fluent interface to continue the call
+         */
+        <V> Range<E> orderBy(Accessor<E, V> accessor);
     }
 
     interface On<E, V> {
@@ -54,6 +84,42 @@ public interface ReadonlyTransaction {
         @Nullable
         E equalsToOrNull(V value);
 
+        /**
+         * Load all the instances of the selected entity having a value. The member must be annotated with {@link Indexed}, {@link Unique} or {@link Id}.
+         *
+         * @param value a single value to be looked for
+         * @return a collection that contains the matched instances, in ascending id order. The collection is empty if no instance is matching
+         */
+        Collection<E> allEqualsTo(V value);
+
+        /**
+         * Select the instances of the selected entity having a value strictly greater than a bound. The member must be annotated with
+         * {@link Indexed} {@code (sorted = true)}.
+         *
+         * @param value the exclusive lower bound
+         * @return a fluent interface to continue the call, instances are ordered by the member value
+         */
+        Range<E> greaterThan(V value);
+
+        /**
+         * Select the instances of the selected entity having a value strictly lower than a bound. The member must be annotated with
+         * {@link Indexed} {@code (sorted = true)}.
+         *
+         * @param value the exclusive upper bound
+         * @return a fluent interface to continue the call, instances are ordered by the member value
+         */
+        Range<E> lessThan(V value);
+
+        /**
+         * Select the instances of the selected entity having a value between two bounds. The member must be annotated with
+         * {@link Indexed} {@code (sorted = true)}.
+         *
+         * @param from the inclusive lower bound
+         * @param to the inclusive upper bound
+         * @return a fluent interface to continue the call, instances are ordered by the member value
+         */
+        Range<E> between(V from, V to);
+
         /**
          * Load many instances of the selected entity.
          *
@@ -71,4 +137,29 @@ public interface ReadonlyTransaction {
          */
         Collection<E> someContainedIn(Collection<V> values);
     }
+
+    /**
+     * Instances selected on a sorted index, ordered by the indexed member value. Instances having the same value are ordered by ascending id.
+     */
+    interface Range<E> {
+        /**
+         * @return a fluent interface to continue the call, with the instances ordered by descending member value
+         */
+        Range<E> descending();
+
+        /**
+         * Load the first selected instances.
+         *
+         * @param maxCount the maximum count of instances to be returned
+         * @return a collection that contains at most {@code maxCount} instances, in order
+         */
+        Collection<E> limit(int maxCount);
+
+        /**
+         * Load all the selected instances.
+         *
+         * @return a collection that contains all the selected instances, in order
+         */
+        Collection<E> all();
+    }
 }
@@ -0,0 +1,26 @@
+package io.axway.iron.description;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import io.axway.iron.ReadonlyTransaction;
+import io.axway.iron.functional.Accessor;
+
+/**
+ * This annotation can be used on entity attributes to declare a non unique index. Many entity instances can have the same value for the member, and
+ * all of them can be looked up without scanning the whole entity through {@link ReadonlyTransaction.On#allEqualsTo(Object)}.<br>
+ * A sorted index additionally permits range queries such as {@link ReadonlyTransaction.On#between(Object, Object)} and ordered queries such as
+ * {@link ReadonlyTransaction.From#orderBy(Accessor)}.<br>
+ * The {@code null} value is not indexed.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Indexed {
+    /**
+     * @return {@code true} if the index keeps the values sorted, to support range and ordered queries
+     */
+    boolean sorted() default false;
+}
@@ -0,0 +1,15 @@
+package io.axway.iron.core;
+
+/**
+ * Implementation strategy of the objects that the store creates for the model interfaces.
+ */
+public enum InstanceBackend {
+    /**
+     * JDK dynamic proxies: each method call is dispatched by an invocation handler.
+     */
+    PROXY,
+    /**
+     * A class is generated at build time for each interface, so method calls are direct. The interfaces must be public.
+     */
+    GENERATED_CLASS
+}
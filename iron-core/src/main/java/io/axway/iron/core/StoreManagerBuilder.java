@@ -1,5 +1,6 @@
 package io.axway.iron.core;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.function.*;
 import io.axway.iron.Command;
@@ -34,5 +35,56 @@ public interface StoreManagerBuilder {
 
     StoreManagerBuilder withSnapshotLoadingPostProcessor(BiFunction<SerializableSnapshot, String, SerializableSnapshot> snapshotPostProcessor);
 
+    /**
+     * Enable group commit: transactions submitted concurrently on a store are written together in a single record of the transaction store.
+     *
+     * @param maxBatchSize the maximum number of transactions written in a single record
+     * @param maxLatency the maximum time a submitted transaction waits for others transactions before being written
+     */
+    StoreManagerBuilder withGroupCommit(int maxBatchSize, Duration maxLatency);
+
+    /**
+     * Apply the transactions of different stores in parallel. The transactions of a same store are still applied one after the other, in the order of
+     * the transaction store.
+     *
+     * @param threadCount the number of threads used to apply the transactions, {@code 1} keeps the transactions of all the stores applied sequentially
+     */
+    StoreManagerBuilder withParallelStoreExecution(int threadCount);
+
+    /**
+     * Recover the stores from their snapshots in parallel at startup. When the stores are recovered in parallel, the snapshot loading post processor
+     * may be called concurrently for different stores. The entities of each store are also recovered in parallel.
+     *
+     * @param threadCount the number of threads used to recover the stores, and the entities of the stores, {@code 1} keeps the stores and their entities
+     * recovered one after the other
+     */
+    StoreManagerBuilder withParallelRecovery(int threadCount);
+
+    /**
+     * Select how entity instances are implemented, {@link InstanceBackend#PROXY} by default.
+     */
+    StoreManagerBuilder withEntityBackend(InstanceBackend entityBackend);
+
+    /**
+     * Select how commands are implemented, {@link InstanceBackend#PROXY} by default.
+     */
+    StoreManagerBuilder withCommandBackend(InstanceBackend commandBackend);
+
+    /**
+     * Execute the queries on the latest version of the store committed when they start, so queries never wait for the transactions being applied nor
+     * delay them. Each transaction publishes a new version of the store, that copies the id sets and instance attributes modified by the transaction.
+     *
+     * @param multiVersionQueries {@code true} to enable the multi version queries, disabled by default
+     */
+    StoreManagerBuilder withMultiVersionQueries(boolean multiVersionQueries);
+
+    /**
+     * Freeze the stores when a snapshot is taken and serialize the frozen version afterwards, so the transactions are only paused while the stores
+     * are frozen instead of during the whole serialization. The stores are versioned as with {@link #withMultiVersionQueries(boolean)}.
+     *
+     * @param nonBlockingSnapshots {@code true} to enable the non blocking snapshots, disabled by default
+     */
+    StoreManagerBuilder withNonBlockingSnapshots(boolean nonBlockingSnapshots);
+
     StoreManager build();
 }
@@ -4,9 +4,11 @@ import java.io.*;
 import java.math.BigInteger;
 import java.util.*;
 import io.axway.iron.core.internal.entity.EntityStore;
+import io.axway.iron.core.internal.entity.StoreVersions;
 import io.axway.iron.error.StoreException;
 import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
 import io.axway.iron.spi.serializer.SnapshotSerializer;
+import io.axway.iron.spi.serializer.SnapshotWriter;
 import io.axway.iron.spi.storage.SnapshotStore;
 
 import static io.axway.iron.spi.model.snapshot.SerializableSnapshot.SNAPSHOT_MODEL_VERSION;
@@ -17,6 +19,7 @@ public class SnapshotPersistence {
     private SnapshotSerializer m_snapshotSerializer;
     private BigInteger m_transactionId;
     private long m_applicationModelVersion;
+    private final Map<String, FrozenStore> m_frozenStores = new LinkedHashMap<>();
 
     public SnapshotPersistence(long applicationModelVersion, SnapshotStore snapshotStore, SnapshotSerializer snapshotSerializer, BigInteger transactionId) {
         m_applicationModelVersion = applicationModelVersion;
@@ -25,21 +28,75 @@ public class SnapshotPersistence {
         m_snapshotWriter = snapshotStore.createSnapshotWriter(m_transactionId);
     }
 
+    public BigInteger getTransactionId() {
+        return m_transactionId;
+    }
+
     public void persist(String storeName, List<EntityStore<?>> entityStores) {
-        SerializableSnapshot serializableSnapshot = new SerializableSnapshot();
-        serializableSnapshot.setSnapshotModelVersion(SNAPSHOT_MODEL_VERSION);
-        serializableSnapshot.setApplicationModelVersion(m_applicationModelVersion);
-        serializableSnapshot.setTransactionId(m_transactionId);
-        serializableSnapshot.setEntities(entityStores.stream().map(EntityStore::snapshot).collect(toList()));
-
-        try (OutputStream out = m_snapshotWriter.getOutputStream(storeName)) {
-            m_snapshotSerializer.serializeSnapshot(out, serializableSnapshot);
-        } catch (IOException e) {
+        write(storeName, snapshotWriter -> {
+            for (EntityStore<?> entityStore : entityStores) {
+                entityStore.snapshot(snapshotWriter);
+            }
+        });
+    }
+
+    /**
+     * Freeze a store, it is persisted on {@link #commit()}. The store must not be modified while being frozen.
+     */
+    public void freeze(String storeName, List<EntityStore<?>> entityStores, StoreVersions storeVersions) {
+        List<EntityStore.FrozenEntityStore> frozenEntityStores = entityStores.stream().map(EntityStore::freeze).collect(toList());
+        m_frozenStores.put(storeName, new FrozenStore(frozenEntityStores, storeVersions.freeze()));
+    }
+
+    private void write(String storeName, EntityStore.FrozenEntityStore entities) {
+        SerializableSnapshot snapshotHeader = new SerializableSnapshot();
+        snapshotHeader.setSnapshotModelVersion(SNAPSHOT_MODEL_VERSION);
+        snapshotHeader.setApplicationModelVersion(m_applicationModelVersion);
+        snapshotHeader.setTransactionId(m_transactionId);
+
+        // the instances are streamed to the output without building the whole snapshot in memory
+        try (OutputStream out = m_snapshotWriter.getOutputStream(storeName);
+             SnapshotWriter snapshotWriter = m_snapshotSerializer.createSnapshotWriter(out, snapshotHeader)) {
+            entities.snapshot(snapshotWriter);
+        } catch (IOException | UncheckedIOException e) {
             throw new StoreException("Error when creating the store snapshot", args -> args.add("transactionId", m_transactionId), e);
         }
     }
 
     public void commit() {
+        try {
+            for (Map.Entry<String, FrozenStore> frozenStore : m_frozenStores.entrySet()) {
+                write(frozenStore.getKey(), frozenStore.getValue()::snapshot);
+            }
+        } finally {
+            // the frozen versions are released even on error, else they would never be pruned
+            m_frozenStores.values().forEach(frozenStore -> frozenStore.m_frozenVersion.close());
+        }
         m_snapshotWriter.commit();
     }
+
+    private static final class FrozenStore {
+        private final List<EntityStore.FrozenEntityStore> m_frozenEntityStores;
+        private final StoreVersions.FrozenVersion m_frozenVersion;
+
+        private FrozenStore(List<EntityStore.FrozenEntityStore> frozenEntityStores, StoreVersions.FrozenVersion frozenVersion) {
+            m_frozenEntityStores = frozenEntityStores;
+            m_frozenVersion = frozenVersion;
+        }
+
+        private void snapshot(SnapshotWriter snapshotWriter) {
+            try (m_frozenVersion) {
+                m_frozenVersion.read(() -> {
+                    try {
+                        for (EntityStore.FrozenEntityStore frozenEntityStore : m_frozenEntityStores) {
+                            frozenEntityStore.snapshot(snapshotWriter);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return null;
+                });
+            }
+        }
+    }
 }
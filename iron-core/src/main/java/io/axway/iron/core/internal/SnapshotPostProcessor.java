@@ -15,24 +15,31 @@ class SnapshotPostProcessor {
         m_processor = processor;
     }
 
+    /**
+     * Post process the snapshot of a store. Stores may be post processed concurrently, only the application model version checks are synchronized.
+     */
     SerializableSnapshot apply(String storeName, SerializableSnapshot serializableSnapshot) {
-        m_beforePostProcessingVersion = updateVersionAndCheckConsistency(m_beforePostProcessingVersion, serializableSnapshot.getApplicationModelVersion(),
-                                                                         "Snapshot serializable application model version differs among the stores");
+        synchronized (this) {
+            m_beforePostProcessingVersion = updateVersionAndCheckConsistency(m_beforePostProcessingVersion, serializableSnapshot.getApplicationModelVersion(),
+                                                                             "Snapshot serializable application model version differs among the stores");
+        }
 
         SerializableSnapshot finalSnapshot = m_processor.apply(serializableSnapshot, storeName);
         // consistency check after postProcess
-        m_afterPostProcessingVersion = updateVersionAndCheckConsistency(m_afterPostProcessingVersion, finalSnapshot.getApplicationModelVersion(),
-                                                                        "Snapshot serializable application model version differs among the stores after post processing");
+        synchronized (this) {
+            m_afterPostProcessingVersion = updateVersionAndCheckConsistency(m_afterPostProcessingVersion, finalSnapshot.getApplicationModelVersion(),
+                                                                            "Snapshot serializable application model version differs among the stores after post processing");
 
-        if (m_afterPostProcessingVersion < m_beforePostProcessingVersion) {
-            throw new UnrecoverableStoreException("Application model version can not be decreased",
-                                                  args -> args.add("oldApplicationModelVersion", m_beforePostProcessingVersion)
-                                                          .add("newApplicationModelVersion", m_afterPostProcessingVersion));
+            if (m_afterPostProcessingVersion < m_beforePostProcessingVersion) {
+                throw new UnrecoverableStoreException("Application model version can not be decreased",
+                                                      args -> args.add("oldApplicationModelVersion", m_beforePostProcessingVersion)
+                                                              .add("newApplicationModelVersion", m_afterPostProcessingVersion));
+            }
         }
         return finalSnapshot;
     }
 
-    long getConsistentApplicationModelVersion() {
+    synchronized long getConsistentApplicationModelVersion() {
         long applicationModelVersion = 0;
         if (m_beforePostProcessingVersion > 0) {
             applicationModelVersion = m_beforePostProcessingVersion;
@@ -1,10 +1,12 @@
 package io.axway.iron.core.internal;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.function.*;
 import java.util.stream.*;
 import io.axway.iron.Command;
 import io.axway.iron.StoreManager;
+import io.axway.iron.core.InstanceBackend;
 import io.axway.iron.core.StoreManagerBuilder;
 import io.axway.iron.core.internal.command.CommandProxyFactory;
 import io.axway.iron.core.internal.definition.DataTypeManager;
@@ -13,6 +15,7 @@ import io.axway.iron.core.internal.definition.command.CommandDefinition;
 import io.axway.iron.core.internal.definition.command.CommandDefinitionBuilder;
 import io.axway.iron.core.internal.definition.entity.EntityDefinition;
 import io.axway.iron.core.internal.definition.entity.EntityDefinitionBuilder;
+import io.axway.iron.core.internal.entity.GeneratedInstanceClasses;
 import io.axway.iron.core.internal.utils.IntrospectionHelper;
 import io.axway.iron.core.internal.utils.proxy.ProxyConstructorFactory;
 import io.axway.iron.core.internal.command.management.ReadonlyCommand;
@@ -22,7 +25,7 @@ import io.axway.iron.spi.serializer.TransactionSerializer;
 import io.axway.iron.spi.storage.SnapshotStore;
 import io.axway.iron.spi.storage.TransactionStore;
 
-import static io.axway.alf.assertion.Assertion.checkState;
+import static io.axway.alf.assertion.Assertion.*;
 
 public class StoreManagerBuilderImpl implements StoreManagerBuilder {
 
@@ -33,6 +36,14 @@ public class StoreManagerBuilderImpl implements StoreManagerBuilder {
     private SnapshotSerializer m_snapshotSerializer;
     private SnapshotStore m_snapshotStore;
     private BiFunction<SerializableSnapshot, String, SerializableSnapshot> m_snapshotPostProcessor;
+    private int m_groupCommitMaxBatchSize = 1;
+    private Duration m_groupCommitMaxLatency;
+    private Integer m_executionThreadCount;
+    private InstanceBackend m_entityBackend;
+    private InstanceBackend m_commandBackend;
+    private Boolean m_multiVersionQueries;
+    private Boolean m_nonBlockingSnapshots;
+    private Integer m_recoveryThreadCount;
 
     public StoreManagerBuilderImpl() {
     }
@@ -88,6 +99,60 @@ public class StoreManagerBuilderImpl implements StoreManagerBuilder {
         return this;
     }
 
+    @Override
+    public StoreManagerBuilder withGroupCommit(int maxBatchSize, Duration maxLatency) {
+        checkState(m_groupCommitMaxLatency == null, "Group commit has been already set");
+        checkArgument(maxBatchSize > 0, "Group commit batch size must be positive", args -> args.add("maxBatchSize", maxBatchSize));
+        checkArgument(!maxLatency.isNegative(), "Group commit latency must not be negative", args -> args.add("maxLatency", maxLatency));
+        m_groupCommitMaxBatchSize = maxBatchSize;
+        m_groupCommitMaxLatency = maxLatency;
+        return this;
+    }
+
+    @Override
+    public StoreManagerBuilder withParallelStoreExecution(int threadCount) {
+        checkState(m_executionThreadCount == null, "Parallel store execution has been already set");
+        checkArgument(threadCount > 0, "Thread count must be positive", args -> args.add("threadCount", threadCount));
+        m_executionThreadCount = threadCount;
+        return this;
+    }
+
+    @Override
+    public StoreManagerBuilder withParallelRecovery(int threadCount) {
+        checkState(m_recoveryThreadCount == null, "Parallel recovery has been already set");
+        checkArgument(threadCount > 0, "Thread count must be positive", args -> args.add("threadCount", threadCount));
+        m_recoveryThreadCount = threadCount;
+        return this;
+    }
+
+    @Override
+    public StoreManagerBuilder withEntityBackend(InstanceBackend entityBackend) {
+        checkState(m_entityBackend == null, "Entity backend has been already set");
+        m_entityBackend = entityBackend;
+        return this;
+    }
+
+    @Override
+    public StoreManagerBuilder withCommandBackend(InstanceBackend commandBackend) {
+        checkState(m_commandBackend == null, "Command backend has been already set");
+        m_commandBackend = commandBackend;
+        return this;
+    }
+
+    @Override
+    public StoreManagerBuilder withMultiVersionQueries(boolean multiVersionQueries) {
+        checkState(m_multiVersionQueries == null, "Multi version queries has been already set");
+        m_multiVersionQueries = multiVersionQueries;
+        return this;
+    }
+
+    @Override
+    public StoreManagerBuilder withNonBlockingSnapshots(boolean nonBlockingSnapshots) {
+        checkState(m_nonBlockingSnapshots == null, "Non blocking snapshots has been already set");
+        m_nonBlockingSnapshots = nonBlockingSnapshots;
+        return this;
+    }
+
     @Override
     public StoreManager build() {
         checkState(m_transactionSerializer != null, "Transaction serializer has not been specified");
@@ -109,11 +174,16 @@ public class StoreManagerBuilderImpl implements StoreManagerBuilder {
         Collection<CommandDefinition<? extends Command<?>>> commandDefinitions = buildCommandDefinitions(commandDefinitionBuilder);
         Map<Class<?>, EntityDefinition<?>> entityDefinitions = entityDefinitionBuilder.analyzeEntities(Set.copyOf(m_entityClasses));
 
-        CommandProxyFactory commandProxyFactory = new CommandProxyFactory(commandDefinitions);
+        CommandProxyFactory commandProxyFactory = new CommandProxyFactory(commandDefinitions, m_commandBackend == null ? InstanceBackend.PROXY : m_commandBackend);
+        GeneratedInstanceClasses generatedInstanceClasses =
+                m_entityBackend == InstanceBackend.GENERATED_CLASS ? new GeneratedInstanceClasses(entityDefinitions.values()) : null;
 
-        return new StoreManagerImpl(m_transactionSerializer, m_transactionStore, m_snapshotSerializer, m_snapshotStore,
-                                    m_snapshotPostProcessor == null ? (snapshot, storeName) -> snapshot : m_snapshotPostProcessor, introspectionHelper,
-                                    commandProxyFactory, commandDefinitions, entityDefinitions);
+        return new StoreManagerImpl(m_transactionSerializer, m_transactionStore, m_snapshotSerializer, m_snapshotStore, m_snapshotPostProcessor,
+                                    introspectionHelper, commandProxyFactory, commandDefinitions, entityDefinitions, m_groupCommitMaxBatchSize,
+                                    m_groupCommitMaxLatency, m_executionThreadCount == null ? 1 : m_executionThreadCount,
+                                    m_recoveryThreadCount == null ? 1 : m_recoveryThreadCount,
+                                    generatedInstanceClasses, m_multiVersionQueries != null && m_multiVersionQueries,
+                                    m_nonBlockingSnapshots != null && m_nonBlockingSnapshots);
     }
 
     private Collection<CommandDefinition<? extends Command<?>>> buildCommandDefinitions(CommandDefinitionBuilder commandDefinitionBuilder) {
@@ -1,6 +1,7 @@
 package io.axway.iron.core.internal;
 
 import java.math.BigInteger;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.locks.*;
@@ -23,7 +24,9 @@ import io.axway.iron.core.internal.definition.entity.EntityDefinition;
 import io.axway.iron.core.internal.definition.entity.RelationDefinition;
 import io.axway.iron.core.internal.entity.EntityStore;
 import io.axway.iron.core.internal.entity.EntityStores;
+import io.axway.iron.core.internal.entity.GeneratedInstanceClasses;
 import io.axway.iron.core.internal.entity.RelationStore;
+import io.axway.iron.core.internal.entity.StoreVersions;
 import io.axway.iron.core.internal.transaction.ReadonlyTransactionImpl;
 import io.axway.iron.core.internal.transaction.ReadWriteTransactionImpl;
 import io.axway.iron.core.internal.utils.IntrospectionHelper;
@@ -53,11 +56,20 @@ class StoreManagerImpl implements StoreManager {
     private final CommandProxyFactory m_commandProxyFactory;
     private final Map<Class<?>, EntityDefinition<?>> m_entityDefinitions;
     private final StorePersistence m_storePersistence;
+    @Nullable
+    private final GeneratedInstanceClasses m_generatedInstanceClasses;
+    private final boolean m_multiVersionQueries;
+    private final boolean m_nonBlockingSnapshots;
+    private final Lock m_nonBlockingSnapshotLock = new ReentrantLock();
 
     private final Cache<String, CompletableFuture<List<Object>>> m_futuresBySynchronizationId = CacheBuilder.newBuilder().weakValues().build();
     private final SnapshotStore m_snapshotStore;
 
-    private BigInteger m_currentTxId = BigInteger.ONE.negate();
+    @Nullable
+    private final StoreTransactionDispatcher m_transactionDispatcher;
+
+    private volatile BigInteger m_currentTxId = BigInteger.ONE.negate();
+    private BigInteger m_lastDispatchedTxId = BigInteger.ONE.negate();
     private BigInteger m_lastSnapshotTxId = BigInteger.ONE.negate();
 
     private Disposable m_disposableTxFlow;
@@ -67,28 +79,37 @@ class StoreManagerImpl implements StoreManager {
     public static final String READONLY_ERROR = "ReadWriteTransaction can't be executed, store is in readonly";
 
     StoreManagerImpl(TransactionSerializer transactionSerializer, TransactionStore transactionStore, SnapshotSerializer snapshotSerializer,
-                     SnapshotStore snapshotStore, BiFunction<SerializableSnapshot, String, SerializableSnapshot> snapshotPostProcessor,
+                     SnapshotStore snapshotStore, @Nullable BiFunction<SerializableSnapshot, String, SerializableSnapshot> snapshotPostProcessor,
                      IntrospectionHelper introspectionHelper, CommandProxyFactory commandProxyFactory,
-                     Collection<CommandDefinition<? extends Command<?>>> commandDefinitions, Map<Class<?>, EntityDefinition<?>> entityDefinitions) {
+                     Collection<CommandDefinition<? extends Command<?>>> commandDefinitions, Map<Class<?>, EntityDefinition<?>> entityDefinitions,
+                     int groupCommitMaxBatchSize, @Nullable Duration groupCommitMaxLatency, int executionThreadCount, int recoveryThreadCount,
+                     @Nullable GeneratedInstanceClasses generatedInstanceClasses, boolean multiVersionQueries,
+                     boolean nonBlockingSnapshots) {
         m_transactionStore = transactionStore;
         m_introspectionHelper = introspectionHelper;
         m_commandProxyFactory = commandProxyFactory;
         m_entityDefinitions = entityDefinitions;
+        m_generatedInstanceClasses = generatedInstanceClasses;
+        m_multiVersionQueries = multiVersionQueries;
+        m_nonBlockingSnapshots = nonBlockingSnapshots;
         m_snapshotStore = snapshotStore;
         m_storePersistence = new StorePersistence(m_commandProxyFactory, m_transactionStore, transactionSerializer, m_snapshotStore, snapshotSerializer,
-                                                  commandDefinitions);
+                                                  commandDefinitions, groupCommitMaxBatchSize, groupCommitMaxLatency);
+        m_transactionDispatcher = executionThreadCount > 1 ? new StoreTransactionDispatcher(executionThreadCount, txId -> m_currentTxId = txId) : null;
 
         m_storePersistence.
                 loadStores(storeName -> {
                     StoreImpl store = createStore(storeName);
                     m_stores.put(storeName, store);
                     return store.entityStores();
-                }, snapshotPostProcessor).
+                }, snapshotPostProcessor, recoveryThreadCount).
                 ifPresent(lastTx -> {
                     m_currentTxId = lastTx;
+                    m_lastDispatchedTxId = lastTx;
                     m_lastSnapshotTxId = lastTx;
                     m_transactionStore.seekTransaction(lastTx);
                 });
+        m_stores.values().forEach(StoreImpl::publishVersion);
 
         ConnectableFlowable<StorePersistence.TransactionToExecute> connectableTransactions = m_storePersistence.allTransactions().publish();
 
@@ -109,6 +130,9 @@ class StoreManagerImpl implements StoreManager {
         if (!(error instanceof TimeoutException) && !(error instanceof NoSuchElementException)) {
             throw new UnrecoverableStoreException(error);
         }
+        if (m_transactionDispatcher != null) {
+            m_transactionDispatcher.awaitDrained();
+        }
     }
 
     @Override
@@ -116,7 +140,11 @@ class StoreManagerImpl implements StoreManager {
         LOG.debug("A store manager is going to be closed");
         ensureOpen();
         m_closed = true;
+        m_storePersistence.close();
         m_disposableTxFlow.dispose();
+        if (m_transactionDispatcher != null) {
+            m_transactionDispatcher.close();
+        }
         m_transactionStore.close();
         m_snapshotStore.close();
     }
@@ -145,6 +173,18 @@ class StoreManagerImpl implements StoreManager {
     public BigInteger snapshot() {
         ensureOpen();
 
+        if (m_nonBlockingSnapshots) {
+            return snapshotFrozenStores();
+        }
+        if (m_transactionDispatcher != null) {
+            // the snapshot must not contain transactions applied after the watermark, so the dispatch of new transactions is paused
+            return m_transactionDispatcher.executeDrained(this::snapshotStores);
+        }
+        return snapshotStores();
+    }
+
+    @Nullable
+    private BigInteger snapshotStores() {
         if (m_currentTxId.compareTo(m_lastSnapshotTxId) > 0) {
 
             BigInteger tx = m_currentTxId;
@@ -167,6 +207,46 @@ class StoreManagerImpl implements StoreManager {
         }
     }
 
+    /**
+     * Freeze the stores while no transaction is applied, then persist the frozen versions while the transactions keep being applied.
+     */
+    @Nullable
+    private BigInteger snapshotFrozenStores() {
+        m_nonBlockingSnapshotLock.lock();
+        try {
+            SnapshotPersistence snapshotPersistence = m_transactionDispatcher != null ? m_transactionDispatcher.executeDrained(this::freezeStores) :
+                    freezeStores();
+            if (snapshotPersistence == null) {
+                return null;
+            }
+            snapshotPersistence.commit();
+
+            BigInteger tx = snapshotPersistence.getTransactionId();
+            m_lastSnapshotTxId = tx;
+            return tx;
+        } finally {
+            m_nonBlockingSnapshotLock.unlock();
+        }
+    }
+
+    @Nullable
+    private SnapshotPersistence freezeStores() {
+        if (m_currentTxId.compareTo(m_lastSnapshotTxId) <= 0) {
+            return null;
+        }
+        SnapshotPersistence snapshotPersistence = m_storePersistence.buildSnapshotPersistence(m_currentTxId);
+        m_stores.forEach((storeName, store) -> {
+            store.m_readLock.lock();
+            try {
+                //noinspection ConstantConditions
+                snapshotPersistence.freeze(storeName, store.entityStores().toList(), store.m_storeVersions);
+            } finally {
+                store.m_readLock.unlock();
+            }
+        });
+        return snapshotPersistence;
+    }
+
     @Override
     public BigInteger lastSnapshotTransactionId() {
         return m_lastSnapshotTxId;
@@ -200,94 +280,141 @@ class StoreManagerImpl implements StoreManager {
 
     private StoreImpl createStore(String storeName) {
         checkArgument(STORE_NAME_VALIDATOR_PATTERN.matcher(storeName).matches(), "Invalid store name", args -> args.add("storeName", storeName));
-        EntityStores entityStores = createEntityStores();
-        return new StoreImpl(storeName, entityStores);
+        StoreVersions storeVersions = m_multiVersionQueries || m_nonBlockingSnapshots ? new StoreVersions() : null;
+        EntityStores entityStores = createEntityStores(storeVersions);
+        return new StoreImpl(storeName, entityStores, storeVersions);
     }
 
-    private EntityStores createEntityStores() {
+    private EntityStores createEntityStores(@Nullable StoreVersions storeVersions) {
         Map<RelationDefinition, RelationStore> relationStores = m_entityDefinitions.values().stream().
                 flatMap(entityDefinition -> entityDefinition.getRelations().values().stream()).
                 collect(Collectors.toUnmodifiableMap( //
                                                       relationDefinition -> relationDefinition, //
-                                                      RelationStore::newRelationStore));
+                                                      relationDefinition -> RelationStore.newRelationStore(relationDefinition, storeVersions)));
 
         Map<Class<?>, EntityStore<?>> entityStores = m_entityDefinitions.values().stream().
                 collect(Collectors.toUnmodifiableMap( //
                                                       EntityDefinition::getEntityClass, //
-                                                      entityDefinition -> createEntityStore(entityDefinition, relationStores)));
+                                                      entityDefinition -> createEntityStore(entityDefinition, relationStores, storeVersions)));
 
         for (EntityStore<?> entityStore : entityStores.values()) {
-            entityStore.init(entityStores, relationStores);
+            entityStore.init(entityStores, relationStores, m_generatedInstanceClasses);
         }
 
         return new EntityStores(entityStores.values());
     }
 
-    private <E> EntityStore<E> createEntityStore(EntityDefinition<E> entityDefinition, Map<RelationDefinition, RelationStore> relationStores) {
-        return new EntityStore<>(entityDefinition, relationStores);
+    private <E> EntityStore<E> createEntityStore(EntityDefinition<E> entityDefinition, Map<RelationDefinition, RelationStore> relationStores,
+                                                 @Nullable StoreVersions storeVersions) {
+        return new EntityStore<>(entityDefinition, relationStores, storeVersions);
     }
 
-    private void processTransaction(StorePersistence.TransactionToExecute transaction) {
-        BigInteger txId = transaction.getTxId();
-        CompletableFuture<List<Object>> transactionFuture = m_futuresBySynchronizationId.getIfPresent(transaction.getSynchronizationId());
-        // if m_currentTxId == 0, this is the particular case of a "bootstrap snapshot" loaded at the very first start (i.e. a snapshot that does not come from passed transactions).
+    private void processTransaction(StorePersistence.TransactionToExecute record) {
+        BigInteger txId = record.getTxId();
+        // if m_lastDispatchedTxId == 0, this is the particular case of a "bootstrap snapshot" loaded at the very first start (i.e. a snapshot that does not come from passed transactions).
         // in this case, the first txId may be 0 but we don't want to skip it
-        if (txId.compareTo(m_currentTxId) > 0 || m_currentTxId.equals(BigInteger.ZERO)) {
-            List<Command<?>> commands = transaction.getCommands();
-            Object[] results = new Object[commands.size()];
-            Throwable error = null;
+        if (txId.compareTo(m_lastDispatchedTxId) > 0 || m_lastDispatchedTxId.equals(BigInteger.ZERO)) {
+            m_lastDispatchedTxId = txId;
+            if (m_transactionDispatcher != null) {
+                m_transactionDispatcher.dispatch(record.getStoreName(), txId, () -> applyTransaction(record));
+            } else {
+                applyTransaction(record);
+            }
+        } else {
+            LOG.error("Transaction was already processed and will be ignored",
+                      args -> args.add("transactionId", txId).add("latestProcessedTransactionId", m_lastDispatchedTxId));
+            record.getTransactions().stream().map(transaction -> m_futuresBySynchronizationId.getIfPresent(transaction.getSynchronizationId()))
+                    .filter(Objects::nonNull).forEach(txFuture -> txFuture.complete(List.of())); // do not block anyway
+        }
+    }
+
+    /**
+     * Apply the transactions of a transaction store record and complete their futures.
+     *
+     * @return {@code true} if the store has been updated, so the record transaction id is now processed
+     */
+    private boolean applyTransaction(StorePersistence.TransactionToExecute record) {
+        BigInteger txId = record.getTxId();
+        List<StorePersistence.TransactionToExecute> transactions = record.getTransactions();
+        List<CompletableFuture<List<Object>>> transactionFutures = transactions.stream()
+                .map(transaction -> m_futuresBySynchronizationId.getIfPresent(transaction.getSynchronizationId())).collect(Collectors.toList());
+        Object[][] results = new Object[transactions.size()][];
+        Throwable[] errors = new Throwable[transactions.size()];
+        boolean applied = false;
+        try {
+            if (record.getStoreName().equals(SYSTEM_STORE_NAME)) {
+                transactionFutures.stream().filter(Objects::nonNull).forEach(txFuture -> txFuture.complete(Collections.singletonList(null)));
+                return false;
+            }
+            if (transactions.stream().allMatch(transaction -> transaction instanceof StorePersistence.TransactionToDiscard)) {
+                transactionFutures.stream().filter(Objects::nonNull)
+                        .forEach(txFuture -> txFuture.completeExceptionally(new ReadonlyException(READONLY_ERROR)));
+                return false;
+            }
+            StoreImpl store = getStore(record.getStoreName());
+            store.m_writeLock.lock();
             try {
-                if (transaction.getStoreName().equals(SYSTEM_STORE_NAME)) {
-                    Optional.ofNullable(transactionFuture).ifPresent(txFuture -> txFuture.complete(Collections.singletonList(null)));
-                    return;
+                for (int i = 0; i < transactions.size(); i++) {
+                    results[i] = new Object[transactions.get(i).getCommands().size()];
+                    errors[i] = executeTransaction(store, txId, transactions.get(i), results[i]);
                 }
-                if (transaction instanceof StorePersistence.TransactionToDiscard) {
-                    Optional.ofNullable(transactionFuture).ifPresent(txFuture -> {
-                        txFuture.completeExceptionally(new ReadonlyException(READONLY_ERROR));
-                    });
-                    return;
-                }
-                StoreImpl store = getStore(transaction.getStoreName());
-                ReadWriteTransactionImpl tx = new ReadWriteTransactionImpl(m_introspectionHelper, store.entityStores());
-                store.m_writeLock.lock();
-                try {
-                    for (int i = 0; i < commands.size(); i++) {
-                        Command<?> command = commands.get(i);
-                        results[i] = command.execute(tx);
-                        int activeObjectUpdaterCount = tx.getActiveObjectUpdaterCount();
-                        if (activeObjectUpdaterCount > 0) {
-                            String commandName = m_commandProxyFactory.getCommandName(command);
-                            throw new MalformedCommandException(
-                                    "Command leaves some active ObjectUpdater. Command need to be fixed. Transaction has been rollbacked",
-                                    args -> args.add("commandName", commandName).add("activeObjectUpdaterCount", activeObjectUpdaterCount));
-                        }
-                    }
-                } catch (Exception e) {
-                    error = e;
-                    tx.rollback();
-                    LOG.info("Transaction failed and rollbacked", args -> args.add("transactionId", txId), error);
-                } finally {
+            } finally {
+                applied = true;
+                if (m_transactionDispatcher == null) {
+                    // the watermark is updated before the futures are completed, so a snapshot taken just after includes this transaction
                     m_currentTxId = txId;
-                    store.m_writeLock.unlock();
                 }
-            } catch (Exception e) {
-                error = e;
-                LOG.info("Error processing transaction", args -> args.add("transactionId", txId), error);
+                store.publishVersion();
+                store.m_writeLock.unlock();
             }
+        } catch (Exception e) {
+            Arrays.fill(errors, e);
+            LOG.info("Error processing transaction", args -> args.add("transactionId", txId), e);
+        }
 
+        for (int i = 0; i < transactions.size(); i++) {
+            CompletableFuture<List<Object>> transactionFuture = transactionFutures.get(i);
             if (transactionFuture != null) {
-                if (error != null) {
-                    transactionFuture.completeExceptionally(error);
+                if (errors[i] != null) {
+                    transactionFuture.completeExceptionally(errors[i]);
                 } else {
-                    transactionFuture.complete(Arrays.asList(results)); // List.of cannot be used since results can contains nulls values
+                    transactionFuture.complete(Arrays.asList(results[i])); // List.of cannot be used since results can contains nulls values
                 }
             }
-        } else {
-            LOG.error("Transaction was already processed and will be ignored",
-                      args -> args.add("transactionId", txId).add("latestProcessedTransactionId", m_currentTxId));
-            if (transactionFuture != null) {
-                transactionFuture.complete(List.of()); // do not block anyway
+        }
+        return applied;
+    }
+
+    /**
+     * Execute the commands of a transaction, the store write lock must be held by the caller.
+     *
+     * @return the error that caused the transaction to be rollbacked, or {@code null} if the transaction succeeded
+     */
+    @Nullable
+    private Throwable executeTransaction(StoreImpl store, BigInteger txId, StorePersistence.TransactionToExecute transaction, Object[] results) {
+        if (transaction instanceof StorePersistence.TransactionToDiscard) {
+            return new ReadonlyException(READONLY_ERROR);
+        }
+        List<Command<?>> commands = transaction.getCommands();
+        ReadWriteTransactionImpl tx = new ReadWriteTransactionImpl(m_introspectionHelper, store.entityStores());
+        try {
+            for (int i = 0; i < commands.size(); i++) {
+                Command<?> command = commands.get(i);
+                results[i] = command.execute(tx);
+                int activeObjectUpdaterCount = tx.getActiveObjectUpdaterCount();
+                if (activeObjectUpdaterCount > 0) {
+                    String commandName = m_commandProxyFactory.getCommandName(command);
+                    throw new MalformedCommandException("Command leaves some active ObjectUpdater. Command need to be fixed. Transaction has been rollbacked",
+                                                        args -> args.add("commandName", commandName)
+                                                                .add("activeObjectUpdaterCount", activeObjectUpdaterCount));
+                }
             }
+            return null;
+        } catch (Exception e) {
+            tx.rollback();
+            LOG.info("Transaction failed and rollbacked", args -> args.add("transactionId", txId).add("synchronizationId", transaction.getSynchronizationId()),
+                     e);
+            return e;
         }
     }
 
@@ -302,11 +429,14 @@ class StoreManagerImpl implements StoreManager {
         private final ReadWriteLock m_readWriteLock = new ReentrantReadWriteLock();
         private final Lock m_readLock = m_readWriteLock.readLock();
         private final Lock m_writeLock = m_readWriteLock.writeLock();
+        @Nullable
+        private final StoreVersions m_storeVersions;
 
-        private StoreImpl(String storeName, EntityStores entityStores) {
+        private StoreImpl(String storeName, EntityStores entityStores, @Nullable StoreVersions storeVersions) {
             m_storeName = storeName;
             m_readonlyTransaction = new ReadonlyTransactionImpl(m_introspectionHelper, entityStores);
             m_entityStores = entityStores;
+            m_storeVersions = storeVersions;
         }
 
         @Override
@@ -347,18 +477,20 @@ class StoreManagerImpl implements StoreManager {
 
         @Override
         public void query(Consumer<ReadonlyTransaction> storeQuery) {
-            ensureOpen();
-            m_readLock.lock();
-            try {
-                storeQuery.accept(m_readonlyTransaction);
-            } finally {
-                m_readLock.unlock();
-            }
+            query(readonlyTransaction -> {
+                storeQuery.accept(readonlyTransaction);
+                return null;
+            });
         }
 
         @Override
         public <T> T query(Function<ReadonlyTransaction, T> storeQuery) {
             ensureOpen();
+            if (m_multiVersionQueries) {
+                // multi version queries read the latest published version without locking the store
+                //noinspection ConstantConditions
+                return m_storeVersions.read(() -> storeQuery.apply(m_readonlyTransaction));
+            }
             m_readLock.lock();
             try {
                 return storeQuery.apply(m_readonlyTransaction);
@@ -370,6 +502,15 @@ class StoreManagerImpl implements StoreManager {
         private EntityStores entityStores() {
             return m_entityStores;
         }
+
+        /**
+         * Publish the modifications of the last transactions to the multi version queries, the store write lock must be held by the caller.
+         */
+        private void publishVersion() {
+            if (m_storeVersions != null) {
+                m_storeVersions.publish();
+            }
+        }
     }
 
     private class TransactionBuilderImpl implements Store.TransactionBuilder {
@@ -398,7 +539,11 @@ class StoreManagerImpl implements StoreManager {
             checkValid();
             m_valid = false;
             m_futuresBySynchronizationId.put(m_synchronizationId, m_future);
-            m_storePersistence.persistTransaction(m_storeName, m_synchronizationId, m_commands);
+            m_storePersistence.persistTransaction(m_storeName, m_synchronizationId, m_commands).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    m_future.completeExceptionally(error);
+                }
+            });
 
             return m_future;
         }
@@ -2,17 +2,20 @@ package io.axway.iron.core.internal;
 
 import java.io.*;
 import java.math.BigInteger;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 import java.util.stream.*;
 import javax.annotation.*;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.axway.alf.Arguments;
 import io.axway.alf.log.Logger;
 import io.axway.alf.log.LoggerFactory;
 import io.axway.iron.Command;
 import io.axway.iron.core.internal.command.CommandProxyFactory;
 import io.axway.iron.core.internal.command.management.ReadonlyCommand;
 import io.axway.iron.core.internal.definition.command.CommandDefinition;
-import io.axway.iron.core.internal.entity.EntityStore;
 import io.axway.iron.core.internal.entity.EntityStores;
 import io.axway.iron.error.StoreException;
 import io.axway.iron.error.UnrecoverableStoreException;
@@ -24,9 +27,9 @@ import io.axway.iron.spi.serializer.TransactionSerializer;
 import io.axway.iron.spi.storage.SnapshotStore;
 import io.axway.iron.spi.storage.TransactionStore;
 import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
 
 import static io.axway.alf.assertion.Assertion.checkArgument;
-import static io.axway.iron.spi.model.snapshot.SerializableSnapshot.SNAPSHOT_MODEL_VERSION;
 import static io.axway.iron.spi.model.transaction.SerializableTransaction.TRANSACTION_MODEL_VERSION;
 
 class StorePersistence {
@@ -38,12 +41,15 @@ class StorePersistence {
     private final SnapshotStore m_snapshotStore;
     private final SnapshotSerializer m_snapshotSerializer;
     private final Map<String, CommandDefinition<? extends Command<?>>> m_commandDefinitions;
+    @Nullable
+    private final TransactionGroupCommit m_groupCommit;
 
     private long m_applicationModelVersion = 0;
 
     StorePersistence(CommandProxyFactory commandProxyFactory, TransactionStore transactionStore, TransactionSerializer transactionSerializer,
                      SnapshotStore snapshotStore, SnapshotSerializer snapshotSerializer,
-                     Collection<CommandDefinition<? extends Command<?>>> commandDefinitions) {
+                     Collection<CommandDefinition<? extends Command<?>>> commandDefinitions, int groupCommitMaxBatchSize,
+                     @Nullable Duration groupCommitMaxLatency) {
         m_commandProxyFactory = commandProxyFactory;
         m_transactionStore = transactionStore;
         m_transactionSerializer = transactionSerializer;
@@ -53,16 +59,27 @@ class StorePersistence {
                 collect(Collectors.toUnmodifiableMap( //
                                                       commandDefinition -> commandDefinition.getCommandClass().getName(),
                                                       commandDefinition -> commandDefinition));
+        m_transactionSerializer.registerCommands(m_commandDefinitions.entrySet().stream().
+                collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().getParameters().keySet())));
+        m_groupCommit = groupCommitMaxLatency != null && groupCommitMaxBatchSize > 1 ?
+                new TransactionGroupCommit(groupCommitMaxBatchSize, groupCommitMaxLatency, this::writeTransactionBatch) : null;
     }
 
     /**
-     * Load the stores.
+     * Load the stores.<br>
+     * Without post processor, the snapshots are streamed to the entity stores instance by instance. A post processor needs the whole snapshot of a store,
+     * so each snapshot is then fully deserialized before being post processed and recovered.
      *
      * @param entityStoresByStoreName the map store name to entity stores
+     * @param snapshotPostProcessor the snapshot post processor, {@code null} if the snapshots are not post processed
+     * @param recoveryThreadCount the number of threads used to recover the stores, {@code 1} recovers the stores one after the other. The entity stores
+     * function and the post processor must be thread safe when stores are recovered in parallel. The entity stores of each store are also recovered in
+     * parallel with as many threads, see {@link StoreRecovery}.
      * @return latestSnapshotTxId the transaction id of the last snapshot
      */
     Optional<BigInteger> loadStores(Function<String, EntityStores> entityStoresByStoreName,
-                                    BiFunction<SerializableSnapshot, String, SerializableSnapshot> snapshotPostProcessor) {
+                                    @Nullable BiFunction<SerializableSnapshot, String, SerializableSnapshot> snapshotPostProcessor,
+                                    int recoveryThreadCount) {
         Optional<BigInteger> latestSnapshotTxId;
         try {
             latestSnapshotTxId = m_snapshotStore.listSnapshots().stream().max(BigInteger::compareTo);
@@ -72,45 +89,45 @@ class StorePersistence {
 
         latestSnapshotTxId.ifPresent(lastTx -> {
             LOG.info("Recovering store from snapshot", args -> args.add("transactionId", lastTx));
-            var postProcess = new SnapshotPostProcessor(snapshotPostProcessor);
+            long startTime = System.nanoTime();
+            var postProcess = new SnapshotPostProcessor(snapshotPostProcessor != null ? snapshotPostProcessor : (snapshot, storeName) -> snapshot);
+            var report = new RecoveryReport();
+            ExecutorService storeExecutor = null;
+            ExecutorService entityExecutor = null;
             try {
-                Flowable.fromPublisher(m_snapshotStore.createSnapshotReader(lastTx))  //
-                        .blockingForEach(reader -> {
-                            String storeName = reader.storeName();
-                            EntityStores entityStores = entityStoresByStoreName.apply(storeName);
-
-                            SerializableSnapshot serializableSnapshot;
-                            try (InputStream is = reader.inputStream()) {
-                                serializableSnapshot = m_snapshotSerializer.deserializeSnapshot(storeName, is);
-                            }
-                            if (serializableSnapshot.getSnapshotModelVersion() != SNAPSHOT_MODEL_VERSION) {
-                                throw new UnrecoverableStoreException("Snapshot serializable model version is not supported",
-                                                                      args -> args.add("version", serializableSnapshot.getSnapshotModelVersion())
-                                                                              .add("expectedVersion", SNAPSHOT_MODEL_VERSION));
-                            }
-
-                            if (!lastTx.equals(serializableSnapshot.getTransactionId())) {
-                                throw new UnrecoverableStoreException("Snapshot transaction id  mismatch with request transaction id",
-                                                                      args -> args.add("snapshotTransactionId", serializableSnapshot.getTransactionId())
-                                                                              .add("requestTransactionId", lastTx));
-                            }
-
-                            SerializableSnapshot finalSnapshot = postProcess.apply(storeName, serializableSnapshot);
-
-                            finalSnapshot.getEntities().forEach(serializableEntityInstances -> {
-                                String entityName = serializableEntityInstances.getEntityName();
-                                EntityStore<?> entityStore = entityStores.getEntityStore(entityName);
-                                checkArgument(entityStore != null, "Entity has not be registered in the store", args -> args.add("entityName", entityName));
-
-                                entityStore.recover(serializableEntityInstances);
-                            });
-                        });
+                Flowable<SnapshotStore.StoreSnapshotReader> readers = Flowable.fromPublisher(m_snapshotStore.createSnapshotReader(lastTx));
+                if (recoveryThreadCount > 1) {
+                    // the entity stores have their own executor, since the stores recovery threads wait for their entity stores to be recovered
+                    storeExecutor = Executors.newFixedThreadPool(recoveryThreadCount, new ThreadFactoryBuilder().setNameFormat("iron-recovery-%d")
+                            .setDaemon(true).build());
+                    entityExecutor = Executors.newFixedThreadPool(recoveryThreadCount, new ThreadFactoryBuilder().setNameFormat("iron-entity-recovery-%d")
+                            .setDaemon(true).build());
+                    Executor storeEntityExecutor = entityExecutor;
+                    // stores are independent, so their snapshots are deserialized and recovered in parallel
+                    readers.parallel(recoveryThreadCount).runOn(Schedulers.from(storeExecutor)) //
+                            .doOnNext(reader -> report.add(recoverStore(lastTx, reader, entityStoresByStoreName, snapshotPostProcessor, postProcess,
+                                                                        storeEntityExecutor, recoveryThreadCount))) //
+                            .sequential().ignoreElements().blockingAwait();
+                } else {
+                    readers.blockingForEach(
+                            reader -> report.add(recoverStore(lastTx, reader, entityStoresByStoreName, snapshotPostProcessor, postProcess, null, 1)));
+                }
             } catch (Exception e) {
                 throw new UnrecoverableStoreException("Error occurred when recovering from latest snapshot", e);
+            } finally {
+                if (storeExecutor != null) {
+                    storeExecutor.shutdown();
+                }
+                if (entityExecutor != null) {
+                    entityExecutor.shutdown();
+                }
             }
 
             // update the applicationModelVersion if any consistent load/update
             m_applicationModelVersion = postProcess.getConsistentApplicationModelVersion();
+
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            LOG.info("Stores recovered from snapshot", args -> report.addTo(args.add("transactionId", lastTx)).add("durationMs", durationMs));
         });
 
         if (latestSnapshotTxId.isEmpty()) {
@@ -122,7 +139,63 @@ class StorePersistence {
         return latestSnapshotTxId;
     }
 
-    void persistTransaction(String storeName, String synchronizationId, List<Command<?>> commands) {
+    private StoreRecovery recoverStore(BigInteger lastTx, SnapshotStore.StoreSnapshotReader reader, Function<String, EntityStores> entityStoresByStoreName,
+                                       @Nullable BiFunction<SerializableSnapshot, String, SerializableSnapshot> snapshotPostProcessor,
+                                       SnapshotPostProcessor postProcess, @Nullable Executor entityExecutor, int recoveryThreadCount)
+            throws IOException {
+        String storeName = reader.storeName();
+        StoreRecovery storeRecovery = new StoreRecovery(lastTx, storeName, entityStoresByStoreName.apply(storeName), postProcess, entityExecutor,
+                                                        recoveryThreadCount);
+
+        if (snapshotPostProcessor == null) {
+            try (InputStream is = reader.inputStream()) {
+                m_snapshotSerializer.deserializeSnapshot(storeName, is, storeRecovery);
+            }
+        } else {
+            SerializableSnapshot serializableSnapshot;
+            try (InputStream is = reader.inputStream()) {
+                serializableSnapshot = m_snapshotSerializer.deserializeSnapshot(storeName, is);
+            }
+            StoreRecovery.checkSnapshotHeader(lastTx, serializableSnapshot);
+
+            storeRecovery.recover(postProcess.apply(storeName, serializableSnapshot));
+        }
+
+        storeRecovery.finish();
+        return storeRecovery;
+    }
+
+    /**
+     * Aggregate the recovery of the stores, for the startup report. The durations are summed over the stores, that may have been recovered in parallel.
+     */
+    private static final class RecoveryReport {
+        private int m_storeCount;
+        private long m_instanceCount;
+        private long m_instancesRecoveryDuration;
+        private long m_relationsRecoveryDuration;
+
+        synchronized void add(StoreRecovery storeRecovery) {
+            m_storeCount++;
+            m_instanceCount += storeRecovery.getInstanceCount();
+            m_instancesRecoveryDuration += storeRecovery.getInstancesRecoveryDuration();
+            m_relationsRecoveryDuration += storeRecovery.getRelationsRecoveryDuration();
+        }
+
+        synchronized Arguments addTo(Arguments args) {
+            return args.add("storeCount", m_storeCount).add("instanceCount", m_instanceCount)
+                    .add("totalInstancesRecoveryMs", TimeUnit.NANOSECONDS.toMillis(m_instancesRecoveryDuration))
+                    .add("totalRelationsRecoveryMs", TimeUnit.NANOSECONDS.toMillis(m_relationsRecoveryDuration));
+        }
+    }
+
+    /**
+     * Persist a transaction in the transaction store.<br>
+     * When group commit is enabled, the transaction is serialized immediately but written later along with the others transactions submitted on the same
+     * store in the group commit window. System store transactions are never batched.
+     *
+     * @return a future completed when the transaction has been written in the transaction store
+     */
+    CompletableFuture<Void> persistTransaction(String storeName, String synchronizationId, List<Command<?>> commands) {
         List<SerializableCommand> serializableCommands = commands.stream().map(m_commandProxyFactory::serializeCommand).collect(Collectors.toList());
 
         SerializableTransaction serializableTransaction = new SerializableTransaction();
@@ -130,12 +203,41 @@ class StorePersistence {
         serializableTransaction.setSynchronizationId(synchronizationId);
         serializableTransaction.setCommands(serializableCommands);
 
+        if (m_groupCommit != null && !storeName.equals(StoreManagerImpl.SYSTEM_STORE_NAME)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                m_transactionSerializer.serializeTransaction(out, serializableTransaction);
+            } catch (IOException e) {
+                throw new StoreException(e);
+            }
+            LOG.debug("Enlisting new transaction in group commit", args -> args.add("Store", storeName).add("synchronizationId", synchronizationId));
+            return m_groupCommit.submit(storeName, out.toByteArray());
+        }
+
         try (OutputStream out = m_transactionStore.createTransactionOutput(storeName)) {
             LOG.debug("Enlisting new transaction", args -> args.add("Store", storeName).add("synchronizationId", synchronizationId));
             m_transactionSerializer.serializeTransaction(out, serializableTransaction);
         } catch (IOException e) {
             throw new StoreException(e);
         }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void writeTransactionBatch(String storeName, List<byte[]> serializedTransactions) throws IOException {
+        try (OutputStream out = m_transactionStore.createTransactionOutput(storeName)) {
+            LOG.debug("Enlisting new transactions batch", args -> args.add("Store", storeName).add("size", serializedTransactions.size()));
+            if (serializedTransactions.size() == 1) {
+                out.write(serializedTransactions.get(0));
+            } else {
+                TransactionBatchFrame.write(out, serializedTransactions);
+            }
+        }
+    }
+
+    void close() {
+        if (m_groupCommit != null) {
+            m_groupCommit.close();
+        }
     }
 
     Flowable<TransactionToExecute> allTransactions() {
@@ -147,26 +249,46 @@ class StorePersistence {
 
     @Nonnull
     private TransactionToExecute createTransactionToExecute(TransactionStore.TransactionInput transactionInput) throws IOException {
-        SerializableTransaction serializableTransaction;
-        try (InputStream in = transactionInput.getInputStream()) {
-            serializableTransaction = m_transactionSerializer.deserializeTransaction(in);
+        String storeName = transactionInput.storeName();
+        BigInteger txId = transactionInput.getTransactionId();
+
+        List<byte[]> batch;
+        SerializableTransaction serializableTransaction = null;
+        try (InputStream in = new BufferedInputStream(transactionInput.getInputStream())) {
+            batch = TransactionBatchFrame.read(in);
+            if (batch == null) {
+                serializableTransaction = m_transactionSerializer.deserializeTransaction(in);
+            }
         }
 
-        if (serializableTransaction.getTransactionModelVersion() != TRANSACTION_MODEL_VERSION) {
-            throw new StoreException("Transaction serializable model version is not supported",
-                                     args -> args.add("version", serializableTransaction.getTransactionModelVersion())
-                                             .add("expectedVersion", TRANSACTION_MODEL_VERSION));
+        if (batch != null) {
+            List<TransactionToExecute> transactions = new ArrayList<>(batch.size());
+            for (byte[] serializedTransaction : batch) {
+                transactions.add(createTransactionToExecute(storeName, txId,
+                                                            m_transactionSerializer.deserializeTransaction(new ByteArrayInputStream(serializedTransaction))));
+            }
+            return new TransactionBatchToExecute(storeName, txId, transactions);
         }
 
-        if (transactionInput.storeName().equals(StoreManagerImpl.SYSTEM_STORE_NAME)) {
+        if (storeName.equals(StoreManagerImpl.SYSTEM_STORE_NAME)) {
             SerializableCommand firstCommand = serializableTransaction.getCommands().get(0);
             if (firstCommand.getCommandName().equals(ReadonlyCommand.class.getName())) {
                 setReadonly((boolean) firstCommand.getParameters().get(ReadonlyCommand.READONLY_PARAMETER_NAME));
             }
         }
 
+        return createTransactionToExecute(storeName, txId, serializableTransaction);
+    }
+
+    private TransactionToExecute createTransactionToExecute(String storeName, BigInteger txId, SerializableTransaction serializableTransaction) {
+        if (serializableTransaction.getTransactionModelVersion() != TRANSACTION_MODEL_VERSION) {
+            throw new StoreException("Transaction serializable model version is not supported",
+                                     args -> args.add("version", serializableTransaction.getTransactionModelVersion())
+                                             .add("expectedVersion", TRANSACTION_MODEL_VERSION));
+        }
+
         if (isReadonly()) {
-            return new TransactionToDiscard(transactionInput.storeName(), transactionInput.getTransactionId(), serializableTransaction.getSynchronizationId());
+            return new TransactionToDiscard(storeName, txId, serializableTransaction.getSynchronizationId());
         }
 
         List<Command<?>> commands = serializableTransaction.getCommands().stream().map(serializableCommand -> {
@@ -178,8 +300,7 @@ class StorePersistence {
             return m_commandProxyFactory.createCommand(commandClass, serializableCommand.getParameters());
         }).collect(Collectors.toList());
 
-        return new TransactionToExecute(transactionInput.storeName(), transactionInput.getTransactionId(), serializableTransaction.getSynchronizationId(),
-                                        commands);
+        return new TransactionToExecute(storeName, txId, serializableTransaction.getSynchronizationId(), commands);
     }
 
     public SnapshotPersistence buildSnapshotPersistence(BigInteger transactionId) {
@@ -200,13 +321,31 @@ class StorePersistence {
         }
     }
 
+    /**
+     * A record of the transaction store that contains many transactions, all of them belonging to the same store.
+     * The transactions share the record transaction id, so they are all applied before the transaction id is considered as processed.
+     */
+    static class TransactionBatchToExecute extends TransactionToExecute {
+        private final List<TransactionToExecute> m_transactions;
+
+        private TransactionBatchToExecute(String storeName, BigInteger txId, List<TransactionToExecute> transactions) {
+            super(storeName, txId, null, List.of());
+            m_transactions = List.copyOf(transactions);
+        }
+
+        @Override
+        List<TransactionToExecute> getTransactions() {
+            return m_transactions;
+        }
+    }
+
     static class TransactionToExecute {
         private final BigInteger m_txId;
         private final String m_synchronizationId;
         private final List<Command<?>> m_commands;
         private final String m_storeName;
 
-        private TransactionToExecute(String storeName, BigInteger txId, String synchronizationId, List<Command<?>> commands) {
+        private TransactionToExecute(String storeName, BigInteger txId, @Nullable String synchronizationId, List<Command<?>> commands) {
             m_storeName = storeName;
             m_txId = txId;
             m_synchronizationId = synchronizationId;
@@ -228,5 +367,12 @@ class StorePersistence {
         String getStoreName() {
             return m_storeName;
         }
+
+        /**
+         * @return the transactions contained in the transaction store record, that is only this transaction except for batches
+         */
+        List<TransactionToExecute> getTransactions() {
+            return List.of(this);
+        }
     }
 }
@@ -0,0 +1,203 @@
+package io.axway.iron.core.internal;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import javax.annotation.*;
+import io.axway.alf.log.Logger;
+import io.axway.alf.log.LoggerFactory;
+import io.axway.iron.core.internal.entity.EntityStore;
+import io.axway.iron.core.internal.entity.EntityStores;
+import io.axway.iron.error.UnrecoverableStoreException;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableInstance;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.serializer.SnapshotHandler;
+
+import static io.axway.alf.assertion.Assertion.checkState;
+import static io.axway.iron.spi.model.snapshot.SerializableSnapshot.SNAPSHOT_MODEL_VERSION;
+
+/**
+ * Recover the entity stores of a store from its snapshot, in two phases:
+ * <ol>
+ * <li>each entity store recovers its instances, with their attributes, unique indexes and relations,</li>
+ * <li>once all the instances have been recovered, each entity store recovers its reverse relations and checks the related head instances exist.</li>
+ * </ol>
+ * When an executor is given, the entity stores are recovered in parallel in both phases. The instances of an entity are then recovered by batches, the
+ * batches of an entity being chained so they are recovered one after the other, in the snapshot order.<br>
+ * The snapshot is either streamed to the recovery, or given as a whole with {@link #recover(SerializableSnapshot)} when it has been post processed.
+ */
+class StoreRecovery implements SnapshotHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(StoreRecovery.class);
+    private static final int INSTANCE_BATCH_SIZE = 1024;
+    private static final int PENDING_BATCHES_PER_THREAD = 4;
+
+    private final BigInteger m_transactionId;
+    private final String m_storeName;
+    private final EntityStores m_entityStores;
+    private final SnapshotPostProcessor m_postProcess;
+    @Nullable
+    private final Executor m_executor;
+    private final Semaphore m_pendingBatches;
+    private final Map<EntityStore<?>, CompletableFuture<Void>> m_entityRecoveries = new LinkedHashMap<>();
+    private final long m_startTime = System.nanoTime();
+
+    @Nullable
+    private EntityStore<?> m_entityStore;
+    private List<SerializableInstance> m_instances = new ArrayList<>();
+    private long m_instanceCount;
+    private long m_instancesRecoveryDuration;
+    private long m_relationsRecoveryDuration;
+
+    /**
+     * @param executor the executor used to recover the entity stores in parallel, {@code null} to recover them in the calling thread
+     * @param threadCount the number of threads of the executor, it bounds the number of instance batches waiting to be recovered
+     */
+    StoreRecovery(BigInteger transactionId, String storeName, EntityStores entityStores, SnapshotPostProcessor postProcess, @Nullable Executor executor,
+                  int threadCount) {
+        m_transactionId = transactionId;
+        m_storeName = storeName;
+        m_entityStores = entityStores;
+        m_postProcess = postProcess;
+        m_executor = executor;
+        m_pendingBatches = new Semaphore(threadCount * PENDING_BATCHES_PER_THREAD);
+    }
+
+    /**
+     * Recover a whole snapshot, already checked and post processed.
+     */
+    void recover(SerializableSnapshot serializableSnapshot) {
+        for (SerializableEntity serializableEntity : serializableSnapshot.getEntities()) {
+            beginEntity(serializableEntity);
+            serializableEntity.getInstances().forEach(this::instance);
+            endEntity();
+        }
+    }
+
+    @Override
+    public void beginEntity(SerializableEntity entity) {
+        EntityStore<?> entityStore = m_entityStores.getEntityStore(entity.getEntityName());
+        m_entityStore = entityStore;
+        submit(entityStore, () -> entityStore.recoverEntity(entity));
+    }
+
+    @Override
+    public void instance(SerializableInstance instance) {
+        checkState(m_entityStore != null, "Instance is not in an entity", args -> args.add("instanceId", instance.getId()));
+        m_instanceCount++;
+        m_instances.add(instance);
+        if (m_instances.size() >= INSTANCE_BATCH_SIZE) {
+            submitInstances();
+        }
+    }
+
+    @Override
+    public void endEntity() {
+        submitInstances();
+        m_entityStore = null;
+    }
+
+    @Override
+    public void endSnapshot(SerializableSnapshot snapshotHeader) {
+        checkSnapshotHeader(m_transactionId, snapshotHeader);
+        // without post processor, it only checks the application model version is the same in all the stores
+        m_postProcess.apply(m_storeName, snapshotHeader);
+    }
+
+    private void submitInstances() {
+        if (!m_instances.isEmpty()) {
+            EntityStore<?> entityStore = m_entityStore;
+            List<SerializableInstance> instances = m_instances;
+            m_instances = new ArrayList<>();
+            //noinspection ConstantConditions
+            submit(entityStore, () -> instances.forEach(entityStore::recoverInstance));
+        }
+    }
+
+    private void submit(EntityStore<?> entityStore, Runnable task) {
+        if (m_executor == null) {
+            task.run();
+            return;
+        }
+        // bound the memory used by the instances waiting to be recovered, the snapshot reading is paused until a batch has been recovered
+        m_pendingBatches.acquireUninterruptibly();
+        m_entityRecoveries.compute(entityStore, (key, previousTasks) -> {
+            CompletableFuture<Void> tasks = previousTasks != null ? previousTasks : CompletableFuture.completedFuture(null);
+            return tasks.thenRunAsync(task, m_executor).whenComplete((result, error) -> m_pendingBatches.release());
+        });
+    }
+
+    /**
+     * Wait for the instances to be recovered, then recover the relations.
+     */
+    void finish() {
+        await(m_entityRecoveries.values());
+        long instancesRecoveredTime = System.nanoTime();
+        m_instancesRecoveryDuration = instancesRecoveredTime - m_startTime;
+
+        List<EntityStore<?>> entityStores = m_entityStores.toList();
+        if (m_executor == null) {
+            entityStores.forEach(this::recoverReverseRelations);
+        } else {
+            await(entityStores.stream().map(entityStore -> CompletableFuture.runAsync(() -> recoverReverseRelations(entityStore), m_executor))
+                          .collect(Collectors.toList()));
+        }
+        m_relationsRecoveryDuration = System.nanoTime() - instancesRecoveredTime;
+
+        LOG.debug("Store recovered from snapshot", args -> args.add("store", m_storeName).add("instanceCount", m_instanceCount)
+                .add("instancesRecoveryMs", TimeUnit.NANOSECONDS.toMillis(m_instancesRecoveryDuration))
+                .add("relationsRecoveryMs", TimeUnit.NANOSECONDS.toMillis(m_relationsRecoveryDuration)));
+    }
+
+    private void recoverReverseRelations(EntityStore<?> entityStore) {
+        Map<String, Integer> missingHeadCounts = entityStore.recoverReverseRelations();
+        // a deleted head instance may still be referenced by its tail instances, so it's reported rather than failing the recovery
+        missingHeadCounts.forEach((relationName, missingHeadCount) -> LOG.warn("Related instances don't exist in the recovered store",
+                                                                               args -> args.add("store", m_storeName)
+                                                                                       .add("entityName", entityStore.getEntityDefinition().getEntityName())
+                                                                                       .add("relationName", relationName)
+                                                                                       .add("missingHeadCount", missingHeadCount)));
+    }
+
+    private static void await(Collection<CompletableFuture<Void>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new UnrecoverableStoreException(cause);
+        }
+    }
+
+    long getInstanceCount() {
+        return m_instanceCount;
+    }
+
+    long getInstancesRecoveryDuration() {
+        return m_instancesRecoveryDuration;
+    }
+
+    long getRelationsRecoveryDuration() {
+        return m_relationsRecoveryDuration;
+    }
+
+    static void checkSnapshotHeader(BigInteger lastTx, SerializableSnapshot serializableSnapshot) {
+        if (serializableSnapshot.getSnapshotModelVersion() != SNAPSHOT_MODEL_VERSION) {
+            throw new UnrecoverableStoreException("Snapshot serializable model version is not supported",
+                                                  args -> args.add("version", serializableSnapshot.getSnapshotModelVersion())
+                                                          .add("expectedVersion", SNAPSHOT_MODEL_VERSION));
+        }
+
+        if (!lastTx.equals(serializableSnapshot.getTransactionId())) {
+            throw new UnrecoverableStoreException("Snapshot transaction id  mismatch with request transaction id",
+                                                  args -> args.add("snapshotTransactionId", serializableSnapshot.getTransactionId())
+                                                          .add("requestTransactionId", lastTx));
+        }
+    }
+}
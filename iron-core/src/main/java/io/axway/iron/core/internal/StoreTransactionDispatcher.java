@@ -0,0 +1,146 @@
+package io.axway.iron.core.internal;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+import javax.annotation.concurrent.*;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.axway.alf.log.Logger;
+import io.axway.alf.log.LoggerFactory;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Execute the transactions of each store on its own serial executor, so transactions of different stores are applied in parallel while the transactions
+ * of a same store are still applied in the order of the transaction store.<br>
+ * The applied transaction id watermark is the id of the latest transaction such as all the transactions dispatched before have been applied, so it can
+ * be used to snapshot the stores.
+ */
+class StoreTransactionDispatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(StoreTransactionDispatcher.class);
+
+    private final ExecutorService m_executor;
+    private final Map<String, Executor> m_storeExecutors = new ConcurrentHashMap<>();
+    private final Consumer<BigInteger> m_watermarkListener;
+
+    private final Lock m_lock = new ReentrantLock();
+    private final Condition m_drained = m_lock.newCondition();
+    @GuardedBy("m_lock")
+    private final Deque<DispatchedTransaction> m_inFlightTransactions = new ArrayDeque<>();
+
+    /**
+     * @param threadCount the number of threads used to apply the transactions
+     * @param watermarkListener called each time the applied transaction id watermark moves forward
+     */
+    StoreTransactionDispatcher(int threadCount, Consumer<BigInteger> watermarkListener) {
+        checkArgument(threadCount > 0, "Thread count must be positive", args -> args.add("threadCount", threadCount));
+        m_executor = Executors.newFixedThreadPool(threadCount, new ThreadFactoryBuilder().setNameFormat("iron-store-executor-%d").setDaemon(true).build());
+        m_watermarkListener = watermarkListener;
+    }
+
+    /**
+     * Dispatch a transaction on the serial executor of its store. Transactions must be dispatched in the order of their ids.
+     *
+     * @param storeName the store of the transaction
+     * @param txId the id of the transaction
+     * @param transaction apply the transaction and return {@code true} if the transaction id must be taken into account in the watermark
+     */
+    void dispatch(String storeName, BigInteger txId, BooleanSupplier transaction) {
+        DispatchedTransaction dispatchedTransaction = new DispatchedTransaction(txId);
+        m_lock.lock();
+        try {
+            m_inFlightTransactions.addLast(dispatchedTransaction);
+        } finally {
+            m_lock.unlock();
+        }
+
+        Executor storeExecutor = m_storeExecutors.computeIfAbsent(storeName, key -> MoreExecutors.newSequentialExecutor(m_executor));
+        storeExecutor.execute(() -> {
+            boolean advanceWatermark = false;
+            try {
+                advanceWatermark = transaction.getAsBoolean();
+            } catch (Exception e) {
+                LOG.error("Unexpected error when applying a transaction", args -> args.add("storeName", storeName).add("transactionId", txId), e);
+            } finally {
+                applied(dispatchedTransaction, advanceWatermark);
+            }
+        });
+    }
+
+    private void applied(DispatchedTransaction dispatchedTransaction, boolean advanceWatermark) {
+        m_lock.lock();
+        try {
+            dispatchedTransaction.m_applied = true;
+            dispatchedTransaction.m_advanceWatermark = advanceWatermark;
+            BigInteger watermark = null;
+            while (!m_inFlightTransactions.isEmpty() && m_inFlightTransactions.peekFirst().m_applied) {
+                DispatchedTransaction head = m_inFlightTransactions.pollFirst();
+                if (head.m_advanceWatermark) {
+                    watermark = head.m_txId;
+                }
+            }
+            if (watermark != null) {
+                m_watermarkListener.accept(watermark);
+            }
+            if (m_inFlightTransactions.isEmpty()) {
+                m_drained.signalAll();
+            }
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until all the dispatched transactions have been applied.
+     */
+    void awaitDrained() {
+        m_lock.lock();
+        try {
+            while (!m_inFlightTransactions.isEmpty()) {
+                m_drained.awaitUninterruptibly();
+            }
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Execute an action once all the dispatched transactions have been applied, new transactions can't be dispatched while the action is running.
+     */
+    <T> T executeDrained(Supplier<T> action) {
+        m_lock.lock();
+        try {
+            while (!m_inFlightTransactions.isEmpty()) {
+                m_drained.awaitUninterruptibly();
+            }
+            return action.get();
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    void close() {
+        m_executor.shutdown();
+        try {
+            if (!m_executor.awaitTermination(1, MINUTES)) {
+                LOG.warn("Some dispatched transactions have not been applied before timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class DispatchedTransaction {
+        private final BigInteger m_txId;
+        private boolean m_applied = false;
+        private boolean m_advanceWatermark = false;
+
+        private DispatchedTransaction(BigInteger txId) {
+            m_txId = txId;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io.axway.iron.core.internal;
+
+import java.io.*;
+import java.util.*;
+import javax.annotation.*;
+import io.axway.iron.error.StoreException;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+
+/**
+ * Framing of a group of serialized transactions written as a single record of the transaction store.<br>
+ * A frame starts with a magic header that can't be the start of a transaction written by a serializer, so records that contain a single transaction
+ * (and all the records written before group commit was introduced) are still read as is.
+ * <pre>
+ * magic (4 bytes) | transaction count (int) | { transaction length (int) | serialized transaction (bytes) }*
+ * </pre>
+ */
+final class TransactionBatchFrame {
+    private static final byte[] MAGIC = {0, 'I', 'T', 'B'};
+
+    static void write(OutputStream out, List<byte[]> transactions) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.write(MAGIC);
+        dataOut.writeInt(transactions.size());
+        for (byte[] transaction : transactions) {
+            dataOut.writeInt(transaction.length);
+            dataOut.write(transaction);
+        }
+        dataOut.flush();
+    }
+
+    /**
+     * Read a framed batch of transactions.
+     *
+     * @param in the record content, must support {@link InputStream#mark(int)}
+     * @return the serialized transactions of the batch, or {@code null} if the record is not a batch. In the latter case the stream is left untouched.
+     * @throws IOException in case of error when reading the stream
+     */
+    @Nullable
+    static List<byte[]> read(InputStream in) throws IOException {
+        checkArgument(in.markSupported(), "Transaction input stream must support mark");
+        in.mark(MAGIC.length);
+        byte[] header = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(header, MAGIC)) {
+            in.reset();
+            return null;
+        }
+
+        DataInputStream dataIn = new DataInputStream(in);
+        int count = dataIn.readInt();
+        if (count < 0) {
+            throw new StoreException("Invalid transaction batch frame", args -> args.add("transactionCount", count));
+        }
+        List<byte[]> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] transaction = new byte[dataIn.readInt()];
+            dataIn.readFully(transaction);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    private TransactionBatchFrame() {
+    }
+}
@@ -0,0 +1,130 @@
+package io.axway.iron.core.internal;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.annotation.concurrent.*;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.axway.alf.log.Logger;
+import io.axway.alf.log.LoggerFactory;
+
+import static io.axway.alf.assertion.Assertion.*;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Coalesce the transactions concurrently submitted on a store into a single record of the transaction store.<br>
+ * A batch is written as soon as it contains {@code maxBatchSize} transactions or when its first transaction has waited for {@code maxLatency}, whichever
+ * comes first. Batches are written by a single thread so the submission order is preserved in the transaction store.
+ */
+class TransactionGroupCommit {
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionGroupCommit.class);
+
+    private final int m_maxBatchSize;
+    private final long m_maxLatencyNanos;
+    private final BatchWriter m_batchWriter;
+    private final ScheduledThreadPoolExecutor m_flusher;
+
+    @GuardedBy("m_pendingBatches")
+    private final Map<String, PendingBatch> m_pendingBatches = new HashMap<>();
+    @GuardedBy("m_pendingBatches")
+    private boolean m_closed = false;
+
+    TransactionGroupCommit(int maxBatchSize, Duration maxLatency, BatchWriter batchWriter) {
+        checkArgument(maxBatchSize > 0, "Group commit batch size must be positive", args -> args.add("maxBatchSize", maxBatchSize));
+        checkArgument(!maxLatency.isNegative(), "Group commit latency must not be negative", args -> args.add("maxLatency", maxLatency));
+        m_maxBatchSize = maxBatchSize;
+        m_maxLatencyNanos = maxLatency.toNanos();
+        m_batchWriter = batchWriter;
+        m_flusher = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat("iron-group-commit-%d").setDaemon(true).build());
+        m_flusher.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Enlist a serialized transaction in the pending batch of its store.
+     *
+     * @param storeName the store of the transaction
+     * @param serializedTransaction the transaction as produced by the transaction serializer
+     * @return a future completed once the batch containing the transaction has been written in the transaction store
+     */
+    CompletableFuture<Void> submit(String storeName, byte[] serializedTransaction) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        PendingBatch fullBatch = null;
+        synchronized (m_pendingBatches) {
+            checkState(!m_closed, "Transaction group commit has been closed");
+            PendingBatch batch = m_pendingBatches.get(storeName);
+            if (batch == null) {
+                PendingBatch newBatch = new PendingBatch(storeName);
+                m_pendingBatches.put(storeName, newBatch);
+                m_flusher.schedule(() -> flush(newBatch), m_maxLatencyNanos, NANOSECONDS);
+                batch = newBatch;
+            }
+            batch.m_transactions.add(serializedTransaction);
+            batch.m_futures.add(future);
+            if (batch.m_transactions.size() >= m_maxBatchSize) {
+                m_pendingBatches.remove(storeName);
+                fullBatch = batch;
+            }
+        }
+
+        if (fullBatch != null) {
+            PendingBatch batchToFlush = fullBatch;
+            m_flusher.execute(() -> flush(batchToFlush));
+        }
+        return future;
+    }
+
+    /**
+     * Write the pending batches and stop the flushing thread.
+     */
+    void close() {
+        synchronized (m_pendingBatches) {
+            m_closed = true;
+            for (PendingBatch batch : m_pendingBatches.values()) {
+                m_flusher.execute(() -> flush(batch));
+            }
+        }
+        m_flusher.shutdown();
+        try {
+            if (!m_flusher.awaitTermination(1, MINUTES)) {
+                LOG.warn("Some pending transactions batches have not been written before timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush(PendingBatch batch) {
+        synchronized (m_pendingBatches) {
+            m_pendingBatches.remove(batch.m_storeName, batch);
+            if (batch.m_flushed) {
+                return;
+            }
+            batch.m_flushed = true;
+        }
+
+        try {
+            m_batchWriter.write(batch.m_storeName, batch.m_transactions);
+            batch.m_futures.forEach(future -> future.complete(null));
+        } catch (Exception e) {
+            LOG.error("Error when writing a transactions batch", args -> args.add("storeName", batch.m_storeName).add("size", batch.m_transactions.size()),
+                      e);
+            batch.m_futures.forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    interface BatchWriter {
+        void write(String storeName, List<byte[]> serializedTransactions) throws IOException;
+    }
+
+    private static final class PendingBatch {
+        private final String m_storeName;
+        private final List<byte[]> m_transactions = new ArrayList<>();
+        private final List<CompletableFuture<Void>> m_futures = new ArrayList<>();
+        private boolean m_flushed = false;
+
+        private PendingBatch(String storeName) {
+            m_storeName = storeName;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.util.*;
 import java.util.stream.*;
 import io.axway.iron.Command;
 import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.core.InstanceBackend;
 import io.axway.iron.core.internal.definition.command.CommandDefinition;
 import io.axway.iron.core.internal.definition.command.ParameterDefinition;
 import io.axway.iron.core.internal.utils.IntrospectionHelper;
@@ -23,11 +24,17 @@ public class CommandProxyFactory {
 
     private final Map<Class<? extends Command<?>>, ProxyFactory<? extends Command<?>, CommandProxyContext>> m_commandProxyFactories;
 
-    public CommandProxyFactory(Collection<CommandDefinition<? extends Command<?>>> commandDefinitions) {
+    public CommandProxyFactory(Collection<CommandDefinition<? extends Command<?>>> commandDefinitions, InstanceBackend commandBackend) {
         m_commandProxyFactories = commandDefinitions.stream().
                 collect(Collectors.toUnmodifiableMap( //
                                                       CommandDefinition::getCommandClass, //
-                                                      CommandProxyFactory::createCommandProxyFactory));
+                                                      commandDefinition -> createCommandFactory(commandDefinition, commandBackend)));
+    }
+
+    private static <C extends Command<?>> ProxyFactory<C, CommandProxyContext> createCommandFactory(CommandDefinition<C> commandDefinition,
+                                                                                                    InstanceBackend commandBackend) {
+        return commandBackend == InstanceBackend.GENERATED_CLASS ? new GeneratedCommandFactory<>(commandDefinition) :
+                createCommandProxyFactory(commandDefinition);
     }
 
     private static <C extends Command<?>> ProxyFactory<C, CommandProxyContext> createCommandProxyFactory(CommandDefinition<C> commandDefinition) {
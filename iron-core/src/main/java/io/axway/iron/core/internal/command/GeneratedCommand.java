@@ -0,0 +1,41 @@
+package io.axway.iron.core.internal.command;
+
+import java.util.*;
+import javax.annotation.*;
+
+/**
+ * Base class of the command classes generated by {@link GeneratedCommandFactory}.<br>
+ * It is public because generated classes are defined in their own class loader, the generated methods only call the final methods of this class.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class GeneratedCommand implements CommandProxy {
+    private final GeneratedCommandFactory<?> m_factory;
+    private final Map<String, Object> m_parameters;
+
+    protected GeneratedCommand(Object factory, Object parameters) {
+        m_factory = (GeneratedCommandFactory<?>) factory;
+        //noinspection unchecked
+        m_parameters = (Map<String, Object>) parameters;
+    }
+
+    @Override
+    public final <E> Class<E> __commandClass() {
+        //noinspection unchecked
+        return (Class<E>) m_factory.getCommandClass();
+    }
+
+    @Override
+    public final Map<String, Object> __parameters() {
+        return Collections.unmodifiableMap(m_parameters);
+    }
+
+    @Nullable
+    protected final Object __parameter(int parameterIndex) {
+        return m_parameters.get(m_factory.getParameterName(parameterIndex));
+    }
+
+    @Override
+    public final String toString() {
+        return m_factory.getCommandClass().getName() + " " + m_parameters;
+    }
+}
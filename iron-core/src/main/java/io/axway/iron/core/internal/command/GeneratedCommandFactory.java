@@ -0,0 +1,129 @@
+package io.axway.iron.core.internal.command;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import io.axway.iron.Command;
+import io.axway.iron.core.internal.definition.command.CommandDefinition;
+import io.axway.iron.core.internal.definition.command.ParameterDefinition;
+import io.axway.iron.core.internal.utils.TypeConverter;
+import io.axway.iron.core.internal.utils.proxy.ClassFileWriter;
+import io.axway.iron.core.internal.utils.proxy.GeneratedClassLoader;
+import io.axway.iron.core.internal.utils.proxy.ProxyFactory;
+import io.axway.iron.error.StoreException;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+import static io.axway.iron.core.internal.utils.proxy.ClassFileWriter.*;
+
+/**
+ * Generate a concrete class for a command interface and create the commands with it, used instead of JDK proxies by the code generation backend.<br>
+ * The generated class extends {@link GeneratedCommand}:
+ * <ul>
+ * <li>the constructor converts each parameter once, with a converter held in a static field of the generated class, and stores it in a field</li>
+ * <li>parameter getters return the field, unboxing it when the parameter type is primitive</li>
+ * <li>the {@code execute} default method is inherited from the command interface, so it's invoked without any dispatching</li>
+ * </ul>
+ */
+class GeneratedCommandFactory<C extends Command<?>> implements ProxyFactory<C, CommandProxyContext> {
+    private static final String GENERATED_CLASS_SUFFIX = "$IronCommand";
+    private static final String CONVERTER_FIELD_PREFIX = "converter";
+    private static final String PARAMETER_FIELD_PREFIX = "parameter";
+    private static final String BASE_CLASS = internalName(GeneratedCommand.class);
+    private static final String CONSTRUCTOR_DESCRIPTOR = methodDescriptor(void.class, Object.class, Object.class);
+    private static final String TYPE_CONVERTER_DESCRIPTOR = descriptor(TypeConverter.class);
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
+    private final Class<C> m_commandClass;
+    private final List<String> m_parameterNames;
+    private final MethodHandle m_constructor;
+
+    GeneratedCommandFactory(CommandDefinition<C> commandDefinition) {
+        m_commandClass = commandDefinition.getCommandClass();
+        List<ParameterDefinition<Object>> parameterDefinitions = new ArrayList<>(commandDefinition.getParameters().values());
+        parameterDefinitions.sort(Comparator.comparing(ParameterDefinition::getParameterName));
+        List<String> parameterNames = new ArrayList<>(parameterDefinitions.size());
+        for (ParameterDefinition<Object> parameterDefinition : parameterDefinitions) {
+            parameterNames.add(parameterDefinition.getParameterName());
+        }
+        m_parameterNames = List.copyOf(parameterNames);
+        m_constructor = generate(parameterDefinitions);
+    }
+
+    Class<C> getCommandClass() {
+        return m_commandClass;
+    }
+
+    String getParameterName(int parameterIndex) {
+        return m_parameterNames.get(parameterIndex);
+    }
+
+    @Override
+    public C createProxy(CommandProxyContext proxyContext) {
+        try {
+            Object command = (Object) m_constructor.invokeExact((Object) this, (Object) proxyContext.getParameters());
+            return m_commandClass.cast(command);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StoreException(e);
+        }
+    }
+
+    private MethodHandle generate(List<ParameterDefinition<Object>> parameterDefinitions) {
+        checkArgument(Modifier.isPublic(m_commandClass.getModifiers()), "Command interface must be public to generate its class",
+                      args -> args.add("commandClass", m_commandClass.getName()));
+
+        String className = m_commandClass.getName() + GENERATED_CLASS_SUFFIX;
+        String classInternalName = className.replace('.', '/');
+        ClassFileWriter writer = new ClassFileWriter(classInternalName, BASE_CLASS, internalName(m_commandClass));
+
+        ClassFileWriter.MethodWriter constructor = writer.addMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR) //
+                .loadThis().loadReference(1).loadReference(2) //
+                .invokeSpecial(BASE_CLASS, "<init>", CONSTRUCTOR_DESCRIPTOR);
+
+        Map<String, TypeConverter<?>> converters = new HashMap<>();
+        for (int i = 0; i < parameterDefinitions.size(); i++) {
+            ParameterDefinition<Object> parameterDefinition = parameterDefinitions.get(i);
+            Method method = parameterDefinition.getParameterMethod();
+            Class<?> returnType = method.getReturnType();
+            // primitive parameters are kept boxed in their field so a missing parameter still fails when it's read, not when the command is created
+            Class<?> fieldType = boxedType(returnType);
+            String converterField = CONVERTER_FIELD_PREFIX + i;
+            String parameterField = PARAMETER_FIELD_PREFIX + i;
+            converters.put(converterField, parameterDefinition.getTypeConverter());
+            writer.addField(ACC_PUBLIC | ACC_STATIC, converterField, TYPE_CONVERTER_DESCRIPTOR);
+            writer.addField(ACC_FINAL, parameterField, descriptor(fieldType));
+
+            constructor.loadThis() //
+                    .getStatic(classInternalName, converterField, TYPE_CONVERTER_DESCRIPTOR) //
+                    .loadThis().pushInt(i) //
+                    .invokeVirtual(BASE_CLASS, "__parameter", methodDescriptor(Object.class, int.class)) //
+                    .invokeInterface(internalName(TypeConverter.class), "convert", methodDescriptor(Object.class, Object.class)) //
+                    .castOrUnbox(fieldType) //
+                    .putField(classInternalName, parameterField, descriptor(fieldType));
+
+            ClassFileWriter.MethodWriter getter = writer.addMethod(ACC_PUBLIC | ACC_FINAL, method.getName(), methodDescriptor(returnType)) //
+                    .loadThis() //
+                    .getField(classInternalName, parameterField, descriptor(fieldType));
+            if (returnType.isPrimitive()) {
+                getter.invokeVirtual(internalName(fieldType), returnType.getName() + "Value", methodDescriptor(returnType));
+            }
+            getter.returnValue(returnType);
+        }
+        constructor.returnValue(void.class);
+
+        try {
+            Class<?> generatedClass = GeneratedClassLoader.forClasses(m_commandClass, GeneratedCommand.class).define(className, writer.toByteArray());
+            for (Map.Entry<String, TypeConverter<?>> converter : converters.entrySet()) {
+                generatedClass.getField(converter.getKey()).set(null, converter.getValue());
+            }
+            return MethodHandles.publicLookup().findConstructor(generatedClass, MethodType.methodType(void.class, Object.class, Object.class))
+                    .asType(FACTORY_TYPE);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new StoreException("Cannot generate the command class", args -> args.add("commandClass", m_commandClass.getName()), e);
+        }
+    }
+}
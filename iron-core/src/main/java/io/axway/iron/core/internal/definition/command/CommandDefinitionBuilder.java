@@ -12,6 +12,7 @@ import io.axway.iron.core.internal.definition.InterfaceVisitor;
 import io.axway.iron.core.internal.utils.proxy.ProxyConstructorFactory;
 import io.axway.iron.description.Entity;
 import io.axway.iron.description.Id;
+import io.axway.iron.description.Indexed;
 import io.axway.iron.description.Unique;
 import io.axway.iron.error.InvalidModelException;
 
@@ -92,6 +93,12 @@ public class CommandDefinitionBuilder {
                                                     args -> args.add("commandClassName", commandClass.getName()).add("methodName", methodName));
                 }
 
+                Indexed indexedAnnotation = method.getAnnotation(Indexed.class);
+                if (indexedAnnotation != null) {
+                    throw new InvalidModelException("Command method cannot be annotated with @Indexed",
+                                                    args -> args.add("commandClassName", commandClass.getName()).add("methodName", methodName));
+                }
+
                 Id idAnnotation = method.getAnnotation(Id.class);
                 if (idAnnotation != null) {
                     throw new InvalidModelException("Command method cannot be annotated with @Id",
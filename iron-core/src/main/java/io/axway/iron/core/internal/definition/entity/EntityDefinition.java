@@ -2,6 +2,7 @@ package io.axway.iron.core.internal.definition.entity;
 
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.stream.*;
 import javax.annotation.*;
 
 public class EntityDefinition<E> {
@@ -11,19 +12,33 @@ public class EntityDefinition<E> {
     private final Map<String, ReverseRelationDefinition> m_reverseRelations;
     private final Map<String, AttributeDefinition<Object>> m_attributes;
     private final List<String> m_uniqueConstraints;
+    private final List<String> m_indexes;
+    private final List<String> m_sortedIndexes;
+    private final List<String> m_attributeSlotNames;
+    private final Map<String, Integer> m_attributeSlots;
 
     private final Constructor<E> m_instanceProxyConstructor;
 
     EntityDefinition(Class<E> entityClass, @Nullable IdDefinition idDefinition, Map<String, RelationDefinition> relations,
                      Map<String, ReverseRelationDefinition> reverseRelations, Map<String, AttributeDefinition<Object>> attributes,
-                     List<String> uniqueConstraints, Constructor<E> instanceProxyConstructor) {
+                     List<String> uniqueConstraints, List<String> indexes, List<String> sortedIndexes,
+                     Constructor<E> instanceProxyConstructor) {
         m_entityClass = entityClass;
         m_idDefinition = idDefinition;
         m_relations = relations;
         m_reverseRelations = reverseRelations;
         m_attributes = attributes;
         m_uniqueConstraints = uniqueConstraints;
+        m_indexes = indexes;
+        m_sortedIndexes = sortedIndexes;
         m_instanceProxyConstructor = instanceProxyConstructor;
+
+        m_attributeSlotNames = attributes.keySet().stream().sorted().collect(Collectors.toUnmodifiableList());
+        Map<String, Integer> attributeSlots = new HashMap<>();
+        for (int slot = 0; slot < m_attributeSlotNames.size(); slot++) {
+            attributeSlots.put(m_attributeSlotNames.get(slot), slot);
+        }
+        m_attributeSlots = Map.copyOf(attributeSlots);
     }
 
     public String getEntityName() {
@@ -51,10 +66,38 @@ public class EntityDefinition<E> {
         return m_attributes;
     }
 
+    /**
+     * @return the attribute names, the index of an attribute in this list being the slot where instances store its value
+     */
+    public List<String> getAttributeSlotNames() {
+        return m_attributeSlotNames;
+    }
+
+    /**
+     * @return the slot where instances store the value of the attribute, or {@code -1} if the entity has no such attribute
+     */
+    public int getAttributeSlot(String attributeName) {
+        return m_attributeSlots.getOrDefault(attributeName, -1);
+    }
+
     public List<String> getUniqueConstraints() {
         return m_uniqueConstraints;
     }
 
+    /**
+     * @return the names of the attributes that have a non unique index
+     */
+    public List<String> getIndexes() {
+        return m_indexes;
+    }
+
+    /**
+     * @return the names of the attributes whose non unique index is sorted, a subset of {@link #getIndexes()}
+     */
+    public List<String> getSortedIndexes() {
+        return m_sortedIndexes;
+    }
+
     public Constructor<E> getInstanceProxyConstructor() {
         return m_instanceProxyConstructor;
     }
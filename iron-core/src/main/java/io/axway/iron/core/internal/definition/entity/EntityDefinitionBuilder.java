@@ -13,6 +13,7 @@ import io.axway.iron.core.internal.utils.IntrospectionHelper;
 import io.axway.iron.core.internal.utils.proxy.ProxyConstructorFactory;
 import io.axway.iron.description.Entity;
 import io.axway.iron.description.Id;
+import io.axway.iron.description.Indexed;
 import io.axway.iron.description.Unique;
 import io.axway.iron.description.hook.DSLHelper;
 import io.axway.iron.error.InvalidModelException;
@@ -77,6 +78,8 @@ public class EntityDefinitionBuilder {
         Map<String, RelationDefinition> relations = new HashMap<>();
         Map<String, ReverseRelationDefinition> reverseRelations = new HashMap<>();
         List<String> uniqueConstraints = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        List<String> sortedIndexes = new ArrayList<>();
         List<IdDefinition> idDefinitions = new ArrayList<>();
 
         m_interfaceValidator.validate("Entity", entityClass, new InterfaceVisitor() {
@@ -107,6 +110,7 @@ public class EntityDefinitionBuilder {
 
                 Annotation uniqueAnnotation = method.getAnnotation(Unique.class);
                 Annotation idAnnotation = method.getAnnotation(Id.class);
+                Indexed indexedAnnotation = method.getAnnotation(Indexed.class);
 
                 Class<?> collectionElementType = null;
                 if (Collection.class.isAssignableFrom(returnType)) {
@@ -126,6 +130,11 @@ public class EntityDefinitionBuilder {
                                                         args -> args.add("entityClassName", entityClass.getName()).add("relationMethodName", methodName));
                     }
 
+                    if (indexedAnnotation != null) {
+                        throw new InvalidModelException("Entity relation cannot be annotated with @Indexed. Not implemented yet.",
+                                                        args -> args.add("entityClassName", entityClass.getName()).add("relationMethodName", methodName));
+                    }
+
                     if (method.isDefault()) {
                         // reverse relation case
                         if (collectionElementType == null) {
@@ -164,10 +173,22 @@ public class EntityDefinitionBuilder {
                                                         args -> args.add("entityClassName", entityClass.getName()).add("attributeMethodName", methodName));
                     }
 
+                    if (indexedAnnotation != null && (idAnnotation != null || uniqueAnnotation != null)) {
+                        throw new InvalidModelException("Entity attribute must not be annotated by @Indexed and by @Id or @Unique which are already indexed",
+                                                        args -> args.add("entityClassName", entityClass.getName()).add("attributeMethodName", methodName));
+                    }
+
                     if (uniqueAnnotation != null) {
                         uniqueConstraints.add(methodName);
                     }
 
+                    if (indexedAnnotation != null) {
+                        indexes.add(methodName);
+                        if (indexedAnnotation.sorted()) {
+                            sortedIndexes.add(methodName);
+                        }
+                    }
+
                     boolean isId = idAnnotation != null;
                     if (isId && !returnType.equals(long.class)) {
                         throw new InvalidModelException("Entity attribute is annotated with @Id but is not returning long",
@@ -203,11 +224,14 @@ public class EntityDefinitionBuilder {
         }
 
         uniqueConstraints.sort(null);
+        indexes.sort(null);
+        sortedIndexes.sort(null);
 
         Constructor<E> instanceProxyConstructor = m_proxyConstructorFactory.getProxyConstructor(entityClass, InstanceProxy.class);
 
         return new EntityDefinition<>(entityClass, idDefinition, Map.copyOf(relations), Map.copyOf(reverseRelations), Map.copyOf(attributes),
-                                      List.copyOf(uniqueConstraints), instanceProxyConstructor);
+                                      List.copyOf(uniqueConstraints), List.copyOf(indexes), List.copyOf(sortedIndexes),
+                                      instanceProxyConstructor);
     }
 
     private <H, T> ReverseRelationDefinition analyzeReverseRelation(AnalyzeContext context, Class<H> headEntityClass, Class<T> tailEntityClass,
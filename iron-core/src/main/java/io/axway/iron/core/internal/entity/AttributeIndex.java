@@ -0,0 +1,109 @@
+package io.axway.iron.core.internal.entity;
+
+import java.util.*;
+import javax.annotation.*;
+import io.axway.iron.core.internal.utils.LongSortedSet;
+import io.axway.iron.core.internal.utils.TypeConverter;
+
+/**
+ * Non unique index of an entity attribute, from the attribute value to the ids of the instances having this value.<br>
+ * Values are converted with the attribute type converter before being indexed or looked up, since instances recovered from a snapshot may hold values
+ * of another type, eg {@code Integer} for a {@code long} attribute. The {@code null} value is not indexed.<br>
+ * A sorted index keeps the values in a {@link NavigableMap} so it can also serve range queries.
+ */
+final class AttributeIndex {
+    private final TypeConverter<Object> m_typeConverter;
+    private final Map<Object, LongSortedSet> m_instanceIds;
+    @Nullable
+    private final StoreVersions m_storeVersions;
+    @Nullable
+    private final VersionedMap<Object, LongSortedSet> m_committedInstanceIds;
+
+    AttributeIndex(TypeConverter<Object> typeConverter, boolean sorted, @Nullable StoreVersions storeVersions) {
+        m_typeConverter = typeConverter;
+        m_instanceIds = sorted ? new TreeMap<>() : new HashMap<>();
+        m_storeVersions = storeVersions;
+        m_committedInstanceIds = storeVersions != null ? new VersionedMap<>(storeVersions, sorted, key -> {
+            LongSortedSet instanceIds = m_instanceIds.get(key);
+            return instanceIds != null ? instanceIds.snapshot() : null;
+        }) : null;
+    }
+
+    boolean isSorted() {
+        return m_instanceIds instanceof NavigableMap;
+    }
+
+    void add(@Nullable Object value, long instanceId) {
+        if (value != null) {
+            Object key = m_typeConverter.convert(value);
+            m_instanceIds.computeIfAbsent(key, v -> new LongSortedSet()).add(instanceId);
+            modified(key);
+        }
+    }
+
+    void remove(@Nullable Object value, long instanceId) {
+        if (value != null) {
+            Object key = m_typeConverter.convert(value);
+            LongSortedSet instanceIds = m_instanceIds.get(key);
+            if (instanceIds != null && instanceIds.remove(instanceId) && instanceIds.isEmpty()) {
+                m_instanceIds.remove(key);
+            }
+            modified(key);
+        }
+    }
+
+    private void modified(Object key) {
+        if (m_committedInstanceIds != null) {
+            m_committedInstanceIds.modified(key);
+        }
+    }
+
+    private long readVersion() {
+        return m_storeVersions != null ? m_storeVersions.readVersion() : StoreVersions.NO_READ_VERSION;
+    }
+
+    @Nullable
+    LongSortedSet get(Object value) {
+        Object key = m_typeConverter.convert(value);
+        long readVersion = readVersion();
+        if (readVersion != StoreVersions.NO_READ_VERSION) {
+            //noinspection ConstantConditions
+            return m_committedInstanceIds.get(key, readVersion);
+        }
+        return m_instanceIds.get(key);
+    }
+
+    /**
+     * @param from the lower bound, or {@code null} if the range has no lower bound
+     * @param to the upper bound, or {@code null} if the range has no upper bound
+     * @return the ids of the instances having a value in the range, grouped by value in ascending or descending value order
+     */
+    Iterable<LongSortedSet> range(@Nullable Object from, boolean fromInclusive, @Nullable Object to, boolean toInclusive, boolean descending) {
+        long readVersion = readVersion();
+        if (readVersion != StoreVersions.NO_READ_VERSION) {
+            //noinspection ConstantConditions
+            NavigableMap<Object, StoreVersions.Version<LongSortedSet>> range = range(m_committedInstanceIds.sortedVersions(), from, fromInclusive, to,
+                                                                                      toInclusive, descending);
+            return VersionedMap.values(range.values(), readVersion);
+        }
+        return range((NavigableMap<Object, LongSortedSet>) m_instanceIds, from, fromInclusive, to, toInclusive, descending).values();
+    }
+
+    private <T> NavigableMap<Object, T> range(NavigableMap<Object, T> range, @Nullable Object from, boolean fromInclusive, @Nullable Object to,
+                                              boolean toInclusive, boolean descending) {
+        Object fromKey = from != null ? m_typeConverter.convert(from) : null;
+        Object toKey = to != null ? m_typeConverter.convert(to) : null;
+        if (fromKey != null && toKey != null) {
+            //noinspection unchecked
+            if (((Comparable<Object>) fromKey).compareTo(toKey) > 0) {
+                return Collections.emptyNavigableMap();
+            }
+            range = range.subMap(fromKey, fromInclusive, toKey, toInclusive);
+        } else if (fromKey != null) {
+            range = range.tailMap(fromKey, fromInclusive);
+        } else if (toKey != null) {
+            range = range.headMap(toKey, toInclusive);
+        }
+        return descending ? range.descendingMap() : range;
+    }
+}
@@ -1,5 +1,6 @@
 package io.axway.iron.core.internal.entity;
 
+import java.io.*;
 import java.util.*;
 import java.util.concurrent.atomic.*;
 import java.util.function.*;
@@ -10,6 +11,8 @@ import io.axway.iron.core.internal.definition.entity.EntityDefinition;
 import io.axway.iron.core.internal.definition.entity.IdDefinition;
 import io.axway.iron.core.internal.definition.entity.RelationCardinality;
 import io.axway.iron.core.internal.definition.entity.RelationDefinition;
+import io.axway.iron.core.internal.utils.LongOrderedMap;
+import io.axway.iron.core.internal.utils.LongSortedSet;
 import io.axway.iron.core.internal.utils.proxy.ProxyFactory;
 import io.axway.iron.error.NonnullConstraintViolationException;
 import io.axway.iron.error.StoreException;
@@ -20,25 +23,43 @@ import io.axway.iron.spi.model.snapshot.SerializableEntity;
 import io.axway.iron.spi.model.snapshot.SerializableInstance;
 import io.axway.iron.spi.model.snapshot.SerializableRelationCardinality;
 import io.axway.iron.spi.model.snapshot.SerializableRelationDefinition;
+import io.axway.iron.spi.serializer.SnapshotWriter;
 
 import static io.axway.alf.assertion.Assertion.checkArgument;
 
 public class EntityStore<E> {
+    // the instance count is published in the versions as the value of a single key, so a version is sized without being iterated
+    private static final Object INSTANCE_COUNT_KEY = "instanceCount";
+
     private final EntityDefinition<E> m_entityDefinition;
     private final Class<E> m_entityClass;
     private final String m_entityName;
     private ProxyFactory<E, InstanceProxyContext> m_proxyFactory;
+    private Map<Class<?>, EntityStore<?>> m_entityStores;
 
     private final Set<String> m_attributes;
     private final String m_idPropertyName;
     private final Map<String, Map<Object, Long>> m_uniquesIndex;
+    private final Map<String, AttributeIndex> m_indexes;
     private final Set<String> m_nonNullAttributes;
     private final Map<String, RelationStore> m_relationStores;
 
-    private final Map<Long, InstanceProxy> m_instancesById = new TreeMap<>();
+    private final LongOrderedMap<InstanceProxy> m_instancesById = new LongOrderedMap<>();
     private final AtomicLong m_nextId = new AtomicLong();
 
-    public EntityStore(EntityDefinition<E> entityDefinition, Map<RelationDefinition, RelationStore> relationStores) {
+    @Nullable
+    private final StoreVersions m_storeVersions;
+    @Nullable
+    private final VersionedMap<Long, InstanceProxy> m_committedInstancesById;
+    @Nullable
+    private final VersionedMap<Object, Integer> m_committedInstanceCount;
+    private final Map<String, VersionedMap<Object, Long>> m_committedUniquesIndex;
+
+    /**
+     * @param storeVersions the versions of the store, {@code null} if the store doesn't publish versions for the multi version queries
+     */
+    public EntityStore(EntityDefinition<E> entityDefinition, Map<RelationDefinition, RelationStore> relationStores,
+                       @Nullable StoreVersions storeVersions) {
         m_entityDefinition = entityDefinition;
         m_entityClass = entityDefinition.getEntityClass();
         m_entityName = entityDefinition.getEntityName();
@@ -53,6 +74,13 @@ public class EntityStore<E> {
                                                       uniqueAttribute -> uniqueAttribute, //
                                                       uniqueAttribute -> new HashMap<>()));
 
+        m_indexes = entityDefinition.getIndexes().stream().
+                collect(Collectors.toUnmodifiableMap( //
+                                                      indexedAttribute -> indexedAttribute, //
+                                                      indexedAttribute -> new AttributeIndex(
+                                                              entityDefinition.getAttributes().get(indexedAttribute).getTypeConverter(),
+                                                              entityDefinition.getSortedIndexes().contains(indexedAttribute), storeVersions)));
+
         m_nonNullAttributes = entityDefinition.getAttributes().values().stream() //
                 .filter(attributeDefinition -> !attributeDefinition.isNullable()) //
                 .map(AttributeDefinition::getAttributeName).collect(Collectors.toUnmodifiableSet());
@@ -61,10 +89,33 @@ public class EntityStore<E> {
                 collect(Collectors.toUnmodifiableMap( //
                                                       RelationDefinition::getRelationName, //
                                                       relationStores::get));
+
+        m_storeVersions = storeVersions;
+        if (storeVersions != null) {
+            m_committedInstancesById = new VersionedMap<>(storeVersions, true, m_instancesById::get);
+            m_committedInstanceCount = new VersionedMap<>(storeVersions, false, key -> m_instancesById.size());
+            m_committedUniquesIndex = m_uniquesIndex.entrySet().stream().
+                    collect(Collectors.toUnmodifiableMap( //
+                                                          Map.Entry::getKey, //
+                                                          e -> new VersionedMap<>(storeVersions, false, e.getValue()::get)));
+        } else {
+            m_committedInstancesById = null;
+            m_committedInstanceCount = null;
+            m_committedUniquesIndex = Map.of();
+        }
     }
 
-    public void init(Map<Class<?>, EntityStore<?>> entityStores, Map<RelationDefinition, RelationStore> relationStores) {
-        m_proxyFactory = InstanceProxyFactoryBuilder.buildMethodCallHandler(m_entityDefinition, entityStores, relationStores);
+    /**
+     * @param generatedInstanceClasses the generated entity classes to use, or {@code null} to use JDK proxies
+     */
+    public void init(Map<Class<?>, EntityStore<?>> entityStores, Map<RelationDefinition, RelationStore> relationStores,
+                     @Nullable GeneratedInstanceClasses generatedInstanceClasses) {
+        m_entityStores = entityStores;
+        if (generatedInstanceClasses != null) {
+            m_proxyFactory = new GeneratedInstanceFactory<>(m_entityDefinition, generatedInstanceClasses, entityStores, relationStores);
+        } else {
+            m_proxyFactory = InstanceProxyFactoryBuilder.buildMethodCallHandler(m_entityDefinition, entityStores, relationStores);
+        }
     }
 
     public EntityDefinition<E> getEntityDefinition() {
@@ -72,7 +123,36 @@ public class EntityStore<E> {
     }
 
     public Collection<E> list() {
-        return m_instancesById.values().stream().map(m_entityClass::cast).collect(Collectors.toList());
+        return view().stream().map(m_entityClass::cast).collect(Collectors.toList());
+    }
+
+    /**
+     * @return a read only live view of the instances, in ascending id order. Unlike {@link #list()} nothing is copied, so the view must not be used
+     * while the entity store may be modified, unless it's a view of the version read by a multi version query.
+     */
+    public Collection<E> view() {
+        long readVersion = readVersion();
+        if (readVersion != StoreVersions.NO_READ_VERSION) {
+            //noinspection ConstantConditions
+            Iterable<InstanceProxy> instances = m_committedInstancesById.values(readVersion);
+            //noinspection ConstantConditions
+            Integer instanceCount = m_committedInstanceCount.get(INSTANCE_COUNT_KEY, readVersion);
+            int size = instanceCount != null ? instanceCount : 0;
+            return new AbstractCollection<>() {
+                @Override
+                public Iterator<E> iterator() {
+                    //noinspection unchecked
+                    return (Iterator<E>) instances.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        //noinspection unchecked
+        return (Collection<E>) m_instancesById.values();
     }
 
     public <V> E getByUnique(String propertyName, V value) {
@@ -82,18 +162,69 @@ public class EntityStore<E> {
         Map<?, Long> index = m_uniquesIndex.get(propertyName);
         checkArgument(index != null, "Cannot use get method on a non unique property",
                       args -> args.add("entityName", m_entityName).add("propertyName", propertyName));
-        Long instanceId = index.get(value);
+        long readVersion = readVersion();
+        Long instanceId = readVersion != StoreVersions.NO_READ_VERSION ? m_committedUniquesIndex.get(propertyName).get(value, readVersion) : index.get(value);
         if (instanceId != null) {
-            InstanceProxy instance = m_instancesById.get(instanceId);
             // instance should always exists if found in the index
-            return m_entityClass.cast(instance);
+            return getById(instanceId);
         }
 
         return null;
     }
 
+    /**
+     * @return the instances having the value, in ascending id order. The property must be the id, a unique constraint or an indexed attribute.
+     */
+    public <V> Collection<E> listByIndex(String propertyName, V value) {
+        AttributeIndex index = m_indexes.get(propertyName);
+        if (index == null) {
+            checkArgument(propertyName.equals(m_idPropertyName) || m_uniquesIndex.containsKey(propertyName),
+                          "Cannot use index lookup on a non indexed property", args -> args.add("entityName", m_entityName).add("propertyName", propertyName));
+            E instance = getByUnique(propertyName, value);
+            return instance != null ? List.of(instance) : List.of();
+        }
+
+        LongSortedSet instanceIds = index.get(value);
+        if (instanceIds == null) {
+            return List.of();
+        }
+        List<E> instances = new ArrayList<>(instanceIds.size());
+        for (int i = 0; i < instanceIds.size(); i++) {
+            // instance should always exists if found in the index
+            instances.add(getById(instanceIds.get(i)));
+        }
+        return instances;
+    }
+
+    /**
+     * @param from the lower bound, or {@code null} if the range has no lower bound
+     * @param to the upper bound, or {@code null} if the range has no upper bound
+     * @param limit the maximum count of returned instances
+     * @return the instances having a value in the range, ordered by value then by ascending id. The property must have a sorted index.
+     */
+    public Collection<E> listByRange(String propertyName, @Nullable Object from, boolean fromInclusive, @Nullable Object to, boolean toInclusive,
+                                     boolean descending, int limit) {
+        AttributeIndex index = m_indexes.get(propertyName);
+        checkArgument(index != null && index.isSorted(), "Cannot use range lookup on a property without sorted index",
+                      args -> args.add("entityName", m_entityName).add("propertyName", propertyName));
+        checkArgument(limit >= 0, "Limit must not be negative", args -> args.add("limit", limit));
+
+        List<E> instances = new ArrayList<>();
+        for (LongSortedSet instanceIds : index.range(from, fromInclusive, to, toInclusive, descending)) {
+            for (int i = 0; i < instanceIds.size(); i++) {
+                if (instances.size() == limit) {
+                    return instances;
+                }
+                instances.add(getById(instanceIds.get(i)));
+            }
+        }
+        return instances;
+    }
+
     E getById(long id) {
-        InstanceProxy instance = m_instancesById.get(id);
+        long readVersion = readVersion();
+        //noinspection ConstantConditions
+        InstanceProxy instance = readVersion != StoreVersions.NO_READ_VERSION ? m_committedInstancesById.get(id, readVersion) : m_instancesById.get(id);
         if (instance != null) {
             return m_entityClass.cast(instance);
         } else {
@@ -101,6 +232,25 @@ public class EntityStore<E> {
         }
     }
 
+    private long readVersion() {
+        return m_storeVersions != null ? m_storeVersions.readVersion() : StoreVersions.NO_READ_VERSION;
+    }
+
+    private void modifiedInstance(long id) {
+        if (m_committedInstancesById != null) {
+            m_committedInstancesById.modified(id);
+            //noinspection ConstantConditions
+            m_committedInstanceCount.modified(INSTANCE_COUNT_KEY);
+        }
+    }
+
+    private void modifiedUnique(String attributeName, Object value) {
+        VersionedMap<Object, Long> committedIndex = m_committedUniquesIndex.get(attributeName);
+        if (committedIndex != null) {
+            committedIndex.modified(value);
+        }
+    }
+
     public E newInstance() {
         return newInstance(m_nextId.getAndIncrement());
     }
@@ -154,7 +304,11 @@ public class EntityStore<E> {
         }
 
         indexInstance(instance);
+        for (Map.Entry<String, AttributeIndex> e : m_indexes.entrySet()) {
+            e.getValue().add(instance.__get(e.getKey()), instance.__id());
+        }
         m_instancesById.put(instance.__id(), instance);
+        modifiedInstance(instance.__id());
 
         return () -> delete(object);
     }
@@ -172,6 +326,7 @@ public class EntityStore<E> {
                         throw new UniqueConstraintViolationException(m_entityName, attributeName, attributeValue);
                     }
                     index.put(attributeValue, instance.__id());
+                    modifiedUnique(attributeName, attributeValue);
                 }
             }
             shouldRollbackUniqueIndexing = false;
@@ -185,6 +340,7 @@ public class EntityStore<E> {
                         Long indexedId = index.get(attributeValue);
                         if (indexedId != null && indexedId == instance.__id()) {
                             index.remove(attributeValue);
+                            modifiedUnique(attributeName, attributeValue);
                         }
                     }
                 }
@@ -212,13 +368,21 @@ public class EntityStore<E> {
         if (index != null && !Objects.equals(oldValue, value)) {
             if (oldValue != null) {
                 index.remove(oldValue);
+                modifiedUnique(propertyName, oldValue);
             }
 
             if (value != null) {
                 index.put(value, instanceId);
+                modifiedUnique(propertyName, value);
             }
         }
 
+        AttributeIndex nonUniqueIndex = m_indexes.get(propertyName);
+        if (nonUniqueIndex != null && !Objects.equals(oldValue, value)) {
+            nonUniqueIndex.remove(oldValue, instanceId);
+            nonUniqueIndex.add(value, instanceId);
+        }
+
         return () -> update(object, propertyName, oldValue);
     }
 
@@ -295,16 +459,23 @@ public class EntityStore<E> {
             if (attributeValue != null) {
                 Map<Object, Long> index = e.getValue();
                 index.remove(attributeValue);
+                modifiedUnique(attributeName, attributeValue);
             }
         }
 
+        for (Map.Entry<String, AttributeIndex> e : m_indexes.entrySet()) {
+            e.getValue().remove(instance.__get(e.getKey()), instance.__id());
+        }
+
         m_instancesById.remove(instance.__id());
+        modifiedInstance(instance.__id());
 
         return () -> insert(object);
     }
 
+
     private E newInstance(long id) {
-        InstanceProxyContext instanceProxyContext = new InstanceProxyContext(id);
+        InstanceProxyContext instanceProxyContext = new InstanceProxyContext(id, m_entityDefinition.getAttributeSlotNames().size(), m_storeVersions);
         return m_proxyFactory.createProxy(instanceProxyContext);
     }
 
@@ -312,24 +483,40 @@ public class EntityStore<E> {
         return m_attributes.contains(propertyName);
     }
 
-    public SerializableEntity snapshot() {
+    /**
+     * Stream the entity definition and instances in a snapshot.
+     */
+    public void snapshot(SnapshotWriter snapshotWriter) throws IOException {
+        snapshot(snapshotWriter, m_nextId.get());
+    }
+
+    /**
+     * Freeze the entity store for a snapshot that is streamed later. The entity store must not be modified while being frozen, and the snapshot must be
+     * streamed in a read of the version of the store published at that time.
+     */
+    public FrozenEntityStore freeze() {
+        long nextId = m_nextId.get();
+        return snapshotWriter -> snapshot(snapshotWriter, nextId);
+    }
+
+    private void snapshot(SnapshotWriter snapshotWriter, long nextId) throws IOException {
         SerializableEntity serializableEntity = new SerializableEntity();
         serializableEntity.setEntityName(m_entityName);
         serializableEntity.setRelations(toSerializableRelationDefinitionMap());
         serializableEntity.setAttributes(toSerializableAttributeDefinitionMap());
         serializableEntity.setUniques(m_entityDefinition.getUniqueConstraints().stream().map(List::of).collect(Collectors.toList()));
-        serializableEntity.setNextId(m_nextId.get());
+        serializableEntity.setNextId(nextId);
+        snapshotWriter.beginEntity(serializableEntity);
 
-        serializableEntity.setInstances(m_instancesById.values().stream().map(instanceProxy -> {
+        for (E instance : view()) {
+            InstanceProxy instanceProxy = (InstanceProxy) instance;
             long id = instanceProxy.__id();
 
-            SerializableInstance serializableInstance = new SerializableInstance();
-            serializableInstance.setId(id);
-            Map<String, Object> values = new HashMap<>();
+            snapshotWriter.beginInstance(id);
             for (String attribute : m_attributes) {
                 Object value = instanceProxy.__get(attribute);
                 if (value != null) {
-                    values.put(attribute, value);
+                    snapshotWriter.writeValue(attribute, value);
                 }
             }
 
@@ -337,15 +524,20 @@ public class EntityStore<E> {
                 String relationName = relationStore.getRelationDefinition().getRelationName();
                 Object value = relationStore.get(id);
                 if (value != null) {
-                    values.put(relationName, value);
+                    snapshotWriter.writeValue(relationName, value);
                 }
             }
+            snapshotWriter.endInstance();
+        }
 
-            serializableInstance.setValues(values);
-            return serializableInstance;
-        }).collect(Collectors.toList()));
+        snapshotWriter.endEntity();
+    }
 
-        return serializableEntity;
+    /**
+     * An entity store frozen for a snapshot.
+     */
+    public interface FrozenEntityStore {
+        void snapshot(SnapshotWriter snapshotWriter) throws IOException;
     }
 
     private Map<String, SerializableRelationDefinition> toSerializableRelationDefinitionMap() {
@@ -374,13 +566,18 @@ public class EntityStore<E> {
         return serializableAttributeDefinition;
     }
 
-    public void recover(SerializableEntity serializableEntity) {
+    /**
+     * Recover the definition of an entity from a snapshot, its instances are then recovered one by one with {@link #recoverInstance}.<br>
+     * The recovery of the entity stores of a store is done in two phases. First each entity store recovers its instances, with their attributes, indexes
+     * and relations. Entity stores don't share anything in this phase, so they can be recovered in parallel. Then, once all the instances of the store
+     * have been recovered, each entity store recovers the reverse relations of its relations with {@link #recoverReverseRelations()}.
+     */
+    public void recoverEntity(SerializableEntity serializableEntity) {
         ensureSnapshotCompliantForRelations(serializableEntity);
         ensureSnapshotCompliantForAttributes(serializableEntity);
         ensureSnapshotCompliantForUniques(serializableEntity);
 
         m_nextId.set(serializableEntity.getNextId());
-        serializableEntity.getInstances().forEach(this::recoverInstance);
     }
 
     private void ensureSnapshotCompliantForRelations(SerializableEntity serializableEntity) {
@@ -478,7 +675,7 @@ public class EntityStore<E> {
         }
     }
 
-    private void recoverInstance(SerializableInstance serializableInstance) {
+    public void recoverInstance(SerializableInstance serializableInstance) {
         long id = serializableInstance.getId();
 
         if (id >= m_nextId.get()) {
@@ -502,14 +699,37 @@ public class EntityStore<E> {
             Object value = values.get(relationName);
 
             if (value != null) {
+                // the reverse relation is recovered in the 2nd recovery phase, once the head instances exist
                 relationStore.recover(id, value);
             }
         }
-        // TODO ensure head exists in a 2nd recovery phase
 
         insert(object);
     }
 
+    /**
+     * Second recovery phase: recover the reverse relations of the relations of this entity, and ensure their head instances exist.<br>
+     * It must be called once all the entity stores of the store have recovered their instances. The entity stores of a store can recover their reverse
+     * relations in parallel, since the reverse relations are stored with their relation.
+     *
+     * @return the count of related head instances that don't exist, by relation name. Relations that have no missing head are omitted.
+     */
+    public Map<String, Integer> recoverReverseRelations() {
+        Map<String, Integer> missingHeadCounts = new HashMap<>();
+        for (RelationStore relationStore : m_relationStores.values()) {
+            RelationDefinition relationDefinition = relationStore.getRelationDefinition();
+            EntityStore<?> headEntityStore = m_entityStores.get(relationDefinition.getHeadEntityClass());
+            int missingHeadCount = 0;
+            for (InstanceProxy instance : m_instancesById.values()) {
+                missingHeadCount += relationStore.recoverReverse(instance.__id(), headEntityStore);
+            }
+            if (missingHeadCount > 0) {
+                missingHeadCounts.put(relationDefinition.getRelationName(), missingHeadCount);
+            }
+        }
+        return missingHeadCounts;
+    }
+
     private SerializableRelationCardinality mapCardinality(RelationCardinality cardinality) {
         return SerializableRelationCardinality.valueOf(cardinality.name());
     }
@@ -0,0 +1,68 @@
+package io.axway.iron.core.internal.entity;
+
+import java.util.*;
+import javax.annotation.*;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+
+/**
+ * Base class of the entity instance classes generated by {@link GeneratedInstanceClasses}.<br>
+ * It is public because generated classes are defined in their own class loader, the generated methods only call the final methods of this class.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class GeneratedInstance implements InstanceProxy {
+    private final InstanceProxyContext m_context;
+    private final GeneratedInstanceFactory<?> m_factory;
+
+    protected GeneratedInstance(Object context, Object factory) {
+        m_context = (InstanceProxyContext) context;
+        m_factory = (GeneratedInstanceFactory<?>) factory;
+    }
+
+    @Override
+    public final long __id() {
+        return m_context.getId();
+    }
+
+    @Override
+    @Nullable
+    public final Object __get(String key) {
+        int slot = m_factory.getEntityDefinition().getAttributeSlot(key);
+        return slot >= 0 ? m_context.getAttribute(slot) : null;
+    }
+
+    @Override
+    public final Object __set(String key, @Nullable Object value) {
+        int slot = m_factory.getEntityDefinition().getAttributeSlot(key);
+        checkArgument(slot >= 0, "Entity has no such attribute",
+                      args -> args.add("entityName", m_factory.getEntityDefinition().getEntityName()).add("attributeName", key));
+        return m_context.setAttribute(slot, value);
+    }
+
+    @Override
+    public final <E> Class<E> __entityClass() {
+        //noinspection unchecked
+        return (Class<E>) m_factory.getEntityDefinition().getEntityClass();
+    }
+
+    protected final Object __attribute(int slot) {
+        return m_context.getAttribute(slot);
+    }
+
+    protected final Object __relation(int relationIndex) {
+        return m_factory.navigate(relationIndex, m_context.getId());
+    }
+
+    @Override
+    public final String toString() {
+        List<String> attributeSlotNames = m_factory.getEntityDefinition().getAttributeSlotNames();
+        Map<String, Object> attributes = new HashMap<>();
+        for (int slot = 0; slot < attributeSlotNames.size(); slot++) {
+            Object value = m_context.getAttribute(slot);
+            if (value != null) {
+                attributes.put(attributeSlotNames.get(slot), value);
+            }
+        }
+        return m_factory.getEntityDefinition().getEntityName() + "(" + m_context.getId() + ")=" + attributes;
+    }
+}
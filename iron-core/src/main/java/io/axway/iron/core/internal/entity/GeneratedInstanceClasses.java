@@ -0,0 +1,125 @@
+package io.axway.iron.core.internal.entity;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.stream.*;
+import io.axway.iron.core.internal.definition.entity.AttributeDefinition;
+import io.axway.iron.core.internal.definition.entity.EntityDefinition;
+import io.axway.iron.core.internal.definition.entity.IdDefinition;
+import io.axway.iron.core.internal.definition.entity.RelationDefinition;
+import io.axway.iron.core.internal.definition.entity.ReverseRelationDefinition;
+import io.axway.iron.core.internal.utils.TypeConverter;
+import io.axway.iron.core.internal.utils.proxy.ClassFileWriter;
+import io.axway.iron.core.internal.utils.proxy.GeneratedClassLoader;
+import io.axway.iron.error.StoreException;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+import static io.axway.iron.core.internal.utils.proxy.ClassFileWriter.*;
+
+/**
+ * Generate a concrete class for each entity interface, used instead of JDK proxies by the code generation backend.<br>
+ * The generated class extends {@link GeneratedInstance}:
+ * <ul>
+ * <li>attribute getters read the instance slot and convert it with a converter held in a static field of the generated class</li>
+ * <li>id getter returns {@link GeneratedInstance#__id()}</li>
+ * <li>relation and reverse relation getters navigate the relation stores of the store owning the instance, by index in {@link #orderedRelations}</li>
+ * </ul>
+ */
+public class GeneratedInstanceClasses {
+    private static final String GENERATED_CLASS_SUFFIX = "$IronInstance";
+    private static final String CONVERTER_FIELD_PREFIX = "converter";
+    private static final String BASE_CLASS = internalName(GeneratedInstance.class);
+    private static final String CONSTRUCTOR_DESCRIPTOR = methodDescriptor(void.class, Object.class, Object.class);
+    private static final String TYPE_CONVERTER_DESCRIPTOR = descriptor(TypeConverter.class);
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
+    private final Map<Class<?>, MethodHandle> m_constructors;
+
+    public GeneratedInstanceClasses(Collection<EntityDefinition<?>> entityDefinitions) {
+        m_constructors = entityDefinitions.stream().collect(Collectors.toUnmodifiableMap(EntityDefinition::getEntityClass, this::generate));
+    }
+
+    MethodHandle getConstructor(Class<?> entityClass) {
+        MethodHandle constructor = m_constructors.get(entityClass);
+        checkArgument(constructor != null, "No class has been generated for the entity", args -> args.add("entityClass", entityClass.getName()));
+        return constructor;
+    }
+
+    /**
+     * @return the relations then the reverse relations of the entity, the index of a relation in this list is the index given to
+     * {@link GeneratedInstance#__relation(int)}
+     */
+    static List<Object> orderedRelations(EntityDefinition<?> entityDefinition) {
+        List<Object> relations = new ArrayList<>();
+        entityDefinition.getRelations().values().stream().sorted(Comparator.comparing(RelationDefinition::getRelationName)).forEach(relations::add);
+        entityDefinition.getReverseRelations().values().stream().sorted(Comparator.comparing(reverseRelation -> reverseRelation.getReverseRelationMethod().getName()))
+                .forEach(relations::add);
+        return relations;
+    }
+
+    private MethodHandle generate(EntityDefinition<?> entityDefinition) {
+        Class<?> entityClass = entityDefinition.getEntityClass();
+        checkArgument(Modifier.isPublic(entityClass.getModifiers()), "Entity interface must be public to generate its class",
+                      args -> args.add("entityClass", entityClass.getName()));
+
+        String className = entityClass.getName() + GENERATED_CLASS_SUFFIX;
+        String classInternalName = className.replace('.', '/');
+        ClassFileWriter writer = new ClassFileWriter(classInternalName, BASE_CLASS, internalName(entityClass));
+
+        writer.addMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR) //
+                .loadThis().loadReference(1).loadReference(2) //
+                .invokeSpecial(BASE_CLASS, "<init>", CONSTRUCTOR_DESCRIPTOR) //
+                .returnValue(void.class);
+
+        IdDefinition idDefinition = entityDefinition.getIdDefinition();
+        if (idDefinition != null) {
+            writer.addMethod(ACC_PUBLIC | ACC_FINAL, idDefinition.getIdMethod().getName(), methodDescriptor(long.class)) //
+                    .loadThis() //
+                    .invokeVirtual(BASE_CLASS, "__id", methodDescriptor(long.class)) //
+                    .returnValue(long.class);
+        }
+
+        Map<String, TypeConverter<?>> converters = new HashMap<>();
+        for (AttributeDefinition<Object> attributeDefinition : entityDefinition.getAttributes().values()) {
+            Method method = attributeDefinition.getAttributeMethod();
+            int slot = entityDefinition.getAttributeSlot(attributeDefinition.getAttributeName());
+            String converterField = CONVERTER_FIELD_PREFIX + slot;
+            converters.put(converterField, attributeDefinition.getTypeConverter());
+            writer.addField(ACC_PUBLIC | ACC_STATIC, converterField, TYPE_CONVERTER_DESCRIPTOR);
+            writer.addMethod(ACC_PUBLIC | ACC_FINAL, method.getName(), methodDescriptor(method.getReturnType())) //
+                    .getStatic(classInternalName, converterField, TYPE_CONVERTER_DESCRIPTOR) //
+                    .loadThis().pushInt(slot) //
+                    .invokeVirtual(BASE_CLASS, "__attribute", methodDescriptor(Object.class, int.class)) //
+                    .invokeInterface(internalName(TypeConverter.class), "convert", methodDescriptor(Object.class, Object.class)) //
+                    .castOrUnbox(method.getReturnType()) //
+                    .returnValue(method.getReturnType());
+        }
+
+        List<Object> relations = orderedRelations(entityDefinition);
+        for (int i = 0; i < relations.size(); i++) {
+            Object relation = relations.get(i);
+            Method method = relation instanceof RelationDefinition ? ((RelationDefinition) relation).getRelationMethod() :
+                    ((ReverseRelationDefinition) relation).getReverseRelationMethod();
+            writer.addMethod(ACC_PUBLIC | ACC_FINAL, method.getName(), methodDescriptor(method.getReturnType())) //
+                    .loadThis().pushInt(i) //
+                    .invokeVirtual(BASE_CLASS, "__relation", methodDescriptor(Object.class, int.class)) //
+                    .castOrUnbox(method.getReturnType()) //
+                    .returnValue(method.getReturnType());
+        }
+
+        try {
+            Class<?> generatedClass = GeneratedClassLoader.forClasses(entityClass, GeneratedInstance.class).define(className, writer.toByteArray());
+            for (Map.Entry<String, TypeConverter<?>> converter : converters.entrySet()) {
+                generatedClass.getField(converter.getKey()).set(null, converter.getValue());
+            }
+            return MethodHandles.publicLookup().findConstructor(generatedClass, MethodType.methodType(void.class, Object.class, Object.class))
+                    .asType(FACTORY_TYPE);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new StoreException("Cannot generate the entity class", args -> args.add("entityClass", entityClass.getName()), e);
+        }
+    }
+}
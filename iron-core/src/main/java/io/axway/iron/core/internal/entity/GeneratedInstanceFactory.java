@@ -0,0 +1,61 @@
+package io.axway.iron.core.internal.entity;
+
+import java.lang.invoke.MethodHandle;
+import java.util.*;
+import java.util.function.*;
+import io.axway.iron.core.internal.definition.entity.EntityDefinition;
+import io.axway.iron.core.internal.definition.entity.RelationDefinition;
+import io.axway.iron.core.internal.definition.entity.ReverseRelationDefinition;
+import io.axway.iron.core.internal.utils.proxy.ProxyFactory;
+import io.axway.iron.error.StoreException;
+
+/**
+ * Create the entity instances of an entity store with the class generated by {@link GeneratedInstanceClasses}.
+ */
+class GeneratedInstanceFactory<E> implements ProxyFactory<E, InstanceProxyContext> {
+    private final EntityDefinition<E> m_entityDefinition;
+    private final MethodHandle m_constructor;
+    private final List<LongFunction<Object>> m_relations;
+
+    GeneratedInstanceFactory(EntityDefinition<E> entityDefinition, GeneratedInstanceClasses generatedInstanceClasses,
+                             Map<Class<?>, EntityStore<?>> entityStores, Map<RelationDefinition, RelationStore> relationStores) {
+        m_entityDefinition = entityDefinition;
+        m_constructor = generatedInstanceClasses.getConstructor(entityDefinition.getEntityClass());
+
+        List<LongFunction<Object>> relations = new ArrayList<>();
+        for (Object relation : GeneratedInstanceClasses.orderedRelations(entityDefinition)) {
+            if (relation instanceof RelationDefinition) {
+                RelationDefinition relationDefinition = (RelationDefinition) relation;
+                RelationStore relationStore = relationStores.get(relationDefinition);
+                EntityStore<?> headEntityStore = entityStores.get(relationDefinition.getHeadEntityClass());
+                relations.add(tailId -> relationStore.navigate(tailId, headEntityStore));
+            } else {
+                RelationDefinition relationDefinition = ((ReverseRelationDefinition) relation).getRelationDefinition();
+                RelationStore relationStore = relationStores.get(relationDefinition);
+                EntityStore<?> tailEntityStore = entityStores.get(relationDefinition.getTailEntityClass());
+                relations.add(headId -> relationStore.navigateReverse(headId, tailEntityStore));
+            }
+        }
+        m_relations = List.copyOf(relations);
+    }
+
+    EntityDefinition<E> getEntityDefinition() {
+        return m_entityDefinition;
+    }
+
+    Object navigate(int relationIndex, long id) {
+        return m_relations.get(relationIndex).apply(id);
+    }
+
+    @Override
+    public E createProxy(InstanceProxyContext proxyContext) {
+        try {
+            Object instance = (Object) m_constructor.invokeExact((Object) proxyContext, (Object) this);
+            return m_entityDefinition.getEntityClass().cast(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StoreException(e);
+        }
+    }
+}
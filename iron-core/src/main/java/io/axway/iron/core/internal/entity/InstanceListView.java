@@ -0,0 +1,35 @@
+package io.axway.iron.core.internal.entity;
+
+import java.util.*;
+import io.axway.iron.core.internal.utils.LongSortedSet;
+
+/**
+ * Read only list of the instances related through a relation, backed by their ids.<br>
+ * The ids are a {@link LongSortedSet#snapshot()} taken when the relation is navigated, or the ids of the version read by a multi version query, so the
+ * list isn't impacted by the next relation updates and nothing is copied unless the relation is updated. {@link #size()} and
+ * {@link #contains(Object)} only use the ids, instances are resolved when the list is accessed.
+ */
+final class InstanceListView extends AbstractList<Object> implements RandomAccess {
+    private final LongSortedSet m_ids;
+    private final EntityStore<?> m_entityStore;
+
+    InstanceListView(LongSortedSet ids, EntityStore<?> entityStore) {
+        m_ids = ids;
+        m_entityStore = entityStore;
+    }
+
+    @Override
+    public Object get(int index) {
+        return m_entityStore.getById(m_ids.get(index));
+    }
+
+    @Override
+    public int size() {
+        return m_ids.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return m_entityStore.getEntityDefinition().getEntityClass().isInstance(o) && m_ids.contains(((InstanceProxy) o).__id());
+    }
+}
@@ -1,33 +1,72 @@
 package io.axway.iron.core.internal.entity;
 
-import java.util.*;
 import javax.annotation.*;
 
-class InstanceProxyContext {
+class InstanceProxyContext implements StoreVersions.VersionedState {
     private final long m_id;
-    private final Map<String, Object> m_attributes = new HashMap<>();
+    private Object[] m_attributes;
+    @Nullable
+    private final StoreVersions m_storeVersions;
+    @Nullable
+    private volatile StoreVersions.Version<Object[]> m_committedAttributes;
+    private boolean m_modified;
 
-    InstanceProxyContext(long id) {
+    /**
+     * @param storeVersions the versions of the store of the instance, {@code null} if the store doesn't publish versions
+     */
+    InstanceProxyContext(long id, int attributeCount, @Nullable StoreVersions storeVersions) {
         m_id = id;
+        m_attributes = new Object[attributeCount];
+        m_storeVersions = storeVersions;
+        modified();
     }
 
     long getId() {
         return m_id;
     }
 
-    Object getAttribute(String name) {
-        return m_attributes.get(name);
+    Object getAttribute(int slot) {
+        if (m_storeVersions != null) {
+            long readVersion = m_storeVersions.readVersion();
+            if (readVersion != StoreVersions.NO_READ_VERSION) {
+                Object[] attributes = StoreVersions.valueAt(m_committedAttributes, readVersion);
+                return attributes != null ? attributes[slot] : null;
+            }
+        }
+        return m_attributes[slot];
+    }
+
+    Object setAttribute(int slot, @Nullable Object value) {
+        modified();
+        Object previousValue = m_attributes[slot];
+        m_attributes[slot] = value;
+        return previousValue;
+    }
+
+    private void modified() {
+        if (m_storeVersions != null && !m_modified) {
+            m_modified = true;
+            if (m_committedAttributes != null) {
+                // the published attributes must not be modified anymore
+                m_attributes = m_attributes.clone();
+            }
+            m_storeVersions.modified(this);
+        }
     }
 
-    Object setAttribute(String name, @Nullable Object value) {
-        if (value != null) {
-            return m_attributes.put(name, value);
-        } else {
-            return m_attributes.remove(name);
+    @Override
+    public void publish(long version) {
+        StoreVersions.Version<Object[]> newest = m_committedAttributes;
+        m_committedAttributes = new StoreVersions.Version<>(version, m_attributes, newest);
+        if (newest != null) {
+            //noinspection ConstantConditions
+            m_storeVersions.superseded(this, null, version);
         }
+        m_modified = false;
     }
 
-    Map<String, Object> getAttributes() {
-        return m_attributes;
+    @Override
+    public void prune(@Nullable Object key, long oldestReadableVersion) {
+        StoreVersions.prune(m_committedAttributes, oldestReadableVersion);
     }
 }
@@ -11,6 +11,8 @@ import io.axway.iron.core.internal.utils.TypeConverter;
 import io.axway.iron.core.internal.utils.proxy.ProxyFactory;
 import io.axway.iron.core.internal.utils.proxy.ProxyFactoryBuilder;
 
+import static io.axway.alf.assertion.Assertion.checkArgument;
+
 class InstanceProxyFactoryBuilder {
     private static final Method PROXY_ID_METHOD;
     private static final Method PROXY_GET_METHOD;
@@ -33,18 +35,31 @@ class InstanceProxyFactoryBuilder {
         Class<E> entityClass = entityDefinition.getEntityClass();
         String entityName = entityDefinition.getEntityName();
 
+        List<String> attributeSlotNames = entityDefinition.getAttributeSlotNames();
+
         ProxyFactoryBuilder<InstanceProxyContext> callHandlerBuilder = ProxyFactoryBuilder.<InstanceProxyContext>newProxyFactoryBuilder() //
                 .defaultObjectEquals() //
                 .defaultObjectHashcode() //
-                .handleObjectToString((context, proxy, method, args) -> entityName + "(" + context.getId() + ")=" + context.getAttributes()) //
+                .handleObjectToString((context, proxy, method, args) -> {
+                    Map<String, Object> attributes = new HashMap<>();
+                    for (int slot = 0; slot < attributeSlotNames.size(); slot++) {
+                        Object value = context.getAttribute(slot);
+                        if (value != null) {
+                            attributes.put(attributeSlotNames.get(slot), value);
+                        }
+                    }
+                    return entityName + "(" + context.getId() + ")=" + attributes;
+                }) //
                 .handle(PROXY_ID_METHOD, (context, proxy, method, args) -> context.getId()) //
                 .handle(PROXY_GET_METHOD, (context, proxy, method, args) -> {
-                    String name = (String) args[0];
-                    return context.getAttribute(name);
+                    int slot = entityDefinition.getAttributeSlot((String) args[0]);
+                    return slot >= 0 ? context.getAttribute(slot) : null;
                 }) //
                 .handle(PROXY_SET_METHOD, (context, proxy, method, args) -> {
                     String name = (String) args[0];
-                    return context.setAttribute(name, args[1]);
+                    int slot = entityDefinition.getAttributeSlot(name);
+                    checkArgument(slot >= 0, "Entity has no such attribute", arguments -> arguments.add("entityName", entityName).add("attributeName", name));
+                    return context.setAttribute(slot, args[1]);
                 }) //
                 .handle(PROXY_ENTITY_CLASS_METHOD, (context, proxy, method, args) -> entityClass) //
                 ;
@@ -56,9 +71,9 @@ class InstanceProxyFactoryBuilder {
 
         for (AttributeDefinition<Object> attributeDefinition : entityDefinition.getAttributes().values()) {
             Method attributeMethod = attributeDefinition.getAttributeMethod();
-            String name = attributeDefinition.getAttributeName();
+            int slot = entityDefinition.getAttributeSlot(attributeDefinition.getAttributeName());
             TypeConverter<?> typeConverter = attributeDefinition.getTypeConverter();
-            callHandlerBuilder.handle(attributeMethod, (context, proxy, method, args) -> typeConverter.convert(context.getAttribute(name)));
+            callHandlerBuilder.handle(attributeMethod, (context, proxy, method, args) -> typeConverter.convert(context.getAttribute(slot)));
         }
 
         for (RelationDefinition relationDefinition : entityDefinition.getRelations().values()) {
@@ -2,33 +2,49 @@ package io.axway.iron.core.internal.entity;
 
 import java.util.*;
 import java.util.stream.*;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.TreeMultimap;
+import javax.annotation.*;
 import io.axway.iron.core.internal.definition.entity.RelationCardinality;
 import io.axway.iron.core.internal.definition.entity.RelationDefinition;
-import io.axway.iron.core.internal.utils.proxy.ProxyFactoryBuilder;
+import io.axway.iron.core.internal.utils.LongOrderedMap;
+import io.axway.iron.core.internal.utils.LongSortedSet;
 
 import static io.axway.alf.assertion.Assertion.checkArgument;
 
 class RelationMultipleStore extends RelationStore {
-    private final Multimap<Long, Long> m_values = TreeMultimap.create(); // tailId -> headIds
+    private final LongOrderedMap<LongSortedSet> m_values = new LongOrderedMap<>(); // tailId -> headIds
+    @Nullable
+    private final VersionedMap<Long, LongSortedSet> m_committedValues;
 
-    RelationMultipleStore(RelationDefinition relationDefinition) {
-        super(relationDefinition);
+    RelationMultipleStore(RelationDefinition relationDefinition, @Nullable StoreVersions storeVersions) {
+        super(relationDefinition, storeVersions);
         checkArgument(relationDefinition.getRelationCardinality() == RelationCardinality.MANY, "Cannot create a RelationMultipleStore for a non MANY relation");
+        m_committedValues = storeVersions != null ? new VersionedMap<>(storeVersions, false, snapshotOf(m_values)) : null;
     }
 
     @Override
-    void addRelationMethodHandle(ProxyFactoryBuilder<InstanceProxyContext> callHandlerBuilder, EntityStore<?> headEntityStore) {
-        callHandlerBuilder.handle(getRelationDefinition().getRelationMethod(), (context, proxy, method, args) -> {
-            Collection<Long> headIds = get(context.getId());
-            return headIds.stream().map(headEntityStore::getById).collect(Collectors.toUnmodifiableList());
-        });
+    Object navigate(long tailId, EntityStore<?> headEntityStore) {
+        long readVersion = readVersion();
+        if (readVersion != StoreVersions.NO_READ_VERSION) {
+            //noinspection ConstantConditions
+            LongSortedSet headIds = m_committedValues.get(tailId, readVersion);
+            return headIds != null ? new InstanceListView(headIds, headEntityStore) : List.of();
+        }
+        LongSortedSet headIds = m_values.get(tailId);
+        return headIds != null ? new InstanceListView(headIds.snapshot(), headEntityStore) : List.of();
+    }
+
+    private void modified(long tailId) {
+        if (m_committedValues != null) {
+            m_committedValues.modified(tailId);
+        }
     }
 
     @Override
     Collection<Long> get(long tailId) {
-        return m_values.get(tailId);
+        long readVersion = readVersion();
+        //noinspection ConstantConditions
+        LongSortedSet headIds = readVersion != StoreVersions.NO_READ_VERSION ? m_committedValues.get(tailId, readVersion) : m_values.get(tailId);
+        return headIds != null ? headIds.asList() : List.of();
     }
 
     @Override
@@ -39,41 +55,80 @@ class RelationMultipleStore extends RelationStore {
     @Override
     void recover(long tailId, Object value) {
         Collection<?> values = (Collection<?>) value;
-        set(tailId, values.stream().map(o -> ((Number) o).longValue()).collect(Collectors.toList()));
+        if (!values.isEmpty()) {
+            LongSortedSet headIds = new LongSortedSet();
+            for (Object headId : values) {
+                headIds.add(((Number) headId).longValue());
+            }
+            m_values.put(tailId, headIds);
+            modified(tailId);
+        }
     }
 
-    Collection<Long> set(long tailId, Collection<Long> headIds) {
-        Collection<Long> previousHeadIds = m_values.replaceValues(tailId, headIds);
-        for (Long previousHeadId : previousHeadIds) {
-            m_reverseValues.remove(previousHeadId, tailId);
+    @Override
+    int recoverReverse(long tailId, EntityStore<?> headEntityStore) {
+        LongSortedSet headIds = m_values.get(tailId);
+        int missingHeadCount = 0;
+        if (headIds != null) {
+            for (int i = 0; i < headIds.size(); i++) {
+                missingHeadCount += recoverReverse(tailId, headIds.get(i), headEntityStore);
+            }
         }
+        return missingHeadCount;
+    }
+
+    Collection<Long> set(long tailId, Collection<Long> headIds) {
+        Collection<Long> previousHeadIds = clear(tailId);
         for (Long headId : headIds) {
-            m_reverseValues.put(headId, tailId);
+            add(tailId, headId);
         }
         return previousHeadIds;
     }
 
     boolean add(long tailId, long headId) {
-        return m_values.put(tailId, headId);
+        LongSortedSet headIds = m_values.get(tailId);
+        if (headIds == null) {
+            headIds = new LongSortedSet();
+            m_values.put(tailId, headIds);
+        }
+        if (headIds.add(headId)) {
+            modified(tailId);
+            addReverse(headId, tailId);
+            return true;
+        }
+        return false;
     }
 
     Collection<Long> addAll(long tailId, Collection<Long> headIds) {
-        return headIds.stream().filter(headId -> m_values.put(tailId, headId)).collect(Collectors.toList());
+        return headIds.stream().filter(headId -> add(tailId, headId)).collect(Collectors.toList());
     }
 
     boolean remove(long tailId, long headId) {
-        return m_values.remove(tailId, headId);
+        LongSortedSet headIds = m_values.get(tailId);
+        if (headIds != null && headIds.remove(headId)) {
+            if (headIds.isEmpty()) {
+                m_values.remove(tailId);
+            }
+            modified(tailId);
+            removeReverse(headId, tailId);
+            return true;
+        }
+        return false;
     }
 
     Collection<Long> removeAll(long tailId, Collection<Long> headIds) {
-        return headIds.stream().filter(headId -> m_values.remove(tailId, headId)).collect(Collectors.toList());
+        return headIds.stream().filter(headId -> remove(tailId, headId)).collect(Collectors.toList());
     }
 
     Collection<Long> clear(long tailId) {
-        Collection<Long> previousHeadIds = m_values.removeAll(tailId);
-        for (Long previousHeadId : previousHeadIds) {
-            m_reverseValues.remove(previousHeadId, tailId);
+        LongSortedSet previousHeadIds = m_values.remove(tailId);
+        if (previousHeadIds == null) {
+            return List.of();
         }
-        return previousHeadIds;
+        modified(tailId);
+        for (int i = 0; i < previousHeadIds.size(); i++) {
+            removeReverse(previousHeadIds.get(i), tailId);
+        }
+        return previousHeadIds.toList();
     }
 }
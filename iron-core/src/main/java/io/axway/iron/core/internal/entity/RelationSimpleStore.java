@@ -1,35 +1,57 @@
 package io.axway.iron.core.internal.entity;
 
-import java.util.*;
+import javax.annotation.*;
 import io.axway.iron.core.internal.definition.entity.RelationCardinality;
 import io.axway.iron.core.internal.definition.entity.RelationDefinition;
-import io.axway.iron.core.internal.utils.proxy.ProxyFactoryBuilder;
+import io.axway.iron.core.internal.utils.LongLongMap;
 
 import static io.axway.alf.assertion.Assertion.checkArgument;
 
 class RelationSimpleStore extends RelationStore {
-    private final Map<Long, Long> m_values = new HashMap<>(); // tailId -> headId
+    private static final long NO_HEAD = -1L;
 
-    RelationSimpleStore(RelationDefinition relationDefinition) {
-        super(relationDefinition);
+    private final LongLongMap m_values = new LongLongMap(NO_HEAD); // tailId -> headId
+    @Nullable
+    private final VersionedMap<Long, Long> m_committedValues;
+
+    RelationSimpleStore(RelationDefinition relationDefinition, @Nullable StoreVersions storeVersions) {
+        super(relationDefinition, storeVersions);
         checkArgument(relationDefinition.getRelationCardinality() != RelationCardinality.MANY, "Cannot create a RelationSimpleStore for a MANY relation");
+        m_committedValues = storeVersions != null ? new VersionedMap<>(storeVersions, false, this::currentHeadId) : null;
     }
 
     @Override
-    void addRelationMethodHandle(ProxyFactoryBuilder<InstanceProxyContext> callHandlerBuilder, EntityStore<?> headEntityStore) {
-        callHandlerBuilder.handle(getRelationDefinition().getRelationMethod(), (context, proxy, method, args) -> {
-            Long headId = get(context.getId());
-            if (headId != null) {
-                return headEntityStore.getById(headId);
-            } else {
-                return null;
-            }
-        });
+    @Nullable
+    Object navigate(long tailId, EntityStore<?> headEntityStore) {
+        long readVersion = readVersion();
+        if (readVersion != StoreVersions.NO_READ_VERSION) {
+            //noinspection ConstantConditions
+            Long headId = m_committedValues.get(tailId, readVersion);
+            return headId != null ? headEntityStore.getById(headId) : null;
+        }
+        long headId = m_values.get(tailId);
+        if (headId != NO_HEAD) {
+            return headEntityStore.getById(headId);
+        } else {
+            return null;
+        }
     }
 
     @Override
+    @Nullable
     Long get(long tailId) {
-        return m_values.get(tailId);
+        long readVersion = readVersion();
+        if (readVersion != StoreVersions.NO_READ_VERSION) {
+            //noinspection ConstantConditions
+            return m_committedValues.get(tailId, readVersion);
+        }
+        return currentHeadId(tailId);
+    }
+
+    @Nullable
+    private Long currentHeadId(long tailId) {
+        long headId = m_values.get(tailId);
+        return headId != NO_HEAD ? headId : null;
     }
 
     @Override
@@ -39,28 +61,44 @@ class RelationSimpleStore extends RelationStore {
 
     @Override
     void recover(long tailId, Object value) {
-        set(tailId, ((Number) value).longValue()); // TODO json hack to be fixed
+        m_values.put(tailId, ((Number) value).longValue()); // TODO json hack to be fixed
+        modified(tailId);
+    }
+
+    @Override
+    int recoverReverse(long tailId, EntityStore<?> headEntityStore) {
+        long headId = m_values.get(tailId);
+        return headId != NO_HEAD ? recoverReverse(tailId, headId, headEntityStore) : 0;
     }
 
     Long set(long tailId, long headId) {
-        Long previousHeadId = m_values.put(tailId, headId);
-        if (previousHeadId != null) {
+        long previousHeadId = m_values.put(tailId, headId);
+        modified(tailId);
+        if (previousHeadId != NO_HEAD) {
             if (previousHeadId != headId) {
-                m_reverseValues.remove(previousHeadId, tailId);
-                m_reverseValues.put(headId, tailId);
+                removeReverse(previousHeadId, tailId);
+                addReverse(headId, tailId);
             }
+            return previousHeadId;
         } else {
-            m_reverseValues.put(headId, tailId);
+            addReverse(headId, tailId);
+            return null;
         }
-
-        return previousHeadId;
     }
 
     Long remove(long tailId) {
-        Long headId = m_values.remove(tailId);
-        if (headId != null) {
-            m_reverseValues.remove(headId, tailId);
+        long headId = m_values.remove(tailId);
+        if (headId != NO_HEAD) {
+            modified(tailId);
+            removeReverse(headId, tailId);
+            return headId;
+        }
+        return null;
+    }
+
+    private void modified(long tailId) {
+        if (m_committedValues != null) {
+            m_committedValues.modified(tailId);
         }
-        return headId;
     }
 }
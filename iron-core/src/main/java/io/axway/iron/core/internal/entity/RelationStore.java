@@ -1,11 +1,12 @@
 package io.axway.iron.core.internal.entity;
 
 import java.util.*;
-import java.util.stream.*;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.TreeMultimap;
+import java.util.function.*;
+import javax.annotation.*;
 import io.axway.iron.core.internal.definition.entity.RelationDefinition;
 import io.axway.iron.core.internal.definition.entity.ReverseRelationDefinition;
+import io.axway.iron.core.internal.utils.LongOrderedMap;
+import io.axway.iron.core.internal.utils.LongSortedSet;
 import io.axway.iron.core.internal.utils.proxy.ProxyFactoryBuilder;
 
 import static io.axway.alf.assertion.Assertion.checkState;
@@ -13,30 +14,106 @@ import static io.axway.iron.core.internal.definition.entity.RelationCardinality.
 
 public abstract class RelationStore {
 
-    public static RelationStore newRelationStore(RelationDefinition relationDefinition) {
+    /**
+     * @param storeVersions the versions of the store, {@code null} if the store doesn't publish versions for the multi version queries
+     */
+    public static RelationStore newRelationStore(RelationDefinition relationDefinition, @Nullable StoreVersions storeVersions) {
         boolean isMultiple = relationDefinition.getRelationCardinality() == MANY;
-        return isMultiple ? new RelationMultipleStore(relationDefinition) : new RelationSimpleStore(relationDefinition);
+        return isMultiple ? new RelationMultipleStore(relationDefinition, storeVersions) : new RelationSimpleStore(relationDefinition, storeVersions);
     }
 
     private final RelationDefinition m_relationDefinition;
 
-    final Multimap<Long, Long> m_reverseValues = TreeMultimap.create(); // headId -> tailIds
+    private final LongOrderedMap<LongSortedSet> m_reverseValues = new LongOrderedMap<>(); // headId -> tailIds
 
-    RelationStore(RelationDefinition relationDefinition) {
+    @Nullable
+    private final StoreVersions m_storeVersions;
+    @Nullable
+    private final VersionedMap<Long, LongSortedSet> m_committedReverseValues;
+
+    RelationStore(RelationDefinition relationDefinition, @Nullable StoreVersions storeVersions) {
         m_relationDefinition = relationDefinition;
+        m_storeVersions = storeVersions;
+        m_committedReverseValues = storeVersions != null ? new VersionedMap<>(storeVersions, false, snapshotOf(m_reverseValues)) : null;
     }
 
     RelationDefinition getRelationDefinition() {
         return m_relationDefinition;
     }
 
+    void addReverse(long headId, long tailId) {
+        LongSortedSet tailIds = m_reverseValues.get(headId);
+        if (tailIds == null) {
+            tailIds = new LongSortedSet();
+            m_reverseValues.put(headId, tailIds);
+        }
+        tailIds.add(tailId);
+        if (m_committedReverseValues != null) {
+            m_committedReverseValues.modified(headId);
+        }
+    }
+
+    void removeReverse(long headId, long tailId) {
+        LongSortedSet tailIds = m_reverseValues.get(headId);
+        if (tailIds != null && tailIds.remove(tailId) && tailIds.isEmpty()) {
+            m_reverseValues.remove(headId);
+        }
+        if (m_committedReverseValues != null) {
+            m_committedReverseValues.modified(headId);
+        }
+    }
+
+    /**
+     * @return the version read by the current thread, or {@link StoreVersions#NO_READ_VERSION} if the current thread doesn't execute a multi version query
+     */
+    long readVersion() {
+        return m_storeVersions != null ? m_storeVersions.readVersion() : StoreVersions.NO_READ_VERSION;
+    }
+
+    /**
+     * @return a function giving immutable snapshots of the id sets of a map, to be published in versions
+     */
+    static Function<Long, LongSortedSet> snapshotOf(LongOrderedMap<LongSortedSet> ids) {
+        return key -> {
+            LongSortedSet values = ids.get(key);
+            return values != null ? values.snapshot() : null;
+        };
+    }
+
+    /**
+     * @return the head id(s) related to a tail instance, in the version read by the current thread if any
+     */
     abstract Object get(long tailId);
 
     abstract void delete(long tailId);
 
+    /**
+     * Recover the relation of a tail instance, the reverse relation is recovered later by {@link #recoverReverse(long, EntityStore)}.
+     */
     abstract void recover(long tailId, Object value);
 
-    abstract void addRelationMethodHandle(ProxyFactoryBuilder<InstanceProxyContext> callHandlerBuilder, EntityStore<?> headEntityStore);
+    /**
+     * Recover the reverse relation of a recovered tail instance. A head instance that doesn't exist is still indexed, so the store stays as it was
+     * snapshotted.
+     *
+     * @return the count of related head instances that don't exist
+     */
+    abstract int recoverReverse(long tailId, EntityStore<?> headEntityStore);
+
+    int recoverReverse(long tailId, long headId, EntityStore<?> headEntityStore) {
+        addReverse(headId, tailId);
+        return headEntityStore.getById(headId) != null ? 0 : 1;
+    }
+
+    /**
+     * @return the head instance(s) related to a tail instance, as returned by the relation method
+     */
+    @Nullable
+    abstract Object navigate(long tailId, EntityStore<?> headEntityStore);
+
+    void addRelationMethodHandle(ProxyFactoryBuilder<InstanceProxyContext> callHandlerBuilder, EntityStore<?> headEntityStore) {
+        callHandlerBuilder.handle(m_relationDefinition.getRelationMethod(), (context, proxy, method, args) -> navigate(context.getId(), headEntityStore));
+    }
 
     void addReverseRelationMethodHandle(ProxyFactoryBuilder<InstanceProxyContext> callHandlerBuilder, EntityStore<?> tailEntityStore) {
         ReverseRelationDefinition reverseRelationDefinition = m_relationDefinition.getReverseRelationDefinition();
@@ -44,9 +121,21 @@ public abstract class RelationStore {
                    args -> args.add("entityName", tailEntityStore.getEntityDefinition().getEntityName())
                            .add("relationName", m_relationDefinition.getRelationName()));
 
-        callHandlerBuilder.handle(reverseRelationDefinition.getReverseRelationMethod(), (context, proxy, method, args) -> {
-            Collection<Long> tailIds = m_reverseValues.get(context.getId());
-            return tailIds.stream().map(tailEntityStore::getById).collect(Collectors.toUnmodifiableList());
-        });
+        callHandlerBuilder.handle(reverseRelationDefinition.getReverseRelationMethod(),
+                                  (context, proxy, method, args) -> navigateReverse(context.getId(), tailEntityStore));
+    }
+
+    /**
+     * @return the tail instances that are related to a head instance
+     */
+    Collection<Object> navigateReverse(long headId, EntityStore<?> tailEntityStore) {
+        long readVersion = readVersion();
+        if (readVersion != StoreVersions.NO_READ_VERSION) {
+            //noinspection ConstantConditions
+            LongSortedSet tailIds = m_committedReverseValues.get(headId, readVersion);
+            return tailIds != null ? new InstanceListView(tailIds, tailEntityStore) : List.of();
+        }
+        LongSortedSet tailIds = m_reverseValues.get(headId);
+        return tailIds != null ? new InstanceListView(tailIds.snapshot(), tailEntityStore) : List.of();
     }
 }
@@ -0,0 +1,217 @@
+package io.axway.iron.core.internal.entity;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import javax.annotation.*;
+
+/**
+ * The committed versions of a store, read by the multi version queries.<br>
+ * The thread applying the transactions keeps updating the entity and relation stores in place, it only records which parts of the store it modified.
+ * When a transaction is done, {@link #publish()} copies these parts in a new version, so a version is immutable and shares everything that wasn't
+ * modified with the previous versions. Each modified state keeps a chain of its versions, from the newest to the oldest.<br>
+ * A query reads the version that was published when it started: {@link #read(Supplier)} makes this version current for the query thread, so the
+ * entity and relation stores read their versions instead of their current state. Queries never wait for the transactions being applied, nor delay
+ * them. The versions that are not readable anymore are pruned when the next versions are published.
+ */
+public final class StoreVersions {
+    static final long NO_READ_VERSION = -1;
+
+    private final ThreadLocal<ReadVersion> m_currentRead = new ThreadLocal<>();
+    private final Set<ReadVersion> m_activeReads = ConcurrentHashMap.newKeySet();
+    private volatile long m_publishedVersion;
+
+    // the entity stores of a store may be recovered in parallel, then the modified states are only recorded by the thread applying the transactions
+    private final Queue<VersionedState> m_modifiedStates = new ConcurrentLinkedQueue<>();
+    // the following field is only used by the thread applying the transactions
+    private final Deque<Superseded> m_superseded = new ArrayDeque<>();
+
+    /**
+     * Execute a query on the latest published version. A query executed by another query reads the same version.
+     */
+    public <T> T read(Supplier<T> query) {
+        if (m_currentRead.get() != null) {
+            return query.get();
+        }
+        try (FrozenVersion frozenVersion = freeze()) {
+            return frozenVersion.read(query);
+        }
+    }
+
+    /**
+     * Freeze the latest published version, it stays readable until the returned frozen version is closed.
+     */
+    public FrozenVersion freeze() {
+        ReadVersion readVersion = new ReadVersion();
+        // the read is registered before its version is chosen, so the version can't be pruned in the meantime
+        m_activeReads.add(readVersion);
+        readVersion.m_version = m_publishedVersion;
+        return new FrozenVersion(readVersion);
+    }
+
+    /**
+     * @return the version read by the current thread, or {@link #NO_READ_VERSION} if the current thread doesn't execute a query
+     */
+    long readVersion() {
+        ReadVersion readVersion = m_currentRead.get();
+        return readVersion != null ? readVersion.m_version : NO_READ_VERSION;
+    }
+
+    /**
+     * Record that a state has been modified and must be published with the next version. It must be called only once per version.
+     */
+    void modified(VersionedState state) {
+        m_modifiedStates.add(state);
+    }
+
+    /**
+     * Record that a key of a state has a new version that supersedes older ones, the older ones are pruned once they are not readable anymore.
+     */
+    void superseded(VersionedState state, @Nullable Object key, long version) {
+        m_superseded.addLast(new Superseded(state, key, version));
+    }
+
+    /**
+     * Publish the states modified since the last published version in a new version, and prune the versions that are not readable anymore.<br>
+     * It must be called by the thread applying the transactions, when no transaction is in progress.
+     */
+    public void publish() {
+        if (m_modifiedStates.isEmpty()) {
+            return;
+        }
+        long version = m_publishedVersion + 1;
+        VersionedState state;
+        while ((state = m_modifiedStates.poll()) != null) {
+            state.publish(version);
+        }
+        m_publishedVersion = version;
+
+        long oldestReadableVersion = oldestReadableVersion();
+        while (!m_superseded.isEmpty() && m_superseded.peekFirst().m_version <= oldestReadableVersion) {
+            Superseded superseded = m_superseded.pollFirst();
+            superseded.m_state.prune(superseded.m_key, oldestReadableVersion);
+        }
+    }
+
+    private long oldestReadableVersion() {
+        long oldestReadableVersion = m_publishedVersion;
+        for (ReadVersion activeRead : m_activeReads) {
+            oldestReadableVersion = Math.min(oldestReadableVersion, activeRead.m_version);
+        }
+        return oldestReadableVersion;
+    }
+
+    /**
+     * @return the value of the newest version that is not newer than the given version, {@code null} if there is no such version
+     */
+    @Nullable
+    static <V> V valueAt(@Nullable Version<V> newest, long version) {
+        Version<V> current = newest;
+        while (current != null && current.m_version > version) {
+            current = current.m_previous;
+        }
+        return current != null ? current.m_value : null;
+    }
+
+    /**
+     * Cut the versions that are older than the newest version not newer than the oldest readable version.
+     *
+     * @return the version that is read by the oldest readable version, {@code null} if there is no such version
+     */
+    @Nullable
+    static <V> Version<V> prune(@Nullable Version<V> newest, long oldestReadableVersion) {
+        Version<V> current = newest;
+        while (current != null && current.m_version > oldestReadableVersion) {
+            current = current.m_previous;
+        }
+        if (current != null) {
+            current.m_previous = null;
+        }
+        return current;
+    }
+
+    /**
+     * A state of the store that is published in versions.
+     */
+    interface VersionedState {
+        /**
+         * Copy the modifications done since the last published version in a new version.
+         */
+        void publish(long version);
+
+        /**
+         * Prune the versions of a key that are not readable anymore.
+         */
+        void prune(@Nullable Object key, long oldestReadableVersion);
+    }
+
+    /**
+     * A version of a value, a {@code null} value means the value doesn't exist in this version.
+     */
+    static final class Version<V> {
+        private final long m_version;
+        @Nullable
+        private final V m_value;
+        @Nullable
+        private Version<V> m_previous;
+
+        Version(long version, @Nullable V value, @Nullable Version<V> previous) {
+            m_version = version;
+            m_value = value;
+            m_previous = previous;
+        }
+
+        @Nullable
+        V getValue() {
+            return m_value;
+        }
+    }
+
+    /**
+     * A published version that is kept readable, possibly by another thread than the one that froze it.
+     */
+    public final class FrozenVersion implements AutoCloseable {
+        private final ReadVersion m_readVersion;
+
+        private FrozenVersion(ReadVersion readVersion) {
+            m_readVersion = readVersion;
+        }
+
+        /**
+         * Execute a query on the frozen version. The version must not have been closed.
+         */
+        public <T> T read(Supplier<T> query) {
+            m_currentRead.set(m_readVersion);
+            try {
+                return query.get();
+            } finally {
+                m_currentRead.remove();
+            }
+        }
+
+        /**
+         * Release the frozen version, so it can be pruned. Closing it again has no effect.
+         */
+        @Override
+        public void close() {
+            m_activeReads.remove(m_readVersion);
+        }
+    }
+
+    private static final class ReadVersion {
+        private volatile long m_version;
+    }
+
+    private static final class Superseded {
+        private final VersionedState m_state;
+        @Nullable
+        private final Object m_key;
+        private final long m_version;
+
+        private Superseded(VersionedState state, @Nullable Object key, long version) {
+            m_state = state;
+            m_key = key;
+            m_version = version;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.axway.iron.core.internal.entity;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import javax.annotation.*;
+
+/**
+ * The committed versions of a map that is modified in place by the thread applying the transactions.<br>
+ * The modified keys are recorded with {@link #modified(Object)}, their current value is read when the version is published. Published values must be
+ * immutable, or at least never modified after being published.
+ */
+final class VersionedMap<K, V> implements StoreVersions.VersionedState {
+    private final StoreVersions m_storeVersions;
+    private final Function<K, V> m_currentValue;
+    private final ConcurrentMap<K, StoreVersions.Version<V>> m_versions;
+    private final Set<K> m_modifiedKeys = new HashSet<>();
+
+    /**
+     * @param sorted {@code true} if the keys are sorted in their natural order
+     * @param currentValue give the value to publish for a key, {@code null} if the key has been removed
+     */
+    VersionedMap(StoreVersions storeVersions, boolean sorted, Function<K, V> currentValue) {
+        m_storeVersions = storeVersions;
+        m_currentValue = currentValue;
+        m_versions = sorted ? new ConcurrentSkipListMap<>() : new ConcurrentHashMap<>();
+    }
+
+    void modified(K key) {
+        if (m_modifiedKeys.isEmpty()) {
+            m_storeVersions.modified(this);
+        }
+        m_modifiedKeys.add(key);
+    }
+
+    @Nullable
+    V get(K key, long version) {
+        return StoreVersions.valueAt(m_versions.get(key), version);
+    }
+
+    /**
+     * @return the values of a version, in key order if the map is sorted. The values are resolved while being iterated.
+     */
+    Iterable<V> values(long version) {
+        return values(m_versions.values(), version);
+    }
+
+    /**
+     * @return the versions by key, sorted in the key order. The map must be sorted.
+     */
+    NavigableMap<K, StoreVersions.Version<V>> sortedVersions() {
+        return (NavigableMap<K, StoreVersions.Version<V>>) m_versions;
+    }
+
+    /**
+     * @return the values of a version, skipping the keys that don't exist in this version
+     */
+    static <V> Iterable<V> values(Collection<StoreVersions.Version<V>> versions, long version) {
+        return () -> new Iterator<>() {
+            private final Iterator<StoreVersions.Version<V>> m_iterator = versions.iterator();
+            private V m_next = advance();
+
+            private V advance() {
+                while (m_iterator.hasNext()) {
+                    V value = StoreVersions.valueAt(m_iterator.next(), version);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return m_next != null;
+            }
+
+            @Override
+            public V next() {
+                V next = m_next;
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                m_next = advance();
+                return next;
+            }
+        };
+    }
+
+    @Override
+    public void publish(long version) {
+        for (K key : m_modifiedKeys) {
+            V value = m_currentValue.apply(key);
+            StoreVersions.Version<V> newest = m_versions.get(key);
+            if (newest == null && value == null) {
+                continue;
+            }
+            m_versions.put(key, new StoreVersions.Version<>(version, value, newest));
+            if (newest != null) {
+                m_storeVersions.superseded(this, key, version);
+            }
+        }
+        m_modifiedKeys.clear();
+    }
+
+    @Override
+    public void prune(@Nullable Object key, long oldestReadableVersion) {
+        StoreVersions.Version<V> newest = m_versions.get(key);
+        StoreVersions.Version<V> oldestReadable = StoreVersions.prune(newest, oldestReadableVersion);
+        if (oldestReadable != null && oldestReadable == newest && oldestReadable.getValue() == null) {
+            // the key has been removed in all the readable versions
+            m_versions.remove(key, oldestReadable);
+        }
+    }
+}
@@ -31,6 +31,14 @@ public class ReadWriteTransactionImpl extends ReadonlyTransactionImpl implements
         }
     }
 
+    /**
+     * Commands may modify an entity while iterating its instances, so they get a copy of the instances.
+     */
+    @Override
+    <E> Collection<E> instances(EntityStore<E> entityStore) {
+        return entityStore.list();
+    }
+
     @Override
     public <E> ObjectUpdater<E> insert(Class<E> entityClass) {
         EntityStore<E> entityStore = m_entityStores.getEntityStore(entityClass);
@@ -1,6 +1,7 @@
 package io.axway.iron.core.internal.transaction;
 
 import java.util.*;
+import java.util.function.*;
 import java.util.stream.*;
 import javax.annotation.*;
 import io.axway.iron.ReadonlyTransaction;
@@ -19,6 +20,14 @@ public class ReadonlyTransactionImpl implements ReadonlyTransaction {
         m_entityStores = entityStores;
     }
 
+    /**
+     * Read only transactions are executed while the store can't be modified, so they iterate a live view of the instances rather than a copy. The
+     * view is never handed out by {@link From#all()}, since the collection may be used after the query has returned.
+     */
+    <E> Collection<E> instances(EntityStore<E> entityStore) {
+        return entityStore.view();
+    }
+
     @Override
     public <E> From<E> select(Class<E> entityClass) {
         return new From<E>() {
@@ -29,6 +38,21 @@ public class ReadonlyTransactionImpl implements ReadonlyTransaction {
                 return m_entityStore.list();
             }
 
+            @Override
+            public Stream<E> stream() {
+                return instances(m_entityStore).stream();
+            }
+
+            @Override
+            public void forEach(Consumer<? super E> action) {
+                instances(m_entityStore).forEach(action);
+            }
+
+            @Override
+            public <V> Range<E> orderBy(Accessor<E, V> accessor) {
+                return new RangeImpl<>(m_entityStore, m_introspectionHelper.getMethodName(entityClass, accessor), null, false, null, false, false);
+            }
+
             @Override
             public <V> On<E, V> where(Accessor<E, V> accessor) {
                 return new On<E, V>() {
@@ -50,6 +74,26 @@ public class ReadonlyTransactionImpl implements ReadonlyTransaction {
                         return m_entityStore.getByUnique(m_propertyName, value);
                     }
 
+                    @Override
+                    public Collection<E> allEqualsTo(V value) {
+                        return m_entityStore.listByIndex(m_propertyName, value);
+                    }
+
+                    @Override
+                    public Range<E> greaterThan(V value) {
+                        return new RangeImpl<>(m_entityStore, m_propertyName, value, false, null, false, false);
+                    }
+
+                    @Override
+                    public Range<E> lessThan(V value) {
+                        return new RangeImpl<>(m_entityStore, m_propertyName, null, false, value, false, false);
+                    }
+
+                    @Override
+                    public Range<E> between(V from, V to) {
+                        return new RangeImpl<>(m_entityStore, m_propertyName, from, true, to, true, false);
+                    }
+
                     @Override
                     public Collection<E> allContainedIn(Collection<V> values) {
                         return values.stream().map(this::equalsTo).collect(Collectors.toList());
@@ -63,4 +107,40 @@ public class ReadonlyTransactionImpl implements ReadonlyTransaction {
             }
         };
     }
+
+    private static final class RangeImpl<E> implements Range<E> {
+        private final EntityStore<E> m_entityStore;
+        private final String m_propertyName;
+        private final Object m_from;
+        private final boolean m_fromInclusive;
+        private final Object m_to;
+        private final boolean m_toInclusive;
+        private final boolean m_descending;
+
+        private RangeImpl(EntityStore<E> entityStore, String propertyName, @Nullable Object from, boolean fromInclusive, @Nullable Object to,
+                          boolean toInclusive, boolean descending) {
+            m_entityStore = entityStore;
+            m_propertyName = propertyName;
+            m_from = from;
+            m_fromInclusive = fromInclusive;
+            m_to = to;
+            m_toInclusive = toInclusive;
+            m_descending = descending;
+        }
+
+        @Override
+        public Range<E> descending() {
+            return new RangeImpl<>(m_entityStore, m_propertyName, m_from, m_fromInclusive, m_to, m_toInclusive, !m_descending);
+        }
+
+        @Override
+        public Collection<E> limit(int maxCount) {
+            return m_entityStore.listByRange(m_propertyName, m_from, m_fromInclusive, m_to, m_toInclusive, m_descending, maxCount);
+        }
+
+        @Override
+        public Collection<E> all() {
+            return limit(Integer.MAX_VALUE);
+        }
+    }
 }
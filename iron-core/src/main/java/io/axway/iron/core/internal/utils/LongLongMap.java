@@ -0,0 +1,130 @@
+package io.axway.iron.core.internal.utils;
+
+/**
+ * An open addressing hash map of primitive {@code long} keys to primitive {@code long} values.<br>
+ * Absent keys are reported with the {@code noValue} given at construction, which therefore can't be stored as a value.<br>
+ * This class is not thread safe.
+ */
+public final class LongLongMap {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final long m_noValue;
+    private long[] m_keys;
+    private long[] m_values;
+    private boolean[] m_used;
+    private int m_mask;
+    private int m_size;
+
+    public LongLongMap(long noValue) {
+        m_noValue = noValue;
+        allocate(MIN_CAPACITY);
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    public long get(long key) {
+        int pos = hash(key) & m_mask;
+        while (m_used[pos]) {
+            if (m_keys[pos] == key) {
+                return m_values[pos];
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        return m_noValue;
+    }
+
+    /**
+     * @return the previous value associated to the key, or {@code noValue} if the key was absent
+     */
+    public long put(long key, long value) {
+        int pos = hash(key) & m_mask;
+        while (m_used[pos]) {
+            if (m_keys[pos] == key) {
+                long previous = m_values[pos];
+                m_values[pos] = value;
+                return previous;
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        m_used[pos] = true;
+        m_keys[pos] = key;
+        m_values[pos] = value;
+        if (++m_size > m_used.length * LOAD_FACTOR) {
+            rehash(m_used.length * 2);
+        }
+        return m_noValue;
+    }
+
+    /**
+     * @return the value that was associated to the key, or {@code noValue} if the key was absent
+     */
+    public long remove(long key) {
+        int pos = hash(key) & m_mask;
+        while (m_used[pos]) {
+            if (m_keys[pos] == key) {
+                long previous = m_values[pos];
+                m_size--;
+                shiftKeys(pos);
+                return previous;
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        return m_noValue;
+    }
+
+    private void allocate(int capacity) {
+        m_keys = new long[capacity];
+        m_values = new long[capacity];
+        m_used = new boolean[capacity];
+        m_mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] keys = m_keys;
+        long[] values = m_values;
+        boolean[] used = m_used;
+        allocate(capacity);
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                int pos = hash(keys[i]) & m_mask;
+                while (m_used[pos]) {
+                    pos = (pos + 1) & m_mask;
+                }
+                m_used[pos] = true;
+                m_keys[pos] = keys[i];
+                m_values[pos] = values[i];
+            }
+        }
+    }
+
+    /**
+     * Backward shift deletion of linear probing, see {@link LongOrderedMap}.
+     */
+    private void shiftKeys(int pos) {
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & m_mask;
+            while (true) {
+                if (!m_used[pos]) {
+                    m_used[last] = false;
+                    return;
+                }
+                int slot = hash(m_keys[pos]) & m_mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & m_mask;
+            }
+            m_keys[last] = m_keys[pos];
+            m_values[last] = m_values[pos];
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,267 @@
+package io.axway.iron.core.internal.utils;
+
+import java.util.*;
+import java.util.function.*;
+import javax.annotation.*;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+
+/**
+ * A map of primitive {@code long} keys to non null values, iterated in ascending key order.<br>
+ * Lookups use an open addressing hash table so keys are never boxed. The iteration order is kept in a dense sorted array of keys: keys are expected to
+ * be mostly inserted in ascending order (e.g. instance ids allocated by a sequence), which is an append. Removed keys are left in the sorted array as
+ * tombstones until they are compacted.<br>
+ * This class is not thread safe.
+ */
+public final class LongOrderedMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] m_keys;
+    private Object[] m_values;
+    private int m_mask;
+    private int m_size;
+
+    private long[] m_orderedKeys;
+    private int m_orderedKeyCount;
+
+    public LongOrderedMap() {
+        allocate(MIN_CAPACITY);
+        m_orderedKeys = new long[MIN_CAPACITY];
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    @Nullable
+    public V get(long key) {
+        int pos = hash(key) & m_mask;
+        Object value;
+        while ((value = m_values[pos]) != null) {
+            if (m_keys[pos] == key) {
+                return cast(value);
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return the previous value associated to the key, or {@code null} if the key was absent
+     */
+    @Nullable
+    public V put(long key, V value) {
+        checkArgument(value != null, "Null values are not supported", args -> args.add("key", key));
+        int pos = hash(key) & m_mask;
+        Object current;
+        while ((current = m_values[pos]) != null) {
+            if (m_keys[pos] == key) {
+                m_values[pos] = value;
+                return cast(current);
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        m_keys[pos] = key;
+        m_values[pos] = value;
+        if (++m_size > m_values.length * LOAD_FACTOR) {
+            rehash(m_values.length * 2);
+        }
+        addOrderedKey(key);
+        return null;
+    }
+
+    /**
+     * @return the value that was associated to the key, or {@code null} if the key was absent
+     */
+    @Nullable
+    public V remove(long key) {
+        int pos = hash(key) & m_mask;
+        Object current;
+        while ((current = m_values[pos]) != null) {
+            if (m_keys[pos] == key) {
+                m_size--;
+                shiftKeys(pos);
+                if (m_orderedKeyCount > 2 * m_size + MIN_CAPACITY) {
+                    compactOrderedKeys();
+                }
+                return cast(current);
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        return null;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        m_size = 0;
+        m_orderedKeys = new long[MIN_CAPACITY];
+        m_orderedKeyCount = 0;
+    }
+
+    /**
+     * @return a read only view of the values, iterated in ascending key order. The map must not be modified while the view is iterated.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public void forEach(Consumer<? super V> action) {
+                forEachValue(action);
+            }
+
+            @Override
+            public int size() {
+                return m_size;
+            }
+        };
+    }
+
+    /**
+     * Apply an action on each value, in ascending key order, without allocating an iterator.
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        for (int i = 0; i < m_orderedKeyCount; i++) {
+            V value = get(m_orderedKeys[i]);
+            if (value != null) {
+                action.accept(value);
+            }
+        }
+    }
+
+    private void addOrderedKey(long key) {
+        if (m_orderedKeyCount == 0 || key > m_orderedKeys[m_orderedKeyCount - 1]) {
+            ensureOrderedKeysCapacity();
+            m_orderedKeys[m_orderedKeyCount++] = key;
+            return;
+        }
+
+        int index = Arrays.binarySearch(m_orderedKeys, 0, m_orderedKeyCount, key);
+        if (index >= 0) {
+            // the key is a tombstone that can be reused as is
+            return;
+        }
+        int insertionPoint = -index - 1;
+        ensureOrderedKeysCapacity();
+        System.arraycopy(m_orderedKeys, insertionPoint, m_orderedKeys, insertionPoint + 1, m_orderedKeyCount - insertionPoint);
+        m_orderedKeys[insertionPoint] = key;
+        m_orderedKeyCount++;
+    }
+
+    private void ensureOrderedKeysCapacity() {
+        if (m_orderedKeyCount == m_orderedKeys.length) {
+            m_orderedKeys = Arrays.copyOf(m_orderedKeys, m_orderedKeys.length * 2);
+        }
+    }
+
+    private void compactOrderedKeys() {
+        long[] orderedKeys = new long[Math.max(MIN_CAPACITY, Integer.highestOneBit(m_size) * 2)];
+        int count = 0;
+        for (int i = 0; i < m_orderedKeyCount; i++) {
+            long key = m_orderedKeys[i];
+            if (containsKey(key)) {
+                orderedKeys[count++] = key;
+            }
+        }
+        m_orderedKeys = orderedKeys;
+        m_orderedKeyCount = count;
+    }
+
+    private void allocate(int capacity) {
+        m_keys = new long[capacity];
+        m_values = new Object[capacity];
+        m_mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] keys = m_keys;
+        Object[] values = m_values;
+        allocate(capacity);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value != null) {
+                int pos = hash(keys[i]) & m_mask;
+                while (m_values[pos] != null) {
+                    pos = (pos + 1) & m_mask;
+                }
+                m_keys[pos] = keys[i];
+                m_values[pos] = value;
+            }
+        }
+    }
+
+    /**
+     * Backward shift deletion of linear probing: the entries following the removed one are moved back so lookups never need tombstones.
+     */
+    private void shiftKeys(int pos) {
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & m_mask;
+            while (true) {
+                if (m_values[pos] == null) {
+                    m_values[last] = null;
+                    return;
+                }
+                int slot = hash(m_keys[pos]) & m_mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & m_mask;
+            }
+            m_keys[last] = m_keys[pos];
+            m_values[last] = m_values[pos];
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private int m_index = 0;
+        private V m_next = advance();
+
+        private V advance() {
+            while (m_index < m_orderedKeyCount) {
+                V value = get(m_orderedKeys[m_index++]);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_next != null;
+        }
+
+        @Override
+        public V next() {
+            V next = m_next;
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            m_next = advance();
+            return next;
+        }
+    }
+}
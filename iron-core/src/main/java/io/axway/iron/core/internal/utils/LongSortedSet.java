@@ -0,0 +1,133 @@
+package io.axway.iron.core.internal.utils;
+
+import java.util.*;
+
+/**
+ * A set of primitive {@code long} values kept sorted in a dense array.<br>
+ * Lookups are binary searches and appending a value greater than all the others is amortized constant time, which suits the sets of instance ids
+ * since ids are allocated in ascending order.<br>
+ * A {@link #snapshot()} shares the values array with the set it's taken from, the one of the two sets that is modified first copies it.<br>
+ * This class is not thread safe.
+ */
+public final class LongSortedSet {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] m_values;
+    private int m_size;
+    private boolean m_shared;
+
+    public LongSortedSet() {
+        m_values = EMPTY;
+    }
+
+    private LongSortedSet(long[] values, int size) {
+        m_values = values;
+        m_size = size;
+        m_shared = true;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    public long get(int index) {
+        Objects.checkIndex(index, m_size);
+        return m_values[index];
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(m_values, 0, m_size, value) >= 0;
+    }
+
+    /**
+     * @return {@code true} if the value was not already in the set
+     */
+    public boolean add(long value) {
+        int insertionPoint;
+        if (m_size == 0 || value > m_values[m_size - 1]) {
+            insertionPoint = m_size;
+        } else {
+            int index = Arrays.binarySearch(m_values, 0, m_size, value);
+            if (index >= 0) {
+                return false;
+            }
+            insertionPoint = -index - 1;
+        }
+
+        if (m_size == m_values.length) {
+            m_values = Arrays.copyOf(m_values, Math.max(4, m_size + (m_size >> 1)));
+            m_shared = false;
+        } else {
+            ensureNotShared();
+        }
+        System.arraycopy(m_values, insertionPoint, m_values, insertionPoint + 1, m_size - insertionPoint);
+        m_values[insertionPoint] = value;
+        m_size++;
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the value was in the set
+     */
+    public boolean remove(long value) {
+        int index = Arrays.binarySearch(m_values, 0, m_size, value);
+        if (index < 0) {
+            return false;
+        }
+        ensureNotShared();
+        System.arraycopy(m_values, index + 1, m_values, index, m_size - index - 1);
+        m_size--;
+        if (m_size < m_values.length >> 2) {
+            m_values = Arrays.copyOf(m_values, m_size * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return a set that holds the current values and is not impacted by the next modifications of this set. The values are copied only when one of
+     * the two sets is modified.
+     */
+    public LongSortedSet snapshot() {
+        m_shared = true;
+        return new LongSortedSet(m_values, m_size);
+    }
+
+    private void ensureNotShared() {
+        if (m_shared) {
+            m_values = m_values.clone();
+            m_shared = false;
+        }
+    }
+
+    /**
+     * @return a copy of the values, in ascending order
+     */
+    public List<Long> toList() {
+        List<Long> list = new ArrayList<>(m_size);
+        for (int i = 0; i < m_size; i++) {
+            list.add(m_values[i]);
+        }
+        return list;
+    }
+
+    /**
+     * @return a read only view of the values, in ascending order
+     */
+    public List<Long> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Long get(int index) {
+                return LongSortedSet.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return m_size;
+            }
+        };
+    }
+}
@@ -0,0 +1,378 @@
+package io.axway.iron.core.internal.utils.proxy;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A minimal class file writer used to generate the classes of the code generation backend.<br>
+ * Only the few instructions needed by the generated classes are supported, and generated methods must not contain branches since no stack map
+ * frames are written.
+ */
+public final class ClassFileWriter {
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+    private static final int CLASS_FILE_MAJOR_VERSION = 52; // Java 8: no stack map frames are required for methods without branches
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final Map<Class<?>, String> PRIMITIVE_DESCRIPTORS = Map.of(boolean.class, "Z", byte.class, "B", char.class, "C", short.class, "S",
+                                                                              int.class, "I", long.class, "J", float.class, "F", double.class, "D",
+                                                                              void.class, "V");
+    private static final Map<Class<?>, Class<?>> WRAPPERS = Map.of(boolean.class, Boolean.class, byte.class, Byte.class, char.class, Character.class,
+                                                                   short.class, Short.class, int.class, Integer.class, long.class, Long.class,
+                                                                   float.class, Float.class, double.class, Double.class);
+
+    private final ByteArrayOutputStream m_constantPoolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream m_constantPool = new DataOutputStream(m_constantPoolBytes);
+    private final Map<String, Integer> m_constants = new HashMap<>();
+    private int m_constantCount = 1;
+
+    private final int m_thisClass;
+    private final int m_superClass;
+    private final List<Integer> m_interfaces = new ArrayList<>();
+    private final List<byte[]> m_fields = new ArrayList<>();
+    private final List<byte[]> m_methods = new ArrayList<>();
+    private final int m_codeAttributeName;
+
+    /**
+     * @param internalName the internal name of the generated class, eg {@code com/example/MyClass}
+     * @param superInternalName the internal name of the super class
+     * @param interfaceInternalNames the internal names of the implemented interfaces
+     */
+    public ClassFileWriter(String internalName, String superInternalName, String... interfaceInternalNames) {
+        m_thisClass = classConstant(internalName);
+        m_superClass = classConstant(superInternalName);
+        for (String interfaceInternalName : interfaceInternalNames) {
+            m_interfaces.add(classConstant(interfaceInternalName));
+        }
+        m_codeAttributeName = utf8Constant("Code");
+    }
+
+    public static String internalName(Class<?> clazz) {
+        return clazz.isArray() ? descriptor(clazz) : clazz.getName().replace('.', '/');
+    }
+
+    public static String descriptor(Class<?> clazz) {
+        if (clazz.isPrimitive()) {
+            return PRIMITIVE_DESCRIPTORS.get(clazz);
+        }
+        if (clazz.isArray()) {
+            return clazz.getName().replace('.', '/');
+        }
+        return "L" + internalName(clazz) + ";";
+    }
+
+    public static String methodDescriptor(Class<?> returnType, Class<?>... parameterTypes) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> parameterType : parameterTypes) {
+            sb.append(descriptor(parameterType));
+        }
+        return sb.append(')').append(descriptor(returnType)).toString();
+    }
+
+    /**
+     * @return the wrapper class of a primitive type, or the type itself if it's not primitive
+     */
+    public static Class<?> boxedType(Class<?> type) {
+        return type.isPrimitive() ? WRAPPERS.get(type) : type;
+    }
+
+    public void addField(int access, String name, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8Constant(name));
+            out.writeShort(utf8Constant(descriptor));
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        m_fields.add(bytes.toByteArray());
+    }
+
+    public MethodWriter addMethod(int access, String name, String descriptor) {
+        return new MethodWriter(access, name, descriptor);
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(CLASS_FILE_MAGIC);
+            out.writeShort(0);
+            out.writeShort(CLASS_FILE_MAJOR_VERSION);
+            out.writeShort(m_constantCount);
+            m_constantPool.flush();
+            m_constantPoolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(m_thisClass);
+            out.writeShort(m_superClass);
+            out.writeShort(m_interfaces.size());
+            for (int anInterface : m_interfaces) {
+                out.writeShort(anInterface);
+            }
+            out.writeShort(m_fields.size());
+            for (byte[] field : m_fields) {
+                out.write(field);
+            }
+            out.writeShort(m_methods.size());
+            for (byte[] method : m_methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private int utf8Constant(String value) {
+        return constant("U" + value, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+        });
+    }
+
+    private int classConstant(String internalName) {
+        int name = utf8Constant(internalName);
+        return constant("C" + internalName, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(name);
+        });
+    }
+
+    private int nameAndTypeConstant(String name, String descriptor) {
+        int nameIndex = utf8Constant(name);
+        int descriptorIndex = utf8Constant(descriptor);
+        return constant("N" + name + " " + descriptor, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+    }
+
+    private int memberConstant(int tag, String owner, String name, String descriptor) {
+        int ownerIndex = classConstant(owner);
+        int nameAndTypeIndex = nameAndTypeConstant(name, descriptor);
+        return constant("M" + tag + owner + "." + name + " " + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndTypeIndex);
+        });
+    }
+
+    private int constant(String key, ConstantWriter writer) {
+        Integer index = m_constants.get(key);
+        if (index == null) {
+            try {
+                writer.write(m_constantPool);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            index = m_constantCount++;
+            m_constants.put(key, index);
+        }
+        return index;
+    }
+
+    private interface ConstantWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Write the code of a method. The maximum stack size is computed from the written instructions.
+     */
+    public final class MethodWriter {
+        private final int m_access;
+        private final int m_name;
+        private final int m_descriptor;
+        private final ByteArrayOutputStream m_code = new ByteArrayOutputStream();
+        private int m_stackSize;
+        private int m_maxStackSize;
+        private int m_maxLocals;
+
+        private MethodWriter(int access, String name, String descriptor) {
+            m_access = access;
+            m_name = utf8Constant(name);
+            m_descriptor = utf8Constant(descriptor);
+            m_maxLocals = ((access & ACC_STATIC) != 0 ? 0 : 1) + argumentsSize(descriptor);
+        }
+
+        public MethodWriter loadThis() {
+            return loadReference(0);
+        }
+
+        public MethodWriter loadReference(int local) {
+            checkByte(local);
+            return op(1, 0x19, local); // aload
+        }
+
+        public MethodWriter pushInt(int value) {
+            if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Int constant is out of range " + value);
+            }
+            m_code.write(0x11); // sipush
+            m_code.write(value >> 8);
+            m_code.write(value);
+            return push(1);
+        }
+
+        public MethodWriter getStatic(String owner, String name, String descriptor) {
+            return memberOp(0xb2, memberConstant(CONSTANT_FIELDREF, owner, name, descriptor), slotSize(descriptor));
+        }
+
+        public MethodWriter getField(String owner, String name, String descriptor) {
+            return memberOp(0xb4, memberConstant(CONSTANT_FIELDREF, owner, name, descriptor), slotSize(descriptor) - 1);
+        }
+
+        public MethodWriter putField(String owner, String name, String descriptor) {
+            return memberOp(0xb5, memberConstant(CONSTANT_FIELDREF, owner, name, descriptor), -1 - slotSize(descriptor));
+        }
+
+        public MethodWriter invokeSpecial(String owner, String name, String descriptor) {
+            return memberOp(0xb7, memberConstant(CONSTANT_METHODREF, owner, name, descriptor), invocationStackDelta(descriptor, false));
+        }
+
+        public MethodWriter invokeVirtual(String owner, String name, String descriptor) {
+            return memberOp(0xb6, memberConstant(CONSTANT_METHODREF, owner, name, descriptor), invocationStackDelta(descriptor, false));
+        }
+
+        public MethodWriter invokeInterface(String owner, String name, String descriptor) {
+            memberOp(0xb9, memberConstant(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor), invocationStackDelta(descriptor, false));
+            m_code.write(argumentsSize(descriptor) + 1);
+            m_code.write(0);
+            return this;
+        }
+
+        public MethodWriter checkCast(String internalName) {
+            return memberOp(0xc0, classConstant(internalName), 0);
+        }
+
+        /**
+         * Convert the reference on the top of the stack to the given type, unboxing it if the type is primitive.
+         */
+        public MethodWriter castOrUnbox(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return type == Object.class ? this : checkCast(internalName(type));
+            }
+            Class<?> wrapper = WRAPPERS.get(type);
+            checkCast(internalName(wrapper));
+            return invokeVirtual(internalName(wrapper), type.getName() + "Value", methodDescriptor(type));
+        }
+
+        /**
+         * Return the value on the top of the stack, or nothing if the type is {@code void}.
+         */
+        public void returnValue(Class<?> type) {
+            int opcode;
+            if (type == void.class) {
+                opcode = 0xb1; // return
+            } else if (!type.isPrimitive()) {
+                opcode = 0xb0; // areturn
+            } else if (type == long.class) {
+                opcode = 0xad; // lreturn
+            } else if (type == float.class) {
+                opcode = 0xae; // freturn
+            } else if (type == double.class) {
+                opcode = 0xaf; // dreturn
+            } else {
+                opcode = 0xac; // ireturn
+            }
+            m_code.write(opcode);
+            end();
+        }
+
+        private void end() {
+            byte[] code = m_code.toByteArray();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                out.writeShort(m_access);
+                out.writeShort(m_name);
+                out.writeShort(m_descriptor);
+                out.writeShort(1); // attributes
+                out.writeShort(m_codeAttributeName);
+                out.writeInt(12 + code.length);
+                out.writeShort(m_maxStackSize);
+                out.writeShort(m_maxLocals);
+                out.writeInt(code.length);
+                out.write(code);
+                out.writeShort(0); // exception table
+                out.writeShort(0); // code attributes
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            m_methods.add(bytes.toByteArray());
+        }
+
+        private MethodWriter op(int stackDelta, int opcode, int operand) {
+            m_code.write(opcode);
+            m_code.write(operand);
+            return push(stackDelta);
+        }
+
+        private MethodWriter memberOp(int opcode, int constantIndex, int stackDelta) {
+            m_code.write(opcode);
+            m_code.write(constantIndex >> 8);
+            m_code.write(constantIndex);
+            return push(stackDelta);
+        }
+
+        private MethodWriter push(int stackDelta) {
+            m_stackSize += stackDelta;
+            m_maxStackSize = Math.max(m_maxStackSize, m_stackSize);
+            return this;
+        }
+
+        private void checkByte(int local) {
+            if (local < 0 || local > 255) {
+                throw new IllegalArgumentException("Local variable index is out of range " + local);
+            }
+        }
+    }
+
+    private static int invocationStackDelta(String methodDescriptor, boolean isStatic) {
+        String returnDescriptor = methodDescriptor.substring(methodDescriptor.indexOf(')') + 1);
+        return slotSize(returnDescriptor) - argumentsSize(methodDescriptor) - (isStatic ? 0 : 1);
+    }
+
+    private static int argumentsSize(String methodDescriptor) {
+        int size = 0;
+        int i = 1;
+        while (methodDescriptor.charAt(i) != ')') {
+            char c = methodDescriptor.charAt(i);
+            while (c == '[') {
+                c = methodDescriptor.charAt(++i);
+            }
+            boolean array = i > 0 && methodDescriptor.charAt(i - 1) == '[';
+            if (c == 'L') {
+                i = methodDescriptor.indexOf(';', i);
+            }
+            size += !array && (c == 'J' || c == 'D') ? 2 : 1;
+            i++;
+        }
+        return size;
+    }
+
+    private static int slotSize(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'V':
+                return 0;
+            case 'J':
+            case 'D':
+                return 2;
+            default:
+                return 1;
+        }
+    }
+}
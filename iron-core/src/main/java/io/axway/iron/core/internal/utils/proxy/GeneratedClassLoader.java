@@ -0,0 +1,23 @@
+package io.axway.iron.core.internal.utils.proxy;
+
+import java.util.*;
+import java.util.stream.*;
+import io.axway.iron.core.internal.utils.CompositeClassLoader;
+
+/**
+ * Class loader of the classes written with {@link ClassFileWriter}. It sees both the model interfaces and the iron classes the generated code refers to.
+ */
+public final class GeneratedClassLoader extends ClassLoader {
+    public static GeneratedClassLoader forClasses(Class<?>... classes) {
+        List<ClassLoader> classLoaders = Arrays.stream(classes).map(Class::getClassLoader).distinct().collect(Collectors.toList());
+        return new GeneratedClassLoader(classLoaders.size() == 1 ? classLoaders.get(0) : new CompositeClassLoader(classLoaders));
+    }
+
+    private GeneratedClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    public Class<?> define(String className, byte[] classFile) {
+        return defineClass(className, classFile, 0, classFile.length);
+    }
+}
@@ -0,0 +1,45 @@
+package io.axway.iron.core.spi.file;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Simple {@link InputStream} implementation that exposes the content of a {@link ByteBuffer} without copying it.
+ */
+final class ByteBufferBackedInputStream extends InputStream {
+    private final ByteBuffer m_byteBuffer;
+
+    ByteBufferBackedInputStream(ByteBuffer byteBuffer) {
+        m_byteBuffer = byteBuffer;
+    }
+
+    @Override
+    public int available() {
+        return m_byteBuffer.remaining();
+    }
+
+    @Override
+    public int read() {
+        return m_byteBuffer.hasRemaining() ? m_byteBuffer.get() & 255 : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!m_byteBuffer.hasRemaining()) {
+            return -1;
+        }
+        int newLen = Math.min(len, m_byteBuffer.remaining());
+        m_byteBuffer.get(bytes, off, newLen);
+        return newLen;
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.max(0, Math.min(n, m_byteBuffer.remaining()));
+        m_byteBuffer.position(m_byteBuffer.position() + skipped);
+        return skipped;
+    }
+}
@@ -2,18 +2,16 @@ package io.axway.iron.core.spi.file;
 
 import java.io.*;
 import java.math.BigInteger;
-import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.atomic.*;
-import java.util.concurrent.locks.*;
 import java.util.regex.*;
 import java.util.stream.*;
 import javax.annotation.*;
 import javax.annotation.concurrent.*;
 import org.reactivestreams.Publisher;
-import io.axway.alf.exception.FormattedRuntimeException;
 import io.axway.alf.log.Logger;
 import io.axway.alf.log.LoggerFactory;
 import io.axway.iron.error.StoreException;
@@ -26,31 +24,64 @@ import static io.axway.iron.core.spi.file.FilenameUtils.*;
 public class FileTransactionStore implements TransactionStore {
     private static final String TX_EXT = "tx";
     private static final Logger LOG = LoggerFactory.getLogger(FileTransactionStore.class);
+    static final int PUBLISHED_TX_CAPACITY = 1 << 16;
+    private static final int MAX_TX_BATCH_SIZE = 1024;
 
     private final String m_filenameFormat;
     private final Pattern m_filenamePattern;
     private final Path m_transactionDir;
     private final Path m_transactionTmpDir;
+    private final ReadonlyLock m_readonlyLock;
+    private final TransactionSyncPolicy m_syncPolicy;
+    @GuardedBy("m_commitLock")
+    private final TransactionManifest m_manifest;
     private long m_nextTxId;
 
     private final AtomicLong m_tmpCounter = new AtomicLong();
     private final Object m_commitLock = new Object();
+    @GuardedBy("m_commitLock")
+    private final List<String> m_unsyncedTx = new ArrayList<>();
     private final AtomicLong m_consumerStart = new AtomicLong();
 
-    private final Lock m_txLock = new ReentrantLock();
-    private final Condition m_txAvailable = m_txLock.newCondition();
-    @GuardedBy("m_txLock")
-    private final LinkedList<String> m_txToProcess = new LinkedList<>();
+    private final SpscRingBuffer<String> m_publishedTx = new SpscRingBuffer<>(PUBLISHED_TX_CAPACITY);
+    // the files published while the ring buffer is full, the writers never wait for the reader
+    @GuardedBy("m_commitLock")
+    private final Deque<String> m_overflowTx = new ArrayDeque<>();
+    private volatile boolean m_overflowing;
 
     private Publisher<TransactionInput> m_allTx;
 
-    FileTransactionStore(Path fileStoreDir, @Nullable Integer transactionIdLength) {
-        m_filenamePattern = Pattern.compile("(" + buildIdRegex(transactionIdLength) + ")_([\\w\\s-]+)\\.([a-zA-Z]+)");
+    FileTransactionStore(Path fileStoreDir, @Nullable Integer transactionIdLength, FileTransactionStoreDurability durability,
+                         Duration groupSyncInterval, int groupSyncTransactionCount) {
+        m_filenamePattern = buildTransactionFilenamePattern(transactionIdLength);
         m_filenameFormat = buildIdFormat(transactionIdLength) + "_%s.%s";
         m_transactionDir = ensureDirectoryExists(fileStoreDir.resolve("tx"));
         m_transactionTmpDir = ensureDirectoryExists(fileStoreDir.resolve(".tmp").resolve("tx"));
-        m_nextTxId = retrieveNextTxId();
-        initExistingFiles();
+        m_readonlyLock = new ReadonlyLock(m_transactionDir);
+        m_syncPolicy = new TransactionSyncPolicy(durability, groupSyncInterval, groupSyncTransactionCount, this::syncPendingTransactions);
+        m_manifest = new TransactionManifest(m_transactionDir);
+        try {
+            openManifest();
+        } catch (IOException e) {
+            throw new StoreException("Transaction directory manifest cannot be opened", args -> args.add("transactionDirectory", m_transactionDir), e);
+        }
+    }
+
+    /**
+     * The transaction directory is listed only if its manifest cannot be trusted, then the manifest is rebuilt from the listing.
+     */
+    private void openManifest() throws IOException {
+        synchronized (m_commitLock) {
+            if (m_manifest.open()) {
+                m_nextTxId = m_manifest.getLastTxId() + 1;
+            } else {
+                LOG.info("Transaction directory is listed since its manifest is missing or the store has not been properly closed",
+                         args -> args.add("transactionDirectory", m_transactionDir));
+                List<String> fileNames = listTransactionFiles(0);
+                m_nextTxId = fileNames.isEmpty() ? 0 : getTransactionId(fileNames.get(fileNames.size() - 1)) + 1;
+                m_manifest.rebuild(fileNames, 0);
+            }
+        }
     }
 
     @Override
@@ -67,18 +98,80 @@ public class FileTransactionStore implements TransactionStore {
                     Path txFile = m_transactionDir.resolve(fileName);
 
                     Files.move(tmpFile, txFile);
-                    m_txLock.lock();
-                    try {
-                        m_txToProcess.add(fileName);
-                        m_txAvailable.signalAll();
-                    } finally {
-                        m_txLock.unlock();
+                    m_manifest.append(fileName);
+                    switch (m_syncPolicy.getDurability()) {
+                        case PER_TRANSACTION:
+                            m_syncPolicy.sync(1, () -> {
+                                syncFile(txFile);
+                                syncDirectory(m_transactionDir);
+                            });
+                            publish(List.of(fileName));
+                            break;
+                        case GROUP:
+                            m_unsyncedTx.add(fileName);
+                            m_syncPolicy.transactionWritten();
+                            break;
+                        default:
+                            publish(List.of(fileName));
                     }
                 }
             }
         };
     }
 
+    /**
+     * Synchronize the transaction files written since the previous call, and publish them to the reader.
+     */
+    private int syncPendingTransactions() throws IOException {
+        List<String> fileNames;
+        synchronized (m_commitLock) {
+            fileNames = new ArrayList<>(m_unsyncedTx);
+        }
+        if (fileNames.isEmpty()) {
+            return 0;
+        }
+        m_syncPolicy.sync(fileNames.size(), () -> {
+            for (String fileName : fileNames) {
+                syncFile(m_transactionDir.resolve(fileName));
+            }
+            syncDirectory(m_transactionDir);
+        });
+        synchronized (m_commitLock) {
+            m_unsyncedTx.subList(0, fileNames.size()).clear();
+            publish(fileNames);
+        }
+        return fileNames.size();
+    }
+
+    /**
+     * Hand the transaction files off to the reader. The calls are serialized by the commit lock, and they never wait for the reader: the files are
+     * kept in an overflow queue while the ring buffer is full.
+     */
+    @GuardedBy("m_commitLock")
+    private void publish(Collection<String> fileNames) {
+        for (String fileName : fileNames) {
+            if (!m_overflowTx.isEmpty() || !m_publishedTx.offer(fileName)) {
+                m_overflowTx.add(fileName);
+                m_overflowing = true;
+            }
+        }
+    }
+
+    /**
+     * Move the overflowing files to the ring buffer, once the reader has taken some. A full ring buffer holds more than a batch, so the reader takes
+     * again and drains the files that have overflowed meanwhile.
+     */
+    private void drainOverflow() {
+        if (m_overflowing) {
+            synchronized (m_commitLock) {
+                while (!m_overflowTx.isEmpty() && m_publishedTx.offer(m_overflowTx.peek())) {
+                    m_overflowTx.poll();
+                }
+                m_overflowing = !m_overflowTx.isEmpty();
+            }
+        }
+    }
+
     private String getFileName(long id, String storeName) {
         return String.format(m_filenameFormat, id, storeName, TX_EXT);
     }
@@ -86,22 +179,25 @@ public class FileTransactionStore implements TransactionStore {
     @Override
     public Publisher<TransactionInput> allTransactions() {
         if (m_allTx == null) {
-            m_allTx = Flowable                //
-                    .<String>generate(emitter -> {
-                        String next;
-                        m_txLock.lock();
-                        try {
-                            while (m_txToProcess.isEmpty()) {
-                                m_txAvailable.await();
+            // the transactions are handed off and emitted in batches, the files already existing when the store was opened first
+            m_allTx = Flowable //
+                    .<List<String>, Deque<String>>generate(this::loadExistingFiles, (existingTx, emitter) -> {
+                        if (existingTx.isEmpty()) {
+                            List<String> batch = m_publishedTx.take(MAX_TX_BATCH_SIZE);
+                            drainOverflow();
+                            emitter.onNext(batch);
+                        } else {
+                            List<String> batch = new ArrayList<>(Math.min(existingTx.size(), MAX_TX_BATCH_SIZE));
+                            while (!existingTx.isEmpty() && batch.size() < MAX_TX_BATCH_SIZE) {
+                                batch.add(existingTx.poll());
                             }
-                            next = m_txToProcess.poll();
-                        } finally {
-                            m_txLock.unlock();
+                            emitter.onNext(batch);
                         }
-                        emitter.onNext(next);
-                    })//
-                    .subscribeOn(Schedulers.io())                   //
-                    .observeOn(Schedulers.computation())            //
+                        return existingTx;
+                    }) //
+                    .subscribeOn(Schedulers.io()) //
+                    .observeOn(Schedulers.computation()) //
+                    .concatMapIterable(batch -> batch) //
                     .map(fileName -> {
                         Matcher matcher = m_filenamePattern.matcher(fileName);
                         if (!matcher.matches()) {
@@ -132,33 +228,57 @@ public class FileTransactionStore implements TransactionStore {
         return m_allTx;
     }
 
-    private void initExistingFiles() {
-        m_txLock.lock();
-        try {
-            m_txToProcess.clear();
-            try (Stream<Path> pathStream = Files.find(m_transactionDir, 1, (path, atts) -> {
-                if (atts.isDirectory()) {
-                    return false;
-                }
-                String fileName = path.getFileName().toString();
-                return fileName.compareTo(String.format("%020d", m_consumerStart.longValue())) >= 0;
-            })) {
-                pathStream.forEach(path -> {
-                    String fileName = path.getFileName().toString();
-                    if (m_filenamePattern.matcher(fileName).matches()) {
-                        m_txToProcess.add(fileName);
-                        m_txAvailable.signalAll();
-                    }
-                });
+    /**
+     * Load the names of the transaction files to be read from the consumer start, the ones published before are discarded. They are read from the
+     * manifest, unless the consumer starts before its first retained transaction. The manifest is then rebuilt with only these files, since the
+     * previous ones are covered by the snapshot the store has been recovered from.<br>
+     * The files that have not been synchronized yet are left out: they are published once they are durable, after the loaded ones.
+     */
+    private Deque<String> loadExistingFiles() throws IOException {
+        synchronized (m_commitLock) {
+            long consumerStart = m_consumerStart.get();
+            List<String> existingTx;
+            if (consumerStart >= m_manifest.getFirstRetainedTxId()) {
+                // transaction files may have been removed while the store was closed
+                existingTx = m_manifest.readFileNames().stream() //
+                        .filter(fileName -> getTransactionId(fileName) >= consumerStart && Files.exists(m_transactionDir.resolve(fileName))) //
+                        .collect(Collectors.toList());
+            } else {
+                existingTx = listTransactionFiles(consumerStart);
             }
-            m_txToProcess.sort(null);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        } finally {
-            m_txLock.unlock();
+            m_manifest.rebuild(existingTx, consumerStart);
+            m_publishedTx.clear();
+            m_overflowTx.clear();
+            m_overflowing = false;
+            existingTx.removeAll(new HashSet<>(m_unsyncedTx));
+            return new ArrayDeque<>(existingTx);
         }
     }
 
+    /**
+     * @return the names of the transaction files from the given transaction id, in id order
+     */
+    private List<String> listTransactionFiles(long fromTxId) throws IOException {
+        try (Stream<Path> dirList = Files.list(m_transactionDir)) {
+            return dirList //
+                    .map(path -> path.getFileName().toString()) //
+                    .map(m_filenamePattern::matcher) //
+                    .filter(matcher -> matcher.matches() && TX_EXT.equals(matcher.group(3)) && Long.parseLong(matcher.group(1)) >= fromTxId) //
+                    .sorted(Comparator.comparingLong(matcher -> Long.parseLong(matcher.group(1)))) //
+                    .map(Matcher::group) //
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private long getTransactionId(String fileName) {
+        Matcher matcher = m_filenamePattern.matcher(fileName);
+        if (!matcher.matches()) {
+            throw new StoreException("Transaction file name in transaction directory manifest does not match the expected pattern",
+                                     args -> args.add("filename", fileName).add("transactionDirectory", m_transactionDir));
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
     @Override
     public void seekTransaction(BigInteger latestProcessedTransactionId) {
         if (latestProcessedTransactionId.longValueExact() >= m_nextTxId) {
@@ -168,50 +288,32 @@ public class FileTransactionStore implements TransactionStore {
         }
         m_consumerStart.set(latestProcessedTransactionId.longValueExact() + 1);
         m_allTx = null;
-        initExistingFiles();
     }
 
     @Override
     public void lockReadonly(boolean wantLock) {
-        boolean lockExists = isReadonlyLockSet();
-        if (wantLock && !lockExists) {
-            try {
-                Files.createFile(getReadonlyLock());
-            } catch (FileAlreadyExistsException e) {
-                // Don't care
-            } catch (Exception e) {
-                throw new RuntimeException("Can't create readonly lock", e);
-            }
-        } else if (!wantLock && lockExists) {
-            try {
-                Files.deleteIfExists(getReadonlyLock());
-            } catch (IOException e) {
-                throw new FormattedRuntimeException("Can't delete readonly lock", e);
-            }
-        }
+        m_readonlyLock.lock(wantLock);
     }
 
     @Override
     public boolean isReadonlyLockSet() {
-        return Files.exists(getReadonlyLock());
+        return m_readonlyLock.isSet();
     }
 
-    private long retrieveNextTxId() {
-        try (Stream<Path> dirList = Files.list(m_transactionDir)) {
-            return dirList //
-                    .map(path -> path.getFileName().toString()) //
-                    .map(m_filenamePattern::matcher) //
-                    .filter(matcher -> matcher.matches() && TX_EXT.equals(matcher.group(3))) //
-                    .mapToLong(matcher -> Long.valueOf(matcher.group(1))) //
-                    .max() //
-                    .orElse(-1L) // in case no file exists we want nextTxId=0
-                    + 1;
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+    public TransactionSyncStatistics getSyncStatistics() {
+        return m_syncPolicy.getStatistics();
     }
 
-    private Path getReadonlyLock() {
-        return m_transactionDir.resolve("readonly.lock");
+    @Override
+    public void close() {
+        m_syncPolicy.close();
+        synchronized (m_commitLock) {
+            try (m_manifest) {
+                m_manifest.checkpoint(m_nextTxId - 1);
+            } catch (IOException e) {
+                LOG.warn("Transaction directory manifest cannot be checkpointed, the directory will be listed when the store is opened again",
+                         args -> args.add("transactionDirectory", m_transactionDir), e);
+            }
+        }
     }
 }
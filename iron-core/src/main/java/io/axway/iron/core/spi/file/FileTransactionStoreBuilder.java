@@ -1,13 +1,24 @@
 package io.axway.iron.core.spi.file;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.function.*;
 import javax.annotation.*;
 import io.axway.iron.spi.storage.TransactionStore;
 
+/**
+ * Build a file transaction store.<br>
+ * The transactions are written without waiting for the reader of the store. With the {@link FileTransactionStoreLayout#FILE_PER_TRANSACTION} layout,
+ * the names of the transaction files that the reader has not taken yet are kept in memory, without bound.
+ */
 public class FileTransactionStoreBuilder implements Supplier<TransactionStore> {
     private Path m_dir;
     private Integer m_transactionIdPaddingLength = 20;
+    private FileTransactionStoreLayout m_layout = FileTransactionStoreLayout.FILE_PER_TRANSACTION;
+    private long m_segmentSize = SegmentedFileTransactionStore.DEFAULT_SEGMENT_SIZE;
+    private FileTransactionStoreDurability m_durability = FileTransactionStoreDurability.NONE;
+    private Duration m_groupSyncInterval = TransactionSyncPolicy.DEFAULT_GROUP_SYNC_INTERVAL;
+    private int m_groupSyncTransactionCount = TransactionSyncPolicy.DEFAULT_GROUP_SYNC_TRANSACTION_COUNT;
     private final String m_name;
 
     public FileTransactionStoreBuilder(String name) {
@@ -24,8 +35,54 @@ public class FileTransactionStoreBuilder implements Supplier<TransactionStore> {
         return this;
     }
 
+    /**
+     * Set the layout of the transaction files, {@link FileTransactionStoreLayout#FILE_PER_TRANSACTION} by default.
+     */
+    public FileTransactionStoreBuilder setLayout(@Nullable FileTransactionStoreLayout layout) {
+        m_layout = layout != null ? layout : FileTransactionStoreLayout.FILE_PER_TRANSACTION;
+        return this;
+    }
+
+    /**
+     * Set the size in bytes from which a new segment is started with the {@link FileTransactionStoreLayout#SEGMENTED} layout, 64MiB by default and
+     * 1GiB at most since a segment is read through a single memory mapping.
+     */
+    public FileTransactionStoreBuilder setSegmentSize(@Nullable Long segmentSize) {
+        m_segmentSize = segmentSize != null ? segmentSize : SegmentedFileTransactionStore.DEFAULT_SEGMENT_SIZE;
+        return this;
+    }
+
+    /**
+     * Set the durability of the transactions, {@link FileTransactionStoreDurability#NONE} by default.
+     */
+    public FileTransactionStoreBuilder setDurability(@Nullable FileTransactionStoreDurability durability) {
+        m_durability = durability != null ? durability : FileTransactionStoreDurability.NONE;
+        return this;
+    }
+
+    /**
+     * Set the maximum time in milliseconds between two synchronizations with {@link FileTransactionStoreDurability#GROUP}, 10ms by default.
+     */
+    public FileTransactionStoreBuilder setGroupSyncIntervalMillis(@Nullable Long groupSyncIntervalMillis) {
+        m_groupSyncInterval = groupSyncIntervalMillis != null ? Duration.ofMillis(groupSyncIntervalMillis) :
+                TransactionSyncPolicy.DEFAULT_GROUP_SYNC_INTERVAL;
+        return this;
+    }
+
+    /**
+     * Set the number of waiting transactions that starts a synchronization before the interval has elapsed with
+     * {@link FileTransactionStoreDurability#GROUP}, 100 by default.
+     */
+    public FileTransactionStoreBuilder setGroupSyncTransactionCount(@Nullable Integer groupSyncTransactionCount) {
+        m_groupSyncTransactionCount = groupSyncTransactionCount != null ? groupSyncTransactionCount :
+                TransactionSyncPolicy.DEFAULT_GROUP_SYNC_TRANSACTION_COUNT;
+        return this;
+    }
+
     @Override
     public TransactionStore get() {
-        return new FileTransactionStore(m_dir, m_transactionIdPaddingLength);
+        return m_layout == FileTransactionStoreLayout.SEGMENTED ?
+                new SegmentedFileTransactionStore(m_dir, m_segmentSize, m_durability, m_groupSyncInterval, m_groupSyncTransactionCount) :
+                new FileTransactionStore(m_dir, m_transactionIdPaddingLength, m_durability, m_groupSyncInterval, m_groupSyncTransactionCount);
     }
 }
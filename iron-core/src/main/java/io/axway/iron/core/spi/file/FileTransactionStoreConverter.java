@@ -0,0 +1,89 @@
+package io.axway.iron.core.spi.file;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.*;
+import java.util.stream.*;
+import javax.annotation.*;
+import io.axway.alf.log.Logger;
+import io.axway.alf.log.LoggerFactory;
+import io.axway.iron.error.StoreException;
+
+import static io.axway.iron.core.spi.file.FilenameUtils.buildTransactionFilenamePattern;
+
+/**
+ * Convert the transactions of a store from the {@link FileTransactionStoreLayout#FILE_PER_TRANSACTION} layout to the
+ * {@link FileTransactionStoreLayout#SEGMENTED} one. The transactions keep their ids, and the readonly lock is kept.<br>
+ * The transaction files are left untouched, they can be removed once the converted store has been checked.
+ */
+public class FileTransactionStoreConverter {
+    private static final Logger LOG = LoggerFactory.getLogger(FileTransactionStoreConverter.class);
+    private static final String TX_EXT = "tx";
+
+    public static void main(String[] args) throws Exception {
+        try {
+            if (args.length < 1 || args.length > 3) {
+                throw new IllegalArgumentException("Wrong number of arguments");
+            }
+            Path fileStoreDir = Paths.get(args[0]);
+            Integer transactionIdPaddingLength = args.length > 1 ? Integer.valueOf(args[1]) : 20;
+            long segmentSize = args.length > 2 ? Long.parseLong(args[2]) : SegmentedFileTransactionStore.DEFAULT_SEGMENT_SIZE;
+            long count = convert(fileStoreDir, transactionIdPaddingLength, segmentSize);
+            System.out.printf("%d transactions converted in %s.%n", count, fileStoreDir);
+        } catch (Exception e) {
+            System.err.println("Usage of conversion tool : java " + FileTransactionStoreConverter.class.getName() +
+                                       " uriToFileStoreDirectory [transactionIdPaddingLength [segmentSize]]\n" +
+                                       "\turiToFileStoreDirectory is the directory that contains the tx directory of the store");
+            throw e;
+        }
+    }
+
+    /**
+     * Convert the transactions of a store.
+     *
+     * @param fileStoreDir the directory of the file transaction store, i.e. the one that contains its {@code tx} directory
+     * @param transactionIdPaddingLength the transaction id padding length of the file transaction store, {@code null} if the ids are not padded
+     * @param segmentSize the size of the segments of the converted store
+     * @return the number of converted transactions
+     */
+    public static long convert(Path fileStoreDir, @Nullable Integer transactionIdPaddingLength, long segmentSize) throws IOException {
+        Path transactionDir = fileStoreDir.resolve("tx");
+        if (!Files.isDirectory(transactionDir)) {
+            throw new StoreException("Transaction directory doesn't exist", args -> args.add("transactionDirectory", transactionDir));
+        }
+
+        Pattern filenamePattern = buildTransactionFilenamePattern(transactionIdPaddingLength);
+        List<Matcher> transactionFiles;
+        try (Stream<Path> files = Files.list(transactionDir)) {
+            transactionFiles = files.map(path -> filenamePattern.matcher(path.getFileName().toString())) //
+                    .filter(matcher -> matcher.matches() && TX_EXT.equals(matcher.group(3))) //
+                    .sorted(Comparator.comparingLong(matcher -> Long.parseLong(matcher.group(1)))) //
+                    .collect(Collectors.toList());
+        }
+
+        // the converted transactions are synchronized together when the store is closed
+        SegmentedFileTransactionStore segmentedStore = new SegmentedFileTransactionStore(fileStoreDir, segmentSize,
+                                                                                         FileTransactionStoreDurability.GROUP,
+                                                                                         TransactionSyncPolicy.DEFAULT_GROUP_SYNC_INTERVAL,
+                                                                                         TransactionSyncPolicy.DEFAULT_GROUP_SYNC_TRANSACTION_COUNT);
+        try {
+            if (!segmentedStore.isEmpty()) {
+                throw new StoreException("Transaction log already contains transactions", args -> args.add("fileStoreDirectory", fileStoreDir));
+            }
+            for (Matcher transactionFile : transactionFiles) {
+                byte[] transaction = Files.readAllBytes(transactionDir.resolve(transactionFile.group()));
+                segmentedStore.append(Long.parseLong(transactionFile.group(1)), transactionFile.group(2), transaction);
+            }
+            segmentedStore.lockReadonly(new ReadonlyLock(transactionDir).isSet());
+        } finally {
+            segmentedStore.close();
+        }
+
+        LOG.info("Transactions converted to segmented layout",
+                 args -> args.add("fileStoreDirectory", fileStoreDir).add("transactionCount", transactionFiles.size()));
+        return transactionFiles.size();
+    }
+}
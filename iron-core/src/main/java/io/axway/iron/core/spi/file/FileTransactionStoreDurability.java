@@ -0,0 +1,22 @@
+package io.axway.iron.core.spi.file;
+
+/**
+ * Durability of the transactions written by a file transaction store, i.e. when they are forced to the storage device.<br>
+ * A transaction is executed, and so its submission future is completed, only once it has reached the configured durability.
+ */
+public enum FileTransactionStoreDurability {
+    /**
+     * The transactions are never forced to the storage device, the operating system writes them when it wants to. A transaction may be lost if the
+     * host crashes, but not if the process only stops.
+     */
+    NONE,
+    /**
+     * Each transaction is forced to the storage device before being executed.
+     */
+    PER_TRANSACTION,
+    /**
+     * The written transactions are forced to the storage device together by a background thread, periodically or as soon as enough of them are
+     * waiting. The transactions wait a bit more before being executed, but a single synchronization is paid for many transactions.
+     */
+    GROUP
+}
@@ -0,0 +1,16 @@
+package io.axway.iron.core.spi.file;
+
+/**
+ * Layout of the transactions of a file transaction store.
+ */
+public enum FileTransactionStoreLayout {
+    /**
+     * Each transaction is written in its own file, see {@link FileTransactionStore}.
+     */
+    FILE_PER_TRANSACTION,
+    /**
+     * The transactions are appended to the segment files of a log, see {@link SegmentedFileTransactionStore}. The transactions of a store that used the
+     * {@link #FILE_PER_TRANSACTION} layout are converted with {@link FileTransactionStoreConverter}.
+     */
+    SEGMENTED
+}
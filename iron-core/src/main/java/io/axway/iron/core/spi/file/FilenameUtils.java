@@ -1,8 +1,11 @@
 package io.axway.iron.core.spi.file;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.regex.*;
 import javax.annotation.*;
 
@@ -15,6 +18,14 @@ final class FilenameUtils {
         return "[0-9]" + cardinality;
     }
 
+    /**
+     * @return the pattern of the names of the transaction files of a {@link FileTransactionStore}, its groups are the transaction id, the store name
+     * and the extension
+     */
+    static Pattern buildTransactionFilenamePattern(@Nullable Integer transactionIdLength) {
+        return Pattern.compile("(" + buildIdRegex(transactionIdLength) + ")_([\\w\\s-]+)\\.([a-zA-Z]+)");
+    }
+
     static String buildIdFormat(@Nullable Integer transactionIdLength) {
         return transactionIdLength == null ? "%d" : ("%0" + transactionIdLength + "d");
     }
@@ -27,6 +38,31 @@ final class FilenameUtils {
         }
     }
 
+    /**
+     * Force the content of a file to the storage device.
+     */
+    static void syncFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Force the entries of a directory to the storage device, so the files created or renamed in it are not lost if the host crashes. It's a no-op on
+     * the platforms that don't allow to open a directory, like Windows.
+     */
+    static void syncDirectory(Path dir) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (AccessDeniedException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
     private FilenameUtils() {
         // utility class
     }
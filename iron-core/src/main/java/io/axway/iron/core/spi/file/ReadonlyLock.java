@@ -0,0 +1,41 @@
+package io.axway.iron.core.spi.file;
+
+import java.io.*;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import io.axway.alf.exception.FormattedRuntimeException;
+
+/**
+ * Readonly lock of a file transaction store: the store is readonly as long as the lock file exists.
+ */
+final class ReadonlyLock {
+    private final Path m_lockFile;
+
+    ReadonlyLock(Path transactionDir) {
+        m_lockFile = transactionDir.resolve("readonly.lock");
+    }
+
+    void lock(boolean wantLock) {
+        boolean lockExists = isSet();
+        if (wantLock && !lockExists) {
+            try {
+                Files.createFile(m_lockFile);
+            } catch (FileAlreadyExistsException e) {
+                // Don't care
+            } catch (Exception e) {
+                throw new RuntimeException("Can't create readonly lock", e);
+            }
+        } else if (!wantLock && lockExists) {
+            try {
+                Files.deleteIfExists(m_lockFile);
+            } catch (IOException e) {
+                throw new FormattedRuntimeException("Can't delete readonly lock", e);
+            }
+        }
+    }
+
+    boolean isSet() {
+        return Files.exists(m_lockFile);
+    }
+}
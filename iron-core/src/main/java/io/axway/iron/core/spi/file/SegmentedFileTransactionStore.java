@@ -0,0 +1,336 @@
+package io.axway.iron.core.spi.file;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.stream.*;
+import javax.annotation.concurrent.*;
+import org.reactivestreams.Publisher;
+import io.axway.alf.log.Logger;
+import io.axway.alf.log.LoggerFactory;
+import io.axway.iron.error.StoreException;
+import io.axway.iron.spi.storage.TransactionStore;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+import static io.axway.iron.core.spi.file.FilenameUtils.*;
+
+/**
+ * File transaction store that appends the transactions to a log made of {@link TransactionSegment}s, instead of writing each transaction in its own
+ * file as {@link FileTransactionStore} does.<br>
+ * A new segment is started when the current one has reached the segment size, so only a few files are listed when the store is opened, whatever the
+ * number of transactions. A transaction record that has not been completely written when the store stopped is removed when it's opened again.
+ */
+public class SegmentedFileTransactionStore implements TransactionStore {
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentedFileTransactionStore.class);
+    static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    static final long MAX_SEGMENT_SIZE = 1024L * 1024 * 1024;
+
+    private final Path m_logDir;
+    private final long m_segmentSize;
+    private final ReadonlyLock m_readonlyLock;
+    private final TransactionSyncPolicy m_syncPolicy;
+    private final List<TransactionSegment> m_segments = new CopyOnWriteArrayList<>();
+
+    private final Object m_commitLock = new Object();
+    @GuardedBy("m_commitLock")
+    private long m_nextTxId;
+    @GuardedBy("m_commitLock")
+    private int m_unsyncedTxCount;
+    private int m_syncedSegmentCount;
+    private final AtomicLong m_consumerStart = new AtomicLong();
+
+    private final Lock m_txLock = new ReentrantLock();
+    private final Condition m_txAvailable = m_txLock.newCondition();
+
+    private Publisher<TransactionInput> m_allTx;
+
+    SegmentedFileTransactionStore(Path fileStoreDir, long segmentSize, FileTransactionStoreDurability durability, Duration groupSyncInterval,
+                                  int groupSyncTransactionCount) {
+        checkArgument(segmentSize > 0 && segmentSize <= MAX_SEGMENT_SIZE, "Transaction segment size must be positive and at most 1GiB",
+                      args -> args.add("segmentSize", segmentSize));
+        m_logDir = ensureDirectoryExists(fileStoreDir.resolve("txlog"));
+        m_segmentSize = segmentSize;
+        m_readonlyLock = new ReadonlyLock(m_logDir);
+        m_syncPolicy = new TransactionSyncPolicy(durability, groupSyncInterval, groupSyncTransactionCount, this::syncPendingTransactions);
+        try {
+            openSegments();
+        } catch (IOException e) {
+            m_syncPolicy.close();
+            closeSegments();
+            throw new StoreException("Transaction log cannot be opened", args -> args.add("transactionLogDirectory", m_logDir), e);
+        }
+        TransactionSegment lastSegment = m_segments.get(m_segments.size() - 1);
+        m_nextTxId = lastSegment.isEmpty() ? lastSegment.getFirstTxId() : lastSegment.getLastTxId() + 1;
+        m_syncedSegmentCount = m_segments.size();
+    }
+
+    private void openSegments() throws IOException {
+        List<Path> segmentFiles;
+        try (Stream<Path> files = Files.list(m_logDir)) {
+            segmentFiles = files.filter(TransactionSegment::isSegmentFile).sorted().collect(Collectors.toList());
+        }
+        for (int i = 0; i < segmentFiles.size(); i++) {
+            m_segments.add(TransactionSegment.open(segmentFiles.get(i), i == segmentFiles.size() - 1));
+        }
+        if (m_segments.isEmpty()) {
+            m_segments.add(TransactionSegment.create(m_logDir, 0));
+        }
+    }
+
+    @Override
+    public OutputStream createTransactionOutput(String storeName) {
+        return new ByteArrayOutputStream() {
+            private boolean m_closed;
+
+            @Override
+            public void close() throws IOException {
+                if (!m_closed) {
+                    m_closed = true;
+                    synchronized (m_commitLock) {
+                        append(m_nextTxId, storeName, toByteArray());
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Append a transaction to the log.
+     *
+     * @param txId the id of the transaction, it must be greater than the id of the last transaction of the log
+     * @param storeName the name of the store of the transaction
+     * @param transaction the serialized transaction
+     */
+    void append(long txId, String storeName, byte[] transaction) throws IOException {
+        synchronized (m_commitLock) {
+            checkArgument(txId >= m_nextTxId, "Transaction id must be greater than the one of the last transaction of the log",
+                          args -> args.add("transactionId", txId).add("nextTransactionId", m_nextTxId));
+            TransactionSegment segment = m_segments.get(m_segments.size() - 1);
+            boolean newSegment = segment.getEnd() >= m_segmentSize && !segment.isEmpty();
+            if (newSegment) {
+                segment = TransactionSegment.create(m_logDir, txId);
+                m_segments.add(segment);
+            }
+            segment.append(txId, storeName, transaction);
+            m_nextTxId = txId + 1;
+
+            switch (m_syncPolicy.getDurability()) {
+                case PER_TRANSACTION:
+                    TransactionSegment syncedSegment = segment;
+                    m_syncPolicy.sync(1, () -> {
+                        syncedSegment.sync();
+                        if (newSegment) {
+                            syncDirectory(m_logDir);
+                        }
+                    });
+                    segment.publish(segment.getEnd());
+                    break;
+                case GROUP:
+                    m_unsyncedTxCount++;
+                    m_syncPolicy.transactionWritten();
+                    return;
+                default:
+                    segment.publish(segment.getEnd());
+            }
+        }
+        signalReaders();
+    }
+
+    /**
+     * Synchronize the transactions appended since the previous call, and publish them to the readers.
+     */
+    private int syncPendingTransactions() throws IOException {
+        int transactionCount;
+        int segmentCount;
+        Map<TransactionSegment, Long> segmentEnds = new LinkedHashMap<>();
+        synchronized (m_commitLock) {
+            transactionCount = m_unsyncedTxCount;
+            if (transactionCount == 0) {
+                return 0;
+            }
+            segmentCount = m_segments.size();
+            for (int i = segmentCount - 1; i >= 0 && m_segments.get(i).getPublishedEnd() < m_segments.get(i).getEnd(); i--) {
+                segmentEnds.put(m_segments.get(i), m_segments.get(i).getEnd());
+            }
+        }
+
+        m_syncPolicy.sync(transactionCount, () -> {
+            for (TransactionSegment segment : segmentEnds.keySet()) {
+                segment.sync();
+            }
+            if (segmentCount > m_syncedSegmentCount) {
+                syncDirectory(m_logDir);
+            }
+        });
+        m_syncedSegmentCount = segmentCount;
+        synchronized (m_commitLock) {
+            m_unsyncedTxCount -= transactionCount;
+        }
+        // the oldest segment is published first, so a reader never goes to a segment before having read all the previous one
+        List<TransactionSegment> segments = new ArrayList<>(segmentEnds.keySet());
+        Collections.reverse(segments);
+        for (TransactionSegment segment : segments) {
+            segment.publish(segmentEnds.get(segment));
+        }
+        signalReaders();
+        return transactionCount;
+    }
+
+    private void signalReaders() {
+        m_txLock.lock();
+        try {
+            m_txAvailable.signalAll();
+        } finally {
+            m_txLock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code true} if no transaction has been appended to the log
+     */
+    boolean isEmpty() {
+        return m_segments.size() == 1 && m_segments.get(0).isEmpty();
+    }
+
+    @Override
+    public Publisher<TransactionInput> allTransactions() {
+        if (m_allTx == null) {
+            m_allTx = Flowable //
+                    .<TransactionInput, TransactionCursor>generate(() -> new TransactionCursor(m_consumerStart.get()), (cursor, emitter) -> {
+                        emitter.onNext(cursor.next());
+                        return cursor;
+                    }) //
+                    .subscribeOn(Schedulers.io()) //
+                    .observeOn(Schedulers.computation());
+        }
+        return m_allTx;
+    }
+
+    @Override
+    public void seekTransaction(BigInteger latestProcessedTransactionId) {
+        synchronized (m_commitLock) {
+            if (latestProcessedTransactionId.longValueExact() >= m_nextTxId) {
+                LOG.warn("The next transaction id has been set to the transaction id of the last snapshot because the first was lower than the second.",
+                         args -> args.add("next transaction id", m_nextTxId).add("transaction id of the last snapshot", latestProcessedTransactionId));
+                m_nextTxId = latestProcessedTransactionId.add(BigInteger.ONE).longValueExact();
+            }
+        }
+        m_consumerStart.set(latestProcessedTransactionId.longValueExact() + 1);
+        m_allTx = null;
+    }
+
+    @Override
+    public void lockReadonly(boolean wantLock) {
+        m_readonlyLock.lock(wantLock);
+    }
+
+    @Override
+    public boolean isReadonlyLockSet() {
+        return m_readonlyLock.isSet();
+    }
+
+    public TransactionSyncStatistics getSyncStatistics() {
+        return m_syncPolicy.getStatistics();
+    }
+
+    @Override
+    public void close() {
+        m_syncPolicy.close();
+        closeSegments();
+    }
+
+    private void closeSegments() {
+        for (TransactionSegment segment : m_segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                LOG.warn("Transaction segment cannot be closed", e);
+            }
+        }
+    }
+
+    /**
+     * Position of the reader of the transaction log. It waits for new transactions once it has reached the end of the log.
+     */
+    private final class TransactionCursor {
+        private int m_segmentIndex;
+        private long m_position;
+
+        private TransactionCursor(long startTxId) throws IOException {
+            int segmentIndex = 0;
+            while (segmentIndex + 1 < m_segments.size() && m_segments.get(segmentIndex + 1).getFirstTxId() <= startTxId) {
+                segmentIndex++;
+            }
+            m_segmentIndex = segmentIndex;
+            m_position = m_segments.get(segmentIndex).positionOf(startTxId);
+        }
+
+        private TransactionInput next() throws IOException, InterruptedException {
+            while (true) {
+                TransactionSegment segment = m_segments.get(m_segmentIndex);
+                long end = segment.getPublishedEnd();
+                if (m_position < end) {
+                    TransactionSegment.TransactionRecord record = segment.read(m_position, end);
+                    if (record == null) {
+                        long position = m_position;
+                        throw new StoreException("Transaction record is corrupted", args -> args.add("position", position));
+                    }
+                    m_position += record.getSize();
+                    return new TransactionRecordInput(record);
+                }
+                if (isSegmentRead(segment)) {
+                    m_segmentIndex++;
+                    m_position = m_segments.get(m_segmentIndex).getStart();
+                } else {
+                    m_txLock.lock();
+                    try {
+                        while (m_position >= segment.getPublishedEnd() && !isSegmentRead(segment)) {
+                            m_txAvailable.await();
+                        }
+                    } finally {
+                        m_txLock.unlock();
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return {@code true} if all the records of the segment have been read and a next segment exists. The end of a segment is final once a
+         * next segment exists.
+         */
+        private boolean isSegmentRead(TransactionSegment segment) {
+            return m_segmentIndex + 1 < m_segments.size() && m_position >= segment.getEnd();
+        }
+    }
+
+    private static final class TransactionRecordInput implements TransactionInput {
+        private final TransactionSegment.TransactionRecord m_record;
+
+        private TransactionRecordInput(TransactionSegment.TransactionRecord record) {
+            m_record = record;
+        }
+
+        @Override
+        public String storeName() {
+            return m_record.getStoreName();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferBackedInputStream(m_record.getTransaction().duplicate());
+        }
+
+        @Override
+        public BigInteger getTransactionId() {
+            return BigInteger.valueOf(m_record.getTransactionId());
+        }
+    }
+}
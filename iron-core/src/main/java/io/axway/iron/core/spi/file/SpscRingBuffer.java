@@ -0,0 +1,116 @@
+package io.axway.iron.core.spi.file;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+
+/**
+ * Bounded lock-free queue handing elements off from a single producer to a single consumer.<br>
+ * The producer may run on different threads as long as they are serialized, e.g. by a lock, and the same goes for the consumer. The consumer takes all
+ * the available elements at once, and parks when there is none until the producer wakes it up. The producer either backs off while the queue is full, or
+ * gives up.
+ */
+final class SpscRingBuffer<E> {
+    private static final long FULL_BACK_OFF_NANOS = 10_000;
+
+    private final AtomicReferenceArray<E> m_buffer;
+    private final int m_mask;
+    private final AtomicLong m_head = new AtomicLong();
+    private final AtomicLong m_tail = new AtomicLong();
+    private volatile Thread m_waitingConsumer;
+
+    /**
+     * @param capacity the maximum number of elements in the queue, it must be a power of 2
+     */
+    SpscRingBuffer(int capacity) {
+        checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "Ring buffer capacity must be a power of 2", args -> args.add("capacity", capacity));
+        m_buffer = new AtomicReferenceArray<>(capacity);
+        m_mask = capacity - 1;
+    }
+
+    /**
+     * Add an element, waiting for the consumer to take some if the queue is full. Producer side only.
+     */
+    void put(E element) {
+        while (!offer(element)) {
+            LockSupport.parkNanos(this, FULL_BACK_OFF_NANOS);
+        }
+    }
+
+    /**
+     * Add an element if the queue is not full. Producer side only.
+     *
+     * @return {@code false} if the queue is full, the element has not been added
+     */
+    boolean offer(E element) {
+        long tail = m_tail.get();
+        if (tail - m_head.get() > m_mask) {
+            return false;
+        }
+        m_buffer.lazySet((int) tail & m_mask, element);
+        // a volatile write, so the consumer waiting flag is read after it
+        m_tail.set(tail + 1);
+        Thread waitingConsumer = m_waitingConsumer;
+        if (waitingConsumer != null) {
+            LockSupport.unpark(waitingConsumer);
+        }
+        return true;
+    }
+
+    /**
+     * Take the available elements, waiting for one if the queue is empty. Consumer side only.
+     *
+     * @param maxCount the maximum number of elements to take
+     * @return at least one element, in the order they have been put
+     */
+    List<E> take(int maxCount) throws InterruptedException {
+        while (true) {
+            List<E> elements = poll(maxCount);
+            if (!elements.isEmpty()) {
+                return elements;
+            }
+            m_waitingConsumer = Thread.currentThread();
+            try {
+                // checked again once the waiting flag is visible, else the producer may have missed it
+                if (m_tail.get() == m_head.get()) {
+                    LockSupport.park(this);
+                }
+            } finally {
+                m_waitingConsumer = null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Take the available elements without waiting. Consumer side only.
+     */
+    List<E> poll(int maxCount) {
+        long head = m_head.get();
+        int count = (int) Math.min(m_tail.get() - head, maxCount);
+        if (count == 0) {
+            return List.of();
+        }
+        List<E> elements = new ArrayList<>(count);
+        for (long index = head; index < head + count; index++) {
+            int offset = (int) index & m_mask;
+            elements.add(m_buffer.get(offset));
+            m_buffer.lazySet(offset, null);
+        }
+        m_head.lazySet(head + count);
+        return elements;
+    }
+
+    /**
+     * Discard all the elements. Consumer side only.
+     */
+    void clear() {
+        while (!poll(m_mask + 1).isEmpty()) {
+            // discard
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.axway.iron.core.spi.file;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.*;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Manifest of the transaction directory of a {@link FileTransactionStore}, so the store is opened without listing a directory where the transaction
+ * files of years may have been accumulated.
+ * <ul>
+ * <li>the journal lists the names of the transaction files in id order, a name is appended each time a transaction is committed</li>
+ * <li>the checkpoint is written when the store is closed. It contains the last transaction id, the first retained transaction id and the length of
+ * the journal: every transaction file from the first retained id is listed by the journal.</li>
+ * </ul>
+ * The checkpoint is removed when the store is opened, so the journal is trusted only if the store has been properly closed. Else some transaction files
+ * may be missing from the journal, and it must be {@link #rebuild(List, long) rebuilt} from the listing of the directory.
+ */
+final class TransactionManifest implements Closeable {
+    static final String JOURNAL_FILE = "manifest.log";
+    static final String CHECKPOINT_FILE = "manifest.checkpoint";
+    private static final String LAST_TX_ID = "lastTransactionId";
+    private static final String FIRST_RETAINED_TX_ID = "firstRetainedTransactionId";
+    private static final String JOURNAL_LENGTH = "journalLength";
+
+    private final Path m_transactionDir;
+    private final Path m_journalFile;
+    private final Path m_checkpointFile;
+    private FileChannel m_journal;
+    private long m_lastTxId = -1;
+    private long m_firstRetainedTxId = Long.MAX_VALUE;
+
+    TransactionManifest(Path transactionDir) {
+        m_transactionDir = transactionDir;
+        m_journalFile = transactionDir.resolve(JOURNAL_FILE);
+        m_checkpointFile = transactionDir.resolve(CHECKPOINT_FILE);
+    }
+
+    /**
+     * Open the manifest, consuming its checkpoint.
+     *
+     * @return {@code true} if the manifest can be trusted, else it must be rebuilt before the store is used
+     */
+    boolean open() throws IOException {
+        boolean trusted = false;
+        if (Files.exists(m_checkpointFile)) {
+            Properties checkpoint = new Properties();
+            try (Reader reader = Files.newBufferedReader(m_checkpointFile, UTF_8)) {
+                checkpoint.load(reader);
+            }
+            // from now on the journal is modified, it will be trusted again only once the checkpoint has been written by close()
+            Files.delete(m_checkpointFile);
+            FilenameUtils.syncDirectory(m_transactionDir);
+            try {
+                long journalLength = Long.parseLong(checkpoint.getProperty(JOURNAL_LENGTH));
+                if (Files.exists(m_journalFile) && Files.size(m_journalFile) == journalLength) {
+                    m_lastTxId = Long.parseLong(checkpoint.getProperty(LAST_TX_ID));
+                    m_firstRetainedTxId = Long.parseLong(checkpoint.getProperty(FIRST_RETAINED_TX_ID));
+                    trusted = true;
+                }
+            } catch (NumberFormatException e) {
+                // not trusted
+            }
+        }
+        m_journal = FileChannel.open(m_journalFile, CREATE, WRITE, APPEND);
+        return trusted;
+    }
+
+    /**
+     * @return the id of the last transaction when the manifest was checkpointed, {@code -1} if there was none
+     */
+    long getLastTxId() {
+        return m_lastTxId;
+    }
+
+    /**
+     * @return the id from which all the transaction files are listed by the journal
+     */
+    long getFirstRetainedTxId() {
+        return m_firstRetainedTxId;
+    }
+
+    /**
+     * @return the names of the transaction files listed by the journal, in id order
+     */
+    List<String> readFileNames() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(m_journalFile, UTF_8)) {
+            List<String> fileNames = new ArrayList<>();
+            String fileName;
+            while ((fileName = reader.readLine()) != null) {
+                fileNames.add(fileName);
+            }
+            return fileNames;
+        }
+    }
+
+    /**
+     * Replace the journal.
+     *
+     * @param fileNames the names of the transaction files from {@code firstRetainedTxId}, in id order
+     * @param firstRetainedTxId the id from which all the transaction files are listed
+     */
+    void rebuild(List<String> fileNames, long firstRetainedTxId) throws IOException {
+        Path tmpJournalFile = m_transactionDir.resolve(JOURNAL_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmpJournalFile, UTF_8)) {
+            for (String fileName : fileNames) {
+                writer.write(fileName);
+                writer.write('\n');
+            }
+        }
+        m_journal.close();
+        Files.move(tmpJournalFile, m_journalFile, REPLACE_EXISTING, ATOMIC_MOVE);
+        m_journal = FileChannel.open(m_journalFile, CREATE, WRITE, APPEND);
+        m_firstRetainedTxId = firstRetainedTxId;
+    }
+
+    /**
+     * Append the name of a committed transaction file to the journal.
+     */
+    void append(String fileName) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((fileName + '\n').getBytes(UTF_8));
+        while (line.hasRemaining()) {
+            m_journal.write(line);
+        }
+    }
+
+    /**
+     * Write the checkpoint, so the journal will be trusted when the store is opened again.
+     *
+     * @param lastTxId the id of the last transaction of the store
+     */
+    void checkpoint(long lastTxId) throws IOException {
+        m_journal.force(true);
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty(LAST_TX_ID, Long.toString(lastTxId));
+        checkpoint.setProperty(FIRST_RETAINED_TX_ID, Long.toString(m_firstRetainedTxId));
+        checkpoint.setProperty(JOURNAL_LENGTH, Long.toString(m_journal.size()));
+        Path tmpCheckpointFile = m_transactionDir.resolve(CHECKPOINT_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmpCheckpointFile, UTF_8)) {
+            checkpoint.store(writer, null);
+        }
+        FilenameUtils.syncFile(tmpCheckpointFile);
+        Files.move(tmpCheckpointFile, m_checkpointFile, REPLACE_EXISTING, ATOMIC_MOVE);
+        FilenameUtils.syncDirectory(m_transactionDir);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (m_journal != null) {
+            m_journal.close();
+        }
+    }
+}
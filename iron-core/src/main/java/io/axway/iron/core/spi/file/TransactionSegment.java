@@ -0,0 +1,446 @@
+package io.axway.iron.core.spi.file;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+import javax.annotation.*;
+import io.axway.alf.log.Logger;
+import io.axway.alf.log.LoggerFactory;
+import io.axway.iron.error.StoreException;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A segment of the transaction log of a {@link SegmentedFileTransactionStore}: a file where the transaction records are appended one after the other.
+ * <pre>
+ * segment: magic record*
+ * record:  length crc transactionId storeNameLength storeName transaction
+ * </pre>
+ * The length is the one of the record part that follows the crc, and the crc is the CRC32C of this part.<br>
+ * A sparse index of the record positions is kept in a side file, with an entry every {@link #INDEX_INTERVAL} bytes of records, so a transaction is found
+ * without reading the segment from its beginning. The index is only a hint: it's rebuilt from the segment if it's missing.<br>
+ * The records are read from a memory mapping of the segment, and the transactions are exposed as slices of this mapping, so they are not copied
+ * before being deserialized. A segment is mapped once at its size when it's opened, and the mapping is only extended once at least
+ * {@link #MAPPING_GROWTH} bytes have been appended beyond it: the records appended after the mapping are read with positional reads meanwhile. A
+ * segment that is being appended is therefore not mapped again for each new record.
+ */
+final class TransactionSegment implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionSegment.class);
+
+    static final String SEGMENT_EXT = ".segment";
+    private static final String INDEX_EXT = ".index";
+    private static final String ID_FORMAT = "%020d";
+    private static final byte[] MAGIC = "IRONTXL1".getBytes(US_ASCII);
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES * 2;
+    private static final int INDEX_INTERVAL = 64 * 1024;
+    private static final long MAPPING_GROWTH = 8 * 1024 * 1024;
+
+    private final Path m_file;
+    private final Path m_indexFile;
+    private final long m_firstTxId;
+    private final FileChannel m_channel;
+    private final FileChannel m_indexChannel;
+    private final NavigableMap<Long, Long> m_index = new ConcurrentSkipListMap<>();
+    private volatile long m_end;
+    private volatile long m_publishedEnd;
+    private volatile MappedByteBuffer m_mapping;
+    private long m_lastTxId = -1;
+    private long m_lastIndexedPosition = -INDEX_INTERVAL;
+
+    private TransactionSegment(Path file, long firstTxId) throws IOException {
+        m_file = file;
+        m_indexFile = file.resolveSibling(format(firstTxId) + INDEX_EXT);
+        m_firstTxId = firstTxId;
+        m_channel = FileChannel.open(file, CREATE, READ, WRITE);
+        m_indexChannel = FileChannel.open(m_indexFile, CREATE, READ, WRITE);
+    }
+
+    /**
+     * Create a new empty segment.
+     */
+    static TransactionSegment create(Path dir, long firstTxId) throws IOException {
+        TransactionSegment segment = new TransactionSegment(dir.resolve(format(firstTxId) + SEGMENT_EXT), firstTxId);
+        writeFully(segment.m_channel, ByteBuffer.wrap(MAGIC), 0);
+        segment.m_indexChannel.truncate(0);
+        segment.m_end = MAGIC.length;
+        segment.m_publishedEnd = MAGIC.length;
+        return segment;
+    }
+
+    /**
+     * Open an existing segment.
+     *
+     * @param segmentFile the segment file
+     * @param last {@code true} if it's the last segment of the log. A record that has not been completely written at the end of the last segment is
+     * the one of a transaction that was being written when the store stopped, it's removed. In other segments, or if it's followed by other data,
+     * such a record is a corruption.
+     */
+    static TransactionSegment open(Path segmentFile, boolean last) throws IOException {
+        String fileName = segmentFile.getFileName().toString();
+        long firstTxId = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_EXT.length()));
+        TransactionSegment segment = new TransactionSegment(segmentFile, firstTxId);
+        try {
+            segment.recover(last);
+        } catch (IOException | RuntimeException e) {
+            segment.close();
+            throw e;
+        }
+        return segment;
+    }
+
+    static boolean isSegmentFile(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.endsWith(SEGMENT_EXT) && fileName.substring(0, fileName.length() - SEGMENT_EXT.length()).matches("[0-9]+");
+    }
+
+    private static String format(long txId) {
+        return String.format(ID_FORMAT, txId);
+    }
+
+    private void recover(boolean last) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+        if (readFully(m_channel, magic, 0) < MAGIC.length || !Arrays.equals(magic.array(), MAGIC)) {
+            throw new StoreException("Transaction segment file is not valid", args -> args.add("segmentFile", m_file));
+        }
+
+        // the index entries are reloaded, the records after the last one are read again to find the end of the segment
+        long size = m_channel.size();
+        m_mapping = map(size);
+        ByteBuffer indexEntries = ByteBuffer.allocate((int) (m_indexChannel.size() / INDEX_ENTRY_SIZE * INDEX_ENTRY_SIZE));
+        readFully(m_indexChannel, indexEntries, 0);
+        indexEntries.flip();
+        long position = MAGIC.length;
+        long indexEnd = 0;
+        while (indexEntries.hasRemaining()) {
+            long txId = indexEntries.getLong();
+            long recordPosition = indexEntries.getLong();
+            if (recordPosition < position || recordPosition >= size) {
+                break;
+            }
+            m_index.put(txId, recordPosition);
+            m_lastIndexedPosition = recordPosition;
+            position = recordPosition;
+            indexEnd += INDEX_ENTRY_SIZE;
+        }
+        m_indexChannel.truncate(indexEnd);
+
+        long end = scan(position, size);
+        if (end < size && position > MAGIC.length) {
+            // don't trust an index that doesn't lead to the end of the segment
+            m_index.clear();
+            m_indexChannel.truncate(0);
+            m_lastIndexedPosition = -INDEX_INTERVAL;
+            m_lastTxId = -1;
+            end = scan(MAGIC.length, size);
+        }
+
+        if (end < size) {
+            long validEnd = end;
+            if (!last || !isTail(end, size)) {
+                throw new StoreException("Transaction segment is corrupted", args -> args.add("segmentFile", m_file).add("position", validEnd));
+            }
+            LOG.warn("Incomplete transaction record at the end of the transaction log has been removed",
+                     args -> args.add("segmentFile", m_file).add("position", validEnd).add("removedBytes", size - validEnd));
+            // the mapping must not go beyond the end of the segment file
+            m_mapping = map(end);
+            m_channel.truncate(end);
+        }
+        m_end = end;
+        m_publishedEnd = end;
+    }
+
+    /**
+     * @return {@code true} if the invalid record at the given position may be the one of a transaction that was being written when the store stopped:
+     * its header is incomplete, its length reaches the end of the segment file, or only zeros follow it
+     */
+    private boolean isTail(long position, long size) throws IOException {
+        if (size - position < RECORD_HEADER_SIZE) {
+            return true;
+        }
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        readFully(m_channel, header, position);
+        int length = header.flip().getInt();
+        if (length >= 0 && position + RECORD_HEADER_SIZE + length >= size) {
+            return true;
+        }
+        ByteBuffer rest = m_mapping.duplicate().position((int) position);
+        while (rest.hasRemaining()) {
+            if (rest.get() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the records from the given position, indexing them.
+     *
+     * @return the position after the last valid record
+     */
+    private long scan(long position, long size) throws IOException {
+        TransactionRecord record;
+        while ((record = read(position, size)) != null) {
+            long txId = record.getTransactionId();
+            if (txId <= m_lastTxId) {
+                throw new StoreException("Transaction ids of transaction segment are not increasing",
+                                         args -> args.add("segmentFile", m_file).add("transactionId", txId));
+            }
+            index(txId, position);
+            m_lastTxId = txId;
+            position += record.getSize();
+        }
+        return position;
+    }
+
+    long getFirstTxId() {
+        return m_firstTxId;
+    }
+
+    /**
+     * @return the id of the last transaction of the segment, {@code -1} if the segment is empty
+     */
+    long getLastTxId() {
+        return m_lastTxId;
+    }
+
+    /**
+     * @return the position after the last record of the segment
+     */
+    long getEnd() {
+        return m_end;
+    }
+
+    /**
+     * @return the position after the last record of the segment the readers may read, the records after it have not reached the durability of the
+     * store yet
+     */
+    long getPublishedEnd() {
+        return m_publishedEnd;
+    }
+
+    /**
+     * Make the records before the given position readable.
+     */
+    void publish(long end) {
+        m_publishedEnd = end;
+    }
+
+    /**
+     * Force the records of the segment to the storage device. The index is not synchronized since it's only a hint.
+     */
+    void sync() throws IOException {
+        m_channel.force(false);
+    }
+
+    long getStart() {
+        return MAGIC.length;
+    }
+
+    boolean isEmpty() {
+        return m_end == MAGIC.length;
+    }
+
+    /**
+     * Append a transaction record. The segment must be appended by a single thread at once, the record is visible to the readers once it has been
+     * {@link #publish(long) published}.
+     */
+    void append(long txId, String storeName, byte[] transaction) throws IOException {
+        byte[] storeNameBytes = storeName.getBytes(UTF_8);
+        int length = Long.BYTES + Short.BYTES + storeNameBytes.length + transaction.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+        record.putInt(length);
+        record.putInt(0);
+        record.putLong(txId);
+        record.putShort((short) storeNameBytes.length);
+        record.put(storeNameBytes);
+        record.put(transaction);
+        record.putInt(Integer.BYTES, crc(ByteBuffer.wrap(record.array(), RECORD_HEADER_SIZE, length)));
+        record.flip();
+
+        long position = m_end;
+        writeFully(m_channel, record, position);
+        index(txId, position);
+        m_lastTxId = txId;
+        m_end = position + record.limit();
+    }
+
+    private void index(long txId, long position) throws IOException {
+        if (position - m_lastIndexedPosition >= INDEX_INTERVAL) {
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+            entry.putLong(txId).putLong(position).flip();
+            writeFully(m_indexChannel, entry, m_indexChannel.size());
+            m_index.put(txId, position);
+            m_lastIndexedPosition = position;
+        }
+    }
+
+    /**
+     * @return the position of the first record of the segment whose transaction id is greater than or equal to {@code txId}, the end of the segment
+     * if there is none
+     */
+    long positionOf(long txId) throws IOException {
+        long end = m_end;
+        Map.Entry<Long, Long> indexEntry = m_index.floorEntry(txId);
+        long position = indexEntry != null ? indexEntry.getValue() : MAGIC.length;
+        TransactionRecord record;
+        while (position < end && (record = read(position, end)) != null && record.getTransactionId() < txId) {
+            position += record.getSize();
+        }
+        return position;
+    }
+
+    /**
+     * Read the record at the given position.
+     *
+     * @param position the position of the record
+     * @param limit the position the record must not go beyond
+     * @return the record, {@code null} if there is no complete and valid record at this position
+     */
+    @Nullable
+    TransactionRecord read(long position, long limit) throws IOException {
+        if (limit - position < RECORD_HEADER_SIZE) {
+            return null;
+        }
+        MappedByteBuffer mapping = mapping(limit);
+        long mappedEnd = mapping != null ? mapping.capacity() : 0;
+        ByteBuffer header;
+        if (position + RECORD_HEADER_SIZE <= mappedEnd) {
+            header = mapping.duplicate().position((int) position).limit((int) position + RECORD_HEADER_SIZE).slice();
+        } else {
+            header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            if (readFully(m_channel, header, position) < RECORD_HEADER_SIZE) {
+                return null;
+            }
+            header.flip();
+        }
+        int length = header.getInt();
+        int crc = header.getInt();
+        if (length < Long.BYTES + Short.BYTES || length > limit - position - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        long contentPosition = position + RECORD_HEADER_SIZE;
+        ByteBuffer content;
+        if (contentPosition + length <= mappedEnd) {
+            content = mapping.duplicate().position((int) contentPosition).limit((int) contentPosition + length).slice();
+        } else {
+            content = ByteBuffer.allocate(length);
+            if (readFully(m_channel, content, contentPosition) < length) {
+                return null;
+            }
+            content.flip();
+        }
+        if (crc(content.duplicate()) != crc) {
+            return null;
+        }
+        long txId = content.getLong();
+        int storeNameLength = Short.toUnsignedInt(content.getShort());
+        if (storeNameLength > content.remaining()) {
+            return null;
+        }
+        byte[] storeName = new byte[storeNameLength];
+        content.get(storeName);
+        return new TransactionRecord(txId, new String(storeName, UTF_8), content.slice(), RECORD_HEADER_SIZE + length);
+    }
+
+    /**
+     * @param limit the position the records are read up to, it must not go beyond the end of the segment file
+     * @return the mapping of the segment file, extended up to the limit if at least {@link #MAPPING_GROWTH} bytes have been appended beyond it. It may
+     * not reach the limit, or be {@code null} if the segment has not been mapped yet.
+     */
+    @Nullable
+    private MappedByteBuffer mapping(long limit) throws IOException {
+        MappedByteBuffer mapping = m_mapping;
+        if (limit - (mapping != null ? mapping.capacity() : 0) >= MAPPING_GROWTH) {
+            synchronized (this) {
+                mapping = m_mapping;
+                if (limit - (mapping != null ? mapping.capacity() : 0) >= MAPPING_GROWTH) {
+                    mapping = map(limit);
+                    m_mapping = mapping;
+                }
+            }
+        }
+        return mapping;
+    }
+
+    private MappedByteBuffer map(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new StoreException("Transaction segment is too large to be mapped", args -> args.add("segmentFile", m_file).add("size", size));
+        }
+        return m_channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    private static int crc(ByteBuffer bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position + read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (m_channel; m_indexChannel) {
+            // close both channels
+        }
+    }
+
+    static final class TransactionRecord {
+        private final long m_transactionId;
+        private final String m_storeName;
+        private final ByteBuffer m_transaction;
+        private final int m_size;
+
+        private TransactionRecord(long transactionId, String storeName, ByteBuffer transaction, int size) {
+            m_transactionId = transactionId;
+            m_storeName = storeName;
+            m_transaction = transaction;
+            m_size = size;
+        }
+
+        long getTransactionId() {
+            return m_transactionId;
+        }
+
+        String getStoreName() {
+            return m_storeName;
+        }
+
+        /**
+         * @return the serialized transaction, a read-only slice of the segment mapping, or a copy if the record is beyond the mapping
+         */
+        ByteBuffer getTransaction() {
+            return m_transaction;
+        }
+
+        /**
+         * @return the size of the record in the segment
+         */
+        int getSize() {
+            return m_size;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.axway.iron.core.spi.file;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.annotation.*;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.axway.alf.log.Logger;
+import io.axway.alf.log.LoggerFactory;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Apply the {@link FileTransactionStoreDurability} of a file transaction store and measure its synchronizations.<br>
+ * With {@link FileTransactionStoreDurability#GROUP}, the written transactions are synchronized by a background thread every
+ * {@code groupSyncInterval}, or as soon as {@code groupSyncTransactionCount} transactions are waiting, whichever comes first. A failed group
+ * synchronization is retried on the next one, its transactions stay unpublished meanwhile.
+ */
+final class TransactionSyncPolicy implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionSyncPolicy.class);
+    static final Duration DEFAULT_GROUP_SYNC_INTERVAL = Duration.ofMillis(10);
+    static final int DEFAULT_GROUP_SYNC_TRANSACTION_COUNT = 100;
+
+    private final FileTransactionStoreDurability m_durability;
+    private final int m_groupSyncTransactionCount;
+    private final GroupSync m_groupSync;
+    private final TransactionSyncStatistics m_statistics = new TransactionSyncStatistics();
+    private final AtomicInteger m_pendingCount = new AtomicInteger();
+    private final AtomicBoolean m_syncScheduled = new AtomicBoolean();
+    @Nullable
+    private final ScheduledThreadPoolExecutor m_syncer;
+
+    /**
+     * @param groupSync synchronizes the transactions written since the previous group synchronization with {@link #sync(int, SyncAction)}, then
+     * publishes them to the readers. It's only called with {@link FileTransactionStoreDurability#GROUP}
+     */
+    TransactionSyncPolicy(FileTransactionStoreDurability durability, Duration groupSyncInterval, int groupSyncTransactionCount, GroupSync groupSync) {
+        checkArgument(!groupSyncInterval.isNegative() && !groupSyncInterval.isZero(), "Group sync interval must be positive",
+                      args -> args.add("groupSyncInterval", groupSyncInterval));
+        checkArgument(groupSyncTransactionCount > 0, "Group sync transaction count must be positive",
+                      args -> args.add("groupSyncTransactionCount", groupSyncTransactionCount));
+        m_durability = durability;
+        m_groupSyncTransactionCount = groupSyncTransactionCount;
+        m_groupSync = groupSync;
+        if (durability == FileTransactionStoreDurability.GROUP) {
+            m_syncer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat("iron-transaction-sync-%d").setDaemon(true).build());
+            m_syncer.scheduleWithFixedDelay(this::groupSync, groupSyncInterval.toNanos(), groupSyncInterval.toNanos(), NANOSECONDS);
+        } else {
+            m_syncer = null;
+        }
+    }
+
+    FileTransactionStoreDurability getDurability() {
+        return m_durability;
+    }
+
+    TransactionSyncStatistics getStatistics() {
+        return m_statistics;
+    }
+
+    /**
+     * Synchronize transactions that have been written, measuring the synchronization. It must be done before they are published to the readers.
+     *
+     * @param transactionCount the number of synchronized transactions, {@code 1} with {@link FileTransactionStoreDurability#PER_TRANSACTION}
+     */
+    void sync(int transactionCount, SyncAction syncAction) throws IOException {
+        long start = System.nanoTime();
+        syncAction.sync();
+        m_statistics.record(transactionCount, System.nanoTime() - start);
+    }
+
+    /**
+     * Notify that a transaction has been written, with {@link FileTransactionStoreDurability#GROUP}. A group synchronization is started if enough
+     * transactions are waiting.
+     */
+    void transactionWritten() {
+        // more transactions than the count may be waiting, when they have been written during the previous synchronization
+        if (m_pendingCount.incrementAndGet() >= m_groupSyncTransactionCount && m_syncScheduled.compareAndSet(false, true)) {
+            try {
+                m_syncer.execute(this::groupSync);
+            } catch (RejectedExecutionException e) {
+                // closing, the pending transactions are synchronized by close()
+                m_syncScheduled.set(false);
+            }
+        }
+    }
+
+    private void groupSync() {
+        // the transactions written from now on may schedule the next synchronization
+        m_syncScheduled.set(false);
+        try {
+            int transactionCount = m_groupSync.sync();
+            m_pendingCount.addAndGet(-transactionCount);
+        } catch (Exception e) {
+            LOG.error("Transactions cannot be synchronized with the storage device, it will be retried", e);
+        }
+    }
+
+    /**
+     * Stop the background synchronization, after having synchronized the pending transactions.
+     */
+    @Override
+    public void close() {
+        if (m_syncer != null) {
+            m_syncer.shutdown();
+            try {
+                if (!m_syncer.awaitTermination(1, MINUTES)) {
+                    LOG.warn("Transaction synchronization has not been stopped before timeout");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            groupSync();
+        }
+    }
+
+    interface SyncAction {
+        void sync() throws IOException;
+    }
+
+    interface GroupSync {
+        /**
+         * @return the number of synchronized transactions
+         */
+        int sync() throws IOException;
+    }
+}
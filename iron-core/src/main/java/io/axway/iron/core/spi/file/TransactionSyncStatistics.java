@@ -0,0 +1,58 @@
+package io.axway.iron.core.spi.file;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Statistics of the synchronizations of a file transaction store with its storage device, to monitor what its {@link FileTransactionStoreDurability}
+ * costs. A synchronization may cover several transactions with {@link FileTransactionStoreDurability#GROUP}.
+ */
+public final class TransactionSyncStatistics {
+    private final LongAdder m_syncCount = new LongAdder();
+    private final LongAdder m_syncedTransactionCount = new LongAdder();
+    private final LongAdder m_totalSyncNanos = new LongAdder();
+    private final LongAccumulator m_maxSyncNanos = new LongAccumulator(Math::max, 0);
+    private volatile long m_lastSyncNanos;
+
+    TransactionSyncStatistics() {
+    }
+
+    void record(int transactionCount, long syncNanos) {
+        m_syncCount.increment();
+        m_syncedTransactionCount.add(transactionCount);
+        m_totalSyncNanos.add(syncNanos);
+        m_maxSyncNanos.accumulate(syncNanos);
+        m_lastSyncNanos = syncNanos;
+    }
+
+    public long getSyncCount() {
+        return m_syncCount.sum();
+    }
+
+    public long getSyncedTransactionCount() {
+        return m_syncedTransactionCount.sum();
+    }
+
+    public Duration getTotalSyncTime() {
+        return Duration.ofNanos(m_totalSyncNanos.sum());
+    }
+
+    public Duration getMeanSyncTime() {
+        long syncCount = m_syncCount.sum();
+        return syncCount == 0 ? Duration.ZERO : Duration.ofNanos(m_totalSyncNanos.sum() / syncCount);
+    }
+
+    public Duration getMaxSyncTime() {
+        return Duration.ofNanos(m_maxSyncNanos.get());
+    }
+
+    public Duration getLastSyncTime() {
+        return Duration.ofNanos(m_lastSyncNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionSyncStatistics{" + "syncCount=" + getSyncCount() + ", syncedTransactionCount=" + getSyncedTransactionCount() +
+                ", meanSyncTime=" + getMeanSyncTime() + ", maxSyncTime=" + getMaxSyncTime() + ", lastSyncTime=" + getLastSyncTime() + '}';
+    }
+}
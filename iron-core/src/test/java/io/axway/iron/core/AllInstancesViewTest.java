@@ -0,0 +1,70 @@
+package io.axway.iron.core;
+
+import java.util.*;
+import java.util.stream.*;
+import org.testng.annotations.Test;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.model.simple.CreateSimpleEntity;
+import io.axway.iron.core.model.simple.SimpleEntity;
+
+import static io.axway.iron.core.bugs.IronTestHelper.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AllInstancesViewTest {
+    private static final int ENTITY_COUNT = 50;
+
+    public interface DeleteAllSimpleEntities extends Command<Integer> {
+        @Override
+        default Integer execute(ReadWriteTransaction tx) {
+            int count = 0;
+            for (SimpleEntity simpleEntity : tx.select(SimpleEntity.class).all()) {
+                tx.delete(simpleEntity);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    @Test
+    public void shouldIterateInstancesInQueriesAndCommands() throws Exception {
+        try (StoreManager storeManager = StoreManagerBuilder.newStoreManagerBuilder() //
+                .withSnapshotSerializer(buildJacksonSnapshotSerializer()) //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withSnapshotStore(buildTransientSnapshotStoreFactory()) //
+                .withTransactionStore(buildTransientTransactionStoreFactory()) //
+                .withCommandClass(CreateSimpleEntity.class) //
+                .withCommandClass(DeleteAllSimpleEntities.class) //
+                .withEntityClass(SimpleEntity.class) //
+                .build()) {
+            Store store = storeManager.getStore("test");
+            Store.TransactionBuilder tx = store.begin();
+            for (int i = 0; i < ENTITY_COUNT; i++) {
+                tx.addCommand(CreateSimpleEntity.class).set(CreateSimpleEntity::id).to("id-" + i).submit();
+            }
+            tx.submit().get();
+
+            List<String> expectedIds = IntStream.range(0, ENTITY_COUNT).mapToObj(i -> "id-" + i).collect(Collectors.toList());
+            store.query(query -> {
+                assertThat(query.select(SimpleEntity.class).all()).extracting(SimpleEntity::id).containsExactlyElementsOf(expectedIds);
+                assertThat(query.select(SimpleEntity.class).stream().map(SimpleEntity::id)).containsExactlyElementsOf(expectedIds);
+
+                List<String> ids = new ArrayList<>();
+                query.select(SimpleEntity.class).forEach(simpleEntity -> ids.add(simpleEntity.id()));
+                assertThat(ids).containsExactlyElementsOf(expectedIds);
+            });
+
+            // the instances returned by a query are a copy, they are not impacted by the next transactions
+            Collection<SimpleEntity> all = store.query(query -> {
+                return query.select(SimpleEntity.class).all();
+            });
+            assertThat(store.createCommand(DeleteAllSimpleEntities.class).submit().get()).isEqualTo(ENTITY_COUNT);
+            assertThat(all).hasSize(ENTITY_COUNT);
+            store.query(query -> {
+                assertThat(query.select(SimpleEntity.class).all()).isEmpty();
+            });
+        }
+    }
+}
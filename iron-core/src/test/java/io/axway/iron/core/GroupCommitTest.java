@@ -0,0 +1,71 @@
+package io.axway.iron.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.testng.annotations.Test;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.model.simple.CreateSimpleEntity;
+import io.axway.iron.core.model.simple.SimpleEntity;
+
+import static io.axway.iron.core.bugs.IronTestHelper.*;
+import static org.assertj.core.api.Assertions.*;
+
+public class GroupCommitTest {
+    private static final int TRANSACTION_COUNT = 200;
+
+    private StoreManager createStoreManager(Path storeDir) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withSnapshotSerializer(buildJacksonSnapshotSerializer()) //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withSnapshotStore(buildFileSnapshotStoreFactory(storeDir, "group-commit")) //
+                .withTransactionStore(buildFileTransactionStoreFactory(storeDir, "group-commit")) //
+                .withCommandClass(CreateSimpleEntity.class) //
+                .withEntityClass(SimpleEntity.class) //
+                .withGroupCommit(64, Duration.ofMillis(50)) //
+                .build();
+    }
+
+    @Test
+    public void shouldWriteConcurrentTransactionsInBatchesAndRecoverThem() throws Exception {
+        Path storeDir = Files.createTempDirectory("iron-group-commit");
+
+        try (StoreManager storeManager = createStoreManager(storeDir)) {
+            Store store = storeManager.getStore("test");
+            List<Future<SimpleEntity>> futures = IntStream.range(0, TRANSACTION_COUNT)
+                    .mapToObj(i -> store.createCommand(CreateSimpleEntity.class).set(CreateSimpleEntity::id).to("id-" + i).submit())
+                    .collect(Collectors.toList());
+            Future<SimpleEntity> duplicate = store.createCommand(CreateSimpleEntity.class).set(CreateSimpleEntity::id).to("id-0").submit();
+
+            for (int i = 0; i < TRANSACTION_COUNT; i++) {
+                assertThat(futures.get(i).get(10, TimeUnit.SECONDS).id()).isEqualTo("id-" + i);
+            }
+            assertThatThrownBy(() -> duplicate.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+            Collection<SimpleEntity> entities = store.query(tx -> {
+                return tx.select(SimpleEntity.class).all();
+            });
+            assertThat(entities).hasSize(TRANSACTION_COUNT);
+        }
+
+        assertThat(countTransactionFiles(storeDir)).isGreaterThan(0).isLessThan(TRANSACTION_COUNT);
+
+        try (StoreManager storeManager = createStoreManager(storeDir)) {
+            Store store = storeManager.getStore("test");
+            Collection<SimpleEntity> entities = store.query(tx -> {
+                return tx.select(SimpleEntity.class).all();
+            });
+            assertThat(entities).hasSize(TRANSACTION_COUNT);
+        }
+    }
+
+    private static long countTransactionFiles(Path storeDir) throws IOException {
+        try (Stream<Path> files = Files.walk(storeDir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".tx")).count();
+        }
+    }
+}
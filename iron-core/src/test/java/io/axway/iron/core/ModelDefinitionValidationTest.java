@@ -12,6 +12,8 @@ import io.axway.iron.core.model.validation.InvalidIdMultipleEntity;
 import io.axway.iron.core.model.validation.InvalidIdNonLongEntity;
 import io.axway.iron.core.model.validation.InvalidIdRelationEntity;
 import io.axway.iron.core.model.validation.InvalidIdUniqueEntity;
+import io.axway.iron.core.model.validation.InvalidIndexedRelationEntity;
+import io.axway.iron.core.model.validation.InvalidIndexedUniqueEntity;
 import io.axway.iron.core.model.validation.InvalidMethodReservedNameEntity;
 import io.axway.iron.core.model.validation.InvalidMethodReservedPrefixEntity;
 import io.axway.iron.core.model.validation.InvalidMethodVoidEntity;
@@ -44,6 +46,7 @@ import io.axway.iron.core.model.validation.ValidEntity;
 import io.axway.iron.core.model.validation.command.InvalidEntityAnnotationCommand;
 import io.axway.iron.core.model.validation.command.InvalidInheritanceCommand;
 import io.axway.iron.core.model.validation.command.InvalidMethodIdCommand;
+import io.axway.iron.core.model.validation.command.InvalidMethodIndexedCommand;
 import io.axway.iron.core.model.validation.command.InvalidMethodReservedNameCommand;
 import io.axway.iron.core.model.validation.command.InvalidMethodReservedPrefixCommand;
 import io.axway.iron.core.model.validation.command.InvalidMethodTypeCommand;
@@ -104,6 +107,8 @@ public class ModelDefinitionValidationTest {
                 {List.of(InvalidMethodVoidEntity.class)}, //
                 {List.of(InvalidNonnullAndNullableMethodEntity.class)}, //
                 {List.of(InvalidUniqueRelationEntity.class)}, //
+                {List.of(InvalidIndexedRelationEntity.class)}, //
+                {List.of(InvalidIndexedUniqueEntity.class)}, //
                 {List.of(InvalidIdDefaultEntity.class)}, //
                 {List.of(InvalidIdMultipleEntity.class)}, //
                 {List.of(InvalidIdNonLongEntity.class)}, //
@@ -145,6 +150,7 @@ public class ModelDefinitionValidationTest {
                 {InvalidMethodVoidCommand.class}, //
                 {InvalidMethodIdCommand.class}, //
                 {InvalidMethodUniqueCommand.class}, //
+                {InvalidMethodIndexedCommand.class}, //
                 {InvalidEntityAnnotationCommand.class}, //
                 {InvalidMethodTypeCommand.class}, //
         };
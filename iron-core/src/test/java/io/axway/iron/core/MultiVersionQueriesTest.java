@@ -0,0 +1,134 @@
+package io.axway.iron.core;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.testng.annotations.Test;
+import io.axway.iron.ReadonlyTransaction;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.store.index.command.EmployeeCreateCommand;
+import io.axway.iron.core.store.index.command.EmployeeMoveCommand;
+import io.axway.iron.core.store.index.command.EmployeeRaiseCommand;
+import io.axway.iron.core.store.index.model.Employee;
+import io.axway.iron.core.store.relation.command.CarChangeOwner;
+import io.axway.iron.core.store.relation.command.CarCreateCommand;
+import io.axway.iron.core.store.relation.command.PersonCreateCommand;
+import io.axway.iron.core.store.relation.model.Car;
+import io.axway.iron.core.store.relation.model.Person;
+
+import static io.axway.iron.core.bugs.IronTestHelper.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MultiVersionQueriesTest {
+
+    private static StoreManager createStoreManager(InstanceBackend entityBackend) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withSnapshotSerializer(buildJacksonSnapshotSerializer()) //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withSnapshotStore(buildTransientSnapshotStoreFactory()) //
+                .withTransactionStore(buildTransientTransactionStoreFactory()) //
+                .withEntityClass(Employee.class) //
+                .withEntityClass(Person.class) //
+                .withEntityClass(Car.class) //
+                .withCommandClass(EmployeeCreateCommand.class) //
+                .withCommandClass(EmployeeMoveCommand.class) //
+                .withCommandClass(EmployeeRaiseCommand.class) //
+                .withCommandClass(PersonCreateCommand.class) //
+                .withCommandClass(CarCreateCommand.class) //
+                .withCommandClass(CarChangeOwner.class) //
+                .withEntityBackend(entityBackend) //
+                .withMultiVersionQueries(true) //
+                .build();
+    }
+
+    private static List<Object> observe(ReadonlyTransaction tx) {
+        Employee alice = tx.select(Employee.class).where(Employee::name).equalsTo("alice");
+        Person john = tx.select(Person.class).where(Person::name).equalsTo("john");
+        Car xyz = tx.select(Car.class).where(Car::plateNumber).equalsTo("XYZ");
+        Person previousOwner = xyz.previousOwner();
+        return List.of( //
+                tx.select(Employee.class).stream().map(Employee::name).collect(Collectors.toList()), //
+                alice.city(), //
+                tx.select(Employee.class).where(Employee::city).allEqualsTo("Paris").stream().map(Employee::name).collect(Collectors.toList()), //
+                tx.select(Employee.class).orderBy(Employee::salary).all().stream().map(Employee::name).collect(Collectors.toList()), //
+                Objects.toString(tx.select(Employee.class).where(Employee::name).equalsToOrNull("carol")), //
+                john.ownedCars().stream().map(Car::plateNumber).collect(Collectors.toList()), //
+                xyz.owner().name(), //
+                previousOwner != null ? previousOwner.name() : "none", //
+                tx.select(Employee.class).stream().count());
+    }
+
+    @Test
+    public void shouldReadACommittedVersionWhileTransactionsAreApplied() throws Exception {
+        shouldReadACommittedVersionWhileTransactionsAreApplied(InstanceBackend.PROXY);
+    }
+
+    @Test
+    public void shouldReadACommittedVersionOfGeneratedInstancesWhileTransactionsAreApplied() throws Exception {
+        shouldReadACommittedVersionWhileTransactionsAreApplied(InstanceBackend.GENERATED_CLASS);
+    }
+
+    private void shouldReadACommittedVersionWhileTransactionsAreApplied(InstanceBackend entityBackend) throws Exception {
+        try (StoreManager storeManager = createStoreManager(entityBackend)) {
+            Store store = storeManager.getStore("test");
+            Store.TransactionBuilder tx = store.begin();
+            tx.addCommand(EmployeeCreateCommand.class).map(Map.of("name", "alice", "city", "Paris", "salary", 100L)).submit();
+            tx.addCommand(EmployeeCreateCommand.class).map(Map.of("name", "bob", "city", "Paris", "salary", 200L)).submit();
+            tx.addCommand(PersonCreateCommand.class).set(PersonCreateCommand::name).to("john").submit();
+            tx.addCommand(PersonCreateCommand.class).set(PersonCreateCommand::name).to("marie").submit();
+            tx.addCommand(CarCreateCommand.class).set(CarCreateCommand::plateNumber).to("XYZ").set(CarCreateCommand::ownerName).to("john").submit();
+            tx.submit().get();
+
+            List<Object> initialState = List.of(List.of("alice", "bob"), "Paris", List.of("alice", "bob"), List.of("alice", "bob"), "null", List.of("XYZ"),
+                                                "john", "none", 2L);
+
+            CountDownLatch queryStarted = new CountDownLatch(1);
+            CountDownLatch transactionsApplied = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<List<List<Object>>> queryFuture = executor.submit(() -> store.query(query -> {
+                    List<Object> before = observe(query);
+                    queryStarted.countDown();
+                    try {
+                        assertThat(transactionsApplied.await(10, TimeUnit.SECONDS)).isTrue();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return List.of(before, observe(query));
+                }));
+                assertThat(queryStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+                // the transactions are applied while the query is in progress
+                tx = store.begin();
+                tx.addCommand(EmployeeMoveCommand.class).set(EmployeeMoveCommand::name).to("alice").set(EmployeeMoveCommand::city).to("London").submit();
+                tx.addCommand(EmployeeRaiseCommand.class).set(EmployeeRaiseCommand::name).to("bob").set(EmployeeRaiseCommand::salary).to(50L).submit();
+                tx.addCommand(EmployeeCreateCommand.class).map(Map.of("name", "carol", "city", "Paris", "salary", 300L)).submit();
+                tx.addCommand(CarChangeOwner.class).set(CarChangeOwner::plateNumber).to("XYZ").set(CarChangeOwner::newOwnerName).to("marie").submit();
+                tx.addCommand(CarCreateCommand.class).set(CarCreateCommand::plateNumber).to("ABC").set(CarCreateCommand::ownerName).to("john").submit();
+                tx.submit().get(5, TimeUnit.SECONDS);
+
+                List<Object> newState = store.query(MultiVersionQueriesTest::observe);
+                assertThat(newState.subList(0, 4)).containsExactly(List.of("alice", "bob", "carol"), "London", List.of("bob", "carol"),
+                                                                   List.of("bob", "alice", "carol"));
+                assertThat(newState.subList(5, 9)).containsExactly(List.of("ABC"), "marie", "john", 3L);
+
+                transactionsApplied.countDown();
+                List<List<Object>> queryStates = queryFuture.get(10, TimeUnit.SECONDS);
+                assertThat(queryStates.get(0)).isEqualTo(initialState);
+                assertThat(queryStates.get(1)).isEqualTo(initialState);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // versions that are not read anymore have been pruned, the latest version is still readable
+            store.createCommand(EmployeeRaiseCommand.class).set(EmployeeRaiseCommand::name).to("alice").set(EmployeeRaiseCommand::salary).to(400L).submit()
+                    .get();
+            List<String> employees = store.query(query -> {
+                return query.select(Employee.class).orderBy(Employee::salary).descending().limit(2).stream().map(Employee::name)
+                        .collect(Collectors.toList());
+            });
+            assertThat(employees).containsExactly("alice", "carol");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.axway.iron.core;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.testng.annotations.Test;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.model.simple.CreateSimpleEntity;
+import io.axway.iron.core.model.simple.SimpleEntity;
+import io.axway.iron.spi.model.snapshot.SerializableInstance;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.serializer.SnapshotSerializer;
+
+import static io.axway.iron.core.bugs.IronTestHelper.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NonBlockingSnapshotTest {
+
+    /**
+     * Serialize the snapshots once the serialization is allowed, and keep the last serialized snapshot.
+     */
+    private static final class BlockingSnapshotSerializer implements SnapshotSerializer {
+        private final SnapshotSerializer m_snapshotSerializer = buildJacksonSnapshotSerializer();
+        private final CountDownLatch m_serializationStarted = new CountDownLatch(1);
+        private final CountDownLatch m_serializationAllowed = new CountDownLatch(1);
+        private volatile SerializableSnapshot m_lastSnapshot;
+
+        @Override
+        public void serializeSnapshot(OutputStream out, SerializableSnapshot serializableSnapshot) throws IOException {
+            m_serializationStarted.countDown();
+            try {
+                assertThat(m_serializationAllowed.await(10, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            m_lastSnapshot = serializableSnapshot;
+            m_snapshotSerializer.serializeSnapshot(out, serializableSnapshot);
+        }
+
+        @Override
+        public SerializableSnapshot deserializeSnapshot(String storeName, InputStream in) throws IOException {
+            return m_snapshotSerializer.deserializeSnapshot(storeName, in);
+        }
+    }
+
+    private static StoreManager createStoreManager(Path storeDir, SnapshotSerializer snapshotSerializer, int executionThreadCount) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withSnapshotSerializer(snapshotSerializer) //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withSnapshotStore(buildFileSnapshotStoreFactory(storeDir, "nonBlocking")) //
+                .withTransactionStore(buildFileTransactionStoreFactory(storeDir, "nonBlocking")) //
+                .withCommandClass(CreateSimpleEntity.class) //
+                .withEntityClass(SimpleEntity.class) //
+                .withParallelStoreExecution(executionThreadCount) //
+                .withNonBlockingSnapshots(true) //
+                .build();
+    }
+
+    @Test
+    public void shouldApplyTransactionsWhileTheSnapshotIsSerialized() throws Exception {
+        shouldApplyTransactionsWhileTheSnapshotIsSerialized(1);
+    }
+
+    @Test
+    public void shouldApplyTransactionsOfParallelStoresWhileTheSnapshotIsSerialized() throws Exception {
+        shouldApplyTransactionsWhileTheSnapshotIsSerialized(2);
+    }
+
+    private void shouldApplyTransactionsWhileTheSnapshotIsSerialized(int executionThreadCount) throws Exception {
+        Path storeDir = Files.createTempDirectory("iron-non-blocking-snapshot");
+        BlockingSnapshotSerializer snapshotSerializer = new BlockingSnapshotSerializer();
+
+        try (StoreManager storeManager = createStoreManager(storeDir, snapshotSerializer, executionThreadCount)) {
+            Store store = storeManager.getStore("test");
+            store.createCommand(CreateSimpleEntity.class).set(CreateSimpleEntity::id).to("before").submit().get(5, TimeUnit.SECONDS);
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<BigInteger> snapshotFuture = executor.submit(storeManager::snapshot);
+                assertThat(snapshotSerializer.m_serializationStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+                // the store is not locked while the frozen version is serialized
+                store.createCommand(CreateSimpleEntity.class).set(CreateSimpleEntity::id).to("after").submit().get(5, TimeUnit.SECONDS);
+                assertThat(snapshotFuture.isDone()).isFalse();
+
+                snapshotSerializer.m_serializationAllowed.countDown();
+                assertThat(snapshotFuture.get(10, TimeUnit.SECONDS)).isEqualTo(BigInteger.ZERO);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            List<Object> snapshotIds = snapshotSerializer.m_lastSnapshot.getEntities().stream()
+                    .flatMap(entity -> entity.getInstances().stream().map(SerializableInstance::getValues).map(values -> values.get("id")))
+                    .collect(Collectors.toList());
+            assertThat(snapshotIds).containsExactly("before");
+        }
+
+        try (StoreManager storeManager = createStoreManager(storeDir, buildJacksonSnapshotSerializer(), executionThreadCount)) {
+            assertThat(storeManager.lastSnapshotTransactionId()).isEqualTo(BigInteger.ZERO);
+            Collection<String> ids = storeManager.getStore("test").query(tx -> {
+                return tx.select(SimpleEntity.class).stream().map(SimpleEntity::id).collect(Collectors.toList());
+            });
+            assertThat(ids).containsExactlyInAnyOrder("before", "after");
+        }
+    }
+}
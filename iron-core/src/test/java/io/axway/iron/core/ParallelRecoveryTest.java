@@ -0,0 +1,146 @@
+package io.axway.iron.core;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+import org.testng.annotations.Test;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.model.simple.CreateSimpleEntity;
+import io.axway.iron.core.model.simple.SimpleEntity;
+import io.axway.iron.core.store.relation.command.CarChangeOwner;
+import io.axway.iron.core.store.relation.command.CarCreateCommand;
+import io.axway.iron.core.store.relation.command.CarSetAuthorizedDriversCommand;
+import io.axway.iron.core.store.relation.command.PersonCreateCommand;
+import io.axway.iron.core.store.relation.command.PersonDeleteCommand;
+import io.axway.iron.core.store.relation.model.Car;
+import io.axway.iron.core.store.relation.model.Person;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+
+import static io.axway.iron.core.bugs.IronTestHelper.*;
+import static org.assertj.core.api.Assertions.*;
+
+public class ParallelRecoveryTest {
+    private static final int STORE_COUNT = 16;
+    private static final int CAR_COUNT = 3000;
+
+    private static StoreManager createStoreManager(Path storeDir, int recoveryThreadCount,
+                                                   BiFunction<SerializableSnapshot, String, SerializableSnapshot> snapshotPostProcessor) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withSnapshotSerializer(buildJacksonSnapshotSerializer()) //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withSnapshotStore(buildFileSnapshotStoreFactory(storeDir, "recovery")) //
+                .withTransactionStore(buildFileTransactionStoreFactory(storeDir, "recovery")) //
+                .withCommandClass(CreateSimpleEntity.class) //
+                .withEntityClass(SimpleEntity.class) //
+                .withParallelRecovery(recoveryThreadCount) //
+                .withSnapshotLoadingPostProcessor(snapshotPostProcessor) //
+                .build();
+    }
+
+    private static StoreManager createRelationStoreManager(Path storeDir, int recoveryThreadCount) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withSnapshotSerializer(buildJacksonSnapshotSerializer()) //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withSnapshotStore(buildFileSnapshotStoreFactory(storeDir, "relationRecovery")) //
+                .withTransactionStore(buildFileTransactionStoreFactory(storeDir, "relationRecovery")) //
+                .withEntityClass(Person.class) //
+                .withEntityClass(Car.class) //
+                .withCommandClass(PersonCreateCommand.class) //
+                .withCommandClass(PersonDeleteCommand.class) //
+                .withCommandClass(CarCreateCommand.class) //
+                .withCommandClass(CarChangeOwner.class) //
+                .withCommandClass(CarSetAuthorizedDriversCommand.class) //
+                .withParallelRecovery(recoveryThreadCount) //
+                .build();
+    }
+
+    @Test
+    public void shouldRecoverStoresInParallel() throws Exception {
+        Path storeDir = Files.createTempDirectory("iron-parallel-recovery");
+        try (StoreManager storeManager = createStoreManager(storeDir, 1, (snapshot, storeName) -> snapshot)) {
+            for (int i = 0; i < STORE_COUNT; i++) {
+                storeManager.getStore("store" + i).createCommand(CreateSimpleEntity.class).set(CreateSimpleEntity::id).to("entity" + i).submit()
+                        .get(5, TimeUnit.SECONDS);
+            }
+            assertThat(storeManager.snapshot()).isEqualTo(BigInteger.valueOf(STORE_COUNT - 1));
+        }
+
+        Set<String> postProcessingThreads = ConcurrentHashMap.newKeySet();
+        try (StoreManager storeManager = createStoreManager(storeDir, 4, (snapshot, storeName) -> {
+            postProcessingThreads.add(Thread.currentThread().getName());
+            snapshot.setApplicationModelVersion(2);
+            return snapshot;
+        })) {
+            assertThat(storeManager.lastSnapshotTransactionId()).isEqualTo(BigInteger.valueOf(STORE_COUNT - 1));
+            assertThat(storeManager.listStores()).containsAll(IntStream.range(0, STORE_COUNT).mapToObj(i -> "store" + i).collect(Collectors.toList()));
+            for (int i = 0; i < STORE_COUNT; i++) {
+                Collection<String> ids = storeManager.getStore("store" + i).query(tx -> {
+                    return tx.select(SimpleEntity.class).stream().map(SimpleEntity::id).collect(Collectors.toList());
+                });
+                assertThat(ids).containsExactly("entity" + i);
+            }
+            assertThat(postProcessingThreads).allMatch(threadName -> threadName.startsWith("iron-recovery-"));
+        }
+    }
+
+    @Test
+    public void shouldCheckTheApplicationModelVersionConsistencyWhenStoresAreRecoveredInParallel() throws Exception {
+        Path storeDir = Files.createTempDirectory("iron-parallel-recovery");
+        try (StoreManager storeManager = createStoreManager(storeDir, 1, (snapshot, storeName) -> snapshot)) {
+            for (int i = 0; i < STORE_COUNT; i++) {
+                storeManager.getStore("store" + i).createCommand(CreateSimpleEntity.class).set(CreateSimpleEntity::id).to("entity" + i).submit()
+                        .get(5, TimeUnit.SECONDS);
+            }
+            storeManager.snapshot();
+        }
+
+        assertThatThrownBy(() -> createStoreManager(storeDir, 4, (snapshot, storeName) -> {
+            snapshot.setApplicationModelVersion(storeName.equals("store7") ? 3 : 2);
+            return snapshot;
+        })).hasStackTraceContaining("Snapshot serializable application model version differs among the stores after post processing");
+    }
+
+    @Test
+    public void shouldRecoverTheRelationsOfTheEntitiesInParallel() throws Exception {
+        Path storeDir = Files.createTempDirectory("iron-parallel-recovery");
+        try (StoreManager storeManager = createRelationStoreManager(storeDir, 1)) {
+            Store store = storeManager.getStore("garage");
+            Store.TransactionBuilder tx = store.begin();
+            for (String name : List.of("john", "marie", "paul")) {
+                tx.addCommand(PersonCreateCommand.class).set(PersonCreateCommand::name).to(name).submit();
+            }
+            for (int i = 0; i < CAR_COUNT; i++) {
+                String plateNumber = "car" + i;
+                tx.addCommand(CarCreateCommand.class).set(CarCreateCommand::plateNumber).to(plateNumber).set(CarCreateCommand::ownerName).to("john")
+                        .submit();
+                tx.addCommand(CarSetAuthorizedDriversCommand.class).set(CarSetAuthorizedDriversCommand::plateNumber).to(plateNumber)
+                        .set(CarSetAuthorizedDriversCommand::authorizedDrivers).to(List.of("marie", "paul")).submit();
+            }
+            tx.addCommand(CarChangeOwner.class).set(CarChangeOwner::plateNumber).to("car0").set(CarChangeOwner::newOwnerName).to("marie").submit();
+            // paul is still an authorized driver of the cars once deleted
+            tx.addCommand(PersonDeleteCommand.class).set(PersonDeleteCommand::name).to("paul").submit();
+            tx.submit().get(10, TimeUnit.SECONDS);
+            storeManager.snapshot();
+        }
+
+        try (StoreManager storeManager = createRelationStoreManager(storeDir, 4)) {
+            List<Object> relations = storeManager.getStore("garage").query(tx -> {
+                Person john = tx.select(Person.class).where(Person::name).equalsTo("john");
+                Person marie = tx.select(Person.class).where(Person::name).equalsTo("marie");
+                Car car0 = tx.select(Car.class).where(Car::plateNumber).equalsTo("car0");
+                return List.of(tx.select(Person.class).stream().map(Person::name).collect(Collectors.toList()), //
+                               john.ownedCars().size(), //
+                               marie.ownedCars().stream().map(Car::plateNumber).collect(Collectors.toList()), //
+                               marie.authorizedCars().size(), //
+                               car0.owner().name(), //
+                               car0.previousOwner().name());
+            });
+            assertThat(relations).containsExactly(List.of("john", "marie"), CAR_COUNT - 1, List.of("car0"), CAR_COUNT, "marie", "john");
+        }
+    }
+}
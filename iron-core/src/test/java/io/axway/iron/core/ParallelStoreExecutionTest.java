@@ -0,0 +1,82 @@
+package io.axway.iron.core;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import org.testng.annotations.Test;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.model.simple.CreateSimpleEntity;
+import io.axway.iron.core.model.simple.SimpleEntity;
+
+import static io.axway.iron.core.bugs.IronTestHelper.*;
+import static org.assertj.core.api.Assertions.*;
+
+public class ParallelStoreExecutionTest {
+    private static final CountDownLatch SLOW_COMMAND_LATCH = new CountDownLatch(1);
+
+    public interface SlowCommand extends Command<Void> {
+        @Override
+        default Void execute(ReadWriteTransaction tx) {
+            try {
+                SLOW_COMMAND_LATCH.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+    }
+
+    private StoreManager createStoreManager(Path storeDir) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withSnapshotSerializer(buildJacksonSnapshotSerializer()) //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withSnapshotStore(buildFileSnapshotStoreFactory(storeDir, "parallel")) //
+                .withTransactionStore(buildFileTransactionStoreFactory(storeDir, "parallel")) //
+                .withCommandClass(SlowCommand.class) //
+                .withCommandClass(CreateSimpleEntity.class) //
+                .withEntityClass(SimpleEntity.class) //
+                .withParallelStoreExecution(4) //
+                .build();
+    }
+
+    @Test
+    public void shouldNotBlockStoreWhileAnotherStoreIsExecutingASlowCommand() throws Exception {
+        Path storeDir = Files.createTempDirectory("iron-parallel");
+
+        try (StoreManager storeManager = createStoreManager(storeDir)) {
+            Store slowStore = storeManager.getStore("slow");
+            Store fastStore = storeManager.getStore("fast");
+
+            Future<Void> slowFuture = slowStore.createCommand(SlowCommand.class).submit();
+            Future<SimpleEntity> fastFuture = fastStore.createCommand(CreateSimpleEntity.class).set(CreateSimpleEntity::id).to("fast").submit();
+
+            assertThat(fastFuture.get(5, TimeUnit.SECONDS).id()).isEqualTo("fast");
+            assertThat(slowFuture.isDone()).isFalse();
+
+            SLOW_COMMAND_LATCH.countDown();
+            slowFuture.get(10, TimeUnit.SECONDS);
+            Future<SimpleEntity> slowStoreFuture = slowStore.createCommand(CreateSimpleEntity.class).set(CreateSimpleEntity::id).to("slow").submit();
+            assertThat(slowStoreFuture.get(5, TimeUnit.SECONDS).id()).isEqualTo("slow");
+
+            BigInteger snapshotTxId = storeManager.snapshot();
+            assertThat(snapshotTxId).isEqualTo(BigInteger.valueOf(2));
+        }
+
+        try (StoreManager storeManager = createStoreManager(storeDir)) {
+            assertThat(storeManager.lastSnapshotTransactionId()).isEqualTo(BigInteger.valueOf(2));
+            Collection<SimpleEntity> fastEntities = storeManager.getStore("fast").query(tx -> {
+                return tx.select(SimpleEntity.class).all();
+            });
+            Collection<SimpleEntity> slowEntities = storeManager.getStore("slow").query(tx -> {
+                return tx.select(SimpleEntity.class).all();
+            });
+            assertThat(fastEntities).extracting(SimpleEntity::id).containsExactly("fast");
+            assertThat(slowEntities).extracting(SimpleEntity::id).containsExactly("slow");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.axway.iron.core.internal.utils;
+
+import java.util.*;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongLongMapTest {
+    private static final long NO_VALUE = -1;
+
+    /**
+     * @return keys that all have the same home slot in a map of the minimal capacity, so they share the same probe sequence
+     */
+    private static long[] collidingKeys(int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 0; found < count; key++) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            if ((((int) (h ^ (h >>> 32))) & 15) == 3) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    public void shouldReportAbsentKeysWithNoValue() {
+        LongLongMap map = new LongLongMap(NO_VALUE);
+        assertThat(map.get(42)).isEqualTo(NO_VALUE);
+        assertThat(map.put(42, 1)).isEqualTo(NO_VALUE);
+        assertThat(map.put(42, 2)).isEqualTo(1);
+        assertThat(map.get(42)).isEqualTo(2);
+        assertThat(map.remove(42)).isEqualTo(2);
+        assertThat(map.remove(42)).isEqualTo(NO_VALUE);
+        assertThat(map.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldFindCollidingKeysAfterTheRemovalOfOneOfThem() {
+        long[] keys = collidingKeys(8);
+        for (int removed = 0; removed < keys.length; removed++) {
+            LongLongMap map = new LongLongMap(NO_VALUE);
+            for (long key : keys) {
+                map.put(key, key * 10);
+            }
+            assertThat(map.remove(keys[removed])).isEqualTo(keys[removed] * 10);
+
+            // the keys probed after the removed one have been shifted back
+            for (long key : keys) {
+                assertThat(map.get(key)).isEqualTo(key == keys[removed] ? NO_VALUE : key * 10);
+            }
+            assertThat(map.put(keys[removed], 7)).isEqualTo(NO_VALUE);
+            for (long key : keys) {
+                assertThat(map.get(key)).isEqualTo(key == keys[removed] ? 7 : key * 10);
+            }
+            assertThat(map.size()).isEqualTo(keys.length);
+        }
+    }
+
+    @Test
+    public void shouldKeepTheEntriesWhenResized() {
+        LongLongMap map = new LongLongMap(NO_VALUE);
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key * 31, key);
+        }
+
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long key = 0; key < 10_000; key++) {
+            assertThat(map.get(key * 31)).isEqualTo(key);
+            assertThat(map.get(key * 31 + 1)).isEqualTo(NO_VALUE);
+        }
+    }
+
+    @Test
+    public void shouldBehaveLikeAHashMap() {
+        Random random = new Random(42);
+        LongLongMap map = new LongLongMap(NO_VALUE);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.getOrDefault(key, NO_VALUE));
+                expected.remove(key);
+            } else {
+                Long previous = expected.put(key, (long) i);
+                assertThat(map.put(key, i)).isEqualTo(previous == null ? NO_VALUE : previous);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, NO_VALUE));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.axway.iron.core.internal.utils;
+
+import java.util.*;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongOrderedMapTest {
+
+    @Test
+    public void shouldIterateInKeyOrderWhenKeysAreAppended() {
+        LongOrderedMap<String> map = new LongOrderedMap<>();
+        for (long key = 0; key < 1000; key++) {
+            assertThat(map.put(key, "v" + key)).isNull();
+        }
+        map.remove(500);
+        map.remove(0);
+
+        assertThat(map.size()).isEqualTo(998);
+        assertThat(map.get(500)).isNull();
+        assertThat(map.get(999)).isEqualTo("v999");
+        assertThat(map.values()).first().isEqualTo("v1");
+        assertThat(map.values()).last().isEqualTo("v999");
+        assertThat(map.values()).doesNotContain("v500");
+    }
+
+    @Test
+    public void shouldReinsertRemovedKeysInKeyOrder() {
+        LongOrderedMap<Long> map = new LongOrderedMap<>();
+        for (long key = 0; key < 100; key++) {
+            map.put(key, key);
+        }
+        for (long key = 0; key < 100; key++) {
+            map.remove(key);
+        }
+        // ordered keys have been compacted, reinsertion must keep the order
+        for (long key = 99; key >= 0; key -= 2) {
+            map.put(key, key);
+        }
+
+        assertThat(new ArrayList<>(map.values())).hasSize(50).isSorted();
+    }
+
+    @Test
+    public void shouldBehaveLikeATreeMap() {
+        Random random = new Random(42);
+        LongOrderedMap<Long> map = new LongOrderedMap<>();
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        assertThat(map.values()).containsExactlyElementsOf(expected.values());
+        List<Long> values = new ArrayList<>();
+        map.values().forEach(values::add);
+        assertThat(values).containsExactlyElementsOf(expected.values());
+        for (long key = 0; key < 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package io.axway.iron.core.internal.utils;
+
+import java.util.*;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongSortedSetTest {
+
+    @Test
+    public void shouldKeepTheValuesSorted() {
+        LongSortedSet set = new LongSortedSet();
+        for (long value : new long[]{5, 1, 9, 3, 7, 1, 9}) {
+            set.add(value);
+        }
+
+        assertThat(set.size()).isEqualTo(5);
+        assertThat(set.toList()).containsExactly(1L, 3L, 5L, 7L, 9L);
+        assertThat(set.asList()).containsExactly(1L, 3L, 5L, 7L, 9L);
+        assertThat(set.add(5)).isFalse();
+        assertThat(set.contains(7)).isTrue();
+        assertThat(set.contains(8)).isFalse();
+    }
+
+    @Test
+    public void shouldGrowAndShrinkWithTheValues() {
+        LongSortedSet set = new LongSortedSet();
+        for (long value = 0; value < 1000; value++) {
+            assertThat(set.add(value)).isTrue();
+        }
+        for (long value = 0; value < 1000; value += 2) {
+            assertThat(set.remove(value)).isTrue();
+        }
+        for (long value = 1; value < 990; value += 2) {
+            assertThat(set.remove(value)).isTrue();
+        }
+
+        assertThat(set.toList()).containsExactly(991L, 993L, 995L, 997L, 999L);
+        assertThat(set.remove(990)).isFalse();
+        // removed values are inserted back at their place
+        assertThat(set.add(0)).isTrue();
+        assertThat(set.add(994)).isTrue();
+        assertThat(set.toList()).containsExactly(0L, 991L, 993L, 994L, 995L, 997L, 999L);
+    }
+
+    @Test
+    public void shouldNotImpactASnapshotWhenModified() {
+        LongSortedSet set = new LongSortedSet();
+        for (long value = 0; value < 10; value++) {
+            set.add(value * 2);
+        }
+        LongSortedSet snapshot = set.snapshot();
+
+        // the array has room left, so these additions would be visible in a shared array
+        set.add(5);
+        set.remove(0);
+        set.add(100);
+
+        assertThat(snapshot.toList()).containsExactly(0L, 2L, 4L, 6L, 8L, 10L, 12L, 14L, 16L, 18L);
+        assertThat(set.toList()).containsExactly(2L, 4L, 5L, 6L, 8L, 10L, 12L, 14L, 16L, 18L, 100L);
+    }
+
+    @Test
+    public void shouldNotImpactTheSetWhenASnapshotIsModified() {
+        LongSortedSet set = new LongSortedSet();
+        for (long value = 0; value < 10; value++) {
+            set.add(value);
+        }
+        LongSortedSet snapshot = set.snapshot();
+        LongSortedSet snapshotOfSnapshot = snapshot.snapshot();
+
+        snapshot.remove(3);
+        snapshot.add(42);
+
+        assertThat(set.toList()).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(snapshotOfSnapshot.toList()).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(snapshot.toList()).containsExactly(0L, 1L, 2L, 4L, 5L, 6L, 7L, 8L, 9L, 42L);
+    }
+
+    @Test
+    public void shouldBehaveLikeATreeSet() {
+        Random random = new Random(42);
+        LongSortedSet set = new LongSortedSet();
+        TreeSet<Long> expected = new TreeSet<>();
+        List<LongSortedSet> snapshots = new ArrayList<>();
+        List<List<Long>> expectedSnapshots = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            long value = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(set.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(set.add(value)).isEqualTo(expected.add(value));
+            }
+            if (i % 5_000 == 0) {
+                snapshots.add(set.snapshot());
+                expectedSnapshots.add(new ArrayList<>(expected));
+            }
+        }
+
+        assertThat(set.toList()).containsExactlyElementsOf(expected);
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertThat(snapshots.get(i).toList()).containsExactlyElementsOf(expectedSnapshots.get(i));
+        }
+    }
+}
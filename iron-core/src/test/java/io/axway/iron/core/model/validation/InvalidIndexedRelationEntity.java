@@ -0,0 +1,11 @@
+package io.axway.iron.core.model.validation;
+
+import io.axway.iron.description.Entity;
+import io.axway.iron.description.Indexed;
+
+@Entity
+public interface InvalidIndexedRelationEntity {
+
+    @Indexed
+    TargetEntity relation();
+}
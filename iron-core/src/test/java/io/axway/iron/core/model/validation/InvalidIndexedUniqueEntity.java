@@ -0,0 +1,12 @@
+package io.axway.iron.core.model.validation;
+
+import io.axway.iron.description.Entity;
+import io.axway.iron.description.Indexed;
+import io.axway.iron.description.Unique;
+
+@Entity
+public interface InvalidIndexedUniqueEntity {
+    @Indexed
+    @Unique
+    String value();
+}
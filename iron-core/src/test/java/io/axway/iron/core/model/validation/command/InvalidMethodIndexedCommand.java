@@ -0,0 +1,16 @@
+package io.axway.iron.core.model.validation.command;
+
+import javax.annotation.*;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.description.Indexed;
+
+public interface InvalidMethodIndexedCommand extends Command<Void> {
+    @Indexed
+    String value();
+
+    @Override
+    default Void execute(@Nonnull ReadWriteTransaction tx) {
+        return null;
+    }
+}
@@ -0,0 +1,68 @@
+package io.axway.iron.core.spi.file;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.testng.annotations.Test;
+import io.reactivex.Flowable;
+import io.reactivex.observers.BaseTestConsumer.TestWaitStrategy;
+import io.reactivex.subscribers.TestSubscriber;
+
+import static io.axway.iron.core.spi.file.FileTransactionStoreDurability.GROUP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileTransactionStoreTest {
+
+    private static void writeTransaction(FileTransactionStore transactionStore) throws IOException {
+        try (OutputStream out = transactionStore.createTransactionOutput("store")) {
+            out.write(1);
+        }
+    }
+
+    @Test
+    public void shouldEmitAGroupOfTransactionsOnceAndOnlyOnceItIsSynchronized() throws Exception {
+        Path dir = Files.createTempDirectory("iron-file-transaction-store");
+        FileTransactionStore transactionStore = new FileTransactionStore(dir, null, GROUP, Duration.ofHours(1), 3);
+        try {
+            // the first transaction is in the manifest but not synchronized when the reader loads the existing files
+            writeTransaction(transactionStore);
+            TestSubscriber<Long> subscriber = Flowable.fromPublisher(transactionStore.allTransactions())
+                    .map(transaction -> transaction.getTransactionId().longValueExact()).test();
+            assertThat(subscriber.await(200, TimeUnit.MILLISECONDS)).isFalse();
+            assertThat(subscriber.values()).isEmpty();
+
+            writeTransaction(transactionStore);
+            writeTransaction(transactionStore);
+            subscriber.awaitCount(3);
+            assertThat(subscriber.await(200, TimeUnit.MILLISECONDS)).isFalse();
+            assertThat(subscriber.values()).containsExactly(0L, 1L, 2L);
+            subscriber.cancel();
+        } finally {
+            transactionStore.close();
+        }
+    }
+
+    @Test
+    public void shouldPublishMoreTransactionsThanTheRingBufferHolds() throws Exception {
+        Path dir = Files.createTempDirectory("iron-file-transaction-store");
+        int transactionCount = FileTransactionStore.PUBLISHED_TX_CAPACITY + 1000;
+        // all the transactions are published at once by a single group synchronization
+        FileTransactionStore transactionStore = new FileTransactionStore(dir, null, GROUP, Duration.ofHours(1), transactionCount);
+        try {
+            TestSubscriber<Long> subscriber = Flowable.fromPublisher(transactionStore.allTransactions())
+                    .map(transaction -> transaction.getTransactionId().longValueExact()).test();
+            for (int i = 0; i < transactionCount; i++) {
+                writeTransaction(transactionStore);
+            }
+
+            subscriber.awaitCount(transactionCount, TestWaitStrategy.SLEEP_10MS, 60_000);
+            assertThat(subscriber.values()).isEqualTo(LongStream.range(0, transactionCount).boxed().collect(Collectors.toList()));
+            subscriber.cancel();
+        } finally {
+            transactionStore.close();
+        }
+    }
+}
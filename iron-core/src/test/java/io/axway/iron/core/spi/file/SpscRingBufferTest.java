@@ -0,0 +1,80 @@
+package io.axway.iron.core.spi.file;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.testng.annotations.Test;
+import io.axway.alf.exception.IllegalArgumentFormattedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpscRingBufferTest {
+
+    @Test
+    public void shouldTakeTheAvailableElementsInOrder() throws Exception {
+        SpscRingBuffer<Integer> ringBuffer = new SpscRingBuffer<>(8);
+        for (int i = 0; i < 6; i++) {
+            ringBuffer.put(i);
+        }
+
+        assertThat(ringBuffer.take(4)).containsExactly(0, 1, 2, 3);
+        assertThat(ringBuffer.take(4)).containsExactly(4, 5);
+        assertThat(ringBuffer.poll(4)).isEmpty();
+    }
+
+    @Test
+    public void shouldHandOffAllTheElementsBetweenTwoThreads() throws Exception {
+        int count = 1_000_000;
+        SpscRingBuffer<Integer> ringBuffer = new SpscRingBuffer<>(16);
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            // the queue is much smaller than the number of elements, so both the producer and the consumer wait for each other
+            Future<?> production = producer.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    ringBuffer.put(i);
+                }
+            });
+
+            List<Integer> taken = new ArrayList<>(count);
+            while (taken.size() < count) {
+                List<Integer> batch = ringBuffer.take(64);
+                assertThat(batch).isNotEmpty();
+                assertThat(batch.size()).isLessThanOrEqualTo(64);
+                taken.addAll(batch);
+            }
+            production.get(10, TimeUnit.SECONDS);
+
+            assertThat(taken).isEqualTo(IntStream.range(0, count).boxed().collect(Collectors.toList()));
+        } finally {
+            producer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotOfferAnElementWhenFull() throws Exception {
+        SpscRingBuffer<Integer> ringBuffer = new SpscRingBuffer<>(2);
+        assertThat(ringBuffer.offer(1)).isTrue();
+        assertThat(ringBuffer.offer(2)).isTrue();
+        assertThat(ringBuffer.offer(3)).isFalse();
+
+        assertThat(ringBuffer.take(1)).containsExactly(1);
+        assertThat(ringBuffer.offer(3)).isTrue();
+        assertThat(ringBuffer.take(4)).containsExactly(2, 3);
+    }
+
+    @Test
+    public void shouldDiscardTheElementsWhenCleared() throws Exception {
+        SpscRingBuffer<Integer> ringBuffer = new SpscRingBuffer<>(4);
+        ringBuffer.put(1);
+        ringBuffer.put(2);
+        ringBuffer.clear();
+        ringBuffer.put(3);
+
+        assertThat(ringBuffer.take(4)).containsExactly(3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentFormattedException.class)
+    public void shouldRejectACapacityThatIsNotAPowerOfTwo() {
+        new SpscRingBuffer<>(12);
+    }
+}
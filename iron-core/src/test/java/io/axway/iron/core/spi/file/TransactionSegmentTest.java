@@ -0,0 +1,126 @@
+package io.axway.iron.core.spi.file;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.testng.annotations.Test;
+import io.axway.iron.error.StoreException;
+
+import static java.nio.file.StandardOpenOption.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class TransactionSegmentTest {
+    private static final int TRANSACTION_SIZE = 100 * 1024;
+    // enough transactions for the segment to grow beyond its mapping several times
+    private static final int TRANSACTION_COUNT = 200;
+
+    private static byte[] transaction(long txId) {
+        byte[] transaction = new byte[TRANSACTION_SIZE];
+        Arrays.fill(transaction, (byte) txId);
+        return transaction;
+    }
+
+    private static void assertRecord(TransactionSegment.TransactionRecord record, long txId) {
+        assertThat(record).isNotNull();
+        assertThat(record.getTransactionId()).isEqualTo(txId);
+        assertThat(record.getStoreName()).isEqualTo("store" + txId);
+        ByteBuffer transaction = record.getTransaction();
+        byte[] bytes = new byte[transaction.remaining()];
+        transaction.get(bytes);
+        assertThat(Arrays.equals(bytes, transaction(txId))).isTrue();
+    }
+
+    @Test
+    public void shouldReadTheRecordsAsTheyAreAppended() throws Exception {
+        Path dir = Files.createTempDirectory("iron-transaction-segment");
+        long position;
+        try (TransactionSegment segment = TransactionSegment.create(dir, 0)) {
+            position = segment.getStart();
+            for (long txId = 0; txId < TRANSACTION_COUNT; txId++) {
+                segment.append(txId, "store" + txId, transaction(txId));
+                // read at the tail of the segment, as a reader waiting for the new transactions
+                TransactionSegment.TransactionRecord record = segment.read(position, segment.getEnd());
+                assertRecord(record, txId);
+                position += record.getSize();
+            }
+            assertThat(segment.read(position, segment.getEnd())).isNull();
+        }
+
+        try (TransactionSegment segment = TransactionSegment.open(dir.resolve(String.format("%020d", 0) + TransactionSegment.SEGMENT_EXT), true)) {
+            assertThat(segment.getEnd()).isEqualTo(position);
+            assertThat(segment.getLastTxId()).isEqualTo(TRANSACTION_COUNT - 1);
+            long recordPosition = segment.positionOf(TRANSACTION_COUNT / 2);
+            for (long txId = TRANSACTION_COUNT / 2; txId < TRANSACTION_COUNT; txId++) {
+                TransactionSegment.TransactionRecord record = segment.read(recordPosition, segment.getEnd());
+                assertRecord(record, txId);
+                recordPosition += record.getSize();
+            }
+        }
+    }
+
+    /**
+     * Create the last segment of a log with small records.
+     *
+     * @return the positions of the records, followed by the end of the segment
+     */
+    private static List<Long> createSegment(Path dir, int recordCount) throws Exception {
+        List<Long> positions = new ArrayList<>();
+        try (TransactionSegment segment = TransactionSegment.create(dir, 0)) {
+            for (long txId = 0; txId < recordCount; txId++) {
+                positions.add(segment.getEnd());
+                segment.append(txId, "store", new byte[]{(byte) txId, 1, 2, 3});
+            }
+            positions.add(segment.getEnd());
+        }
+        return positions;
+    }
+
+    private static Path segmentFile(Path dir) {
+        return dir.resolve(String.format("%020d", 0) + TransactionSegment.SEGMENT_EXT);
+    }
+
+    @Test
+    public void shouldRemoveAnIncompleteRecordAtTheEndOfTheLastSegment() throws Exception {
+        Path dir = Files.createTempDirectory("iron-transaction-segment");
+        List<Long> positions = createSegment(dir, 10);
+        try (FileChannel channel = FileChannel.open(segmentFile(dir), WRITE)) {
+            channel.truncate(positions.get(10) - 2);
+        }
+
+        try (TransactionSegment segment = TransactionSegment.open(segmentFile(dir), true)) {
+            assertThat(segment.getEnd()).isEqualTo(positions.get(9));
+            assertThat(segment.getLastTxId()).isEqualTo(8);
+        }
+        assertThat(Files.size(segmentFile(dir))).isEqualTo(positions.get(9));
+    }
+
+    @Test
+    public void shouldRemoveTheZerosAtTheEndOfTheLastSegment() throws Exception {
+        Path dir = Files.createTempDirectory("iron-transaction-segment");
+        List<Long> positions = createSegment(dir, 10);
+        Files.write(segmentFile(dir), new byte[4096], APPEND);
+
+        try (TransactionSegment segment = TransactionSegment.open(segmentFile(dir), true)) {
+            assertThat(segment.getEnd()).isEqualTo(positions.get(10));
+            assertThat(segment.getLastTxId()).isEqualTo(9);
+        }
+    }
+
+    @Test
+    public void shouldNotRemoveTheRecordsFollowingACorruptedOne() throws Exception {
+        Path dir = Files.createTempDirectory("iron-transaction-segment");
+        List<Long> positions = createSegment(dir, 10);
+        long size = Files.size(segmentFile(dir));
+        try (FileChannel channel = FileChannel.open(segmentFile(dir), WRITE)) {
+            // the last byte of the transaction of the fifth record
+            channel.write(ByteBuffer.wrap(new byte[]{42}), positions.get(5) - 1);
+        }
+
+        assertThatThrownBy(() -> TransactionSegment.open(segmentFile(dir), true)).isInstanceOf(StoreException.class)
+                .hasMessageContaining("Transaction segment is corrupted");
+        assertThat(Files.size(segmentFile(dir))).isEqualTo(size);
+    }
+}
@@ -0,0 +1,51 @@
+package io.axway.iron.core.spi.file;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.concurrent.atomic.*;
+import org.testng.annotations.Test;
+
+import static io.axway.iron.core.spi.file.FileTransactionStoreDurability.GROUP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransactionSyncPolicyTest {
+    private static final int GROUP_SYNC_TRANSACTION_COUNT = 5;
+    private static final int TRANSACTION_COUNT = 200;
+
+    @Test
+    public void shouldSynchronizeAsSoonAsEnoughTransactionsAreWaiting() throws Exception {
+        AtomicInteger unsyncedCount = new AtomicInteger();
+        AtomicReference<TransactionSyncPolicy> policyRef = new AtomicReference<>();
+        // the interval is never reached, the synchronizations are only started by the transaction count
+        try (TransactionSyncPolicy policy = new TransactionSyncPolicy(GROUP, Duration.ofHours(1), GROUP_SYNC_TRANSACTION_COUNT, () -> {
+            int transactionCount = unsyncedCount.getAndSet(0);
+            // a slow synchronization, so more transactions than the count are written meanwhile
+            policyRef.get().sync(transactionCount, () -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            });
+            return transactionCount;
+        })) {
+            policyRef.set(policy);
+            // the transactions keep being written during the synchronizations
+            for (int i = 0; i < TRANSACTION_COUNT; i++) {
+                unsyncedCount.incrementAndGet();
+                policy.transactionWritten();
+                Thread.sleep(1);
+            }
+
+            // only the transactions that are not enough to start a synchronization may still be waiting
+            TransactionSyncStatistics statistics = policy.getStatistics();
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (statistics.getSyncedTransactionCount() <= TRANSACTION_COUNT - GROUP_SYNC_TRANSACTION_COUNT && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(statistics.getSyncedTransactionCount()).isGreaterThan(TRANSACTION_COUNT - GROUP_SYNC_TRANSACTION_COUNT);
+            assertThat(statistics.getSyncCount()).isGreaterThanOrEqualTo(3);
+            assertThat(unsyncedCount.get()).isLessThan(GROUP_SYNC_TRANSACTION_COUNT);
+        }
+    }
+}
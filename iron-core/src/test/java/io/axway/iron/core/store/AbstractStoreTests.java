@@ -114,7 +114,7 @@ public abstract class AbstractStoreTests {
         SnapshotSerializer snapshotSerializer = buildJacksonSnapshotSerializer();
         TransactionSerializer transactionSerializer = buildJacksonTransactionSerializer();
 
-        Path filePath = Paths.get("tmp-iron-test", "iron-core", "iron_tests-" + EXECUTION_ID);
+        Path filePath = Paths.get("tmp-iron-test", "iron-core", "iron_tests-" + EXECUTION_ID, getClass().getSimpleName());
         SnapshotStore snapshotStore = buildFileSnapshotStoreFactory(filePath, storeTest.getClass().getSimpleName());
         TransactionStore transactionStore = buildFileTransactionStoreFactory(filePath, storeTest.getClass().getSimpleName());
 
@@ -124,6 +124,14 @@ public abstract class AbstractStoreTests {
                 .withSnapshotStore(snapshotStore) //
                 .withTransactionStore(transactionStore);
         storeTest.configure(builder);
+        configure(builder);
         return builder.build();
     }
+
+    /**
+     * Hook to run the same store tests on differently configured store managers.
+     */
+    protected void configure(StoreManagerBuilder builder) {
+        // by default, do nothing
+    }
 }
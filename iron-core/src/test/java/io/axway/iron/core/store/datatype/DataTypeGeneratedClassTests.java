@@ -0,0 +1,19 @@
+package io.axway.iron.core.store.datatype;
+
+import io.axway.iron.core.InstanceBackend;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.AbstractStoreTests;
+
+public class DataTypeGeneratedClassTests extends AbstractStoreTests {
+
+    public DataTypeGeneratedClassTests() {
+        super( //
+               new PrimitiveTypeInsertTest() //
+        );
+    }
+
+    @Override
+    protected void configure(StoreManagerBuilder builder) {
+        builder.withEntityBackend(InstanceBackend.GENERATED_CLASS).withCommandBackend(InstanceBackend.GENERATED_CLASS);
+    }
+}
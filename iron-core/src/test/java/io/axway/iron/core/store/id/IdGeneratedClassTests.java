@@ -0,0 +1,19 @@
+package io.axway.iron.core.store.id;
+
+import io.axway.iron.core.InstanceBackend;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.AbstractStoreTests;
+
+public class IdGeneratedClassTests extends AbstractStoreTests {
+
+    public IdGeneratedClassTests() {
+        super( //
+               new ShouldAutoGenerateIdTest() //
+        );
+    }
+
+    @Override
+    protected void configure(StoreManagerBuilder builder) {
+        builder.withEntityBackend(InstanceBackend.GENERATED_CLASS).withCommandBackend(InstanceBackend.GENERATED_CLASS);
+    }
+}
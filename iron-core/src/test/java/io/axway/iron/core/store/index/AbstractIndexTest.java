@@ -0,0 +1,44 @@
+package io.axway.iron.core.store.index;
+
+import javax.annotation.*;
+import io.axway.iron.Store;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.StoreTest;
+import io.axway.iron.core.store.index.command.EmployeeCreateCommand;
+import io.axway.iron.core.store.index.command.EmployeeDeleteCommand;
+import io.axway.iron.core.store.index.command.EmployeeMoveCommand;
+import io.axway.iron.core.store.index.command.EmployeeRaiseCommand;
+import io.axway.iron.core.store.index.model.Employee;
+
+abstract class AbstractIndexTest implements StoreTest {
+
+    @Override
+    public void configure(StoreManagerBuilder builder) throws Exception {
+        builder //
+                .withEntityClass(Employee.class) //
+                .withCommandClass(EmployeeCreateCommand.class) //
+                .withCommandClass(EmployeeMoveCommand.class) //
+                .withCommandClass(EmployeeDeleteCommand.class) //
+                .withCommandClass(EmployeeRaiseCommand.class) //
+        ;
+    }
+
+    @Override
+    public void provision(Store store) throws Exception {
+        Store.TransactionBuilder tx = store.begin();
+        addEmployee(tx, "alice", "Paris", "dev", 3000);
+        addEmployee(tx, "bob", "Lyon", "dev", 2000);
+        addEmployee(tx, "carol", "Paris", null, 4000);
+        addEmployee(tx, "dave", "Paris", "ops", 3000);
+        tx.submit().get();
+    }
+
+    private static void addEmployee(Store.TransactionBuilder tx, String name, String city, @Nullable String team, long salary) {
+        tx.addCommand(EmployeeCreateCommand.class) //
+                .set(EmployeeCreateCommand::name).to(name) //
+                .set(EmployeeCreateCommand::city).to(city) //
+                .set(EmployeeCreateCommand::team).to(team) //
+                .set(EmployeeCreateCommand::salary).to(salary) //
+                .submit();
+    }
+}
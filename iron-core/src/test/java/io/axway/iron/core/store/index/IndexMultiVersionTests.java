@@ -0,0 +1,21 @@
+package io.axway.iron.core.store.index;
+
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.AbstractStoreTests;
+
+public class IndexMultiVersionTests extends AbstractStoreTests {
+
+    public IndexMultiVersionTests() {
+        super( //
+               new ShouldLookupIndexedAttributeTest(), //
+               new ShouldRollbackIndexTest(), //
+               new ShouldQuerySortedIndexTest(), //
+               new ShouldNotLookupNonIndexedAttributeTest() //
+        );
+    }
+
+    @Override
+    protected void configure(StoreManagerBuilder builder) {
+        builder.withMultiVersionQueries(true);
+    }
+}
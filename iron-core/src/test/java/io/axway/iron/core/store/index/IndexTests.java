@@ -0,0 +1,15 @@
+package io.axway.iron.core.store.index;
+
+import io.axway.iron.core.store.AbstractStoreTests;
+
+public class IndexTests extends AbstractStoreTests {
+
+    public IndexTests() {
+        super( //
+               new ShouldLookupIndexedAttributeTest(), //
+               new ShouldRollbackIndexTest(), //
+               new ShouldQuerySortedIndexTest(), //
+               new ShouldNotLookupNonIndexedAttributeTest() //
+        );
+    }
+}
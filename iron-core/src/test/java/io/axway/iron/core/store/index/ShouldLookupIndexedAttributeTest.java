@@ -0,0 +1,33 @@
+package io.axway.iron.core.store.index;
+
+import io.axway.iron.ReadonlyTransaction;
+import io.axway.iron.Store;
+import io.axway.iron.core.store.SucceedingStoreTest;
+import io.axway.iron.core.store.index.command.EmployeeDeleteCommand;
+import io.axway.iron.core.store.index.command.EmployeeMoveCommand;
+import io.axway.iron.core.store.index.model.Employee;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShouldLookupIndexedAttributeTest extends AbstractIndexTest implements SucceedingStoreTest {
+    @Override
+    public void execute(Store store) throws Exception {
+        store.createCommand(EmployeeMoveCommand.class) //
+                .set(EmployeeMoveCommand::name).to("bob") //
+                .set(EmployeeMoveCommand::city).to("Paris") //
+                .set(EmployeeMoveCommand::team).to("ops") //
+                .submit().get();
+
+        store.createCommand(EmployeeDeleteCommand.class).set(EmployeeDeleteCommand::name).to("carol").submit().get();
+    }
+
+    @Override
+    public void verify(ReadonlyTransaction tx) {
+        assertThat(tx.select(Employee.class).where(Employee::city).allEqualsTo("Paris")).extracting(Employee::name).containsExactly("alice", "bob", "dave");
+        assertThat(tx.select(Employee.class).where(Employee::city).allEqualsTo("Lyon")).isEmpty();
+        assertThat(tx.select(Employee.class).where(Employee::team).allEqualsTo("dev")).extracting(Employee::name).containsExactly("alice");
+        assertThat(tx.select(Employee.class).where(Employee::team).allEqualsTo("ops")).extracting(Employee::name).containsExactly("bob", "dave");
+        assertThat(tx.select(Employee.class).where(Employee::name).allEqualsTo("alice")).extracting(Employee::city).containsExactly("Paris");
+        assertThat(tx.select(Employee.class).where(Employee::name).allEqualsTo("carol")).isEmpty();
+    }
+}
@@ -0,0 +1,30 @@
+package io.axway.iron.core.store.index;
+
+import javax.annotation.*;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.Store;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.FailingStoreTest;
+import io.axway.iron.core.store.index.model.Employee;
+
+class ShouldNotLookupNonIndexedAttributeTest extends AbstractIndexTest implements FailingStoreTest {
+    @Override
+    public void configure(StoreManagerBuilder builder) throws Exception {
+        super.configure(builder);
+        builder.withCommandClass(EmployeeLookupByPhoneCommand.class);
+    }
+
+    public interface EmployeeLookupByPhoneCommand extends Command<Void> {
+        @Override
+        default Void execute(@Nonnull ReadWriteTransaction tx) {
+            tx.select(Employee.class).where(Employee::phone).allEqualsTo("555-0100");
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Store store) throws Exception {
+        store.createCommand(EmployeeLookupByPhoneCommand.class).submit().get();
+    }
+}
@@ -0,0 +1,37 @@
+package io.axway.iron.core.store.index;
+
+import io.axway.iron.ReadonlyTransaction;
+import io.axway.iron.Store;
+import io.axway.iron.core.store.SucceedingStoreTest;
+import io.axway.iron.core.store.index.command.EmployeeRaiseCommand;
+import io.axway.iron.core.store.index.model.Employee;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShouldQuerySortedIndexTest extends AbstractIndexTest implements SucceedingStoreTest {
+    @Override
+    public void execute(Store store) throws Exception {
+        store.createCommand(EmployeeRaiseCommand.class) //
+                .set(EmployeeRaiseCommand::name).to("bob") //
+                .set(EmployeeRaiseCommand::salary).to(5000L) //
+                .submit().get();
+    }
+
+    @Override
+    public void verify(ReadonlyTransaction tx) {
+        ReadonlyTransaction.From<Employee> employees = tx.select(Employee.class);
+
+        assertThat(employees.where(Employee::salary).greaterThan(3000L).all()).extracting(Employee::name).containsExactly("carol", "bob");
+        assertThat(employees.where(Employee::salary).lessThan(4000L).all()).extracting(Employee::name).containsExactly("alice", "dave");
+        assertThat(employees.where(Employee::salary).between(3000L, 4000L).all()).extracting(Employee::name).containsExactly("alice", "dave", "carol");
+        assertThat(employees.where(Employee::salary).between(3000L, 4000L).descending().all()).extracting(Employee::name)
+                .containsExactly("carol", "alice", "dave");
+        assertThat(employees.where(Employee::salary).between(5000L, 1000L).all()).isEmpty();
+        assertThat(employees.where(Employee::salary).greaterThan(5000L).all()).isEmpty();
+
+        assertThat(employees.orderBy(Employee::salary).all()).extracting(Employee::name).containsExactly("alice", "dave", "carol", "bob");
+        assertThat(employees.orderBy(Employee::salary).descending().limit(2)).extracting(Employee::name).containsExactly("bob", "carol");
+        assertThat(employees.orderBy(Employee::salary).limit(0)).isEmpty();
+        assertThat(employees.where(Employee::salary).allEqualsTo(3000L)).extracting(Employee::name).containsExactly("alice", "dave");
+    }
+}
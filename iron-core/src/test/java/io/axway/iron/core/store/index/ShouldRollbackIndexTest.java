@@ -0,0 +1,52 @@
+package io.axway.iron.core.store.index;
+
+import java.util.concurrent.*;
+import javax.annotation.*;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.ReadonlyTransaction;
+import io.axway.iron.Store;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.SucceedingStoreTest;
+import io.axway.iron.core.store.index.model.Employee;
+import io.axway.iron.error.StoreException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ShouldRollbackIndexTest extends AbstractIndexTest implements SucceedingStoreTest {
+    @Override
+    public void configure(StoreManagerBuilder builder) throws Exception {
+        super.configure(builder);
+        builder.withCommandClass(EmployeeFailingCommand.class);
+    }
+
+    public interface EmployeeFailingCommand extends Command<Void> {
+        @Override
+        default Void execute(@Nonnull ReadWriteTransaction tx) {
+            Employee alice = tx.select(Employee.class).where(Employee::name).equalsTo("alice");
+            tx.update(alice).set(Employee::city).to("Lyon").set(Employee::team).to("ops").set(Employee::salary).to(9000L).done();
+
+            Employee dave = tx.select(Employee.class).where(Employee::name).equalsTo("dave");
+            tx.delete(dave);
+
+            tx.insert(Employee.class).set(Employee::name).to("eve").set(Employee::city).to("Lyon").set(Employee::team).to("dev").set(Employee::salary)
+                    .to(1000L).done();
+
+            throw new StoreException("Kaboom");
+        }
+    }
+
+    @Override
+    public void execute(Store store) throws Exception {
+        assertThatThrownBy(() -> store.createCommand(EmployeeFailingCommand.class).submit().get()).isInstanceOf(ExecutionException.class);
+    }
+
+    @Override
+    public void verify(ReadonlyTransaction tx) {
+        assertThat(tx.select(Employee.class).where(Employee::city).allEqualsTo("Paris")).extracting(Employee::name).containsExactly("alice", "carol", "dave");
+        assertThat(tx.select(Employee.class).where(Employee::city).allEqualsTo("Lyon")).extracting(Employee::name).containsExactly("bob");
+        assertThat(tx.select(Employee.class).where(Employee::team).allEqualsTo("dev")).extracting(Employee::name).containsExactly("alice", "bob");
+        assertThat(tx.select(Employee.class).where(Employee::team).allEqualsTo("ops")).extracting(Employee::name).containsExactly("dave");
+        assertThat(tx.select(Employee.class).orderBy(Employee::salary).all()).extracting(Employee::name).containsExactly("bob", "alice", "dave", "carol");
+    }
+}
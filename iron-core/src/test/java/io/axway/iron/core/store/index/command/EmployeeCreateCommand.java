@@ -0,0 +1,30 @@
+package io.axway.iron.core.store.index.command;
+
+import javax.annotation.*;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.core.store.index.model.Employee;
+
+public interface EmployeeCreateCommand extends Command<Void> {
+
+    String name();
+
+    String city();
+
+    @Nullable
+    String team();
+
+    long salary();
+
+    @Override
+    default Void execute(@Nonnull ReadWriteTransaction tx) {
+        tx.insert(Employee.class) //
+                .set(Employee::name).to(name()) //
+                .set(Employee::city).to(city()) //
+                .set(Employee::team).to(team()) //
+                .set(Employee::salary).to(salary()) //
+                .done();
+
+        return null;
+    }
+}
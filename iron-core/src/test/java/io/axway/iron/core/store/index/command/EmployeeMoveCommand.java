@@ -0,0 +1,27 @@
+package io.axway.iron.core.store.index.command;
+
+import javax.annotation.*;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.core.store.index.model.Employee;
+
+public interface EmployeeMoveCommand extends Command<Void> {
+
+    String name();
+
+    String city();
+
+    @Nullable
+    String team();
+
+    @Override
+    default Void execute(@Nonnull ReadWriteTransaction tx) {
+        Employee employee = tx.select(Employee.class).where(Employee::name).equalsTo(name());
+        tx.update(employee) //
+                .set(Employee::city).to(city()) //
+                .set(Employee::team).to(team()) //
+                .done();
+
+        return null;
+    }
+}
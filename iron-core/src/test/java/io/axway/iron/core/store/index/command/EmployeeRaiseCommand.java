@@ -0,0 +1,20 @@
+package io.axway.iron.core.store.index.command;
+
+import javax.annotation.*;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.core.store.index.model.Employee;
+
+public interface EmployeeRaiseCommand extends Command<Void> {
+
+    String name();
+
+    long salary();
+
+    @Override
+    default Void execute(@Nonnull ReadWriteTransaction tx) {
+        Employee employee = tx.select(Employee.class).where(Employee::name).equalsTo(name());
+        tx.update(employee).set(Employee::salary).to(salary()).done();
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package io.axway.iron.core.store.index.model;
+
+import javax.annotation.*;
+import io.axway.iron.description.Entity;
+import io.axway.iron.description.Indexed;
+import io.axway.iron.description.Unique;
+
+@Entity
+public interface Employee {
+    @Unique
+    String name();
+
+    @Indexed
+    String city();
+
+    @Indexed
+    @Nullable
+    String team();
+
+    @Indexed(sorted = true)
+    long salary();
+
+    @Nullable
+    String phone();
+}
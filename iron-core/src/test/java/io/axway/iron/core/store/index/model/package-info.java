@@ -0,0 +1,4 @@
+@ParametersAreNonnullByDefault
+package io.axway.iron.core.store.index.model;
+
+import javax.annotation.*;
@@ -0,0 +1,23 @@
+package io.axway.iron.core.store.relation;
+
+import io.axway.iron.core.InstanceBackend;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.AbstractStoreTests;
+
+public class RelationGeneratedClassTests extends AbstractStoreTests {
+
+    public RelationGeneratedClassTests() {
+        super( //
+               new ShouldDeleteRelationTailTest(), //
+               new ShouldUpdateSimpleRelationHeadTest(), //
+               new ShouldRollbackRelationTest(), //
+               new ShouldUpdateCollectionRelationTest(), //
+               new ShouldNavigateRelationWhileUpdatingTest() //
+        );
+    }
+
+    @Override
+    protected void configure(StoreManagerBuilder builder) {
+        builder.withEntityBackend(InstanceBackend.GENERATED_CLASS).withCommandBackend(InstanceBackend.GENERATED_CLASS);
+    }
+}
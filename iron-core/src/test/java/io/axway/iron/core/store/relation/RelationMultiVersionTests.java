@@ -0,0 +1,22 @@
+package io.axway.iron.core.store.relation;
+
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.AbstractStoreTests;
+
+public class RelationMultiVersionTests extends AbstractStoreTests {
+
+    public RelationMultiVersionTests() {
+        super( //
+               new ShouldDeleteRelationTailTest(), //
+               new ShouldUpdateSimpleRelationHeadTest(), //
+               new ShouldRollbackRelationTest(), //
+               new ShouldUpdateCollectionRelationTest(), //
+               new ShouldNavigateRelationWhileUpdatingTest() //
+        );
+    }
+
+    @Override
+    protected void configure(StoreManagerBuilder builder) {
+        builder.withMultiVersionQueries(true);
+    }
+}
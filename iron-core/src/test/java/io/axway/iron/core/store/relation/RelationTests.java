@@ -8,7 +8,9 @@ public class RelationTests extends AbstractStoreTests {
         super( //
                new ShouldDeleteRelationTailTest(), //
                new ShouldUpdateSimpleRelationHeadTest(), //
-               new ShouldRollbackRelationTest() //
+               new ShouldRollbackRelationTest(), //
+               new ShouldUpdateCollectionRelationTest(), //
+               new ShouldNavigateRelationWhileUpdatingTest() //
         );
     }
 }
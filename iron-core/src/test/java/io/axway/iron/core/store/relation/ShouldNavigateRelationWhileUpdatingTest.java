@@ -0,0 +1,68 @@
+package io.axway.iron.core.store.relation;
+
+import java.util.*;
+import javax.annotation.*;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.ReadonlyTransaction;
+import io.axway.iron.Store;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.SucceedingStoreTest;
+import io.axway.iron.core.store.relation.model.Car;
+import io.axway.iron.core.store.relation.model.Person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShouldNavigateRelationWhileUpdatingTest extends AbstractRelationTest implements SucceedingStoreTest {
+    @Override
+    public void configure(StoreManagerBuilder builder) throws Exception {
+        super.configure(builder);
+        builder.withCommandClass(PersonRevokeAuthorizationsCommand.class);
+    }
+
+    @Override
+    public void execute(Store store) throws Exception {
+        Integer revokedCount = store.createCommand(PersonRevokeAuthorizationsCommand.class) //
+                .set(PersonRevokeAuthorizationsCommand::name).to("anna") //
+                .submit().get();
+        assertThat(revokedCount).isEqualTo(2);
+    }
+
+    @Override
+    public void verify(ReadonlyTransaction tx) {
+        Person john = tx.select(Person.class).where(Person::name).equalsTo("john");
+        Person marie = tx.select(Person.class).where(Person::name).equalsTo("marie");
+        Person anna = tx.select(Person.class).where(Person::name).equalsTo("anna");
+
+        Car abc = tx.select(Car.class).where(Car::plateNumber).equalsTo("ABC");
+        Car xyz = tx.select(Car.class).where(Car::plateNumber).equalsTo("XYZ");
+        Car c123 = tx.select(Car.class).where(Car::plateNumber).equalsTo("123");
+
+        assertThat(anna.authorizedCars()).isEmpty();
+        assertThat(xyz.authorizedDrivers()).hasSize(2).contains(john, marie).doesNotContain(anna);
+        assertThat(c123.authorizedDrivers()).containsExactly(marie);
+
+        Collection<Car> marieCars = marie.authorizedCars();
+        assertThat(marieCars).hasSize(3).contains(abc, xyz, c123);
+        assertThat(marieCars.contains(john)).isFalse();
+        assertThat(marieCars.contains(null)).isFalse();
+        assertThat(john.ownedCars()).containsExactly(xyz);
+    }
+
+    public interface PersonRevokeAuthorizationsCommand extends Command<Integer> {
+        String name();
+
+        @Override
+        default Integer execute(@Nonnull ReadWriteTransaction tx) {
+            Person person = tx.select(Person.class).where(Person::name).equalsTo(name());
+            Collection<Car> authorizedCars = person.authorizedCars();
+            int revokedCount = 0;
+            // each update removes the car from the reverse relation that is being iterated
+            for (Car car : authorizedCars) {
+                tx.update(car).onCollection(Car::authorizedDrivers).remove(person).done();
+                revokedCount++;
+            }
+            return revokedCount == authorizedCars.size() ? revokedCount : -1;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package io.axway.iron.core.store.relation;
+
+import java.util.*;
+import io.axway.iron.ReadonlyTransaction;
+import io.axway.iron.Store;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.store.SucceedingStoreTest;
+import io.axway.iron.core.store.relation.command.CarUpdateAuthorizedDriversCommand;
+import io.axway.iron.core.store.relation.model.Car;
+import io.axway.iron.core.store.relation.model.Person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShouldUpdateCollectionRelationTest extends AbstractRelationTest implements SucceedingStoreTest {
+    @Override
+    public void configure(StoreManagerBuilder builder) throws Exception {
+        super.configure(builder);
+        builder.withCommandClass(CarUpdateAuthorizedDriversCommand.class);
+    }
+
+    @Override
+    public void execute(Store store) throws Exception {
+        store.createCommand(CarUpdateAuthorizedDriversCommand.class) //
+                .set(CarUpdateAuthorizedDriversCommand::plateNumber).to("ABC") //
+                .set(CarUpdateAuthorizedDriversCommand::addedDrivers).to(List.of("george", "anna")) //
+                .set(CarUpdateAuthorizedDriversCommand::removedDrivers).to(List.of("marie")) //
+                .submit().get();
+    }
+
+    @Override
+    public void verify(ReadonlyTransaction tx) {
+        Person marie = tx.select(Person.class).where(Person::name).equalsTo("marie");
+        Person george = tx.select(Person.class).where(Person::name).equalsTo("george");
+        Person anna = tx.select(Person.class).where(Person::name).equalsTo("anna");
+
+        Car abc = tx.select(Car.class).where(Car::plateNumber).equalsTo("ABC");
+        Car xyz = tx.select(Car.class).where(Car::plateNumber).equalsTo("XYZ");
+        Car c123 = tx.select(Car.class).where(Car::plateNumber).equalsTo("123");
+        assertThat(abc.authorizedDrivers()).containsExactlyInAnyOrder(george, anna);
+
+        assertThat(marie.authorizedCars()).containsExactlyInAnyOrder(xyz, c123);
+        assertThat(george.authorizedCars()).containsExactly(abc);
+        assertThat(anna.authorizedCars()).containsExactlyInAnyOrder(xyz, c123, abc);
+    }
+}
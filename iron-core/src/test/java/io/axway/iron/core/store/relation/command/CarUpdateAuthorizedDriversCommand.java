@@ -0,0 +1,27 @@
+package io.axway.iron.core.store.relation.command;
+
+import java.util.*;
+import javax.annotation.*;
+import io.axway.iron.Command;
+import io.axway.iron.ReadWriteTransaction;
+import io.axway.iron.core.store.relation.model.Car;
+import io.axway.iron.core.store.relation.model.Person;
+
+public interface CarUpdateAuthorizedDriversCommand extends Command<Void> {
+    String plateNumber();
+
+    Collection<String> addedDrivers();
+
+    Collection<String> removedDrivers();
+
+    @Override
+    default Void execute(@Nonnull ReadWriteTransaction tx) {
+        Car car = tx.select(Car.class).where(Car::plateNumber).equalsTo(plateNumber());
+        Collection<Person> addedDrivers = tx.select(Person.class).where(Person::name).allContainedIn(addedDrivers());
+        Collection<Person> removedDrivers = tx.select(Person.class).where(Person::name).allContainedIn(removedDrivers());
+
+        tx.update(car).onCollection(Car::authorizedDrivers).addAll(addedDrivers).removeAll(removedDrivers).done();
+
+        return null;
+    }
+}
@@ -1,5 +1,6 @@
 package io.axway.iron.core;
 
+import java.time.Duration;
 import java.util.function.*;
 import io.axway.iron.Command;
 import io.axway.iron.StoreManager;
@@ -63,6 +64,41 @@ public class FakeStoreManagerBuilderImpl implements StoreManagerBuilder {
         return this;
     }
 
+    @Override
+    public StoreManagerBuilder withGroupCommit(int maxBatchSize, Duration maxLatency) {
+        return null; // not implement here
+    }
+
+    @Override
+    public StoreManagerBuilder withParallelStoreExecution(int threadCount) {
+        return null; // not implement here
+    }
+
+    @Override
+    public StoreManagerBuilder withParallelRecovery(int threadCount) {
+        return null; // not implement here
+    }
+
+    @Override
+    public StoreManagerBuilder withEntityBackend(InstanceBackend entityBackend) {
+        return null; // not implement here
+    }
+
+    @Override
+    public StoreManagerBuilder withCommandBackend(InstanceBackend commandBackend) {
+        return null; // not implement here
+    }
+
+    @Override
+    public StoreManagerBuilder withMultiVersionQueries(boolean multiVersionQueries) {
+        return null; // not implement here
+    }
+
+    @Override
+    public StoreManagerBuilder withNonBlockingSnapshots(boolean nonBlockingSnapshots) {
+        return null; // not implement here
+    }
+
     @Override
     public StoreManager build() {
         return null; // not implement here
@@ -29,6 +29,8 @@ public class DynamicLoadingTest {
                 "files_configuration.properties", //
                 "kafka_configuration.properties", //
                 "jackson_configuration.properties", //
+                "jackson_binary_configuration.properties", //
+                "binary_configuration.properties", //
                 "chronicle_configuration.properties", //
         };
     }
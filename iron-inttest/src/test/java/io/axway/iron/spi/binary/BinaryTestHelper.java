@@ -0,0 +1,14 @@
+package io.axway.iron.spi.binary;
+
+import io.axway.iron.spi.serializer.SnapshotSerializer;
+import io.axway.iron.spi.serializer.TransactionSerializer;
+
+public class BinaryTestHelper {
+    public static TransactionSerializer buildBinaryTransactionSerializer() {
+        return new BinaryTransactionSerializerBuilder().get();
+    }
+
+    public static SnapshotSerializer buildBinarySnapshotSerializer() {
+        return new BinarySnapshotSerializerBuilder().get();
+    }
+}
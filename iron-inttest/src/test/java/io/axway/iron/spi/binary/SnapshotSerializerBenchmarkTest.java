@@ -0,0 +1,151 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.testng.annotations.Test;
+import io.axway.alf.log.Logger;
+import io.axway.alf.log.LoggerFactory;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.sample.command.CreateCompany;
+import io.axway.iron.sample.command.CreatePerson;
+import io.axway.iron.sample.command.PersonJoinCompany;
+import io.axway.iron.sample.model.Company;
+import io.axway.iron.sample.model.Person;
+import io.axway.iron.spi.serializer.SnapshotSerializer;
+import io.axway.iron.spi.serializer.TransactionSerializer;
+
+import static io.axway.iron.spi.binary.BinaryTestHelper.buildBinarySnapshotSerializer;
+import static io.axway.iron.spi.file.FileTestHelper.*;
+import static io.axway.iron.spi.jackson.JacksonTestHelper.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compare the binary snapshot serializer with the JSON one on the sample model: the same store is snapshotted then recovered with both serializers.<br>
+ * The number of persons can be raised with the {@code iron.benchmark.persons} system property to get meaningful durations.
+ */
+public class SnapshotSerializerBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotSerializerBenchmarkTest.class);
+    static final String STORE_NAME = "benchmark";
+    private static final int COMPANY_COUNT = 100;
+    static final int PERSON_COUNT = Integer.getInteger("iron.benchmark.persons", 10_000);
+    private static final int COMMANDS_PER_TRANSACTION = 1000;
+
+    static StoreManager createStoreManager(Path storeDir, TransactionSerializer transactionSerializer, SnapshotSerializer snapshotSerializer) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withTransactionSerializer(transactionSerializer) //
+                .withTransactionStore(buildFileTransactionStore(storeDir.resolve("transactions"), STORE_NAME)) //
+                .withSnapshotSerializer(snapshotSerializer) //
+                .withSnapshotStore(buildFileSnapshotStore(storeDir.resolve("snapshots"), STORE_NAME)) //
+                .withEntityClass(Company.class) //
+                .withEntityClass(Person.class) //
+                .withCommandClass(CreateCompany.class) //
+                .withCommandClass(CreatePerson.class) //
+                .withCommandClass(PersonJoinCompany.class) //
+                .build();
+    }
+
+    static void populate(Store store) throws Exception {
+        Store.TransactionBuilder tx = store.begin();
+        for (int i = 0; i < COMPANY_COUNT; i++) {
+            tx.addCommand(CreateCompany.class).set(CreateCompany::name).to("company" + i).set(CreateCompany::address).to("address" + i % 10).submit();
+        }
+        tx.submit().get(1, TimeUnit.MINUTES);
+
+        Random random = new Random(42);
+        tx = store.begin();
+        for (int i = 0; i < PERSON_COUNT; i++) {
+            String personId = "person" + i;
+            List<String> previousCompanyNames = IntStream.range(0, random.nextInt(4)).mapToObj(c -> "company" + random.nextInt(COMPANY_COUNT))
+                    .collect(Collectors.toList());
+            tx.addCommand(CreatePerson.class) //
+                    .set(CreatePerson::id).to(personId) //
+                    .set(CreatePerson::name).to("name" + random.nextInt(PERSON_COUNT / 10)) //
+                    .set(CreatePerson::birthDate).to(new Date(1_000_000_000_000L + random.nextInt(Integer.MAX_VALUE) * 100L)) //
+                    .set(CreatePerson::previousCompanyNames).to(previousCompanyNames) //
+                    .submit();
+            if (random.nextInt(10) < 8) {
+                tx.addCommand(PersonJoinCompany.class) //
+                        .set(PersonJoinCompany::personId).to(personId) //
+                        .set(PersonJoinCompany::companyName).to("company" + random.nextInt(COMPANY_COUNT)) //
+                        .set(PersonJoinCompany::salary).to(random.nextInt(100_000) * 1.0) //
+                        .submit();
+            }
+            if ((i + 1) % COMMANDS_PER_TRANSACTION == 0) {
+                tx.submit().get(1, TimeUnit.MINUTES);
+                tx = store.begin();
+            }
+        }
+        tx.submit().get(1, TimeUnit.MINUTES);
+    }
+
+    static List<Object> summarize(Store store) {
+        return store.query(tx -> {
+            Collection<Person> persons = tx.select(Person.class).all();
+            Company company = tx.select(Company.class).where(Company::name).equalsTo("company0");
+            return List.of(persons.size(), //
+                           persons.stream().mapToInt(person -> person.previousCompanies().size()).sum(), //
+                           persons.stream().map(Person::salary).filter(Objects::nonNull).mapToDouble(Double::doubleValue).sum(), //
+                           persons.stream().map(Person::birthDate).mapToLong(Date::getTime).sum(), //
+                           company.employees().stream().map(Person::id).sorted().collect(Collectors.toList()), //
+                           company.previousEmployees().size());
+        });
+    }
+
+    static long size(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static Result benchmark(String serializerName, SnapshotSerializer snapshotSerializer) throws Exception {
+        Path storeDir = Files.createTempDirectory("iron-snapshot-benchmark");
+        long snapshotDuration;
+        try (StoreManager storeManager = createStoreManager(storeDir, buildJacksonTransactionSerializer(), snapshotSerializer)) {
+            populate(storeManager.getStore(STORE_NAME));
+            long start = System.nanoTime();
+            storeManager.snapshot();
+            snapshotDuration = System.nanoTime() - start;
+        }
+
+        long start = System.nanoTime();
+        try (StoreManager storeManager = createStoreManager(storeDir, buildJacksonTransactionSerializer(), snapshotSerializer)) {
+            long recoveryDuration = System.nanoTime() - start;
+            Result result = new Result(size(storeDir.resolve("snapshots")), snapshotDuration, recoveryDuration,
+                                       summarize(storeManager.getStore(STORE_NAME)));
+            LOG.info("Snapshot serializer benchmark", args -> args.add("serializer", serializerName).add("persons", PERSON_COUNT) //
+                    .add("snapshotSize", result.m_snapshotSize) //
+                    .add("snapshotMs", TimeUnit.NANOSECONDS.toMillis(result.m_snapshotDuration)) //
+                    .add("recoveryMs", TimeUnit.NANOSECONDS.toMillis(result.m_recoveryDuration)));
+            return result;
+        }
+    }
+
+    @Test
+    public void shouldWriteSmallerSnapshotsThanTheJsonSerializer() throws Exception {
+        Result json = benchmark("json", buildJacksonSnapshotSerializer());
+        Result binary = benchmark("binary", buildBinarySnapshotSerializer());
+
+        assertThat(binary.m_summary).isEqualTo(json.m_summary);
+        assertThat(binary.m_snapshotSize).isLessThan(json.m_snapshotSize / 2);
+    }
+
+    private static final class Result {
+        private final long m_snapshotSize;
+        private final long m_snapshotDuration;
+        private final long m_recoveryDuration;
+        private final List<Object> m_summary;
+
+        private Result(long snapshotSize, long snapshotDuration, long recoveryDuration, List<Object> summary) {
+            m_snapshotSize = snapshotSize;
+            m_snapshotDuration = snapshotDuration;
+            m_recoveryDuration = recoveryDuration;
+            m_summary = summary;
+        }
+    }
+}
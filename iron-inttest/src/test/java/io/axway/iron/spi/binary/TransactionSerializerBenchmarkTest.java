@@ -0,0 +1,65 @@
+package io.axway.iron.spi.binary;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import org.testng.annotations.Test;
+import io.axway.alf.log.Logger;
+import io.axway.alf.log.LoggerFactory;
+import io.axway.iron.StoreManager;
+import io.axway.iron.spi.serializer.TransactionSerializer;
+
+import static io.axway.iron.spi.binary.BinaryTestHelper.buildBinaryTransactionSerializer;
+import static io.axway.iron.spi.binary.SnapshotSerializerBenchmarkTest.*;
+import static io.axway.iron.spi.jackson.JacksonTestHelper.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compare the binary transaction serializer with the JSON one on the sample model of {@link SnapshotSerializerBenchmarkTest}: the same transactions are
+ * written then replayed with both serializers. The replay duration includes the idle delay the store manager waits for before considering the replay
+ * is done.
+ */
+public class TransactionSerializerBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionSerializerBenchmarkTest.class);
+
+    private static Result benchmark(String serializerName, TransactionSerializer transactionSerializer) throws Exception {
+        Path storeDir = Files.createTempDirectory("iron-transaction-benchmark");
+        long populateDuration;
+        try (StoreManager storeManager = createStoreManager(storeDir, transactionSerializer, buildJacksonSnapshotSerializer())) {
+            long start = System.nanoTime();
+            populate(storeManager.getStore(STORE_NAME));
+            populateDuration = System.nanoTime() - start;
+        }
+
+        long start = System.nanoTime();
+        try (StoreManager storeManager = createStoreManager(storeDir, transactionSerializer, buildJacksonSnapshotSerializer())) {
+            long replayDuration = System.nanoTime() - start;
+            Result result = new Result(size(storeDir.resolve("transactions")), summarize(storeManager.getStore(STORE_NAME)));
+            LOG.info("Transaction serializer benchmark", args -> args.add("serializer", serializerName).add("persons", PERSON_COUNT) //
+                    .add("transactionsSize", result.m_transactionsSize) //
+                    .add("populateMs", TimeUnit.NANOSECONDS.toMillis(populateDuration)) //
+                    .add("replayMs", TimeUnit.NANOSECONDS.toMillis(replayDuration)));
+            return result;
+        }
+    }
+
+    @Test
+    public void shouldWriteSmallerTransactionsThanTheJsonSerializer() throws Exception {
+        Result json = benchmark("json", buildJacksonTransactionSerializer());
+        Result binary = benchmark("binary", buildBinaryTransactionSerializer());
+
+        assertThat(binary.m_summary).isEqualTo(json.m_summary);
+        assertThat(binary.m_transactionsSize).isLessThan(json.m_transactionsSize / 2);
+    }
+
+    private static final class Result {
+        private final long m_transactionsSize;
+        private final List<Object> m_summary;
+
+        private Result(long transactionsSize, List<Object> summary) {
+            m_transactionsSize = transactionsSize;
+            m_summary = summary;
+        }
+    }
+}
@@ -7,6 +7,8 @@ import java.nio.file.Paths;
 import java.util.*;
 import io.axway.iron.core.spi.file.FileSnapshotStoreBuilder;
 import io.axway.iron.core.spi.file.FileTransactionStoreBuilder;
+import io.axway.iron.core.spi.file.FileTransactionStoreDurability;
+import io.axway.iron.core.spi.file.FileTransactionStoreLayout;
 import io.axway.iron.spi.aws.LayoutMigrationV2ToV3IT;
 import io.axway.iron.spi.storage.SnapshotStore;
 import io.axway.iron.spi.storage.TransactionStore;
@@ -32,6 +34,15 @@ public class FileTestHelper {
         return new FileTransactionStoreBuilder(name).setDir(filePath).setTransactionIdPaddingLength(transactionIdPaddingLength).get();
     }
 
+    public static TransactionStore buildSegmentedFileTransactionStore(Path filePath, String name, long segmentSize) {
+        return new FileTransactionStoreBuilder(name).setDir(filePath).setLayout(FileTransactionStoreLayout.SEGMENTED).setSegmentSize(segmentSize).get();
+    }
+
+    public static TransactionStore buildFileTransactionStore(Path filePath, String name, FileTransactionStoreLayout layout,
+                                                             FileTransactionStoreDurability durability) {
+        return new FileTransactionStoreBuilder(name).setDir(filePath).setLayout(layout).setDurability(durability).get();
+    }
+
     public static List<String> getResourceFileAsString(Class clazz, String fileName) {
         try (InputStream is = clazz.getClassLoader().getResourceAsStream(fileName)) {
             if (is != null) {
@@ -0,0 +1,102 @@
+package io.axway.iron.spi.file;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.spi.file.FileTransactionStore;
+import io.axway.iron.core.spi.file.FileTransactionStoreDurability;
+import io.axway.iron.core.spi.file.FileTransactionStoreLayout;
+import io.axway.iron.core.spi.file.SegmentedFileTransactionStore;
+import io.axway.iron.core.spi.file.TransactionSyncStatistics;
+import io.axway.iron.sample.command.CreateCompany;
+import io.axway.iron.sample.model.Company;
+import io.axway.iron.sample.model.Person;
+import io.axway.iron.spi.storage.TransactionStore;
+
+import static io.axway.iron.core.spi.file.FileTransactionStoreDurability.*;
+import static io.axway.iron.core.spi.file.FileTransactionStoreLayout.*;
+import static io.axway.iron.spi.file.FileTestHelper.*;
+import static io.axway.iron.spi.jackson.JacksonTestHelper.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileTransactionStoreDurabilityTest {
+
+    @DataProvider
+    public Object[][] durabilities() {
+        return new Object[][]{ //
+                {FILE_PER_TRANSACTION, NONE}, //
+                {FILE_PER_TRANSACTION, PER_TRANSACTION}, //
+                {FILE_PER_TRANSACTION, GROUP}, //
+                {SEGMENTED, NONE}, //
+                {SEGMENTED, PER_TRANSACTION}, //
+                {SEGMENTED, GROUP}, //
+        };
+    }
+
+    @Test(dataProvider = "durabilities")
+    public void shouldExecuteTheTransactionsOnceTheyAreDurable(FileTransactionStoreLayout layout, FileTransactionStoreDurability durability)
+            throws Exception {
+        Path filePath = Paths.get("tmp-iron-test", "iron-spi-file-inttest");
+        String directory = "durability-" + UUID.randomUUID();
+        int transactionCount = 50;
+
+        TransactionStore transactionStore = buildFileTransactionStore(filePath, directory, layout, durability);
+        try (StoreManager storeManager = createStoreManager(filePath, directory, transactionStore)) {
+            Store store = storeManager.getStore("store");
+            List<Future<Long>> futures = IntStream.range(0, transactionCount)
+                    .mapToObj(i -> store.createCommand(CreateCompany.class).set(CreateCompany::name).to("company" + i).submit())
+                    .collect(Collectors.toList());
+            for (Future<Long> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+
+            TransactionSyncStatistics statistics = getSyncStatistics(transactionStore);
+            switch (durability) {
+                case NONE:
+                    assertThat(statistics.getSyncCount()).isZero();
+                    break;
+                case PER_TRANSACTION:
+                    // each submitted transaction is synchronized on its own
+                    assertThat(statistics.getSyncCount()).isEqualTo(transactionCount);
+                    assertThat(statistics.getSyncedTransactionCount()).isEqualTo(transactionCount);
+                    break;
+                case GROUP:
+                    assertThat(statistics.getSyncedTransactionCount()).isEqualTo(transactionCount);
+                    assertThat(statistics.getSyncCount()).isBetween(1L, (long) transactionCount);
+                    break;
+            }
+            assertThat(statistics.getMaxSyncTime()).isGreaterThanOrEqualTo(statistics.getMeanSyncTime());
+        }
+
+        try (StoreManager storeManager = createStoreManager(filePath, directory, buildFileTransactionStore(filePath, directory, layout, durability))) {
+            int companyCount = storeManager.getStore("store").query(tx -> {
+                return tx.select(Company.class).all().size();
+            });
+            assertThat(companyCount).isEqualTo(transactionCount);
+        }
+    }
+
+    private static TransactionSyncStatistics getSyncStatistics(TransactionStore transactionStore) {
+        return transactionStore instanceof SegmentedFileTransactionStore ? ((SegmentedFileTransactionStore) transactionStore).getSyncStatistics() :
+                ((FileTransactionStore) transactionStore).getSyncStatistics();
+    }
+
+    private static StoreManager createStoreManager(Path filePath, String directory, TransactionStore transactionStore) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withTransactionStore(transactionStore) //
+                .withSnapshotSerializer(buildJacksonSnapshotSerializer()) //
+                .withSnapshotStore(buildFileSnapshotStore(filePath, directory)) //
+                .withEntityClass(Company.class) //
+                .withEntityClass(Person.class) //
+                .withCommandClass(CreateCompany.class) //
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package io.axway.iron.spi.file;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import org.testng.annotations.Test;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.sample.command.CreateCompany;
+import io.axway.iron.sample.model.Company;
+import io.axway.iron.sample.model.Person;
+
+import static io.axway.iron.spi.file.FileTestHelper.*;
+import static io.axway.iron.spi.jackson.JacksonTestHelper.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileTransactionStoreManifestTest {
+    private static final String STORE_NAME = "store";
+
+    private static StoreManager createStoreManager(Path filePath, String directory) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withTransactionStore(buildFileTransactionStore(filePath, directory)) //
+                .withSnapshotSerializer(buildJacksonSnapshotSerializer()) //
+                .withSnapshotStore(buildFileSnapshotStore(filePath, directory)) //
+                .withEntityClass(Company.class) //
+                .withEntityClass(Person.class) //
+                .withCommandClass(CreateCompany.class) //
+                .build();
+    }
+
+    private static void createCompanies(StoreManager storeManager, int from, int to) throws Exception {
+        Store store = storeManager.getStore(STORE_NAME);
+        for (int i = from; i < to; i++) {
+            store.createCommand(CreateCompany.class).set(CreateCompany::name).to("company" + i).submit().get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static int companyCount(StoreManager storeManager) {
+        return storeManager.getStore(STORE_NAME).query(tx -> {
+            return tx.select(Company.class).all().size();
+        });
+    }
+
+    @Test
+    public void shouldOpenTheStoreFromItsManifest() throws Exception {
+        Path filePath = Paths.get("tmp-iron-test", "iron-spi-file-inttest");
+        String directory = "manifest-" + UUID.randomUUID();
+        Path transactionDir = filePath.resolve(directory).resolve("tx");
+
+        try (StoreManager storeManager = createStoreManager(filePath, directory)) {
+            createCompanies(storeManager, 0, 10);
+            storeManager.snapshot();
+            createCompanies(storeManager, 10, 15);
+        }
+        assertThat(transactionDir.resolve("manifest.checkpoint")).exists();
+
+        try (StoreManager storeManager = createStoreManager(filePath, directory)) {
+            // the checkpoint is consumed while the store is opened
+            assertThat(transactionDir.resolve("manifest.checkpoint")).doesNotExist();
+            assertThat(companyCount(storeManager)).isEqualTo(15);
+            // only the transactions after the snapshot are retained in the manifest
+            assertThat(Files.readAllLines(transactionDir.resolve("manifest.log"))).hasSize(5);
+            createCompanies(storeManager, 15, 20);
+        }
+
+        try (StoreManager storeManager = createStoreManager(filePath, directory)) {
+            assertThat(companyCount(storeManager)).isEqualTo(20);
+            assertThat(Files.readAllLines(transactionDir.resolve("manifest.log"))).hasSize(10);
+        }
+    }
+
+    @Test
+    public void shouldListTheTransactionDirectoryWhenTheStoreHasNotBeenClosed() throws Exception {
+        Path filePath = Paths.get("tmp-iron-test", "iron-spi-file-inttest");
+        String directory = "manifest-" + UUID.randomUUID();
+        Path transactionDir = filePath.resolve(directory).resolve("tx");
+
+        try (StoreManager storeManager = createStoreManager(filePath, directory)) {
+            createCompanies(storeManager, 0, 10);
+        }
+        // as if the store had crashed after having committed the transactions of the journal that are lacking
+        Files.delete(transactionDir.resolve("manifest.checkpoint"));
+        Files.write(transactionDir.resolve("manifest.log"), List.of());
+
+        try (StoreManager storeManager = createStoreManager(filePath, directory)) {
+            assertThat(companyCount(storeManager)).isEqualTo(10);
+            createCompanies(storeManager, 10, 12);
+        }
+
+        try (StoreManager storeManager = createStoreManager(filePath, directory)) {
+            assertThat(companyCount(storeManager)).isEqualTo(12);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.axway.iron.spi.file;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.testng.annotations.Test;
+import io.axway.iron.Store;
+import io.axway.iron.StoreManager;
+import io.axway.iron.core.StoreManagerBuilder;
+import io.axway.iron.core.spi.file.FileTransactionStoreConverter;
+import io.axway.iron.sample.command.CreateCompany;
+import io.axway.iron.sample.model.Company;
+import io.axway.iron.sample.model.Person;
+import io.axway.iron.spi.SpiTestHelper;
+import io.axway.iron.spi.storage.TransactionStore;
+
+import static io.axway.iron.spi.file.FileTestHelper.*;
+import static io.axway.iron.spi.jackson.JacksonTestHelper.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SegmentedFileTransactionStoreTest {
+    private static final String STORE_NAME = "store";
+    private static final long SEGMENT_SIZE = 1024;
+
+    private static StoreManager createStoreManager(Path filePath, String directory, TransactionStore transactionStore) {
+        return StoreManagerBuilder.newStoreManagerBuilder() //
+                .withTransactionSerializer(buildJacksonTransactionSerializer()) //
+                .withTransactionStore(transactionStore) //
+                .withSnapshotSerializer(buildJacksonSnapshotSerializer()) //
+                .withSnapshotStore(buildFileSnapshotStore(filePath, directory)) //
+                .withEntityClass(Company.class) //
+                .withEntityClass(Person.class) //
+                .withCommandClass(CreateCompany.class) //
+                .build();
+    }
+
+    private static StoreManager createSegmentedStoreManager(Path filePath, String directory) {
+        return createStoreManager(filePath, directory, buildSegmentedFileTransactionStore(filePath, directory, SEGMENT_SIZE));
+    }
+
+    private static void createCompanies(StoreManager storeManager, int from, int to) throws Exception {
+        Store store = storeManager.getStore(STORE_NAME);
+        for (int i = from; i < to; i++) {
+            store.createCommand(CreateCompany.class).set(CreateCompany::name).to("company" + i).set(CreateCompany::address).to("address" + i).submit()
+                    .get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static List<String> companyNames(StoreManager storeManager) {
+        return storeManager.getStore(STORE_NAME).query(tx -> {
+            return tx.select(Company.class).all().stream().map(Company::name).sorted(Comparator.comparingInt(name -> Integer.parseInt(name.substring(7))))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private static List<String> expectedCompanyNames(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "company" + i).collect(Collectors.toList());
+    }
+
+    private static List<Path> segmentFiles(Path filePath, String directory) throws Exception {
+        try (Stream<Path> files = Files.list(filePath.resolve(directory).resolve("txlog"))) {
+            return files.filter(file -> file.toString().endsWith(".segment")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void shouldCreateCompanySequenceBeRight() throws Exception {
+        Path filePath = Paths.get("tmp-iron-test", "iron-spi-file-inttest");
+        String directory = "segmented-" + UUID.randomUUID();
+
+        SpiTestHelper.checkThatCreateCompanySequenceIsRight(() -> buildSegmentedFileTransactionStore(filePath, directory, SEGMENT_SIZE),
+                                                            buildJacksonTransactionSerializer(), () -> buildFileSnapshotStore(filePath, directory),
+                                                            buildJacksonSnapshotSerializer(), "iron-store-" + UUID.randomUUID());
+        assertThat(segmentFiles(filePath, directory).size()).isGreaterThan(1);
+    }
+
+    @Test
+    public void shouldReplayTheTransactionsOfAllTheSegments() throws Exception {
+        Path filePath = Paths.get("tmp-iron-test", "iron-spi-file-inttest");
+        String directory = "segmented-" + UUID.randomUUID();
+
+        try (StoreManager storeManager = createSegmentedStoreManager(filePath, directory)) {
+            createCompanies(storeManager, 0, 50);
+        }
+        assertThat(segmentFiles(filePath, directory).size()).isGreaterThan(3);
+
+        try (StoreManager storeManager = createSegmentedStoreManager(filePath, directory)) {
+            assertThat(companyNames(storeManager)).isEqualTo(expectedCompanyNames(50));
+            // the replay starts after the snapshot
+            storeManager.snapshot();
+            createCompanies(storeManager, 50, 60);
+        }
+
+        try (StoreManager storeManager = createSegmentedStoreManager(filePath, directory)) {
+            assertThat(companyNames(storeManager)).isEqualTo(expectedCompanyNames(60));
+        }
+    }
+
+    @Test
+    public void shouldReadTheTransactionsAppendedToAMappedSegment() throws Exception {
+        Path filePath = Paths.get("tmp-iron-test", "iron-spi-file-inttest");
+        String directory = "segmented-" + UUID.randomUUID();
+        long segmentSize = 1024 * 1024;
+
+        // all the transactions are in a single segment, the ones appended after it has been mapped are read beyond its mapping
+        try (StoreManager storeManager = createStoreManager(filePath, directory,
+                                                            buildSegmentedFileTransactionStore(filePath, directory, segmentSize))) {
+            createCompanies(storeManager, 0, 20);
+        }
+        try (StoreManager storeManager = createStoreManager(filePath, directory,
+                                                            buildSegmentedFileTransactionStore(filePath, directory, segmentSize))) {
+            assertThat(companyNames(storeManager)).isEqualTo(expectedCompanyNames(20));
+            createCompanies(storeManager, 20, 30);
+            assertThat(companyNames(storeManager)).isEqualTo(expectedCompanyNames(30));
+        }
+        assertThat(segmentFiles(filePath, directory)).hasSize(1);
+    }
+
+    @Test
+    public void shouldIgnoreAnIncompleteTransactionAtTheEndOfTheLog() throws Exception {
+        Path filePath = Paths.get("tmp-iron-test", "iron-spi-file-inttest");
+        String directory = "segmented-" + UUID.randomUUID();
+
+        try (StoreManager storeManager = createSegmentedStoreManager(filePath, directory)) {
+            createCompanies(storeManager, 0, 5);
+        }
+        List<Path> segmentFiles = segmentFiles(filePath, directory);
+        Files.write(segmentFiles.get(segmentFiles.size() - 1), new byte[]{0, 0, 1, 0, 42, 42}, StandardOpenOption.APPEND);
+
+        try (StoreManager storeManager = createSegmentedStoreManager(filePath, directory)) {
+            assertThat(companyNames(storeManager)).isEqualTo(expectedCompanyNames(5));
+            createCompanies(storeManager, 5, 6);
+        }
+
+        try (StoreManager storeManager = createSegmentedStoreManager(filePath, directory)) {
+            assertThat(companyNames(storeManager)).isEqualTo(expectedCompanyNames(6));
+        }
+    }
+
+    @Test
+    public void shouldConvertTheTransactionFiles() throws Exception {
+        Path filePath = Paths.get("tmp-iron-test", "iron-spi-file-inttest");
+        String directory = "segmented-" + UUID.randomUUID();
+
+        try (StoreManager storeManager = createStoreManager(filePath, directory, buildFileTransactionStore(filePath, directory))) {
+            createCompanies(storeManager, 0, 20);
+            storeManager.setReadonly(true);
+        }
+
+        // the readonly command is a transaction too
+        assertThat(FileTransactionStoreConverter.convert(filePath.resolve(directory), 20, SEGMENT_SIZE)).isEqualTo(21);
+
+        try (StoreManager storeManager = createSegmentedStoreManager(filePath, directory)) {
+            assertThat(companyNames(storeManager)).isEqualTo(expectedCompanyNames(20));
+            assertThat(storeManager.isReadonly()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package io.axway.iron.spi.jackson;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.util.*;
+import org.testng.annotations.Test;
+import io.axway.iron.core.FakeStoreManagerBuilderImpl;
+import io.axway.iron.core.internal.StoreManagerBuilderConfigurator;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.model.transaction.SerializableTransaction;
+
+import static io.axway.iron.spi.aws.BaseInttest.loadConfiguration;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JacksonFormatConfigurationTest {
+    private static final byte[] CBOR_HEADER = {(byte) 0xD9, (byte) 0xD9, (byte) 0xF7};
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+    @Test
+    public void shouldWriteTheConfiguredFormat() throws IOException {
+        FakeStoreManagerBuilderImpl storeManagerBuilder = new FakeStoreManagerBuilderImpl();
+        new StoreManagerBuilderConfigurator().fill(storeManagerBuilder, "test", loadConfiguration("jackson_binary_configuration.properties"));
+
+        SerializableTransaction transaction = new SerializableTransaction();
+        transaction.setTransactionModelVersion(SerializableTransaction.TRANSACTION_MODEL_VERSION);
+        transaction.setCommands(List.of());
+        ByteArrayOutputStream transactionOut = new ByteArrayOutputStream();
+        storeManagerBuilder.m_transactionSerializer.serializeTransaction(transactionOut, transaction);
+        assertThat(Arrays.copyOf(transactionOut.toByteArray(), CBOR_HEADER.length)).isEqualTo(CBOR_HEADER);
+
+        SerializableSnapshot snapshot = new SerializableSnapshot();
+        snapshot.setSnapshotModelVersion(SerializableSnapshot.SNAPSHOT_MODEL_VERSION);
+        snapshot.setTransactionId(BigInteger.TEN);
+        snapshot.setEntities(List.of());
+        ByteArrayOutputStream snapshotOut = new ByteArrayOutputStream();
+        storeManagerBuilder.m_snapshotSerializer.serializeSnapshot(snapshotOut, snapshot);
+        assertThat(Arrays.copyOf(snapshotOut.toByteArray(), SMILE_HEADER.length)).isEqualTo(SMILE_HEADER);
+
+        // the JSON serializer reads the formats of the configured ones
+        assertThat(new JacksonSerializer().deserializeTransaction(new ByteArrayInputStream(transactionOut.toByteArray())))
+                .isEqualToComparingFieldByField(transaction);
+        assertThat(new JacksonSerializer().deserializeSnapshot("test", new ByteArrayInputStream(snapshotOut.toByteArray())))
+                .isEqualToComparingFieldByField(snapshot);
+    }
+}
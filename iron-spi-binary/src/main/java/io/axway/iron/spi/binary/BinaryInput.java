@@ -0,0 +1,135 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.math.BigInteger;
+import javax.annotation.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Buffered input of the primitive encodings written by {@link BinaryOutput}.
+ */
+final class BinaryInput {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream m_in;
+    private final byte[] m_buffer;
+    private int m_position;
+    private int m_limit;
+
+    BinaryInput(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    BinaryInput(InputStream in, int bufferSize) {
+        m_in = in;
+        m_buffer = new byte[bufferSize];
+    }
+
+    /**
+     * @return the next byte, or {@code -1} at the end of the stream
+     */
+    int readOptionalByte() throws IOException {
+        if (m_position == m_limit && !fillBuffer()) {
+            return -1;
+        }
+        return m_buffer[m_position++] & 0xFF;
+    }
+
+    int readByte() throws IOException {
+        int value = readOptionalByte();
+        if (value < 0) {
+            throw new EOFException("Unexpected end of binary snapshot");
+        }
+        return value;
+    }
+
+    byte[] readBytes(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (m_position == m_limit && !fillBuffer()) {
+                throw new EOFException("Unexpected end of binary snapshot");
+            }
+            int count = Math.min(length - offset, m_limit - m_position);
+            System.arraycopy(m_buffer, m_position, bytes, offset, count);
+            m_position += count;
+            offset += count;
+        }
+        return bytes;
+    }
+
+    boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length integer in binary snapshot");
+    }
+
+    long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Read a length or a count, that must fit in an {@code int}.
+     */
+    int readCount() throws IOException {
+        long count = readVarLong();
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("Invalid count in binary snapshot: " + count);
+        }
+        return (int) count;
+    }
+
+    int readFixedShort() throws IOException {
+        return (readByte() << 8) | readByte();
+    }
+
+    int readFixedInt() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    long readFixedLong() throws IOException {
+        return ((long) readFixedInt() << 32) | (readFixedInt() & 0xFFFFFFFFL);
+    }
+
+    String readString() throws IOException {
+        int length = readCount();
+        if (length <= m_limit - m_position) {
+            String value = new String(m_buffer, m_position, length, UTF_8);
+            m_position += length;
+            return value;
+        }
+        return new String(readBytes(length), UTF_8);
+    }
+
+    @Nullable
+    BigInteger readBigInteger() throws IOException {
+        int length = readCount();
+        return length != 0 ? new BigInteger(readBytes(length)) : null;
+    }
+
+    private boolean fillBuffer() throws IOException {
+        int count = m_in.read(m_buffer, 0, m_buffer.length);
+        if (count <= 0) {
+            return false;
+        }
+        m_position = 0;
+        m_limit = count;
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.math.BigInteger;
+import javax.annotation.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Buffered output of the primitive encodings of the binary format. Integers are written as variable length integers, using the zig-zag encoding for
+ * the signed ones so small negative values stay small.<br>
+ * The underlying stream is flushed but not closed.
+ */
+final class BinaryOutput implements Flushable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream m_out;
+    private final byte[] m_buffer;
+    private int m_position;
+
+    BinaryOutput(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    BinaryOutput(OutputStream out, int bufferSize) {
+        m_out = out;
+        m_buffer = new byte[bufferSize];
+    }
+
+    void writeByte(int value) throws IOException {
+        if (m_position == m_buffer.length) {
+            flushBuffer();
+        }
+        m_buffer[m_position++] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > m_buffer.length - m_position) {
+            flushBuffer();
+            if (bytes.length > m_buffer.length) {
+                m_out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, m_buffer, m_position, bytes.length);
+        m_position += bytes.length;
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Write an unsigned variable length integer, 7 bits per byte.
+     */
+    void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    /**
+     * Write a signed variable length integer.
+     */
+    void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeFixedShort(int value) throws IOException {
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    void writeFixedInt(int value) throws IOException {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            writeByte(value >>> shift);
+        }
+    }
+
+    void writeFixedLong(long value) throws IOException {
+        writeFixedInt((int) (value >>> 32));
+        writeFixedInt((int) value);
+    }
+
+    void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarLong(bytes.length);
+        writeBytes(bytes);
+    }
+
+    void writeBigInteger(@Nullable BigInteger value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+        } else {
+            byte[] bytes = value.toByteArray();
+            writeVarLong(bytes.length);
+            writeBytes(bytes);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        m_out.write(m_buffer, 0, m_position);
+        m_position = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        m_out.flush();
+    }
+}
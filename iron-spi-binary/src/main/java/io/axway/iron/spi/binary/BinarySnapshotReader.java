@@ -0,0 +1,194 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.util.*;
+import javax.annotation.*;
+import io.axway.iron.spi.model.snapshot.SerializableAttributeDefinition;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableInstance;
+import io.axway.iron.spi.model.snapshot.SerializableRelationCardinality;
+import io.axway.iron.spi.model.snapshot.SerializableRelationDefinition;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.serializer.SnapshotHandler;
+
+import static io.axway.iron.spi.binary.BinarySnapshotSerializer.*;
+
+/**
+ * Read a snapshot in the binary format described in {@link BinarySnapshotSerializer}, and stream it to a {@link SnapshotHandler} block by block.
+ */
+final class BinarySnapshotReader {
+    private static final Object PRESENT = new Object();
+    private static final SerializableRelationCardinality[] CARDINALITIES = SerializableRelationCardinality.values();
+
+    private final BinaryInput m_in;
+
+    BinarySnapshotReader(InputStream in) {
+        m_in = new BinaryInput(in);
+    }
+
+    void read(SnapshotHandler snapshotHandler) throws IOException {
+        if (!Arrays.equals(m_in.readBytes(MAGIC.length), MAGIC)) {
+            throw new StreamCorruptedException("Not a binary snapshot");
+        }
+        long formatVersion = m_in.readVarLong();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new StreamCorruptedException("Unsupported binary snapshot format version " + formatVersion + ", expected " + FORMAT_VERSION);
+        }
+
+        SerializableSnapshot snapshotHeader = new SerializableSnapshot();
+        snapshotHeader.setSnapshotModelVersion(m_in.readSignedVarLong());
+        snapshotHeader.setApplicationModelVersion(m_in.readSignedVarLong());
+        snapshotHeader.setTransactionId(m_in.readBigInteger());
+
+        List<String> columns = null;
+        while (true) {
+            int marker = m_in.readByte();
+            switch (marker) {
+                case ENTITY:
+                    if (columns != null) {
+                        throw new StreamCorruptedException("Entity begins before the previous one has been ended in binary snapshot");
+                    }
+                    columns = new ArrayList<>();
+                    snapshotHandler.beginEntity(readEntity(columns));
+                    break;
+                case BLOCK:
+                    if (columns == null) {
+                        throw new StreamCorruptedException("Instances are not in an entity in binary snapshot");
+                    }
+                    readBlock(columns, snapshotHandler);
+                    break;
+                case END_ENTITY:
+                    if (columns == null) {
+                        throw new StreamCorruptedException("Entity end without entity in binary snapshot");
+                    }
+                    columns = null;
+                    snapshotHandler.endEntity();
+                    break;
+                case END_SNAPSHOT:
+                    snapshotHandler.endSnapshot(snapshotHeader);
+                    return;
+                default:
+                    throw new StreamCorruptedException("Invalid marker in binary snapshot: " + marker);
+            }
+        }
+    }
+
+    private SerializableEntity readEntity(List<String> columns) throws IOException {
+        SerializableEntity entity = new SerializableEntity();
+        entity.setEntityName(m_in.readString());
+        entity.setNextId(m_in.readVarLong());
+
+        int attributeCount = m_in.readCount();
+        Map<String, SerializableAttributeDefinition> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < attributeCount; i++) {
+            String name = m_in.readString();
+            SerializableAttributeDefinition attribute = new SerializableAttributeDefinition();
+            attribute.setDataType(m_in.readString());
+            attribute.setNullable(m_in.readBoolean());
+            attributes.put(name, attribute);
+            columns.add(name);
+        }
+        entity.setAttributes(attributes);
+
+        int relationCount = m_in.readCount();
+        Map<String, SerializableRelationDefinition> relations = new LinkedHashMap<>();
+        for (int i = 0; i < relationCount; i++) {
+            String name = m_in.readString();
+            SerializableRelationDefinition relation = new SerializableRelationDefinition();
+            relation.setHeadEntityName(m_in.readString());
+            int cardinality = m_in.readCount();
+            if (cardinality >= CARDINALITIES.length) {
+                throw new StreamCorruptedException("Invalid relation cardinality in binary snapshot: " + cardinality);
+            }
+            relation.setCardinality(CARDINALITIES[cardinality]);
+            relations.put(name, relation);
+            columns.add(name);
+        }
+        entity.setRelations(relations);
+
+        int uniqueCount = m_in.readCount();
+        List<List<String>> uniques = new ArrayList<>(uniqueCount);
+        for (int i = 0; i < uniqueCount; i++) {
+            int size = m_in.readCount();
+            List<String> unique = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                unique.add(m_in.readString());
+            }
+            uniques.add(unique);
+        }
+        entity.setUniques(uniques);
+
+        return entity;
+    }
+
+    private void readBlock(List<String> columns, SnapshotHandler snapshotHandler) throws IOException {
+        int rowCount = m_in.readCount();
+        if (rowCount > BLOCK_SIZE) {
+            throw new StreamCorruptedException("Invalid block size in binary snapshot: " + rowCount);
+        }
+
+        int newColumnCount = m_in.readCount();
+        for (int i = 0; i < newColumnCount; i++) {
+            columns.add(m_in.readString());
+        }
+
+        long[] ids = new long[rowCount];
+        long previousId = 0;
+        for (int row = 0; row < rowCount; row++) {
+            previousId += m_in.readSignedVarLong();
+            ids[row] = previousId;
+        }
+
+        Object[][] columnValues = new Object[columns.size()][];
+        for (int i = 0; i < columnValues.length; i++) {
+            columnValues[i] = readColumn(rowCount);
+        }
+
+        for (int row = 0; row < rowCount; row++) {
+            Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < columnValues.length; i++) {
+                Object[] column = columnValues[i];
+                if (column != null && column[row] != null) {
+                    values.put(columns.get(i), column[row]);
+                }
+            }
+            SerializableInstance instance = new SerializableInstance();
+            instance.setId(ids[row]);
+            instance.setValues(values);
+            snapshotHandler.instance(instance);
+        }
+    }
+
+    /**
+     * @return the values of the column, {@code null} if no instance of the block has a value
+     */
+    @Nullable
+    private Object[] readColumn(int rowCount) throws IOException {
+        int presence = m_in.readByte();
+        Object[] values;
+        switch (presence) {
+            case PRESENCE_NONE:
+                return null;
+            case PRESENCE_ALL:
+                values = new Object[rowCount];
+                Arrays.fill(values, PRESENT);
+                break;
+            case PRESENCE_PARTIAL:
+                values = new Object[rowCount];
+                for (int row = 0; row < rowCount; row += 8) {
+                    int bits = m_in.readByte();
+                    for (int bit = 0; bit < 8 && row + bit < rowCount; bit++) {
+                        if ((bits & (1 << bit)) != 0) {
+                            values[row + bit] = PRESENT;
+                        }
+                    }
+                }
+                break;
+            default:
+                throw new StreamCorruptedException("Invalid column presence in binary snapshot: " + presence);
+        }
+
+        ColumnType.fromTag(m_in.readByte()).readValues(m_in, values, rowCount);
+        return values;
+    }
+}
@@ -0,0 +1,112 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.util.*;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableInstance;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.serializer.SnapshotHandler;
+import io.axway.iron.spi.serializer.SnapshotSerializer;
+import io.axway.iron.spi.serializer.SnapshotWriter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Compact binary snapshot serializer.<br>
+ * The attribute and relation names are written once per entity, and the instances are written by blocks, column by column:
+ * <pre>
+ * snapshot: magic formatVersion snapshotModelVersion applicationModelVersion transactionId entity* END_SNAPSHOT
+ * entity:   ENTITY entityName nextId attributes relations uniques block* END_ENTITY
+ * block:    BLOCK instanceCount newColumnNames ids column*
+ * column:   presence [presenceBitmap] [columnType values]
+ * </pre>
+ * The columns of an entity are its attributes then its relations, in the order of the entity definition, followed by the columns declared by the
+ * blocks for values that are not in the entity definition. A column gives which instances of the block have a value, then the values in their
+ * {@link ColumnType} encoding. Integers are variable length, ids and long values are delta encoded and the strings of a column are written once per
+ * block.
+ */
+public class BinarySnapshotSerializer implements SnapshotSerializer {
+    static final byte[] MAGIC = "IRONSNAP".getBytes(US_ASCII);
+    static final long FORMAT_VERSION = 1;
+    static final int BLOCK_SIZE = 1024;
+
+    static final int END_SNAPSHOT = 0;
+    static final int ENTITY = 1;
+    static final int BLOCK = 2;
+    static final int END_ENTITY = 3;
+
+    static final int PRESENCE_NONE = 0;
+    static final int PRESENCE_ALL = 1;
+    static final int PRESENCE_PARTIAL = 2;
+
+    BinarySnapshotSerializer() {
+    }
+
+    @Override
+    public void serializeSnapshot(OutputStream out, SerializableSnapshot serializableSnapshot) throws IOException {
+        try (SnapshotWriter snapshotWriter = createSnapshotWriter(out, serializableSnapshot)) {
+            for (SerializableEntity entity : serializableSnapshot.getEntities()) {
+                snapshotWriter.beginEntity(entity);
+                for (SerializableInstance instance : entity.getInstances()) {
+                    snapshotWriter.beginInstance(instance.getId());
+                    for (Map.Entry<String, Object> value : instance.getValues().entrySet()) {
+                        if (value.getValue() != null) {
+                            snapshotWriter.writeValue(value.getKey(), value.getValue());
+                        }
+                    }
+                    snapshotWriter.endInstance();
+                }
+                snapshotWriter.endEntity();
+            }
+        }
+    }
+
+    @Override
+    public SnapshotWriter createSnapshotWriter(OutputStream out, SerializableSnapshot snapshotHeader) throws IOException {
+        return new BinarySnapshotWriter(out, snapshotHeader);
+    }
+
+    @Override
+    public SerializableSnapshot deserializeSnapshot(String storeName, InputStream in) throws IOException {
+        SnapshotCollector snapshotCollector = new SnapshotCollector();
+        deserializeSnapshot(storeName, in, snapshotCollector);
+        return snapshotCollector.m_snapshot;
+    }
+
+    @Override
+    public void deserializeSnapshot(String storeName, InputStream in, SnapshotHandler snapshotHandler) throws IOException {
+        new BinarySnapshotReader(in).read(snapshotHandler);
+    }
+
+    /**
+     * Collect a streamed snapshot in memory.
+     */
+    private static final class SnapshotCollector implements SnapshotHandler {
+        private final List<SerializableEntity> m_entities = new ArrayList<>();
+        private List<SerializableInstance> m_instances;
+        private SerializableSnapshot m_snapshot;
+
+        @Override
+        public void beginEntity(SerializableEntity entity) {
+            m_instances = new ArrayList<>();
+            entity.setInstances(m_instances);
+            m_entities.add(entity);
+        }
+
+        @Override
+        public void instance(SerializableInstance instance) {
+            m_instances.add(instance);
+        }
+
+        @Override
+        public void endEntity() {
+            m_instances = null;
+        }
+
+        @Override
+        public void endSnapshot(SerializableSnapshot snapshotHeader) {
+            snapshotHeader.setEntities(m_entities);
+            m_snapshot = snapshotHeader;
+        }
+    }
+}
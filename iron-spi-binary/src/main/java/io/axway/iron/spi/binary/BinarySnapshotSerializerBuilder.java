@@ -0,0 +1,11 @@
+package io.axway.iron.spi.binary;
+
+import java.util.function.*;
+import io.axway.iron.spi.serializer.SnapshotSerializer;
+
+public class BinarySnapshotSerializerBuilder implements Supplier<SnapshotSerializer> {
+    @Override
+    public SnapshotSerializer get() {
+        return new BinarySnapshotSerializer();
+    }
+}
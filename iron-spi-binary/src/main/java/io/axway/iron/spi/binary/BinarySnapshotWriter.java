@@ -0,0 +1,190 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.util.*;
+import io.axway.iron.spi.model.snapshot.SerializableAttributeDefinition;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableRelationDefinition;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.serializer.SnapshotWriter;
+
+import static io.axway.alf.assertion.Assertion.checkState;
+import static io.axway.iron.spi.binary.BinarySnapshotSerializer.*;
+
+/**
+ * Write a snapshot in the binary format described in {@link BinarySnapshotSerializer}. The instances of an entity are buffered until a block is full,
+ * then the block is written column by column.
+ */
+final class BinarySnapshotWriter implements SnapshotWriter {
+    private final BinaryOutput m_out;
+    private final long[] m_ids = new long[BLOCK_SIZE];
+    private List<Column> m_columns;
+    private Map<String, Column> m_columnsByName;
+    private int m_writtenColumnCount;
+    private int m_rowCount;
+    private boolean m_inInstance;
+
+    BinarySnapshotWriter(OutputStream out, SerializableSnapshot snapshotHeader) throws IOException {
+        m_out = new BinaryOutput(out);
+        m_out.writeBytes(MAGIC);
+        m_out.writeVarLong(FORMAT_VERSION);
+        m_out.writeSignedVarLong(snapshotHeader.getSnapshotModelVersion());
+        m_out.writeSignedVarLong(snapshotHeader.getApplicationModelVersion());
+        m_out.writeBigInteger(snapshotHeader.getTransactionId());
+    }
+
+    @Override
+    public void beginEntity(SerializableEntity entity) throws IOException {
+        checkState(m_columns == null, "Previous entity has not been ended", args -> args.add("entityName", entity.getEntityName()));
+        m_columns = new ArrayList<>();
+        m_columnsByName = new HashMap<>();
+
+        m_out.writeByte(ENTITY);
+        m_out.writeString(entity.getEntityName());
+        m_out.writeVarLong(entity.getNextId());
+
+        Map<String, SerializableAttributeDefinition> attributes = entity.getAttributes() != null ? entity.getAttributes() : Map.of();
+        m_out.writeVarLong(attributes.size());
+        for (Map.Entry<String, SerializableAttributeDefinition> attribute : attributes.entrySet()) {
+            m_out.writeString(attribute.getKey());
+            m_out.writeString(attribute.getValue().getDataType());
+            m_out.writeBoolean(attribute.getValue().isNullable());
+            addColumn(attribute.getKey());
+        }
+
+        Map<String, SerializableRelationDefinition> relations = entity.getRelations() != null ? entity.getRelations() : Map.of();
+        m_out.writeVarLong(relations.size());
+        for (Map.Entry<String, SerializableRelationDefinition> relation : relations.entrySet()) {
+            m_out.writeString(relation.getKey());
+            m_out.writeString(relation.getValue().getHeadEntityName());
+            m_out.writeVarLong(relation.getValue().getCardinality().ordinal());
+            addColumn(relation.getKey());
+        }
+
+        List<List<String>> uniques = entity.getUniques() != null ? entity.getUniques() : List.of();
+        m_out.writeVarLong(uniques.size());
+        for (List<String> unique : uniques) {
+            m_out.writeVarLong(unique.size());
+            for (String attributeName : unique) {
+                m_out.writeString(attributeName);
+            }
+        }
+
+        m_writtenColumnCount = m_columns.size();
+    }
+
+    @Override
+    public void beginInstance(long id) {
+        checkState(m_columns != null && !m_inInstance, "Instance can't be written outside of an entity or inside another instance",
+                   args -> args.add("instanceId", id));
+        m_ids[m_rowCount] = id;
+        m_inInstance = true;
+    }
+
+    @Override
+    public void writeValue(String name, Object value) {
+        checkState(m_inInstance, "Value can't be written outside of an instance", args -> args.add("name", name));
+        Column column = m_columnsByName.get(name);
+        if (column == null) {
+            // a value that is not declared in the entity definition is still written, its column is declared in the next block
+            column = addColumn(name);
+        }
+        column.m_values[m_rowCount] = value;
+    }
+
+    @Override
+    public void endInstance() throws IOException {
+        m_inInstance = false;
+        if (++m_rowCount == BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void endEntity() throws IOException {
+        checkState(m_columns != null && !m_inInstance, "Entity can't be ended outside of an entity or inside an instance");
+        if (m_rowCount > 0) {
+            writeBlock();
+        }
+        m_out.writeByte(END_ENTITY);
+        m_columns = null;
+        m_columnsByName = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        m_out.writeByte(END_SNAPSHOT);
+        m_out.flush();
+    }
+
+    private Column addColumn(String name) {
+        Column column = new Column(name);
+        m_columns.add(column);
+        m_columnsByName.put(name, column);
+        return column;
+    }
+
+    private void writeBlock() throws IOException {
+        m_out.writeByte(BLOCK);
+        m_out.writeVarLong(m_rowCount);
+
+        m_out.writeVarLong(m_columns.size() - m_writtenColumnCount);
+        for (Column column : m_columns.subList(m_writtenColumnCount, m_columns.size())) {
+            m_out.writeString(column.m_name);
+        }
+        m_writtenColumnCount = m_columns.size();
+
+        long previousId = 0;
+        for (int row = 0; row < m_rowCount; row++) {
+            m_out.writeSignedVarLong(m_ids[row] - previousId);
+            previousId = m_ids[row];
+        }
+
+        for (Column column : m_columns) {
+            writeColumn(column.m_values);
+            Arrays.fill(column.m_values, 0, m_rowCount, null);
+        }
+        m_rowCount = 0;
+    }
+
+    private void writeColumn(Object[] values) throws IOException {
+        ColumnType columnType = ColumnType.of(values, m_rowCount);
+        if (columnType == null) {
+            m_out.writeByte(PRESENCE_NONE);
+            return;
+        }
+
+        int presentCount = 0;
+        for (int row = 0; row < m_rowCount; row++) {
+            if (values[row] != null) {
+                presentCount++;
+            }
+        }
+        if (presentCount == m_rowCount) {
+            m_out.writeByte(PRESENCE_ALL);
+        } else {
+            m_out.writeByte(PRESENCE_PARTIAL);
+            for (int row = 0; row < m_rowCount; row += 8) {
+                int bits = 0;
+                for (int bit = 0; bit < 8 && row + bit < m_rowCount; bit++) {
+                    if (values[row + bit] != null) {
+                        bits |= 1 << bit;
+                    }
+                }
+                m_out.writeByte(bits);
+            }
+        }
+
+        m_out.writeByte(columnType.getTag());
+        columnType.writeValues(m_out, values, m_rowCount);
+    }
+
+    private static final class Column {
+        private final String m_name;
+        private final Object[] m_values = new Object[BLOCK_SIZE];
+
+        private Column(String name) {
+            m_name = name;
+        }
+    }
+}
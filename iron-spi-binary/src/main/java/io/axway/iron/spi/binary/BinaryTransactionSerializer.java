@@ -0,0 +1,147 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.util.*;
+import javax.annotation.*;
+import io.axway.iron.spi.model.transaction.SerializableCommand;
+import io.axway.iron.spi.model.transaction.SerializableTransaction;
+import io.axway.iron.spi.serializer.TransactionSerializer;
+
+/**
+ * Compact binary transaction serializer.<br>
+ * The command and parameter names are replaced by their ids in the {@link CommandDictionary} of the registered commands, and the parameter values are
+ * written in their {@link ColumnType} encoding, so they are read with their original type:
+ * <pre>
+ * transaction: magic formatVersion transactionModelVersion [synchronizationId] commandCount command*
+ * command:     commandId (commandChecksum | commandName) parameterCount parameter*
+ * parameter:   parameterId (parameterChecksum | parameterName) valueType [value]
+ * </pre>
+ * The name of a command or of a parameter is written only if its id is {@code 0}, meaning it has not been registered, else the 16 bits checksum of the
+ * name is written so the name is found even if another registered name has the same id. A {@code null} value has the {@code 0} value type.
+ */
+public class BinaryTransactionSerializer implements TransactionSerializer {
+    static final int MAGIC = 0xB1;
+    static final long FORMAT_VERSION = 2;
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final int NULL_VALUE = 0;
+
+    private volatile CommandDictionary m_commandDictionary = CommandDictionary.EMPTY;
+
+    BinaryTransactionSerializer() {
+    }
+
+    @Override
+    public synchronized void registerCommands(Map<String, Set<String>> parameterNamesByCommandName) {
+        m_commandDictionary = m_commandDictionary.with(parameterNamesByCommandName);
+    }
+
+    @Override
+    public void serializeTransaction(OutputStream out, SerializableTransaction transaction) throws IOException {
+        CommandDictionary commandDictionary = m_commandDictionary;
+        BinaryOutput binaryOutput = new BinaryOutput(out, BUFFER_SIZE);
+        binaryOutput.writeByte(MAGIC);
+        binaryOutput.writeVarLong(FORMAT_VERSION);
+        binaryOutput.writeVarLong(transaction.getTransactionModelVersion());
+        writeOptionalString(binaryOutput, transaction.getSynchronizationId());
+
+        List<SerializableCommand> commands = transaction.getCommands();
+        binaryOutput.writeVarLong(commands.size());
+        for (SerializableCommand command : commands) {
+            String commandName = command.getCommandName();
+            long commandId = commandDictionary.commandId(commandName);
+            binaryOutput.writeVarLong(commandId);
+            if (commandId != 0) {
+                binaryOutput.writeFixedShort(commandDictionary.commandChecksum(commandName));
+            } else {
+                binaryOutput.writeString(commandName);
+            }
+
+            Map<String, Object> parameters = command.getParameters();
+            binaryOutput.writeVarLong(parameters.size());
+            for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+                long parameterId = commandDictionary.parameterId(commandName, parameter.getKey());
+                binaryOutput.writeVarLong(parameterId);
+                if (parameterId != 0) {
+                    binaryOutput.writeFixedShort(commandDictionary.parameterChecksum(commandName, parameter.getKey()));
+                } else {
+                    binaryOutput.writeString(parameter.getKey());
+                }
+                Object value = parameter.getValue();
+                if (value != null) {
+                    ColumnType.MIXED.writeValue(binaryOutput, value);
+                } else {
+                    binaryOutput.writeByte(NULL_VALUE);
+                }
+            }
+        }
+        binaryOutput.flush();
+    }
+
+    @Override
+    public SerializableTransaction deserializeTransaction(InputStream in) throws IOException {
+        CommandDictionary commandDictionary = m_commandDictionary;
+        BinaryInput binaryInput = new BinaryInput(in, BUFFER_SIZE);
+        if (binaryInput.readByte() != MAGIC) {
+            throw new StreamCorruptedException("Not a binary transaction");
+        }
+        long formatVersion = binaryInput.readVarLong();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new StreamCorruptedException("Unsupported binary transaction format version " + formatVersion + ", expected " + FORMAT_VERSION);
+        }
+
+        SerializableTransaction transaction = new SerializableTransaction();
+        transaction.setTransactionModelVersion(binaryInput.readVarLong());
+        transaction.setSynchronizationId(readOptionalString(binaryInput));
+
+        int commandCount = binaryInput.readCount();
+        List<SerializableCommand> commands = new ArrayList<>(commandCount);
+        for (int i = 0; i < commandCount; i++) {
+            long commandId = binaryInput.readVarLong();
+            String commandName = commandId == 0 ? binaryInput.readString() : commandDictionary.commandName(commandId, binaryInput.readFixedShort());
+            if (commandName == null) {
+                throw new StreamCorruptedException("Unknown command id in binary transaction: " + commandId);
+            }
+
+            int parameterCount = binaryInput.readCount();
+            Map<String, Object> parameters = new HashMap<>();
+            for (int j = 0; j < parameterCount; j++) {
+                long parameterId = binaryInput.readVarLong();
+                String parameterName = parameterId == 0 ? binaryInput.readString() :
+                        commandDictionary.parameterName(commandName, parameterId, binaryInput.readFixedShort());
+                if (parameterName == null) {
+                    throw new StreamCorruptedException("Unknown parameter id of command " + commandName + " in binary transaction: " + parameterId);
+                }
+                int valueType = binaryInput.readByte();
+                parameters.put(parameterName, valueType != NULL_VALUE ? readValue(binaryInput, valueType) : null);
+            }
+
+            SerializableCommand command = new SerializableCommand();
+            command.setCommandName(commandName);
+            command.setParameters(parameters);
+            commands.add(command);
+        }
+        transaction.setCommands(commands);
+        return transaction;
+    }
+
+    private static Object readValue(BinaryInput binaryInput, int valueType) throws IOException {
+        ColumnType type = ColumnType.fromTag(valueType);
+        if (type == ColumnType.MIXED) {
+            throw new StreamCorruptedException("Invalid parameter value in binary transaction");
+        }
+        return type.readValue(binaryInput);
+    }
+
+    private static void writeOptionalString(BinaryOutput binaryOutput, @Nullable String value) throws IOException {
+        binaryOutput.writeBoolean(value != null);
+        if (value != null) {
+            binaryOutput.writeString(value);
+        }
+    }
+
+    @Nullable
+    private static String readOptionalString(BinaryInput binaryInput) throws IOException {
+        return binaryInput.readBoolean() ? binaryInput.readString() : null;
+    }
+}
@@ -0,0 +1,11 @@
+package io.axway.iron.spi.binary;
+
+import java.util.function.*;
+import io.axway.iron.spi.serializer.TransactionSerializer;
+
+public class BinaryTransactionSerializerBuilder implements Supplier<TransactionSerializer> {
+    @Override
+    public TransactionSerializer get() {
+        return new BinaryTransactionSerializer();
+    }
+}
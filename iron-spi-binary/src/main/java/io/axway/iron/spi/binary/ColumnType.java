@@ -0,0 +1,477 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.util.*;
+import javax.annotation.*;
+
+import static io.axway.alf.assertion.Assertion.checkArgument;
+
+/**
+ * Encoding of the values of a column of a block of instances. All the values of a column are of the same type, except for {@link #MIXED} columns
+ * where each value is preceded by its type.<br>
+ * The values are written one after the other, {@code null} values being skipped since the column presence bitmap already tells which instances have a
+ * value.<br>
+ * The parameters of the commands of a binary transaction are written as {@link #MIXED} values.
+ */
+enum ColumnType {
+    BOOLEAN(1) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Boolean;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeBoolean((Boolean) value);
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return in.readBoolean();
+        }
+
+        @Override
+        void writeValues(BinaryOutput out, Object[] values, int rowCount) throws IOException {
+            // booleans are packed 8 per byte
+            int bits = 0;
+            int bitCount = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (values[row] != null) {
+                    if ((Boolean) values[row]) {
+                        bits |= 1 << bitCount;
+                    }
+                    if (++bitCount == 8) {
+                        out.writeByte(bits);
+                        bits = 0;
+                        bitCount = 0;
+                    }
+                }
+            }
+            if (bitCount > 0) {
+                out.writeByte(bits);
+            }
+        }
+
+        @Override
+        void readValues(BinaryInput in, Object[] values, int rowCount) throws IOException {
+            int bits = 0;
+            int bitCount = 8;
+            for (int row = 0; row < rowCount; row++) {
+                if (values[row] != null) {
+                    if (bitCount == 8) {
+                        bits = in.readByte();
+                        bitCount = 0;
+                    }
+                    values[row] = (bits & (1 << bitCount++)) != 0;
+                }
+            }
+        }
+    },
+
+    BYTE(2) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Byte;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeByte((Byte) value);
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return (byte) in.readByte();
+        }
+    },
+
+    SHORT(3) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Short;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeSignedVarLong((Short) value);
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return (short) in.readSignedVarLong();
+        }
+    },
+
+    CHARACTER(4) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Character;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeVarLong((Character) value);
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return (char) in.readVarLong();
+        }
+    },
+
+    INTEGER(5) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Integer;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeSignedVarLong((Integer) value);
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return (int) in.readSignedVarLong();
+        }
+    },
+
+    LONG(6) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Long;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeSignedVarLong((Long) value);
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return in.readSignedVarLong();
+        }
+
+        @Override
+        void writeValues(BinaryOutput out, Object[] values, int rowCount) throws IOException {
+            // the values are delta encoded, since long columns are mostly ids of related instances that are often close to each other
+            long previous = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (values[row] != null) {
+                    long value = (Long) values[row];
+                    out.writeSignedVarLong(value - previous);
+                    previous = value;
+                }
+            }
+        }
+
+        @Override
+        void readValues(BinaryInput in, Object[] values, int rowCount) throws IOException {
+            long previous = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (values[row] != null) {
+                    previous += in.readSignedVarLong();
+                    values[row] = previous;
+                }
+            }
+        }
+    },
+
+    FLOAT(7) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Float;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeFixedInt(Float.floatToIntBits((Float) value));
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return Float.intBitsToFloat(in.readFixedInt());
+        }
+    },
+
+    DOUBLE(8) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Double;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeFixedLong(Double.doubleToLongBits((Double) value));
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return Double.longBitsToDouble(in.readFixedLong());
+        }
+    },
+
+    STRING(9) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof String;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeString((String) value);
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return in.readString();
+        }
+
+        @Override
+        void writeValues(BinaryOutput out, Object[] values, int rowCount) throws IOException {
+            // a value already written in the column is replaced by its index, 0 meaning a new value follows
+            Map<String, Integer> dictionary = new HashMap<>();
+            for (int row = 0; row < rowCount; row++) {
+                String value = (String) values[row];
+                if (value != null) {
+                    Integer index = dictionary.get(value);
+                    if (index != null) {
+                        out.writeVarLong(index);
+                    } else {
+                        out.writeVarLong(0);
+                        out.writeString(value);
+                        dictionary.put(value, dictionary.size() + 1);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void readValues(BinaryInput in, Object[] values, int rowCount) throws IOException {
+            List<String> dictionary = new ArrayList<>();
+            for (int row = 0; row < rowCount; row++) {
+                if (values[row] != null) {
+                    int index = in.readCount();
+                    if (index == 0) {
+                        String value = in.readString();
+                        dictionary.add(value);
+                        values[row] = value;
+                    } else if (index <= dictionary.size()) {
+                        values[row] = dictionary.get(index - 1);
+                    } else {
+                        throw new StreamCorruptedException("Invalid string index in binary snapshot: " + index);
+                    }
+                }
+            }
+        }
+    },
+
+    DATE(10) {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Date;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            out.writeSignedVarLong(((Date) value).getTime());
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            return new Date(in.readSignedVarLong());
+        }
+    },
+
+    /**
+     * The ids of the instances of a to many relation. The ids are delta encoded, they are read as {@code Long}.
+     */
+    LONG_COLLECTION(11) {
+        @Override
+        boolean accepts(Object value) {
+            if (!(value instanceof Collection)) {
+                return false;
+            }
+            for (Object element : (Collection<?>) value) {
+                if (!(element instanceof Long || element instanceof Integer)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            Collection<?> ids = (Collection<?>) value;
+            out.writeVarLong(ids.size());
+            long previous = 0;
+            for (Object element : ids) {
+                long id = ((Number) element).longValue();
+                out.writeSignedVarLong(id - previous);
+                previous = id;
+            }
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            int size = in.readCount();
+            List<Long> ids = new ArrayList<>(size);
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                previous += in.readSignedVarLong();
+                ids.add(previous);
+            }
+            return ids;
+        }
+    },
+
+    /**
+     * Values of different types, each value is preceded by its type.
+     */
+    MIXED(12) {
+        @Override
+        boolean accepts(Object value) {
+            return false;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            ColumnType type = of(value);
+            out.writeByte(type.m_tag);
+            type.writeValue(out, value);
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            ColumnType type = fromTag(in.readByte());
+            if (type == MIXED) {
+                throw new StreamCorruptedException("Invalid mixed value in binary data");
+            }
+            return type.readValue(in);
+        }
+    },
+
+    /**
+     * A collection of values of any type, each value is preceded by its type. It's read as a {@code List}.
+     */
+    COLLECTION(13) {
+        @Override
+        boolean accepts(Object value) {
+            if (!(value instanceof Collection)) {
+                return false;
+            }
+            for (Object element : (Collection<?>) value) {
+                if (element == null) {
+                    return false;
+                }
+                // ensure the element is supported
+                of(element);
+            }
+            return true;
+        }
+
+        @Override
+        void writeValue(BinaryOutput out, Object value) throws IOException {
+            Collection<?> elements = (Collection<?>) value;
+            out.writeVarLong(elements.size());
+            for (Object element : elements) {
+                MIXED.writeValue(out, element);
+            }
+        }
+
+        @Override
+        Object readValue(BinaryInput in) throws IOException {
+            int size = in.readCount();
+            List<Object> elements = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                elements.add(MIXED.readValue(in));
+            }
+            return elements;
+        }
+    };
+
+    private static final ColumnType[] TYPES_BY_TAG = new ColumnType[values().length + 1];
+
+    static {
+        for (ColumnType type : values()) {
+            TYPES_BY_TAG[type.m_tag] = type;
+        }
+    }
+
+    private final int m_tag;
+
+    ColumnType(int tag) {
+        m_tag = tag;
+    }
+
+    int getTag() {
+        return m_tag;
+    }
+
+    abstract boolean accepts(Object value);
+
+    abstract void writeValue(BinaryOutput out, Object value) throws IOException;
+
+    abstract Object readValue(BinaryInput in) throws IOException;
+
+    /**
+     * Write the non {@code null} values of a column.
+     */
+    void writeValues(BinaryOutput out, Object[] values, int rowCount) throws IOException {
+        for (int row = 0; row < rowCount; row++) {
+            if (values[row] != null) {
+                writeValue(out, values[row]);
+            }
+        }
+    }
+
+    /**
+     * Read the values of a column. The rows having a value are the ones that are not {@code null} in {@code values}.
+     */
+    void readValues(BinaryInput in, Object[] values, int rowCount) throws IOException {
+        for (int row = 0; row < rowCount; row++) {
+            if (values[row] != null) {
+                values[row] = readValue(in);
+            }
+        }
+    }
+
+    static ColumnType of(Object value) {
+        for (ColumnType type : values()) {
+            if (type.accepts(value)) {
+                return type;
+            }
+        }
+        checkArgument(false, "Value type is not supported by the binary serializers", args -> args.add("type", value.getClass().getName()));
+        return MIXED;
+    }
+
+    /**
+     * @return the type of the non {@code null} values of a column, {@code null} if there is no value
+     */
+    @Nullable
+    static ColumnType of(Object[] values, int rowCount) {
+        ColumnType columnType = null;
+        for (int row = 0; row < rowCount; row++) {
+            Object value = values[row];
+            if (value != null) {
+                if (columnType == null) {
+                    columnType = of(value);
+                } else if (!columnType.accepts(value)) {
+                    // ensure the value is supported
+                    of(value);
+                    columnType = MIXED;
+                }
+            }
+        }
+        return columnType;
+    }
+
+    static ColumnType fromTag(int tag) throws IOException {
+        ColumnType type = tag < TYPES_BY_TAG.length ? TYPES_BY_TAG[tag] : null;
+        if (type == null) {
+            throw new StreamCorruptedException("Invalid value type in binary data: " + tag);
+        }
+        return type;
+    }
+}
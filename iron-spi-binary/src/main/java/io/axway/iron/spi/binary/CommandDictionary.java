@@ -0,0 +1,148 @@
+package io.axway.iron.spi.binary;
+
+import java.util.*;
+import java.util.zip.*;
+import javax.annotation.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Ids of the command names and of the parameter names of the commands registered in a {@link BinaryTransactionSerializer}.<br>
+ * An id is derived from the hash code of the name, which is specified by {@link String#hashCode()}, so the ids of a command and of its parameters don't
+ * depend on the other registered commands. The parameter ids are only unique among the parameters of their command, so they are shorter than the command
+ * ids.<br>
+ * Since names of different versions of the application may have the same id, a name is written with the {@link #checksum(String) checksum} of the name
+ * next to its id. A transaction is read by looking for the registered name that has both the id and the checksum, so the names registered when it's read
+ * may collide with the ones registered when it was written. A name that has the same id and checksum as another registered name has no id, it's written
+ * in the transactions instead.
+ */
+final class CommandDictionary {
+    static final CommandDictionary EMPTY = new CommandDictionary(Map.of());
+
+    private static final long COMMAND_ID_MASK = 0xFFFF_FFFFL;
+    private static final long PARAMETER_ID_MASK = 0xFFFFL;
+
+    private final Map<String, Set<String>> m_parameterNamesByCommandName;
+    private final Names m_commandNames;
+    private final Map<String, Names> m_parameterNamesByCommand = new HashMap<>();
+
+    private CommandDictionary(Map<String, Set<String>> parameterNamesByCommandName) {
+        m_parameterNamesByCommandName = parameterNamesByCommandName;
+        m_commandNames = new Names(parameterNamesByCommandName.keySet(), COMMAND_ID_MASK);
+        parameterNamesByCommandName.forEach(
+                (commandName, parameterNames) -> m_parameterNamesByCommand.put(commandName, new Names(parameterNames, PARAMETER_ID_MASK)));
+    }
+
+    /**
+     * @return a dictionary that contains the commands of this dictionary and the given ones. The parameters of a command already in this dictionary are
+     * merged.
+     */
+    CommandDictionary with(Map<String, Set<String>> parameterNamesByCommandName) {
+        Map<String, Set<String>> mergedParameterNames = new HashMap<>();
+        m_parameterNamesByCommandName.forEach((commandName, parameterNames) -> mergedParameterNames.put(commandName, new HashSet<>(parameterNames)));
+        parameterNamesByCommandName.forEach(
+                (commandName, parameterNames) -> mergedParameterNames.computeIfAbsent(commandName, name -> new HashSet<>()).addAll(parameterNames));
+        return new CommandDictionary(mergedParameterNames);
+    }
+
+    /**
+     * @return the 16 bits checksum of a name, written next to its id. It's computed from the UTF-8 bytes of the name, independently of its id.
+     */
+    static int checksum(String name) {
+        CRC32 crc = new CRC32();
+        crc.update(name.getBytes(UTF_8));
+        return (int) crc.getValue() & 0xFFFF;
+    }
+
+    /**
+     * @return the id of the command, {@code 0} if the command has no id
+     */
+    long commandId(String commandName) {
+        return m_commandNames.id(commandName);
+    }
+
+    /**
+     * @return the checksum of a command that has an id
+     */
+    int commandChecksum(String commandName) {
+        return m_commandNames.checksum(commandName);
+    }
+
+    /**
+     * @return the registered command that has the id and the checksum, {@code null} if there is none
+     */
+    @Nullable
+    String commandName(long commandId, int checksum) {
+        return m_commandNames.name(commandId, checksum);
+    }
+
+    /**
+     * @return the id of the parameter of the command, {@code 0} if the parameter has no id
+     */
+    long parameterId(String commandName, String parameterName) {
+        Names parameterNames = m_parameterNamesByCommand.get(commandName);
+        return parameterNames != null ? parameterNames.id(parameterName) : 0;
+    }
+
+    /**
+     * @return the checksum of a parameter that has an id
+     */
+    int parameterChecksum(String commandName, String parameterName) {
+        return m_parameterNamesByCommand.get(commandName).checksum(parameterName);
+    }
+
+    /**
+     * @return the registered parameter of the command that has the id and the checksum, {@code null} if there is none
+     */
+    @Nullable
+    String parameterName(String commandName, long parameterId, int checksum) {
+        Names parameterNames = m_parameterNamesByCommand.get(commandName);
+        return parameterNames != null ? parameterNames.name(parameterId, checksum) : null;
+    }
+
+    private static final class Names {
+        private final Map<String, Long> m_ids = new HashMap<>();
+        private final Map<String, Integer> m_checksums = new HashMap<>();
+        private final Map<Long, List<String>> m_namesById = new HashMap<>();
+
+        private Names(Collection<String> names, long idMask) {
+            for (String name : names) {
+                // 0 is kept for the names that are written in the transactions
+                long id = (name.hashCode() & idMask) + 1;
+                m_namesById.computeIfAbsent(id, key -> new ArrayList<>()).add(name);
+                m_checksums.put(name, CommandDictionary.checksum(name));
+            }
+            m_namesById.forEach((id, sameIdNames) -> {
+                for (String name : sameIdNames) {
+                    if (find(sameIdNames, m_checksums.get(name)).size() == 1) {
+                        m_ids.put(name, id);
+                    }
+                }
+            });
+        }
+
+        private long id(String name) {
+            return m_ids.getOrDefault(name, 0L);
+        }
+
+        private int checksum(String name) {
+            return m_checksums.get(name);
+        }
+
+        @Nullable
+        private String name(long id, int checksum) {
+            List<String> names = find(m_namesById.getOrDefault(id, List.of()), checksum);
+            return names.size() == 1 ? names.get(0) : null;
+        }
+
+        private List<String> find(List<String> names, int checksum) {
+            List<String> found = new ArrayList<>(1);
+            for (String name : names) {
+                if (m_checksums.get(name) == checksum) {
+                    found.add(name);
+                }
+            }
+            return found;
+        }
+    }
+}
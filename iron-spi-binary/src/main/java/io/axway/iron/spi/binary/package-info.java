@@ -0,0 +1,4 @@
+@ParametersAreNonnullByDefault
+package io.axway.iron.spi.binary;
+
+import javax.annotation.*;
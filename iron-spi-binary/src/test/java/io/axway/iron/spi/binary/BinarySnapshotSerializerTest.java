@@ -0,0 +1,206 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.util.*;
+import org.testng.annotations.Test;
+import io.axway.alf.exception.IllegalArgumentFormattedException;
+import io.axway.iron.spi.model.snapshot.SerializableAttributeDefinition;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableInstance;
+import io.axway.iron.spi.model.snapshot.SerializableRelationCardinality;
+import io.axway.iron.spi.model.snapshot.SerializableRelationDefinition;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.serializer.SnapshotHandler;
+import io.axway.iron.spi.serializer.SnapshotSerializer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.*;
+
+public class BinarySnapshotSerializerTest {
+    private static final String PERSON_ENTITY_NAME = "io.axway.iron.sample.model.Person";
+    private static final String COMPANY_ENTITY_NAME = "io.axway.iron.sample.model.Company";
+    private static final int PERSON_COUNT = 2500;
+
+    private final SnapshotSerializer m_serializer = new BinarySnapshotSerializerBuilder().get();
+
+    private static SerializableAttributeDefinition attribute(Class<?> dataType, boolean nullable) {
+        SerializableAttributeDefinition attributeDefinition = new SerializableAttributeDefinition();
+        attributeDefinition.setDataType(dataType.getName());
+        attributeDefinition.setNullable(nullable);
+        return attributeDefinition;
+    }
+
+    private static SerializableRelationDefinition relation(String headEntityName, SerializableRelationCardinality cardinality) {
+        SerializableRelationDefinition relationDefinition = new SerializableRelationDefinition();
+        relationDefinition.setHeadEntityName(headEntityName);
+        relationDefinition.setCardinality(cardinality);
+        return relationDefinition;
+    }
+
+    private static SerializableInstance instance(long id, Map<String, Object> values) {
+        SerializableInstance instance = new SerializableInstance();
+        instance.setId(id);
+        instance.setValues(values);
+        return instance;
+    }
+
+    private static SerializableSnapshot buildSnapshot() {
+        SerializableEntity company = new SerializableEntity();
+        company.setEntityName(COMPANY_ENTITY_NAME);
+        company.setAttributes(Map.of("name", attribute(String.class, false)));
+        company.setRelations(Map.of());
+        company.setUniques(List.of(List.of("name")));
+        company.setNextId(3);
+        company.setInstances(List.of(instance(0, Map.of("name", "Axway")), instance(2, Map.of("name", "Iron"))));
+
+        SerializableEntity person = new SerializableEntity();
+        person.setEntityName(PERSON_ENTITY_NAME);
+        Map<String, SerializableAttributeDefinition> attributes = new LinkedHashMap<>();
+        attributes.put("id", attribute(String.class, false));
+        attributes.put("active", attribute(boolean.class, false));
+        attributes.put("initial", attribute(char.class, false));
+        attributes.put("level", attribute(byte.class, false));
+        attributes.put("floor", attribute(short.class, false));
+        attributes.put("age", attribute(int.class, false));
+        attributes.put("badge", attribute(long.class, false));
+        attributes.put("ratio", attribute(float.class, false));
+        attributes.put("salary", attribute(Double.class, true));
+        attributes.put("birthDate", attribute(Date.class, true));
+        // a date recovered from a JSON snapshot is a long until it's updated
+        attributes.put("hireDate", attribute(Date.class, true));
+        person.setAttributes(attributes);
+        Map<String, SerializableRelationDefinition> relations = new LinkedHashMap<>();
+        relations.put("worksAt", relation(COMPANY_ENTITY_NAME, SerializableRelationCardinality.ZERO_ONE));
+        relations.put("previousCompanies", relation(COMPANY_ENTITY_NAME, SerializableRelationCardinality.MANY));
+        person.setRelations(relations);
+        person.setUniques(List.of(List.of("id")));
+        person.setNextId(PERSON_COUNT * 2);
+
+        List<SerializableInstance> persons = new ArrayList<>();
+        for (int i = 0; i < PERSON_COUNT; i++) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("id", "person" + i);
+            values.put("active", i % 3 == 0);
+            values.put("initial", (char) ('a' + i % 26));
+            values.put("level", (byte) (i % 200 - 100));
+            values.put("floor", (short) -i);
+            values.put("age", i % 100);
+            values.put("badge", Long.MAX_VALUE - i * 7919L);
+            values.put("ratio", i / 3f);
+            if (i % 5 != 0) {
+                values.put("salary", i * 1.5);
+            }
+            if (i % 7 == 0) {
+                values.put("birthDate", new Date(-1_000_000_000L + i));
+            }
+            values.put("hireDate", i % 2 == 0 ? new Date(1_500_000_000_000L + i) : 1_500_000_000_000L - i);
+            if (i % 4 != 0) {
+                values.put("worksAt", (long) (i % 3 == 0 ? 0 : 2));
+            }
+            values.put("previousCompanies", i % 2 == 0 ? List.of(0L, 2L) : List.of());
+            if (i == PERSON_COUNT - 1) {
+                // a value that is not part of the entity definition
+                values.put("nickname", "last");
+            }
+            persons.add(instance(i * 2L, values));
+        }
+        person.setInstances(persons);
+
+        SerializableSnapshot snapshot = new SerializableSnapshot();
+        snapshot.setSnapshotModelVersion(SerializableSnapshot.SNAPSHOT_MODEL_VERSION);
+        snapshot.setApplicationModelVersion(42);
+        snapshot.setTransactionId(new BigInteger("123456789012345678901234567890"));
+        snapshot.setEntities(List.of(company, person));
+        return snapshot;
+    }
+
+    @Test
+    public void shouldDeserializeTheSerializedSnapshot() throws IOException {
+        SerializableSnapshot snapshot = buildSnapshot();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        m_serializer.serializeSnapshot(out, snapshot);
+
+        SerializableSnapshot deserializedSnapshot = m_serializer.deserializeSnapshot("myStoreName", new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(deserializedSnapshot).isEqualToIgnoringGivenFields(snapshot, "m_entities");
+        assertThat(deserializedSnapshot.getEntities()).hasSameSizeAs(snapshot.getEntities());
+        Iterator<SerializableEntity> deserializedEntities = deserializedSnapshot.getEntities().iterator();
+        for (SerializableEntity entity : snapshot.getEntities()) {
+            SerializableEntity deserializedEntity = deserializedEntities.next();
+            assertThat(deserializedEntity).isEqualToIgnoringGivenFields(entity, "m_attributes", "m_relations", "m_instances");
+            // the attributes and relations are written in the order of the entity definition
+            assertThat(deserializedEntity.getAttributes().keySet()).containsExactlyElementsOf(entity.getAttributes().keySet());
+            entity.getAttributes().forEach((name, attribute) -> {
+                assertThat(deserializedEntity.getAttributes().get(name)).isEqualToComparingFieldByField(attribute);
+            });
+            assertThat(deserializedEntity.getRelations().keySet()).containsExactlyElementsOf(entity.getRelations().keySet());
+            entity.getRelations().forEach((name, relation) -> {
+                assertThat(deserializedEntity.getRelations().get(name)).isEqualToComparingFieldByField(relation);
+            });
+            assertThat(deserializedEntity.getInstances()).extracting(SerializableInstance::getId)
+                    .containsExactlyElementsOf(() -> entity.getInstances().stream().map(SerializableInstance::getId).iterator());
+            assertThat(deserializedEntity.getInstances()).extracting(SerializableInstance::getValues)
+                    .containsExactlyElementsOf(() -> entity.getInstances().stream().map(SerializableInstance::getValues).iterator());
+        }
+    }
+
+    @Test
+    public void shouldStreamTheSnapshotToAHandler() throws IOException {
+        SerializableSnapshot snapshot = buildSnapshot();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        m_serializer.serializeSnapshot(out, snapshot);
+
+        List<String> events = new ArrayList<>();
+        m_serializer.deserializeSnapshot("myStoreName", new ByteArrayInputStream(out.toByteArray()), new SnapshotHandler() {
+            private int m_instanceCount;
+
+            @Override
+            public void beginEntity(SerializableEntity entity) {
+                assertThat(entity.getInstances()).isNull();
+                m_instanceCount = 0;
+                events.add(entity.getEntityName() + " nextId=" + entity.getNextId() + " uniques=" + entity.getUniques());
+            }
+
+            @Override
+            public void instance(SerializableInstance instance) {
+                m_instanceCount++;
+            }
+
+            @Override
+            public void endEntity() {
+                events.add("endEntity instances=" + m_instanceCount);
+            }
+
+            @Override
+            public void endSnapshot(SerializableSnapshot snapshotHeader) {
+                assertThat(snapshotHeader.getEntities()).isNull();
+                events.add(snapshotHeader.getSnapshotModelVersion() + " " + snapshotHeader.getApplicationModelVersion() + " " +
+                                   snapshotHeader.getTransactionId());
+            }
+        });
+
+        assertThat(events).containsExactly(COMPANY_ENTITY_NAME + " nextId=3 uniques=[[name]]", //
+                                           "endEntity instances=2", //
+                                           PERSON_ENTITY_NAME + " nextId=" + PERSON_COUNT * 2 + " uniques=[[id]]", //
+                                           "endEntity instances=" + PERSON_COUNT, //
+                                           "1 42 123456789012345678901234567890");
+    }
+
+    @Test
+    public void shouldRejectAValueTypeThatIsNotSupported() {
+        SerializableSnapshot snapshot = buildSnapshot();
+        snapshot.getEntities().iterator().next().getInstances().iterator().next().setValues(Map.of("name", new Object()));
+
+        assertThatThrownBy(() -> m_serializer.serializeSnapshot(new ByteArrayOutputStream(), snapshot)).isInstanceOf(IllegalArgumentFormattedException.class)
+                .hasMessageContaining("Value type is not supported by the binary serializers");
+    }
+
+    @Test
+    public void shouldRejectASnapshotThatIsNotBinary() {
+        byte[] jsonSnapshot = "{\"snapshotModelVersion\":1,\"transactionId\":0,\"entities\":[]}".getBytes(UTF_8);
+
+        assertThatThrownBy(() -> m_serializer.deserializeSnapshot("myStoreName", new ByteArrayInputStream(jsonSnapshot)))
+                .isInstanceOf(StreamCorruptedException.class).hasMessage("Not a binary snapshot");
+    }
+}
@@ -0,0 +1,164 @@
+package io.axway.iron.spi.binary;
+
+import java.io.*;
+import java.util.*;
+import org.testng.annotations.Test;
+import io.axway.iron.spi.model.transaction.SerializableCommand;
+import io.axway.iron.spi.model.transaction.SerializableTransaction;
+import io.axway.iron.spi.serializer.TransactionSerializer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.*;
+
+public class BinaryTransactionSerializerTest {
+    private static final String CREATE_PERSON_COMMAND_NAME = "io.axway.iron.sample.command.CreatePerson";
+    private static final String DELETE_COMPANY_COMMAND_NAME = "io.axway.iron.sample.command.DeleteCompany";
+    private static final Map<String, Set<String>> COMMANDS = Map.of(CREATE_PERSON_COMMAND_NAME,
+                                                                    Set.of("id", "name", "active", "initial", "level", "floor", "age", "badge", "ratio",
+                                                                           "salary", "birthDate", "previousCompanyNames", "previousCompanyIds"));
+
+    private static SerializableCommand command(String commandName, Map<String, Object> parameters) {
+        SerializableCommand command = new SerializableCommand();
+        command.setCommandName(commandName);
+        command.setParameters(parameters);
+        return command;
+    }
+
+    private static SerializableTransaction buildTransaction() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", "person0");
+        parameters.put("name", "Alice");
+        parameters.put("active", true);
+        parameters.put("initial", 'a');
+        parameters.put("level", (byte) -3);
+        parameters.put("floor", (short) 12);
+        parameters.put("age", 42);
+        parameters.put("badge", Long.MIN_VALUE);
+        parameters.put("ratio", 0.5f);
+        parameters.put("salary", null);
+        parameters.put("birthDate", new Date(1_000_000_000_000L));
+        parameters.put("previousCompanyNames", List.of("Axway", "Iron"));
+        parameters.put("previousCompanyIds", List.of(3L, 1L));
+        // a parameter that has not been registered
+        parameters.put("nickname", "Al");
+
+        SerializableTransaction transaction = new SerializableTransaction();
+        transaction.setTransactionModelVersion(SerializableTransaction.TRANSACTION_MODEL_VERSION);
+        transaction.setSynchronizationId("e0b7f3b4-sync");
+        // a command that has not been registered
+        transaction.setCommands(List.of(command(CREATE_PERSON_COMMAND_NAME, parameters), command(DELETE_COMPANY_COMMAND_NAME, Map.of("name", "Iron"))));
+        return transaction;
+    }
+
+    private static byte[] serialize(TransactionSerializer serializer, SerializableTransaction transaction) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serializeTransaction(out, transaction);
+        return out.toByteArray();
+    }
+
+    private static TransactionSerializer buildSerializer() {
+        TransactionSerializer serializer = new BinaryTransactionSerializerBuilder().get();
+        serializer.registerCommands(COMMANDS);
+        return serializer;
+    }
+
+    @Test
+    public void shouldDeserializeTheSerializedTransaction() throws IOException {
+        TransactionSerializer serializer = buildSerializer();
+        SerializableTransaction transaction = buildTransaction();
+
+        SerializableTransaction deserializedTransaction = serializer.deserializeTransaction(new ByteArrayInputStream(serialize(serializer, transaction)));
+
+        assertThat(deserializedTransaction).isEqualToIgnoringGivenFields(transaction, "m_commands");
+        assertThat(deserializedTransaction.getCommands()).hasSameSizeAs(transaction.getCommands());
+        for (int i = 0; i < transaction.getCommands().size(); i++) {
+            SerializableCommand command = transaction.getCommands().get(i);
+            SerializableCommand deserializedCommand = deserializedTransaction.getCommands().get(i);
+            assertThat(deserializedCommand.getCommandName()).isEqualTo(command.getCommandName());
+            // the values are read with their original type
+            assertThat(deserializedCommand.getParameters()).isEqualTo(command.getParameters());
+        }
+    }
+
+    @Test
+    public void shouldNotWriteTheRegisteredNames() throws IOException {
+        SerializableTransaction transaction = buildTransaction();
+
+        byte[] serializedTransaction = serialize(buildSerializer(), transaction);
+        byte[] serializedTransactionWithoutDictionary = serialize(new BinaryTransactionSerializerBuilder().get(), transaction);
+
+        String content = new String(serializedTransaction, UTF_8);
+        assertThat(content).doesNotContain(CREATE_PERSON_COMMAND_NAME).doesNotContain("previousCompanyNames") //
+                .contains(DELETE_COMPANY_COMMAND_NAME).contains("nickname");
+        assertThat(serializedTransaction.length).isLessThan(serializedTransactionWithoutDictionary.length - CREATE_PERSON_COMMAND_NAME.length());
+    }
+
+    @Test
+    public void shouldKeepTheIdsWhenOtherCommandsAreRegistered() throws IOException {
+        SerializableTransaction transaction = buildTransaction();
+        byte[] serializedTransaction = serialize(buildSerializer(), transaction);
+
+        TransactionSerializer serializer = new BinaryTransactionSerializerBuilder().get();
+        serializer.registerCommands(Map.of(DELETE_COMPANY_COMMAND_NAME, Set.of("name")));
+        serializer.registerCommands(COMMANDS);
+
+        SerializableTransaction deserializedTransaction = serializer.deserializeTransaction(new ByteArrayInputStream(serializedTransaction));
+        assertThat(deserializedTransaction.getCommands()).extracting(SerializableCommand::getCommandName)
+                .containsExactly(CREATE_PERSON_COMMAND_NAME, DELETE_COMPANY_COMMAND_NAME);
+        assertThat(deserializedTransaction.getCommands().get(0).getParameters()).isEqualTo(transaction.getCommands().get(0).getParameters());
+    }
+
+    @Test
+    public void shouldReadATransactionWrittenBeforeACollidingNameHasBeenRegistered() throws IOException {
+        // "Aa" and "BB" have the same hash code, so these names have the same ids
+        SerializableTransaction transaction = new SerializableTransaction();
+        transaction.setTransactionModelVersion(SerializableTransaction.TRANSACTION_MODEL_VERSION);
+        transaction.setCommands(List.of(command("sample.AaCommand", Map.of("Aa", 1, "name", "Alice"))));
+        TransactionSerializer serializer = new BinaryTransactionSerializerBuilder().get();
+        serializer.registerCommands(Map.of("sample.AaCommand", Set.of("Aa", "name")));
+        byte[] serializedTransaction = serialize(serializer, transaction);
+        assertThat(new String(serializedTransaction, UTF_8)).doesNotContain("sample.AaCommand").doesNotContain("Aa");
+
+        TransactionSerializer nextVersionSerializer = new BinaryTransactionSerializerBuilder().get();
+        nextVersionSerializer.registerCommands(Map.of("sample.AaCommand", Set.of("Aa", "BB", "name"), "sample.BBCommand", Set.of("name")));
+
+        SerializableTransaction deserializedTransaction = nextVersionSerializer.deserializeTransaction(new ByteArrayInputStream(serializedTransaction));
+        assertThat(deserializedTransaction.getCommands()).extracting(SerializableCommand::getCommandName).containsExactly("sample.AaCommand");
+        assertThat(deserializedTransaction.getCommands().get(0).getParameters()).isEqualTo(Map.of("Aa", 1, "name", "Alice"));
+        // the colliding names keep their id
+        assertThat(serialize(nextVersionSerializer, transaction)).isEqualTo(serializedTransaction);
+    }
+
+    @Test
+    public void shouldNotReadACommandAsAnotherOneWithTheSameId() throws IOException {
+        SerializableTransaction transaction = new SerializableTransaction();
+        transaction.setTransactionModelVersion(SerializableTransaction.TRANSACTION_MODEL_VERSION);
+        transaction.setCommands(List.of(command("sample.AaCommand", Map.of("name", "Alice"))));
+        TransactionSerializer serializer = new BinaryTransactionSerializerBuilder().get();
+        serializer.registerCommands(Map.of("sample.AaCommand", Set.of("name")));
+        byte[] serializedTransaction = serialize(serializer, transaction);
+
+        // the command has been removed and a command with the same id has been added
+        TransactionSerializer nextVersionSerializer = new BinaryTransactionSerializerBuilder().get();
+        nextVersionSerializer.registerCommands(Map.of("sample.BBCommand", Set.of("name")));
+
+        assertThatThrownBy(() -> nextVersionSerializer.deserializeTransaction(new ByteArrayInputStream(serializedTransaction)))
+                .isInstanceOf(StreamCorruptedException.class).hasMessageStartingWith("Unknown command id in binary transaction");
+    }
+
+    @Test
+    public void shouldRejectACommandThatIsNotRegistered() throws IOException {
+        byte[] serializedTransaction = serialize(buildSerializer(), buildTransaction());
+
+        assertThatThrownBy(() -> new BinaryTransactionSerializerBuilder().get().deserializeTransaction(new ByteArrayInputStream(serializedTransaction)))
+                .isInstanceOf(StreamCorruptedException.class).hasMessageStartingWith("Unknown command id in binary transaction");
+    }
+
+    @Test
+    public void shouldRejectATransactionThatIsNotBinary() {
+        byte[] jsonTransaction = "{\"transactionModelVersion\":1,\"commands\":[]}".getBytes(UTF_8);
+
+        assertThatThrownBy(() -> buildSerializer().deserializeTransaction(new ByteArrayInputStream(jsonTransaction)))
+                .isInstanceOf(StreamCorruptedException.class).hasMessage("Not a binary transaction");
+    }
+}
@@ -0,0 +1,36 @@
+package io.axway.iron.spi.jackson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Data formats written by the {@link JacksonSerializer}.<br>
+ * The binary formats are written with their header, so the format of a serialized transaction or snapshot is detected when it's read.
+ */
+public enum JacksonFormat {
+    JSON {
+        @Override
+        JsonFactory createFactory() {
+            return new JsonFactory();
+        }
+    },
+
+    CBOR {
+        @Override
+        JsonFactory createFactory() {
+            return CBORFactory.builder().enable(CBORGenerator.Feature.WRITE_TYPE_HEADER).build();
+        }
+    },
+
+    SMILE {
+        @Override
+        JsonFactory createFactory() {
+            return SmileFactory.builder().enable(SmileGenerator.Feature.WRITE_HEADER).build();
+        }
+    };
+
+    abstract JsonFactory createFactory();
+}
@@ -1,6 +1,13 @@
 package io.axway.iron.spi.jackson;
 
 import java.io.*;
+import java.util.*;
+import java.util.stream.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.format.DataFormatDetector;
+import com.fasterxml.jackson.core.format.DataFormatMatcher;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -8,17 +15,50 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
 import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
 import io.axway.iron.spi.model.transaction.SerializableTransaction;
+import io.axway.iron.spi.serializer.SnapshotHandler;
 import io.axway.iron.spi.serializer.SnapshotSerializer;
+import io.axway.iron.spi.serializer.SnapshotWriter;
 import io.axway.iron.spi.serializer.TransactionSerializer;
 
+/**
+ * Jackson transaction and snapshot serializer.<br>
+ * Transactions and snapshots are written in the {@link JacksonFormat} given at creation time. They are read in any of the formats, detected from the
+ * beginning of the data, so changing the format of a store doesn't prevent from reading its existing transactions and snapshots.
+ */
 public class JacksonSerializer implements TransactionSerializer, SnapshotSerializer {
     private final ObjectMapper m_objectMapper;
+    private final DataFormatDetector m_formatDetector;
 
     JacksonSerializer() {
-        m_objectMapper = new ObjectMapper();
-        m_objectMapper.setAnnotationIntrospector(new JaxbAnnotationIntrospector(TypeFactory.defaultInstance()));
-        m_objectMapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
-        m_objectMapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        this(JacksonFormat.JSON);
+    }
+
+    JacksonSerializer(JacksonFormat format) {
+        Map<JacksonFormat, ObjectMapper> objectMappers = new EnumMap<>(JacksonFormat.class);
+        for (JacksonFormat supportedFormat : JacksonFormat.values()) {
+            objectMappers.put(supportedFormat, createObjectMapper(supportedFormat));
+        }
+        m_objectMapper = objectMappers.get(format);
+        m_formatDetector = new DataFormatDetector(objectMappers.values().stream().map(ObjectMapper::getFactory).collect(Collectors.toList()));
+    }
+
+    private static ObjectMapper createObjectMapper(JacksonFormat format) {
+        ObjectMapper objectMapper = new ObjectMapper(format.createFactory());
+        objectMapper.setAnnotationIntrospector(new JaxbAnnotationIntrospector(TypeFactory.defaultInstance()));
+        objectMapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+        objectMapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        return objectMapper;
+    }
+
+    /**
+     * Create a parser for the format of the data.
+     */
+    private JsonParser createParser(InputStream in) throws IOException {
+        DataFormatMatcher formatMatcher = m_formatDetector.findFormat(in);
+        if (!formatMatcher.hasMatch()) {
+            throw new JsonParseException(null, "Data format is not supported, expected one of " + Arrays.toString(JacksonFormat.values()));
+        }
+        return formatMatcher.createParserWithMatch();
     }
 
     @Override
@@ -28,7 +68,9 @@ public class JacksonSerializer implements TransactionSerializer, SnapshotSeriali
 
     @Override
     public SerializableTransaction deserializeTransaction(InputStream in) throws IOException {
-        return m_objectMapper.reader().forType(SerializableTransaction.class).readValue(in);
+        try (JsonParser parser = createParser(in)) {
+            return m_objectMapper.readerFor(SerializableTransaction.class).readValue(parser);
+        }
     }
 
     @Override
@@ -36,8 +78,23 @@ public class JacksonSerializer implements TransactionSerializer, SnapshotSeriali
         m_objectMapper.writer().writeValues(out).write(serializableSnapshot);
     }
 
+    @Override
+    public SnapshotWriter createSnapshotWriter(OutputStream out, SerializableSnapshot snapshotHeader) throws IOException {
+        JsonGenerator generator = m_objectMapper.getFactory().createGenerator(out);
+        // the output stream is owned by the caller
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return new JacksonSnapshotWriter(generator, snapshotHeader);
+    }
+
     @Override
     public SerializableSnapshot deserializeSnapshot(String storeName, InputStream in) throws IOException {
-        return m_objectMapper.reader().forType(SerializableSnapshot.class).readValue(in);
+        try (JsonParser parser = createParser(in)) {
+            return m_objectMapper.readerFor(SerializableSnapshot.class).readValue(parser);
+        }
+    }
+
+    @Override
+    public void deserializeSnapshot(String storeName, InputStream in, SnapshotHandler snapshotHandler) throws IOException {
+        new JacksonSnapshotReader(m_objectMapper).read(createParser(in), snapshotHandler);
     }
 }
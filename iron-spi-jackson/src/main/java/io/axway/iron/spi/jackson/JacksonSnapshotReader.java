@@ -0,0 +1,84 @@
+package io.axway.iron.spi.jackson;
+
+import java.io.*;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableInstance;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.serializer.SnapshotHandler;
+
+/**
+ * Stream a snapshot to a {@link SnapshotHandler}: only the snapshot header, the definition of the current entity and the current instance are
+ * deserialized in memory. The definition of an entity must be before its instances, as written by {@link JacksonSerializer}.
+ */
+class JacksonSnapshotReader {
+    private static final String ENTITIES_FIELD = "entities";
+    private static final String INSTANCES_FIELD = "instances";
+
+    private final ObjectMapper m_objectMapper;
+
+    JacksonSnapshotReader(ObjectMapper objectMapper) {
+        m_objectMapper = objectMapper;
+    }
+
+    /**
+     * @param parser the parser of the snapshot, it's closed once the snapshot has been read
+     */
+    void read(JsonParser parser, SnapshotHandler snapshotHandler) throws IOException {
+        try (parser) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            ObjectNode snapshotHeader = m_objectMapper.createObjectNode();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (ENTITIES_FIELD.equals(fieldName) && token != JsonToken.VALUE_NULL) {
+                    expect(parser, token, JsonToken.START_ARRAY);
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readEntity(parser, snapshotHandler);
+                    }
+                } else {
+                    snapshotHeader.set(fieldName, parser.readValueAsTree());
+                }
+            }
+            snapshotHandler.endSnapshot(m_objectMapper.treeToValue(snapshotHeader, SerializableSnapshot.class));
+        }
+    }
+
+    private void readEntity(JsonParser parser, SnapshotHandler snapshotHandler) throws IOException {
+        ObjectNode entityDefinition = m_objectMapper.createObjectNode();
+        boolean instancesRead = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (instancesRead) {
+                throw new JsonParseException(parser, "The entity definition must be before the entity instances");
+            }
+            if (INSTANCES_FIELD.equals(fieldName)) {
+                snapshotHandler.beginEntity(m_objectMapper.treeToValue(entityDefinition, SerializableEntity.class));
+                instancesRead = true;
+                if (token != JsonToken.VALUE_NULL) {
+                    expect(parser, token, JsonToken.START_ARRAY);
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        snapshotHandler.instance(parser.readValueAs(SerializableInstance.class));
+                    }
+                }
+            } else {
+                entityDefinition.set(fieldName, parser.readValueAsTree());
+            }
+        }
+        if (!instancesRead) {
+            snapshotHandler.beginEntity(m_objectMapper.treeToValue(entityDefinition, SerializableEntity.class));
+        }
+        snapshotHandler.endEntity();
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expectedToken) throws JsonParseException {
+        if (token != expectedToken) {
+            throw new JsonParseException(parser, "Unexpected token " + token + ", expected " + expectedToken);
+        }
+    }
+}
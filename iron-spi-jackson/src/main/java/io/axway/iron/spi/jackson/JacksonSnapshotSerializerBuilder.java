@@ -1,11 +1,22 @@
 package io.axway.iron.spi.jackson;
 
 import java.util.function.*;
+import javax.annotation.*;
 import io.axway.iron.spi.serializer.SnapshotSerializer;
 
 public class JacksonSnapshotSerializerBuilder implements Supplier<SnapshotSerializer> {
+    private JacksonFormat m_format = JacksonFormat.JSON;
+
+    /**
+     * Set the format of the written snapshots, {@link JacksonFormat#JSON} by default. The snapshots are read whatever their format.
+     */
+    public JacksonSnapshotSerializerBuilder setFormat(@Nullable JacksonFormat format) {
+        m_format = format != null ? format : JacksonFormat.JSON;
+        return this;
+    }
+
     @Override
     public SnapshotSerializer get() {
-        return new JacksonSerializer();
+        return new JacksonSerializer(m_format);
     }
 }
@@ -0,0 +1,67 @@
+package io.axway.iron.spi.jackson;
+
+import java.io.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.serializer.SnapshotWriter;
+
+/**
+ * Stream a snapshot in the same JSON format than {@link JacksonSerializer#serializeSnapshot}. The snapshot header and the entity definitions are
+ * written before the entity instances, so a snapshot can also be read while being streamed.
+ */
+class JacksonSnapshotWriter implements SnapshotWriter {
+    private final JsonGenerator m_generator;
+
+    JacksonSnapshotWriter(JsonGenerator generator, SerializableSnapshot snapshotHeader) throws IOException {
+        m_generator = generator;
+        m_generator.writeStartObject();
+        m_generator.writeNumberField("snapshotModelVersion", snapshotHeader.getSnapshotModelVersion());
+        m_generator.writeNumberField("applicationModelVersion", snapshotHeader.getApplicationModelVersion());
+        m_generator.writeFieldName("transactionId");
+        m_generator.writeNumber(snapshotHeader.getTransactionId());
+        m_generator.writeArrayFieldStart("entities");
+    }
+
+    @Override
+    public void beginEntity(SerializableEntity entity) throws IOException {
+        m_generator.writeStartObject();
+        m_generator.writeStringField("entityName", entity.getEntityName());
+        m_generator.writeObjectField("relations", entity.getRelations());
+        m_generator.writeObjectField("attributes", entity.getAttributes());
+        m_generator.writeObjectField("uniques", entity.getUniques());
+        m_generator.writeNumberField("nextId", entity.getNextId());
+        m_generator.writeArrayFieldStart("instances");
+    }
+
+    @Override
+    public void beginInstance(long id) throws IOException {
+        m_generator.writeStartObject();
+        m_generator.writeNumberField("id", id);
+        m_generator.writeObjectFieldStart("values");
+    }
+
+    @Override
+    public void writeValue(String name, Object value) throws IOException {
+        m_generator.writeObjectField(name, value);
+    }
+
+    @Override
+    public void endInstance() throws IOException {
+        m_generator.writeEndObject();
+        m_generator.writeEndObject();
+    }
+
+    @Override
+    public void endEntity() throws IOException {
+        m_generator.writeEndArray();
+        m_generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        m_generator.writeEndArray();
+        m_generator.writeEndObject();
+        m_generator.close();
+    }
+}
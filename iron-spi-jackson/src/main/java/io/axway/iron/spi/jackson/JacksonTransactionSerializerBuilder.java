@@ -1,11 +1,22 @@
 package io.axway.iron.spi.jackson;
 
 import java.util.function.*;
+import javax.annotation.*;
 import io.axway.iron.spi.serializer.TransactionSerializer;
 
 public class JacksonTransactionSerializerBuilder implements Supplier<TransactionSerializer> {
+    private JacksonFormat m_format = JacksonFormat.JSON;
+
+    /**
+     * Set the format of the written transactions, {@link JacksonFormat#JSON} by default. The transactions are read whatever their format.
+     */
+    public JacksonTransactionSerializerBuilder setFormat(@Nullable JacksonFormat format) {
+        m_format = format != null ? format : JacksonFormat.JSON;
+        return this;
+    }
+
     @Override
     public TransactionSerializer get() {
-        return new JacksonSerializer();
+        return new JacksonSerializer(m_format);
     }
 }
@@ -3,13 +3,19 @@ package io.axway.iron.spi.jackson;
 import java.io.*;
 import java.math.BigInteger;
 import java.util.*;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import io.axway.iron.spi.model.snapshot.SerializableAttributeDefinition;
 import io.axway.iron.spi.model.snapshot.SerializableEntity;
 import io.axway.iron.spi.model.snapshot.SerializableInstance;
 import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+import io.axway.iron.spi.model.transaction.SerializableCommand;
+import io.axway.iron.spi.model.transaction.SerializableTransaction;
+import io.axway.iron.spi.serializer.SnapshotHandler;
+import io.axway.iron.spi.serializer.SnapshotWriter;
 
-import static org.assertj.core.api.Assertions.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.*;
 
 public class JacksonSerializerTest {
 
@@ -51,5 +57,158 @@ public class JacksonSerializerTest {
         // Then the snapshot reflects the resource content, and contains also the storeName
         assertThat(serializableSnapshot.getApplicationModelVersion()).isEqualTo(666L);
     }
-}
 
+    @Test
+    public void shouldStreamASnapshotThatCanBeDeserialized() throws IOException {
+        JacksonSerializer jacksonSerializer = new JacksonSerializer();
+        SerializableSnapshot snapshotHeader = new SerializableSnapshot();
+        snapshotHeader.setSnapshotModelVersion(1L);
+        snapshotHeader.setApplicationModelVersion(42L);
+        snapshotHeader.setTransactionId(new BigInteger("123456789"));
+        SerializableEntity entity = new SerializableEntity();
+        entity.setEntityName("io.axway.iron.spi.jackson.SimpleEntity");
+        entity.setRelations(Map.of());
+        SerializableAttributeDefinition attributeDefinition = new SerializableAttributeDefinition();
+        attributeDefinition.setDataType("java.lang.String");
+        entity.setAttributes(Map.of("simpleAttribute", attributeDefinition));
+        entity.setUniques(List.of(List.of("simpleAttribute")));
+        entity.setNextId(2L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter snapshotWriter = jacksonSerializer.createSnapshotWriter(out, snapshotHeader)) {
+            snapshotWriter.beginEntity(entity);
+            snapshotWriter.beginInstance(0L);
+            snapshotWriter.writeValue("simpleAttribute", "first");
+            snapshotWriter.endInstance();
+            snapshotWriter.beginInstance(1L);
+            snapshotWriter.writeValue("simpleAttribute", "second");
+            snapshotWriter.writeValue("relation", List.of(0L));
+            snapshotWriter.endInstance();
+            snapshotWriter.endEntity();
+        }
+
+        SerializableSnapshot serializableSnapshot = jacksonSerializer.deserializeSnapshot("myStoreName", new ByteArrayInputStream(out.toByteArray()));
+        assertThat(serializableSnapshot.getSnapshotModelVersion()).isEqualTo(1L);
+        assertThat(serializableSnapshot.getApplicationModelVersion()).isEqualTo(42L);
+        assertThat(serializableSnapshot.getTransactionId()).isEqualTo(new BigInteger("123456789"));
+        assertThat(serializableSnapshot.getEntities()).hasSize(1);
+        SerializableEntity serializableEntity = serializableSnapshot.getEntities().iterator().next();
+        assertThat(serializableEntity.getEntityName()).isEqualTo("io.axway.iron.spi.jackson.SimpleEntity");
+        assertThat(serializableEntity.getAttributes()).containsOnlyKeys("simpleAttribute");
+        assertThat(serializableEntity.getUniques()).containsExactly(List.of("simpleAttribute"));
+        assertThat(serializableEntity.getNextId()).isEqualTo(2L);
+        assertThat(serializableEntity.getInstances()).extracting(SerializableInstance::getId).containsExactly(0L, 1L);
+        assertThat(serializableEntity.getInstances()).extracting(SerializableInstance::getValues)
+                .containsExactly(Map.of("simpleAttribute", "first"), Map.of("simpleAttribute", "second", "relation", List.of(0)));
+    }
+
+    @Test
+    public void shouldStreamTheDeserializedSnapshotToAHandler() throws IOException {
+        JacksonSerializer jacksonSerializer = new JacksonSerializer();
+        InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("io/axway/iron/spi/jackson/simple.snapshotWithAppModelVersion.json");
+        List<Object> events = new ArrayList<>();
+        jacksonSerializer.deserializeSnapshot("myStoreName", inputStream, new SnapshotHandler() {
+            @Override
+            public void beginEntity(SerializableEntity entity) {
+                events.add(entity.getEntityName() + " nextId=" + entity.getNextId() + " uniques=" + entity.getUniques());
+            }
+
+            @Override
+            public void instance(SerializableInstance instance) {
+                events.add(instance.getId() + " " + instance.getValues());
+            }
+
+            @Override
+            public void endEntity() {
+                events.add("endEntity");
+            }
+
+            @Override
+            public void endSnapshot(SerializableSnapshot snapshotHeader) {
+                assertThat(snapshotHeader.getEntities()).isNull();
+                events.add(snapshotHeader.getSnapshotModelVersion() + " " + snapshotHeader.getApplicationModelVersion() + " " +
+                                   snapshotHeader.getTransactionId());
+            }
+        });
+        assertThat(events).containsExactly("io.axway.iron.spi.jackson.SimpleEntity nextId=1 uniques=[[simpleAttribute]]", //
+                                           "0 {simpleAttribute=simpleAttributeValue}", //
+                                           "endEntity", //
+                                           "123 666 123456789");
+    }
+
+    @DataProvider
+    public Object[][] formats() {
+        return Arrays.stream(JacksonFormat.values()).map(format -> new Object[]{format}).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "formats")
+    public void shouldReadATransactionWhateverItsFormat(JacksonFormat format) throws IOException {
+        SerializableCommand command = new SerializableCommand();
+        command.setCommandName("io.axway.iron.sample.command.CreatePerson");
+        command.setParameters(Map.of("id", "person0", "age", 42, "previousCompanyNames", List.of("Axway", "Iron")));
+        SerializableTransaction transaction = new SerializableTransaction();
+        transaction.setTransactionModelVersion(SerializableTransaction.TRANSACTION_MODEL_VERSION);
+        transaction.setSynchronizationId("sync");
+        transaction.setCommands(List.of(command));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JacksonTransactionSerializerBuilder().setFormat(format).get().serializeTransaction(out, transaction);
+        // the serializer writes JSON but reads any format
+        SerializableTransaction deserializedTransaction = new JacksonSerializer().deserializeTransaction(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(deserializedTransaction).isEqualToIgnoringGivenFields(transaction, "m_commands");
+        assertThat(deserializedTransaction.getCommands()).hasSize(1);
+        assertThat(deserializedTransaction.getCommands().get(0)).isEqualToComparingFieldByField(command);
+    }
+
+    @Test(dataProvider = "formats")
+    public void shouldStreamASnapshotWhateverItsFormat(JacksonFormat format) throws IOException {
+        SerializableSnapshot snapshotHeader = new SerializableSnapshot();
+        snapshotHeader.setSnapshotModelVersion(1L);
+        snapshotHeader.setTransactionId(new BigInteger("123456789"));
+        SerializableEntity entity = new SerializableEntity();
+        entity.setEntityName("io.axway.iron.spi.jackson.SimpleEntity");
+        entity.setNextId(1L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter snapshotWriter = new JacksonSnapshotSerializerBuilder().setFormat(format).get().createSnapshotWriter(out, snapshotHeader)) {
+            snapshotWriter.beginEntity(entity);
+            snapshotWriter.beginInstance(0L);
+            snapshotWriter.writeValue("simpleAttribute", "first");
+            snapshotWriter.endInstance();
+            snapshotWriter.endEntity();
+        }
+
+        List<Object> events = new ArrayList<>();
+        new JacksonSerializer().deserializeSnapshot("myStoreName", new ByteArrayInputStream(out.toByteArray()), new SnapshotHandler() {
+            @Override
+            public void beginEntity(SerializableEntity entity) {
+                events.add(entity.getEntityName());
+            }
+
+            @Override
+            public void instance(SerializableInstance instance) {
+                events.add(instance.getId() + " " + instance.getValues());
+            }
+
+            @Override
+            public void endEntity() {
+                events.add("endEntity");
+            }
+
+            @Override
+            public void endSnapshot(SerializableSnapshot snapshotHeader) {
+                events.add(snapshotHeader.getSnapshotModelVersion() + " " + snapshotHeader.getTransactionId());
+            }
+        });
+        assertThat(events).containsExactly("io.axway.iron.spi.jackson.SimpleEntity", "0 {simpleAttribute=first}", "endEntity", "1 123456789");
+    }
+
+    @Test
+    public void shouldRejectADataFormatThatIsNotSupported() {
+        byte[] data = "<transaction/>".getBytes(UTF_8);
+
+        assertThatThrownBy(() -> new JacksonSerializer().deserializeTransaction(new ByteArrayInputStream(data))).isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Data format is not supported");
+    }
+}
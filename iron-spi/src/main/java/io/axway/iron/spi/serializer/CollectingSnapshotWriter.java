@@ -0,0 +1,62 @@
+package io.axway.iron.spi.serializer;
+
+import java.io.*;
+import java.util.*;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableInstance;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+
+/**
+ * Default {@link SnapshotWriter} of the serializers that don't stream: the snapshot is collected in memory, then serialized when the writer is closed.
+ */
+final class CollectingSnapshotWriter implements SnapshotWriter {
+    private final SnapshotSerializer m_snapshotSerializer;
+    private final OutputStream m_out;
+    private final SerializableSnapshot m_snapshot;
+    private final List<SerializableEntity> m_entities = new ArrayList<>();
+    private List<SerializableInstance> m_instances;
+    private Map<String, Object> m_values;
+
+    CollectingSnapshotWriter(SnapshotSerializer snapshotSerializer, OutputStream out, SerializableSnapshot snapshot) {
+        m_snapshotSerializer = snapshotSerializer;
+        m_out = out;
+        m_snapshot = snapshot;
+    }
+
+    @Override
+    public void beginEntity(SerializableEntity entity) {
+        m_instances = new ArrayList<>();
+        entity.setInstances(m_instances);
+        m_entities.add(entity);
+    }
+
+    @Override
+    public void beginInstance(long id) {
+        m_values = new HashMap<>();
+        SerializableInstance instance = new SerializableInstance();
+        instance.setId(id);
+        instance.setValues(m_values);
+        m_instances.add(instance);
+    }
+
+    @Override
+    public void writeValue(String name, Object value) {
+        m_values.put(name, value);
+    }
+
+    @Override
+    public void endInstance() {
+        m_values = null;
+    }
+
+    @Override
+    public void endEntity() {
+        m_instances = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        m_snapshot.setEntities(m_entities);
+        m_snapshotSerializer.serializeSnapshot(m_out, m_snapshot);
+    }
+}
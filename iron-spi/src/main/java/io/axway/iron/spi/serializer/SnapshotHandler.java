@@ -0,0 +1,40 @@
+package io.axway.iron.spi.serializer;
+
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableInstance;
+import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
+
+/**
+ * Receive a snapshot streamed by {@link SnapshotSerializer#deserializeSnapshot(String, java.io.InputStream, SnapshotHandler)}, so the whole snapshot never
+ * has to be deserialized in memory:
+ * <pre>
+ * (beginEntity instance* endEntity)* endSnapshot
+ * </pre>
+ */
+public interface SnapshotHandler {
+    /**
+     * Begin to read an entity.
+     *
+     * @param entity the entity definition, without its instances since they are given to {@link #instance(SerializableInstance)}
+     */
+    void beginEntity(SerializableEntity entity);
+
+    /**
+     * Read an instance of the current entity.
+     *
+     * @param instance the instance
+     */
+    void instance(SerializableInstance instance);
+
+    /**
+     * End the current entity.
+     */
+    void endEntity();
+
+    /**
+     * End the snapshot. The header is given last since the serializers may not store it before the entities.
+     *
+     * @param snapshotHeader the snapshot versions and transaction id, without the entities
+     */
+    void endSnapshot(SerializableSnapshot snapshotHeader);
+}
@@ -1,6 +1,9 @@
 package io.axway.iron.spi.serializer;
 
 import java.io.*;
+import java.util.*;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+import io.axway.iron.spi.model.snapshot.SerializableInstance;
 import io.axway.iron.spi.model.snapshot.SerializableSnapshot;
 
 /**
@@ -17,6 +20,19 @@ public interface SnapshotSerializer {
      */
     void serializeSnapshot(OutputStream out, SerializableSnapshot serializableSnapshot) throws IOException;
 
+    /**
+     * Create a writer that streams a snapshot, entity by entity and instance by instance.<br>
+     * The default implementation collects the snapshot in memory and serializes it with {@link #serializeSnapshot} when the writer is closed.
+     *
+     * @param out the stream where the serialized snapshot must be written
+     * @param snapshotHeader the snapshot versions and transaction id, its entities are ignored since they are written with the returned writer
+     * @return the snapshot writer, that must be closed to end the snapshot
+     * @throws IOException in case of errors when writing on the {@code out} stream
+     */
+    default SnapshotWriter createSnapshotWriter(OutputStream out, SerializableSnapshot snapshotHeader) throws IOException {
+        return new CollectingSnapshotWriter(this, out, snapshotHeader);
+    }
+
     /**
      * Deserialize a snapshot.
      *
@@ -27,4 +43,26 @@ public interface SnapshotSerializer {
      * @throws IOException in case of errors when writing on the {@code in} stream
      */
     SerializableSnapshot deserializeSnapshot(String storeName, InputStream in) throws IOException;
+
+    /**
+     * Deserialize a snapshot by streaming it to a handler, entity by entity and instance by instance.<br>
+     * The default implementation deserializes the whole snapshot with {@link #deserializeSnapshot(String, InputStream)} and then streams it.
+     *
+     * @param storeName the name of the store
+     * @param in the snapshot is to be read from this stream
+     * @param snapshotHandler the handler of the deserialized snapshot
+     * @throws IOException in case of errors when reading the {@code in} stream
+     */
+    default void deserializeSnapshot(String storeName, InputStream in, SnapshotHandler snapshotHandler) throws IOException {
+        SerializableSnapshot serializableSnapshot = deserializeSnapshot(storeName, in);
+        for (SerializableEntity entity : serializableSnapshot.getEntities()) {
+            Collection<SerializableInstance> instances = entity.getInstances();
+            entity.setInstances(null);
+            snapshotHandler.beginEntity(entity);
+            instances.forEach(snapshotHandler::instance);
+            snapshotHandler.endEntity();
+        }
+        serializableSnapshot.setEntities(null);
+        snapshotHandler.endSnapshot(serializableSnapshot);
+    }
 }
@@ -0,0 +1,60 @@
+package io.axway.iron.spi.serializer;
+
+import java.io.*;
+import io.axway.iron.spi.model.snapshot.SerializableEntity;
+
+/**
+ * Streaming writer of a snapshot, created by {@link SnapshotSerializer#createSnapshotWriter}.<br>
+ * The entities are written one after the other, each one followed by its instances, so the whole snapshot never has to be built in memory:
+ * <pre>
+ * beginEntity (beginInstance writeValue* endInstance)* endEntity
+ * </pre>
+ */
+public interface SnapshotWriter extends Closeable {
+    /**
+     * Begin to write an entity.
+     *
+     * @param entity the entity definition, its instances are ignored since they are written with {@link #beginInstance(long)}
+     * @throws IOException in case of errors when writing the entity
+     */
+    void beginEntity(SerializableEntity entity) throws IOException;
+
+    /**
+     * Begin to write an instance of the current entity.
+     *
+     * @param id the id of the instance
+     * @throws IOException in case of errors when writing the instance
+     */
+    void beginInstance(long id) throws IOException;
+
+    /**
+     * Write a value of the current instance.
+     *
+     * @param name the name of the attribute or relation
+     * @param value the non {@code null} value
+     * @throws IOException in case of errors when writing the value
+     */
+    void writeValue(String name, Object value) throws IOException;
+
+    /**
+     * End the current instance.
+     *
+     * @throws IOException in case of errors when writing the instance
+     */
+    void endInstance() throws IOException;
+
+    /**
+     * End the current entity.
+     *
+     * @throws IOException in case of errors when writing the entity
+     */
+    void endEntity() throws IOException;
+
+    /**
+     * End the snapshot. The underlying stream is flushed but not closed.
+     *
+     * @throws IOException in case of errors when writing the snapshot
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -1,6 +1,7 @@
 package io.axway.iron.spi.serializer;
 
 import java.io.*;
+import java.util.*;
 import io.axway.iron.spi.model.transaction.SerializableTransaction;
 
 /**
@@ -8,6 +9,16 @@ import io.axway.iron.spi.model.transaction.SerializableTransaction;
  * It reads/writes transaction's commands with theirs parameters.
  */
 public interface TransactionSerializer {
+    /**
+     * Declare the commands of a store manager, with the names of their parameters. It's called when the store manager is built, before it serializes or
+     * deserializes any transaction. A serializer shared by many store managers is given the commands of each of them.<br>
+     * The default implementation ignores the commands, a serializer may use them to encode the command and parameter names compactly.
+     *
+     * @param parameterNamesByCommandName the parameter names of the commands, by command name
+     */
+    default void registerCommands(Map<String, Set<String>> parameterNamesByCommandName) {
+    }
+
     /**
      * Serialize a transaction.
      *